@@ -0,0 +1,16 @@
+package pl.allegro.tech.hermes.api;
+
+public enum BatchFormat {
+    JSON_ARRAY, AVRO_OBJECT_CONTAINER, LENGTH_PREFIXED;
+
+    public boolean supports(ContentType contentType) {
+        switch (this) {
+            case JSON_ARRAY:
+                return contentType == ContentType.JSON;
+            case AVRO_OBJECT_CONTAINER:
+                return contentType == ContentType.AVRO;
+            default:
+                return true;
+        }
+    }
+}
@@ -37,6 +37,10 @@ public class BatchSubscriptionPolicy {
     @Min(1)
     private int batchVolume;
 
+    private BatchFormat batchFormat = BatchFormat.JSON_ARRAY;
+
+    private BatchCompression batchCompression = BatchCompression.NONE;
+
     private BatchSubscriptionPolicy() {}
 
     public BatchSubscriptionPolicy(int messageTtl,
@@ -46,6 +50,19 @@ public class BatchSubscriptionPolicy {
                                    int batchSize,
                                    int batchTime,
                                    int batchVolume) {
+        this(messageTtl, retryClientErrors, messageBackoff, requestTimeout, batchSize, batchTime, batchVolume,
+                BatchFormat.JSON_ARRAY, BatchCompression.NONE);
+    }
+
+    public BatchSubscriptionPolicy(int messageTtl,
+                                   boolean retryClientErrors,
+                                   int messageBackoff,
+                                   int requestTimeout,
+                                   int batchSize,
+                                   int batchTime,
+                                   int batchVolume,
+                                   BatchFormat batchFormat,
+                                   BatchCompression batchCompression) {
         this.messageTtl = messageTtl;
         this.retryClientErrors = retryClientErrors;
         this.messageBackoff = messageBackoff;
@@ -53,6 +70,8 @@ public class BatchSubscriptionPolicy {
         this.batchSize = batchSize;
         this.batchTime = batchTime;
         this.batchVolume = batchVolume;
+        this.batchFormat = batchFormat;
+        this.batchCompression = batchCompression;
     }
 
     @JsonCreator
@@ -64,13 +83,16 @@ public class BatchSubscriptionPolicy {
                 (Integer) properties.getOrDefault("requestTimeout", DEFAULT_REQUEST_TIMEOUT),
                 (Integer) properties.getOrDefault("batchSize", DEFAULT_BATCH_SIZE),
                 (Integer) properties.getOrDefault("batchTime", DEFAULT_BATCH_TIME),
-                (Integer) properties.getOrDefault("batchVolume", DEFAULT_BATCH_VOLUME)
+                (Integer) properties.getOrDefault("batchVolume", DEFAULT_BATCH_VOLUME),
+                BatchFormat.valueOf((String) properties.getOrDefault("batchFormat", BatchFormat.JSON_ARRAY.name())),
+                BatchCompression.valueOf((String) properties.getOrDefault("batchCompression", BatchCompression.NONE.name()))
         );
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(messageTtl, retryClientErrors, messageBackoff, requestTimeout, batchSize, batchTime, batchVolume);
+        return Objects.hash(messageTtl, retryClientErrors, messageBackoff, requestTimeout, batchSize, batchTime, batchVolume,
+                batchFormat, batchCompression);
     }
 
     @Override
@@ -88,7 +110,9 @@ public class BatchSubscriptionPolicy {
                 && Objects.equals(this.requestTimeout, other.requestTimeout)
                 && Objects.equals(this.batchSize, other.batchSize)
                 && Objects.equals(this.batchTime, other.batchTime)
-                && Objects.equals(this.batchVolume, other.batchVolume);
+                && Objects.equals(this.batchVolume, other.batchVolume)
+                && Objects.equals(this.batchFormat, other.batchFormat)
+                && Objects.equals(this.batchCompression, other.batchCompression);
     }
 
     @Override
@@ -100,6 +124,8 @@ public class BatchSubscriptionPolicy {
                 .add("batchSize", batchSize)
                 .add("batchTime", batchTime)
                 .add("batchVolume", batchVolume)
+                .add("batchFormat", batchFormat)
+                .add("batchCompression", batchCompression)
                 .add("requestTimeout", requestTimeout)
                 .toString();
     }
@@ -132,6 +158,14 @@ public class BatchSubscriptionPolicy {
         return requestTimeout;
     }
 
+    public BatchFormat getBatchFormat() {
+        return batchFormat;
+    }
+
+    public BatchCompression getBatchCompression() {
+        return batchCompression;
+    }
+
     public static class Builder {
 
         private BatchSubscriptionPolicy subscriptionPolicy;
@@ -179,6 +213,16 @@ public class BatchSubscriptionPolicy {
             return this;
         }
 
+        public Builder withBatchFormat(BatchFormat batchFormat) {
+            subscriptionPolicy.batchFormat = batchFormat;
+            return this;
+        }
+
+        public Builder withBatchCompression(BatchCompression batchCompression) {
+            subscriptionPolicy.batchCompression = batchCompression;
+            return this;
+        }
+
         public BatchSubscriptionPolicy build() {
             return new BatchSubscriptionPolicy(
                     subscriptionPolicy.messageTtl,
@@ -187,7 +231,9 @@ public class BatchSubscriptionPolicy {
                     subscriptionPolicy.requestTimeout,
                     subscriptionPolicy.batchSize,
                     subscriptionPolicy.batchTime,
-                    subscriptionPolicy.batchVolume);
+                    subscriptionPolicy.batchVolume,
+                    subscriptionPolicy.batchFormat,
+                    subscriptionPolicy.batchCompression);
         }
 
         public Builder applyDefaults() {
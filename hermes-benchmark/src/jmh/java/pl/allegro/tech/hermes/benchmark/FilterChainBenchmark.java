@@ -0,0 +1,175 @@
+package pl.allegro.tech.hermes.benchmark;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.allegro.tech.hermes.api.ContentType;
+import pl.allegro.tech.hermes.api.MessageFilterSpecification;
+import pl.allegro.tech.hermes.common.message.converter.AvroRecordToBytesConverter;
+import pl.allegro.tech.hermes.domain.filtering.FilterableMessage;
+import pl.allegro.tech.hermes.domain.filtering.MessageFilter;
+import pl.allegro.tech.hermes.domain.filtering.MessageFilters;
+import pl.allegro.tech.hermes.domain.filtering.avro.AvroPathSubscriptionMessageFilterCompiler;
+import pl.allegro.tech.hermes.domain.filtering.chain.FilterChain;
+import pl.allegro.tech.hermes.domain.filtering.chain.FilterChainFactory;
+import pl.allegro.tech.hermes.domain.filtering.header.HeaderSubscriptionMessageFilterCompiler;
+import pl.allegro.tech.hermes.domain.filtering.json.JsonPathSubscriptionMessageFilterCompiler;
+import pl.allegro.tech.hermes.schema.CompiledSchema;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares applying a {@link FilterChain}, which parses message content once for all filters, with applying
+ * the same filters one by one, each parsing the content on its own (previous behaviour of the chain).
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FilterChainBenchmark {
+
+    private static final MessageFilters MESSAGE_FILTERS = new MessageFilters(Collections.emptyList(), List.of(
+            new JsonPathSubscriptionMessageFilterCompiler(),
+            new AvroPathSubscriptionMessageFilterCompiler(),
+            new HeaderSubscriptionMessageFilterCompiler()
+    ));
+
+    private static final Schema SCHEMA = new Schema.Parser().parse("{"
+            + "\"type\": \"record\", \"name\": \"Order\", \"fields\": ["
+            + "{\"name\": \"id\", \"type\": \"string\"},"
+            + "{\"name\": \"country\", \"type\": \"string\"},"
+            + "{\"name\": \"status\", \"type\": \"string\"},"
+            + "{\"name\": \"channel\", \"type\": \"string\"},"
+            + "{\"name\": \"items\", \"type\": {\"type\": \"array\", \"items\": \"string\"}}"
+            + "]}");
+
+    @State(Scope.Benchmark)
+    public static class Filters {
+
+        @Param({"json", "avro", "header"})
+        String type;
+
+        FilterChain chain;
+        List<MessageFilter> filters;
+        FilterableMessage message;
+
+        @Setup
+        public void setup() throws IOException {
+            List<MessageFilterSpecification> specifications;
+            switch (type) {
+                case "json":
+                    specifications = pathFilters("jsonpath", "$.");
+                    message = new BenchmarkFilterableMessage(ContentType.JSON, jsonContent(), null);
+                    break;
+                case "avro":
+                    specifications = pathFilters("avropath", ".");
+                    message = new BenchmarkFilterableMessage(ContentType.AVRO, avroContent(), CompiledSchema.of(SCHEMA, 1, 1));
+                    break;
+                default:
+                    specifications = List.of(
+                            spec(Map.of("type", "header", "header", "Trace-Id", "matcher", "trace-.*")),
+                            spec(Map.of("type", "header", "header", "Country", "matcher", "PL|CZ"))
+                    );
+                    message = new BenchmarkFilterableMessage(ContentType.JSON, jsonContent(), null);
+            }
+            chain = new FilterChainFactory(MESSAGE_FILTERS).create(specifications);
+            filters = specifications.stream().map(MESSAGE_FILTERS::compile).collect(Collectors.toList());
+        }
+
+        private static List<MessageFilterSpecification> pathFilters(String type, String root) {
+            return List.of(
+                    spec(Map.of("type", type, "path", root + "id", "matcher", "order-.*")),
+                    spec(Map.of("type", type, "path", root + "country", "matcher", "PL|CZ")),
+                    spec(Map.of("type", type, "path", root + "status", "matcher", "NEW")),
+                    spec(Map.of("type", type, "path", root + "channel", "matcher", "web|mobile")),
+                    spec(Map.of("type", type, "path", root + "items[*]", "matcher", "item-\\d+"))
+            );
+        }
+
+        private static MessageFilterSpecification spec(Map<String, Object> spec) {
+            return new MessageFilterSpecification(spec);
+        }
+
+        private static byte[] jsonContent() {
+            return ("{\"id\": \"order-1\", \"country\": \"PL\", \"status\": \"NEW\", \"channel\": \"web\","
+                    + " \"items\": [\"item-1\", \"item-2\", \"item-3\"]}").getBytes(UTF_8);
+        }
+
+        private static byte[] avroContent() throws IOException {
+            GenericRecord record = new GenericData.Record(SCHEMA);
+            record.put("id", "order-1");
+            record.put("country", "PL");
+            record.put("status", "NEW");
+            record.put("channel", "web");
+            record.put("items", List.of("item-1", "item-2", "item-3"));
+            return AvroRecordToBytesConverter.recordToBytes(record, SCHEMA);
+        }
+    }
+
+    @Benchmark
+    public boolean filterChain(Filters filters) {
+        return filters.chain.apply(filters.message).isFiltered();
+    }
+
+    @Benchmark
+    public boolean filtersParsingSeparately(Filters filters) {
+        for (MessageFilter filter : filters.filters) {
+            if (!filter.test(filters.message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class BenchmarkFilterableMessage implements FilterableMessage {
+        private final ContentType contentType;
+        private final byte[] data;
+        private final CompiledSchema<Schema> schema;
+
+        BenchmarkFilterableMessage(ContentType contentType, byte[] data, CompiledSchema<Schema> schema) {
+            this.contentType = contentType;
+            this.data = data;
+            this.schema = schema;
+        }
+
+        @Override
+        public ContentType getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public Map<String, String> getExternalMetadata() {
+            return Map.of("Trace-Id", "trace-1", "Country", "PL");
+        }
+
+        @Override
+        public byte[] getData() {
+            return data;
+        }
+
+        @Override
+        public Optional<CompiledSchema<Schema>> getSchema() {
+            return Optional.ofNullable(schema);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package pl.allegro.tech.hermes.benchmark;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.allegro.tech.hermes.api.BatchCompression;
+import pl.allegro.tech.hermes.api.BatchFormat;
+import pl.allegro.tech.hermes.api.ContentType;
+import pl.allegro.tech.hermes.api.Subscription;
+import pl.allegro.tech.hermes.common.message.converter.AvroRecordToBytesConverter;
+import pl.allegro.tech.hermes.consumers.consumer.Message;
+import pl.allegro.tech.hermes.consumers.consumer.batch.ByteBufferMessageBatchFactory;
+import pl.allegro.tech.hermes.consumers.consumer.batch.JsonMessageBatch;
+import pl.allegro.tech.hermes.consumers.consumer.batch.MessageBatch;
+import pl.allegro.tech.hermes.consumers.consumer.converter.AvroToJsonMessageConverter;
+import pl.allegro.tech.hermes.schema.CompiledSchema;
+import pl.allegro.tech.hermes.test.helper.metrics.TestMetricsFacadeFactory;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static pl.allegro.tech.hermes.api.BatchSubscriptionPolicy.Builder.batchSubscriptionPolicy;
+import static pl.allegro.tech.hermes.consumers.consumer.Message.message;
+import static pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder.subscription;
+
+/**
+ * Compares encoding a batch of Avro messages as a {@link JsonMessageBatch}, which requires converting each message
+ * to JSON first, with binary batch formats written without conversion, optionally compressed.
+ * Average size of a batch, i.e. bytes on the wire, is printed at the end of each trial.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MessageBatchEncodingBenchmark {
+
+    private static final int MESSAGES_PER_BATCH = 100;
+    private static final int BATCH_VOLUME = 256 * 1024;
+
+    private static final Schema SCHEMA = new Schema.Parser().parse("{"
+            + "\"type\": \"record\", \"name\": \"Order\", \"fields\": ["
+            + "{\"name\": \"__metadata\", \"type\": [\"null\", {\"type\": \"map\", \"values\": \"string\"}], \"default\": null},"
+            + "{\"name\": \"id\", \"type\": \"string\"},"
+            + "{\"name\": \"country\", \"type\": \"string\"},"
+            + "{\"name\": \"status\", \"type\": \"string\"},"
+            + "{\"name\": \"amount\", \"type\": \"long\"},"
+            + "{\"name\": \"items\", \"type\": {\"type\": \"array\", \"items\": \"string\"}}"
+            + "]}");
+
+    @State(Scope.Thread)
+    public abstract static class Encoding {
+
+        ByteBufferMessageBatchFactory factory;
+        Subscription subscription;
+        List<Message> messages;
+        long batches;
+        long bytes;
+
+        void setup(ContentType contentType, BatchFormat format, BatchCompression compression) throws IOException {
+            factory = new ByteBufferMessageBatchFactory(BATCH_VOLUME, 4 * BATCH_VOLUME, Clock.systemUTC(),
+                    TestMetricsFacadeFactory.create());
+            subscription = subscription("group.topic", "subscription")
+                    .withContentType(contentType)
+                    .withSubscriptionPolicy(batchSubscriptionPolicy()
+                            .withBatchSize(MESSAGES_PER_BATCH)
+                            .withBatchTime(Integer.MAX_VALUE)
+                            .withBatchVolume(BATCH_VOLUME)
+                            .withBatchFormat(format)
+                            .withBatchCompression(compression)
+                            .build())
+                    .build();
+            messages = messages();
+        }
+
+        int encoded(MessageBatch batch) {
+            int size = batch.getSize();
+            batches++;
+            bytes += size;
+            factory.destroyBatch(batch);
+            return size;
+        }
+
+        void report(String name) {
+            System.out.printf("%n%s: %d bytes per batch of %d messages%n", name, bytes / Math.max(batches, 1), MESSAGES_PER_BATCH);
+        }
+    }
+
+    public static class JsonArray extends Encoding {
+
+        final AvroToJsonMessageConverter converter = new AvroToJsonMessageConverter();
+
+        @Setup
+        public void setup() throws IOException {
+            setup(ContentType.JSON, BatchFormat.JSON_ARRAY, BatchCompression.NONE);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            report("JSON_ARRAY");
+        }
+    }
+
+    public static class Binary extends Encoding {
+
+        @Param({"AVRO_OBJECT_CONTAINER", "LENGTH_PREFIXED"})
+        String format;
+
+        @Param({"NONE", "DEFLATE", "ZSTANDARD"})
+        String compression;
+
+        @Setup
+        public void setup() throws IOException {
+            setup(ContentType.AVRO, BatchFormat.valueOf(format), BatchCompression.valueOf(compression));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            report(format + "/" + compression);
+        }
+    }
+
+    @Benchmark
+    public int jsonArray(JsonArray encoding) {
+        MessageBatch batch = encoding.factory.createBatch(encoding.subscription);
+        for (Message message : encoding.messages) {
+            batch.append(encoding.converter.convert(message, null), null);
+        }
+        return encoding.encoded(batch.close());
+    }
+
+    @Benchmark
+    public int binary(Binary encoding) {
+        MessageBatch batch = encoding.factory.createBatch(encoding.subscription);
+        for (Message message : encoding.messages) {
+            batch.append(message, null);
+        }
+        return encoding.encoded(batch.close());
+    }
+
+    private static List<Message> messages() throws IOException {
+        Random random = new Random(0);
+        String[] countries = {"PL", "CZ", "SK", "HU"};
+        String[] statuses = {"NEW", "PAID", "SENT", "DELIVERED"};
+        CompiledSchema<Schema> schema = CompiledSchema.of(SCHEMA, 1, 1);
+        List<Message> messages = new ArrayList<>(MESSAGES_PER_BATCH);
+        for (int i = 0; i < MESSAGES_PER_BATCH; i++) {
+            GenericRecord record = new GenericData.Record(SCHEMA);
+            record.put("id", "order-" + random.nextInt(1_000_000));
+            record.put("country", countries[random.nextInt(countries.length)]);
+            record.put("status", statuses[random.nextInt(statuses.length)]);
+            record.put("amount", (long) random.nextInt(100_000));
+            List<String> items = new ArrayList<>();
+            for (int item = 0; item < 1 + random.nextInt(5); item++) {
+                items.add("item-" + random.nextInt(10_000));
+            }
+            record.put("items", items);
+            messages.add(message()
+                    .withData(AvroRecordToBytesConverter.recordToBytes(record, SCHEMA))
+                    .withSchema(schema)
+                    .build());
+        }
+        return messages;
+    }
+}
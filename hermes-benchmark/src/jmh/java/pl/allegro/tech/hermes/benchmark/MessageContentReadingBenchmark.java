@@ -0,0 +1,82 @@
+package pl.allegro.tech.hermes.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.MessageContentBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a request body chunk by chunk into a {@link ByteArrayOutputStream} (previous behaviour of
+ * MessageReadHandler) with {@link MessageContentBuffer} sized from Content-Length.
+ * Run with {@code -prof gc} to compare allocation rates.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MessageContentReadingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Body {
+        private static final int MAX_MESSAGE_SIZE = 1024 * 1024;
+
+        @Param({"256", "4096", "65536"})
+        int bodySize;
+
+        @Param({"1024"})
+        int chunkSize;
+
+        byte[][] chunks;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(0);
+            int chunksCount = (bodySize + chunkSize - 1) / chunkSize;
+            chunks = new byte[chunksCount][];
+            for (int i = 0; i < chunksCount; i++) {
+                chunks[i] = new byte[Math.min(chunkSize, bodySize - i * chunkSize)];
+                random.nextBytes(chunks[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] byteArrayOutputStream(Body body) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (byte[] chunk : body.chunks) {
+            content.write(chunk, 0, chunk.length);
+        }
+        return content.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] contentLengthSizedBuffer(Body body) {
+        MessageContentBuffer content = MessageContentBuffer.forContentLength(body.bodySize, Body.MAX_MESSAGE_SIZE);
+        for (byte[] chunk : body.chunks) {
+            content.append(chunk);
+        }
+        return content.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] chunkedBuffer(Body body) {
+        MessageContentBuffer content = MessageContentBuffer.forContentLength(-1, Body.MAX_MESSAGE_SIZE);
+        for (byte[] chunk : body.chunks) {
+            content.append(chunk);
+        }
+        return content.toByteArray();
+    }
+}
@@ -0,0 +1,165 @@
+package pl.allegro.tech.hermes.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.primitives.Ints;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.allegro.tech.hermes.api.ContentType;
+import pl.allegro.tech.hermes.api.Subscription;
+import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.benchmark.environment.InMemorySchemaClient;
+import pl.allegro.tech.hermes.common.kafka.KafkaTopic;
+import pl.allegro.tech.hermes.common.kafka.KafkaTopicName;
+import pl.allegro.tech.hermes.common.kafka.MessageIdHeaderCodec;
+import pl.allegro.tech.hermes.common.message.wrapper.AvroMessageContentWrapper;
+import pl.allegro.tech.hermes.common.message.wrapper.AvroMessageHeaderSchemaIdContentWrapper;
+import pl.allegro.tech.hermes.common.message.wrapper.AvroMessageHeaderSchemaVersionContentWrapper;
+import pl.allegro.tech.hermes.common.message.wrapper.AvroMessageSchemaIdAwareContentWrapper;
+import pl.allegro.tech.hermes.common.message.wrapper.AvroMessageSchemaVersionTruncationContentWrapper;
+import pl.allegro.tech.hermes.common.message.wrapper.CompositeMessageContentWrapper;
+import pl.allegro.tech.hermes.common.message.wrapper.JsonMessageContentWrapper;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.consumers.config.KafkaHeaderNameProperties;
+import pl.allegro.tech.hermes.consumers.consumer.Message;
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.BasicMessageContentReaderFactory;
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.KafkaConsumerRecordToMessageConverter;
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.KafkaConsumerRecordToMessageConverterFactory;
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.KafkaHeaderExtractor;
+import pl.allegro.tech.hermes.schema.CompiledSchema;
+import pl.allegro.tech.hermes.schema.DirectCompiledSchemaRepository;
+import pl.allegro.tech.hermes.schema.DirectSchemaVersionsRepository;
+import pl.allegro.tech.hermes.schema.RawSchemaClient;
+import pl.allegro.tech.hermes.schema.SchemaCompilersFactory;
+import pl.allegro.tech.hermes.schema.SchemaRepository;
+import pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder;
+import pl.allegro.tech.hermes.test.helper.builder.TopicBuilder;
+import pl.allegro.tech.hermes.test.helper.metrics.TestMetricsFacadeFactory;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static pl.allegro.tech.hermes.common.message.converter.AvroRecordToBytesConverter.recordToBytes;
+
+/**
+ * Compares converting a Kafka record to a {@link Message}, which unwraps its content upfront (previous behaviour),
+ * with a lazily converted message, which unwraps content on first read. Lazily converted messages are measured
+ * both when they are discarded without reading content, e.g. filtered out with values selected for another
+ * subscription, and when their content is read.
+ * Run with {@code -prof gc} to compare allocation per message ({@code gc.alloc.rate.norm}).
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MessageConversionBenchmark {
+
+    private static final String SCHEMA_SOURCE = "{"
+            + "\"type\": \"record\", \"name\": \"Order\", \"fields\": ["
+            + "{\"name\": \"id\", \"type\": \"string\"},"
+            + "{\"name\": \"description\", \"type\": \"string\"},"
+            + "{\"name\": \"__metadata\", \"type\": [\"null\", {\"type\": \"map\", \"values\": \"string\"}], \"default\": null}"
+            + "]}";
+
+    private static final String MESSAGE_ID = "0d1c9e9e-9d2f-4bd5-9a53-c2d27e0d1a3e";
+    private static final Map<String, String> EXTERNAL_METADATA = Map.of("Trace-Id", "6b2e4a1c", "Span-Id", "9f31");
+
+    @State(Scope.Benchmark)
+    public static class Records {
+
+        @Param({"JSON", "AVRO"})
+        ContentType contentType;
+
+        @Param({"1024"})
+        int descriptionSize;
+
+        KafkaConsumerRecordToMessageConverter eagerConverter;
+        KafkaConsumerRecordToMessageConverter lazyConverter;
+        ConsumerRecord<byte[], byte[]> record;
+
+        @Setup
+        public void setup() {
+            Topic topic = TopicBuilder.topic("pl.allegro.benchmark.orders").withContentType(contentType).build();
+            Subscription subscription = SubscriptionBuilder.subscription(topic, "subscription").build();
+            KafkaTopicName kafkaTopicName = KafkaTopicName.valueOf("pl_allegro_benchmark_orders");
+            Map<String, KafkaTopic> topics = Map.of(kafkaTopicName.asString(), new KafkaTopic(kafkaTopicName, contentType));
+
+            RawSchemaClient rawSchemaClient = new InMemorySchemaClient(topic.getName(), SCHEMA_SOURCE, 1, 1);
+            SchemaRepository schemaRepository = new SchemaRepository(
+                    new DirectSchemaVersionsRepository(rawSchemaClient),
+                    new DirectCompiledSchemaRepository<>(rawSchemaClient, SchemaCompilersFactory.avroSchemaCompiler())
+            );
+            CompositeMessageContentWrapper contentWrapper = contentWrapper(schemaRepository);
+            KafkaHeaderNameProperties headerNames = new KafkaHeaderNameProperties();
+            KafkaHeaderExtractor headerExtractor = new KafkaHeaderExtractor(headerNames);
+            BasicMessageContentReaderFactory contentReaderFactory =
+                    new BasicMessageContentReaderFactory(contentWrapper, headerExtractor, schemaRepository);
+
+            eagerConverter = new KafkaConsumerRecordToMessageConverterFactory(contentReaderFactory, headerExtractor,
+                    Clock.systemUTC(), false).create(topic, subscription, topics);
+            lazyConverter = new KafkaConsumerRecordToMessageConverterFactory(contentReaderFactory, headerExtractor,
+                    Clock.systemUTC(), true).create(topic, subscription, topics);
+
+            String description = "d".repeat(descriptionSize);
+            byte[] wrapped;
+            if (contentType == ContentType.AVRO) {
+                CompiledSchema<Schema> schema = schemaRepository.getLatestAvroSchema(topic);
+                GenericRecord order = new GenericData.Record(schema.getSchema());
+                order.put("id", "order-1");
+                order.put("description", description);
+                wrapped = contentWrapper.wrapAvro(recordToBytes(order, schema.getSchema()), MESSAGE_ID,
+                        System.currentTimeMillis(), topic, schema, EXTERNAL_METADATA);
+            } else {
+                byte[] order = ("{\"id\": \"order-1\", \"description\": \"" + description + "\"}").getBytes(UTF_8);
+                wrapped = contentWrapper.wrapJson(order, MESSAGE_ID, System.currentTimeMillis(), EXTERNAL_METADATA);
+            }
+
+            record = new ConsumerRecord<>(kafkaTopicName.asString(), 0, 0, new byte[0], wrapped);
+            record.headers().add(headerNames.getMessageId(), MessageIdHeaderCodec.encode(MESSAGE_ID, false));
+            record.headers().add(headerNames.getSchemaVersion(), Ints.toByteArray(1));
+        }
+
+        private static CompositeMessageContentWrapper contentWrapper(SchemaRepository schemaRepository) {
+            MetricsFacade metrics = TestMetricsFacadeFactory.create();
+            AvroMessageContentWrapper avroWrapper = new AvroMessageContentWrapper(Clock.systemUTC());
+            return new CompositeMessageContentWrapper(
+                    new JsonMessageContentWrapper("message", "metadata", new ObjectMapper()),
+                    avroWrapper,
+                    new AvroMessageSchemaIdAwareContentWrapper(schemaRepository, avroWrapper, metrics),
+                    new AvroMessageHeaderSchemaVersionContentWrapper(schemaRepository, avroWrapper, metrics),
+                    new AvroMessageHeaderSchemaIdContentWrapper(schemaRepository, avroWrapper, metrics, false),
+                    new AvroMessageSchemaVersionTruncationContentWrapper(schemaRepository, avroWrapper, metrics, false)
+            );
+        }
+    }
+
+    @Benchmark
+    public Message eagerConversion(Records records) {
+        return records.eagerConverter.convertToMessage(records.record, 1);
+    }
+
+    @Benchmark
+    public Message lazyConversionOfDiscardedMessage(Records records) {
+        return records.lazyConverter.convertToMessage(records.record, 1);
+    }
+
+    @Benchmark
+    public byte[] lazyConversionOfDeliveredMessage(Records records) {
+        return records.lazyConverter.convertToMessage(records.record, 1).getData();
+    }
+}
@@ -2,6 +2,7 @@ package pl.allegro.tech.hermes.benchmark;
 
 import net.openhft.chronicle.map.ChronicleMap;
 import net.openhft.chronicle.map.ChronicleMapBuilder;
+import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -11,6 +12,7 @@ import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import pl.allegro.tech.hermes.api.Topic;
@@ -19,6 +21,7 @@ import pl.allegro.tech.hermes.frontend.buffer.MessageRepository;
 import pl.allegro.tech.hermes.frontend.buffer.chronicle.ChronicleMapCreationException;
 import pl.allegro.tech.hermes.frontend.buffer.chronicle.ChronicleMapEntryValue;
 import pl.allegro.tech.hermes.frontend.buffer.chronicle.ChronicleMapMessageRepository;
+import pl.allegro.tech.hermes.frontend.buffer.wal.WriteAheadLogMessageRepository;
 import pl.allegro.tech.hermes.frontend.publishing.message.JsonMessage;
 import pl.allegro.tech.hermes.frontend.publishing.message.Message;
 import pl.allegro.tech.hermes.frontend.publishing.message.MessageIdGenerator;
@@ -26,6 +29,7 @@ import pl.allegro.tech.hermes.frontend.publishing.message.MessageIdGenerator;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -44,9 +48,13 @@ public class MessageRepositoryBenchmark {
     public static class Repositories {
         private static final int ENTRIES = 100;
         private static final int AVERAGE_MESSAGE_SIZE = 600;
+        private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+        private static final Duration FLUSH_INTERVAL = Duration.ofMillis(10);
+        private static final double COMPACTION_LIVE_RATIO = 0.5;
 
         MessageRepository hermesImplMessageRepository;
         MessageRepository baselineMessageRepository;
+        MessageRepository writeAheadLogMessageRepository;
 
         Message message;
         Topic topic;
@@ -58,6 +66,13 @@ public class MessageRepositoryBenchmark {
 
             hermesImplMessageRepository = new ChronicleMapMessageRepository(prepareFile(), ENTRIES, AVERAGE_MESSAGE_SIZE);
             baselineMessageRepository = new BaselineChronicleMapMessageRepository(prepareFile(), ENTRIES, AVERAGE_MESSAGE_SIZE);
+            writeAheadLogMessageRepository = new WriteAheadLogMessageRepository(
+                    Files.createTempDirectory(null).toFile(), SEGMENT_SIZE, FLUSH_INTERVAL, COMPACTION_LIVE_RATIO);
+        }
+
+        @TearDown
+        public void tearDown() {
+            writeAheadLogMessageRepository.close();
         }
 
         private Message generateMessage() {
@@ -66,6 +81,10 @@ public class MessageRepositoryBenchmark {
             return new JsonMessage(id, messageContent, System.currentTimeMillis(), "partition-key");
         }
 
+        Message nextMessage() {
+            return new JsonMessage(MessageIdGenerator.generate(), message.getData(), System.currentTimeMillis(), "partition-key");
+        }
+
         private File prepareFile() throws IOException {
 
             String baseDir = Files.createTempDirectory(null).toFile().getAbsolutePath();
@@ -73,14 +92,48 @@ public class MessageRepositoryBenchmark {
         }
     }
 
+    /**
+     * Counts payload bytes written by a thread, reported by JMH as bytes per second next to the operation latency.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class WrittenBytes {
+        public long bytes;
+    }
+
     @Benchmark
-    public void hermesImplSave(Repositories repositories) {
+    public void hermesImplSave(Repositories repositories, WrittenBytes writtenBytes) {
         repositories.hermesImplMessageRepository.save(repositories.message, repositories.topic);
+        writtenBytes.bytes += repositories.message.getData().length;
     }
 
     @Benchmark
-    public void baselineSave(Repositories repositories) {
+    public void baselineSave(Repositories repositories, WrittenBytes writtenBytes) {
         repositories.baselineMessageRepository.save(repositories.message, repositories.topic);
+        writtenBytes.bytes += repositories.message.getData().length;
+    }
+
+    @Benchmark
+    public void writeAheadLogSave(Repositories repositories, WrittenBytes writtenBytes) {
+        repositories.writeAheadLogMessageRepository.save(repositories.message, repositories.topic);
+        writtenBytes.bytes += repositories.message.getData().length;
+    }
+
+    @Benchmark
+    public void hermesImplSaveAndDelete(Repositories repositories, WrittenBytes writtenBytes) {
+        saveAndDelete(repositories.hermesImplMessageRepository, repositories, writtenBytes);
+    }
+
+    @Benchmark
+    public void writeAheadLogSaveAndDelete(Repositories repositories, WrittenBytes writtenBytes) {
+        saveAndDelete(repositories.writeAheadLogMessageRepository, repositories, writtenBytes);
+    }
+
+    private static void saveAndDelete(MessageRepository repository, Repositories repositories, WrittenBytes writtenBytes) {
+        Message message = repositories.nextMessage();
+        repository.save(message, repositories.topic);
+        repository.delete(message.getId());
+        writtenBytes.bytes += message.getData().length;
     }
 
     public static class BaselineChronicleMapMessageRepository implements MessageRepository {
@@ -0,0 +1,223 @@
+package pl.allegro.tech.hermes.benchmark;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.allegro.tech.hermes.api.SubscriptionName;
+import pl.allegro.tech.hermes.common.kafka.KafkaTopicName;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.consumers.consumer.offset.ConsumerPartitionAssignmentState;
+import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetCommitter;
+import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetQueue;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartition;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitions;
+import pl.allegro.tech.hermes.consumers.queue.FullDrainMpscQueue;
+import pl.allegro.tech.hermes.consumers.queue.MpscQueue;
+import pl.allegro.tech.hermes.consumers.queue.WaitFreeDrainMpscQueue;
+import pl.allegro.tech.hermes.test.helper.metrics.TestMetricsFacadeFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures tracking offsets of a subscription consuming 100k msg/s: every invocation reports inflight and committed
+ * offsets of 100 000 messages, i.e. one second of traffic, and runs the committer once. Every thousandth message
+ * waits for a retry and is committed in the next invocation.
+ * {@link OffsetCommitter} is compared with the previous implementation, which boxed every offset and reduced them
+ * in hash sets and maps on every run.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OffsetCommitterBenchmark {
+
+    private static final int MESSAGES_PER_SECOND = 100_000;
+    private static final int PARTITIONS = 8;
+    private static final int RETRIED_EVERY = 1000;
+
+    private static final SubscriptionName SUBSCRIPTION = SubscriptionName.fromString("group.topic$subscription");
+    private static final KafkaTopicName KAFKA_TOPIC = KafkaTopicName.valueOf("group_topic");
+
+    @State(Scope.Thread)
+    public static class Bitmaps {
+
+        OffsetQueue offsetQueue;
+        OffsetCommitter committer;
+        SubscriptionPartitions subscriptionPartitions;
+        long term;
+        long firstOffset;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            MetricsFacade metrics = TestMetricsFacadeFactory.create();
+            ConsumerPartitionAssignmentState state = assignedPartitions();
+            term = state.currentTerm(SUBSCRIPTION);
+            offsetQueue = new OffsetQueue(metrics, 2 * MESSAGES_PER_SECOND);
+            committer = new OffsetCommitter(offsetQueue, state, offsets -> { }, 60, metrics);
+            subscriptionPartitions = new SubscriptionPartitions(SUBSCRIPTION);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ReducedHashSets {
+
+        MpscQueue<SubscriptionPartitionOffset> inflightOffsetsQueue;
+        MpscQueue<SubscriptionPartitionOffset> committedOffsetsQueue;
+        ReducingOffsetCommitter committer;
+        long term;
+        long firstOffset;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            ConsumerPartitionAssignmentState state = assignedPartitions();
+            term = state.currentTerm(SUBSCRIPTION);
+            inflightOffsetsQueue = new FullDrainMpscQueue<>(2 * MESSAGES_PER_SECOND);
+            committedOffsetsQueue = new WaitFreeDrainMpscQueue<>(2 * MESSAGES_PER_SECOND);
+            committer = new ReducingOffsetCommitter(inflightOffsetsQueue, committedOffsetsQueue, state);
+        }
+    }
+
+    @Benchmark
+    public void bitmaps(Bitmaps bitmaps) {
+        long firstOffset = bitmaps.firstOffset;
+        for (int i = 0; i < MESSAGES_PER_SECOND; i++) {
+            int partition = i % PARTITIONS;
+            long offset = firstOffset + i / PARTITIONS;
+            SubscriptionPartition subscriptionPartition = bitmaps.subscriptionPartitions.get(KAFKA_TOPIC, partition, bitmaps.term);
+            bitmaps.offsetQueue.offerInflightOffset(subscriptionPartition, offset);
+            if (i % RETRIED_EVERY != 0) {
+                bitmaps.offsetQueue.offerCommittedOffset(subscriptionPartition, offset);
+            }
+            if (firstOffset > 0 && i % RETRIED_EVERY == 0) {
+                bitmaps.offsetQueue.offerCommittedOffset(subscriptionPartition, offset - MESSAGES_PER_SECOND / PARTITIONS);
+            }
+        }
+        bitmaps.committer.run();
+        bitmaps.firstOffset += MESSAGES_PER_SECOND / PARTITIONS;
+    }
+
+    @Benchmark
+    public Set<SubscriptionPartitionOffset> reducedHashSets(ReducedHashSets hashSets) {
+        long firstOffset = hashSets.firstOffset;
+        for (int i = 0; i < MESSAGES_PER_SECOND; i++) {
+            int partition = i % PARTITIONS;
+            long offset = firstOffset + i / PARTITIONS;
+            SubscriptionPartition subscriptionPartition = new SubscriptionPartition(KAFKA_TOPIC, SUBSCRIPTION, partition, hashSets.term);
+            hashSets.inflightOffsetsQueue.offer(new SubscriptionPartitionOffset(subscriptionPartition, offset));
+            if (i % RETRIED_EVERY != 0) {
+                hashSets.committedOffsetsQueue.offer(new SubscriptionPartitionOffset(subscriptionPartition, offset));
+            }
+            if (firstOffset > 0 && i % RETRIED_EVERY == 0) {
+                hashSets.committedOffsetsQueue.offer(
+                        new SubscriptionPartitionOffset(subscriptionPartition, offset - MESSAGES_PER_SECOND / PARTITIONS));
+            }
+        }
+        Set<SubscriptionPartitionOffset> offsetsToCommit = hashSets.committer.run();
+        hashSets.firstOffset += MESSAGES_PER_SECOND / PARTITIONS;
+        return offsetsToCommit;
+    }
+
+    private static ConsumerPartitionAssignmentState assignedPartitions() {
+        ConsumerPartitionAssignmentState state = new ConsumerPartitionAssignmentState();
+        List<Integer> partitions = IntStream.range(0, PARTITIONS).boxed().collect(Collectors.toList());
+        state.assign(SUBSCRIPTION, partitions);
+        return state;
+    }
+
+    /**
+     * The algorithm {@link OffsetCommitter} used before offsets were tracked in bitmaps, without metrics and with
+     * offsets to commit returned instead of being passed to a committer.
+     */
+    private static final class ReducingOffsetCommitter {
+
+        private final MpscQueue<SubscriptionPartitionOffset> inflightOffsetsQueue;
+        private final MpscQueue<SubscriptionPartitionOffset> committedOffsetsQueue;
+        private final ConsumerPartitionAssignmentState partitionAssignmentState;
+
+        private final Set<SubscriptionPartitionOffset> inflightOffsets = new HashSet<>();
+        private final Map<SubscriptionPartition, Long> maxCommittedOffsets = new HashMap<>();
+
+        private ReducingOffsetCommitter(MpscQueue<SubscriptionPartitionOffset> inflightOffsetsQueue,
+                                        MpscQueue<SubscriptionPartitionOffset> committedOffsetsQueue,
+                                        ConsumerPartitionAssignmentState partitionAssignmentState) {
+            this.inflightOffsetsQueue = inflightOffsetsQueue;
+            this.committedOffsetsQueue = committedOffsetsQueue;
+            this.partitionAssignmentState = partitionAssignmentState;
+        }
+
+        private Set<SubscriptionPartitionOffset> run() {
+            ReducingConsumer committedOffsetsReducer = new ReducingConsumer(true);
+            committedOffsetsQueue.drain(committedOffsetsReducer);
+            committedOffsetsReducer.reduced.forEach((partition, drainedOffset) ->
+                    maxCommittedOffsets.merge(partition, drainedOffset, Math::max));
+
+            ReducingConsumer inflightOffsetsReducer = new ReducingConsumer(false);
+            MessagePassingQueue.Consumer<SubscriptionPartitionOffset> notCommitted = offset -> {
+                if (!committedOffsetsReducer.all.contains(offset)) {
+                    inflightOffsetsReducer.accept(offset);
+                }
+            };
+            inflightOffsetsQueue.drain(notCommitted);
+            inflightOffsets.forEach(notCommitted::accept);
+            inflightOffsets.clear();
+            inflightOffsets.addAll(inflightOffsetsReducer.all);
+
+            Set<SubscriptionPartition> partitions = new HashSet<>(inflightOffsetsReducer.reduced.keySet());
+            partitions.addAll(maxCommittedOffsets.keySet());
+
+            Set<SubscriptionPartitionOffset> offsetsToCommit = new HashSet<>();
+            for (SubscriptionPartition partition : partitions) {
+                if (partitionAssignmentState.isAssignedPartitionAtCurrentTerm(partition)) {
+                    long maxCommitted = maxCommittedOffsets.getOrDefault(partition, Long.MAX_VALUE);
+                    long offset = Math.min(inflightOffsetsReducer.reduced.getOrDefault(partition, Long.MAX_VALUE), maxCommitted);
+                    if (offset >= 0 && offset < Long.MAX_VALUE) {
+                        offsetsToCommit.add(new SubscriptionPartitionOffset(partition, offset));
+                        if (maxCommitted == offset) {
+                            maxCommittedOffsets.remove(partition);
+                        }
+                    }
+                }
+            }
+            return offsetsToCommit;
+        }
+    }
+
+    private static final class ReducingConsumer implements MessagePassingQueue.Consumer<SubscriptionPartitionOffset> {
+
+        private final boolean committed;
+        private final Map<SubscriptionPartition, Long> reduced = new HashMap<>();
+        private final Set<SubscriptionPartitionOffset> all = new HashSet<>();
+
+        private ReducingConsumer(boolean committed) {
+            this.committed = committed;
+        }
+
+        @Override
+        public void accept(SubscriptionPartitionOffset offset) {
+            all.add(offset);
+            if (committed) {
+                reduced.merge(offset.getSubscriptionPartition(), offset.getOffset() + 1, Math::max);
+            } else {
+                reduced.merge(offset.getSubscriptionPartition(), offset.getOffset(), Math::min);
+            }
+        }
+    }
+}
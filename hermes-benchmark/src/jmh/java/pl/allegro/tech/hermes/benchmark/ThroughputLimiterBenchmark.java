@@ -0,0 +1,109 @@
+package pl.allegro.tech.hermes.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.allegro.tech.hermes.api.TopicName;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.DynamicThroughputLimiter;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.FixedThroughputLimiter;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.ThroughputLimiter;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.ThroughputLimiter.QuotaInsight;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.TokenBucketThroughputLimiter;
+import pl.allegro.tech.hermes.metrics.HermesRateMeter;
+import pl.allegro.tech.hermes.test.helper.metrics.TestMetricsFacadeFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of quota checks of throughput limiters under contention. Every operation performs two checks,
+ * the same as MessageReadHandler does for each request.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(16)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThroughputLimiterBenchmark {
+
+    private static final int MESSAGE_SIZE = 1024;
+
+    @State(Scope.Benchmark)
+    public static class Limiters {
+
+        @Param({"1", "64"})
+        int topicsCount;
+
+        TopicName[] topics;
+        HermesRateMeter[] meters;
+
+        ThroughputLimiter fixed;
+        ThroughputLimiter dynamic;
+        ThroughputLimiter tokenBucket;
+
+        private ScheduledExecutorService executor;
+
+        @Setup
+        public void setup() {
+            MetricsFacade metricsFacade = TestMetricsFacadeFactory.create();
+            topics = new TopicName[topicsCount];
+            meters = new HermesRateMeter[topicsCount];
+            for (int i = 0; i < topicsCount; i++) {
+                topics[i] = new TopicName("group", "topic" + i);
+                meters[i] = metricsFacade.topics().topicThroughputBytes(topics[i]);
+            }
+            executor = Executors.newSingleThreadScheduledExecutor();
+
+            fixed = new FixedThroughputLimiter(Long.MAX_VALUE);
+            dynamic = new DynamicThroughputLimiter(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, 0.5,
+                    Duration.ofSeconds(30), metricsFacade.topics().topicGlobalThroughputBytes(), executor);
+            tokenBucket = new TokenBucketThroughputLimiter(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE,
+                    Duration.ofMillis(100), executor);
+            dynamic.start();
+            tokenBucket.start();
+        }
+
+        @TearDown
+        public void tearDown() {
+            tokenBucket.stop();
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public boolean fixedLimiter(Limiters limiters) {
+        return checkQuotaTwice(limiters.fixed, limiters);
+    }
+
+    @Benchmark
+    public boolean dynamicLimiter(Limiters limiters) {
+        return checkQuotaTwice(limiters.dynamic, limiters);
+    }
+
+    @Benchmark
+    public boolean tokenBucketLimiter(Limiters limiters) {
+        return checkQuotaTwice(limiters.tokenBucket, limiters);
+    }
+
+    private static boolean checkQuotaTwice(ThroughputLimiter limiter, Limiters limiters) {
+        int topic = ThreadLocalRandom.current().nextInt(limiters.topicsCount);
+        QuotaInsight beforeRead = limiter.checkQuota(limiters.topics[topic], limiters.meters[topic]);
+        QuotaInsight afterRead = limiter.checkQuota(limiters.topics[topic], limiters.meters[topic], MESSAGE_SIZE);
+        return beforeRead.hasQuota() && afterRead.hasQuota();
+    }
+}
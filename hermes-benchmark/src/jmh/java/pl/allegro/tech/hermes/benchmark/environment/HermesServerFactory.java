@@ -3,7 +3,6 @@ package pl.allegro.tech.hermes.benchmark.environment;
 import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
-import io.undertow.server.HttpHandler;
 import pl.allegro.tech.hermes.api.Topic;
 import pl.allegro.tech.hermes.common.message.wrapper.AvroMessageContentWrapper;
 import pl.allegro.tech.hermes.common.metric.HermesMetrics;
@@ -58,7 +57,7 @@ class HermesServerFactory {
         RawSchemaClient rawSchemaClient = new InMemorySchemaClient(topic.getName(), loadMessageResource("schema"), 1, 1);
         Trackers trackers = new Trackers(Collections.emptyList());
         AvroMessageContentWrapper avroMessageContentWrapper = new AvroMessageContentWrapper(Clock.systemDefaultZone());
-        HttpHandler httpHandler = provideHttpHandler(throughputLimiter, topicsCache,
+        HandlersChainFactory handlersChainFactory = provideHandlersChainFactory(throughputLimiter, topicsCache,
             brokerMessageProducer, rawSchemaClient, trackers, avroMessageContentWrapper);
         SslProperties sslProperties = new SslProperties();
         HermesServerProperties hermesServerProperties = new HermesServerProperties();
@@ -68,7 +67,8 @@ class HermesServerFactory {
                 sslProperties,
                 hermesServerProperties,
                 metricsFacade,
-                httpHandler,
+                handlersChainFactory.provide(),
+                handlersChainFactory.provideBatch(),
                 new DisabledReadinessChecker(false),
                 new NoOpMessagePreviewPersister(),
                 throughputLimiter,
@@ -78,7 +78,7 @@ class HermesServerFactory {
                 null);
     }
 
-    private static HttpHandler provideHttpHandler(ThroughputLimiter throughputLimiter,
+    private static HandlersChainFactory provideHandlersChainFactory(ThroughputLimiter throughputLimiter,
         TopicsCache topicsCache, BrokerMessageProducer brokerMessageProducer,
         RawSchemaClient rawSchemaClient, Trackers trackers, AvroMessageContentWrapper avroMessageContentWrapper) {
         HeaderPropagationProperties headerPropagationProperties = new HeaderPropagationProperties();
@@ -107,7 +107,8 @@ class HermesServerFactory {
                 throughputLimiter,
                 null,
                 false,
-                handlersChainProperties
-        ).provide();
+                handlersChainProperties,
+                new ObjectMapper()
+        );
     }
 }
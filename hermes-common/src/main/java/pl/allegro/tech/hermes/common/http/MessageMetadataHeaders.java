@@ -4,6 +4,7 @@ public enum MessageMetadataHeaders {
 
     MESSAGE_ID("Hermes-Message-Id"),
     BATCH_ID("Hermes-Batch-Id"),
+    BATCH_FORMAT("Hermes-Batch-Format"),
     TOPIC_NAME("Hermes-Topic-Name"),
     SUBSCRIPTION_NAME("Hermes-Subscription-Name"),
     RETRY_COUNT("Hermes-Retry-Count"),
@@ -0,0 +1,77 @@
+package pl.allegro.tech.hermes.common.kafka;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encodes message ids stored in Kafka record headers. Ids generated by Hermes are canonical, lower case UUIDs,
+ * which can be stored as 16 raw bytes instead of 36 characters. Any other id is stored as UTF-8 text.
+ * Binary ids are preceded by a byte which never occurs in UTF-8, so both forms can be told apart when decoding.
+ */
+public final class MessageIdHeaderCodec {
+
+    private static final byte BINARY_MARKER = (byte) 0xFF;
+    private static final int BINARY_LENGTH = 17;
+    private static final int UUID_LENGTH = 36;
+
+    private MessageIdHeaderCodec() {
+    }
+
+    public static byte[] encode(String messageId, boolean binary) {
+        if (binary) {
+            byte[] encoded = encodeBinary(messageId);
+            if (encoded != null) {
+                return encoded;
+            }
+        }
+        return messageId.getBytes(UTF_8);
+    }
+
+    public static String decode(byte[] value) {
+        if (value.length == BINARY_LENGTH && value[0] == BINARY_MARKER) {
+            ByteBuffer buffer = ByteBuffer.wrap(value, 1, BINARY_LENGTH - 1);
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        return new String(value, UTF_8);
+    }
+
+    /**
+     * Returns the marker followed by 16 bytes of a canonical, lower case UUID or null for any other id,
+     * so that decoding gives back exactly the same string.
+     */
+    private static byte[] encodeBinary(String messageId) {
+        if (messageId.length() != UUID_LENGTH) {
+            return null;
+        }
+        byte[] encoded = new byte[BINARY_LENGTH];
+        encoded[0] = BINARY_MARKER;
+        int position = 2;
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = messageId.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return null;
+                }
+                continue;
+            }
+            int digit = hexDigit(c);
+            if (digit < 0) {
+                return null;
+            }
+            encoded[position / 2] |= (byte) (position % 2 == 0 ? digit << 4 : digit);
+            position++;
+        }
+        return encoded;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+}
@@ -66,6 +66,18 @@ public class CompositeMessageContentWrapper implements MessageContentWrapper {
         return topic.isSchemaIdAwareSerializationEnabled() ? SchemaAwareSerDe.serialize(schema.getId(), wrapped) : wrapped;
     }
 
+    /**
+     * Wraps Avro content without the schema id header, even for topics with schema id aware serialization,
+     * for formats which carry the schema on their own, e.g. Avro object container files.
+     */
+    public byte[] wrapAvroWithoutSchemaIdHeader(byte[] data,
+                                                String id,
+                                                long timestamp,
+                                                CompiledSchema<Schema> schema,
+                                                Map<String, String> externalMetadata) {
+        return avroMessageContentWrapper.wrapContent(data, id, timestamp, schema.getSchema(), externalMetadata);
+    }
+
     public byte[] wrapJson(byte[] data, String id, long timestamp, Map<String, String> externalMetadata) {
         return jsonMessageContentWrapper.wrapContent(data, id, timestamp, externalMetadata);
     }
@@ -10,7 +10,9 @@ import pl.allegro.tech.hermes.metrics.counters.HermesCounters;
 import java.util.function.ToDoubleFunction;
 
 import static pl.allegro.tech.hermes.common.metric.Gauges.BATCH_BUFFER_AVAILABLE_BYTES;
+import static pl.allegro.tech.hermes.common.metric.Gauges.BATCH_BUFFER_FRAGMENTED_BYTES;
 import static pl.allegro.tech.hermes.common.metric.Gauges.BATCH_BUFFER_TOTAL_BYTES;
+import static pl.allegro.tech.hermes.common.metric.Gauges.BATCH_BUFFER_USED_BYTES;
 import static pl.allegro.tech.hermes.common.metric.Gauges.THREADS;
 import static pl.allegro.tech.hermes.common.metric.SubscriptionTagsFactory.subscriptionTags;
 
@@ -40,6 +42,17 @@ public class ConsumerMetrics {
         gaugeRegistrar.registerGauge(THREADS, "consumer-processes.threads", obj, f);
     }
 
+    public <T> void registerCarrierThreadsUtilizationGauge(T obj, ToDoubleFunction<T> f) {
+        gaugeRegistrar.registerGauge("consumer-processes.carrier-threads.utilization", obj, f);
+    }
+
+    public HermesTimer virtualThreadPinnedTimer() {
+        return HermesTimer.from(
+                meterRegistry.timer("consumer-processes.virtual-threads.pinned"),
+                hermesMetrics.timer("consumer-processes.virtual-threads.pinned")
+        );
+    }
+
     public <T> void registerRunningConsumerProcessesGauge(T obj, ToDoubleFunction<T> f) {
         hermesMetrics.registerRunningConsumerProcessesCountGauge(() -> (int) f.applyAsDouble(obj));
         meterRegistry.gauge("consumer-processes.running", obj, f);
@@ -58,6 +71,21 @@ public class ConsumerMetrics {
         gaugeRegistrar.registerGauge(BATCH_BUFFER_AVAILABLE_BYTES, "batch-buffer.available-bytes", obj, f);
     }
 
+    public <T> void registerBatchBufferUsedBytesGauge(T obj, ToDoubleFunction<T> f) {
+        gaugeRegistrar.registerGauge(BATCH_BUFFER_USED_BYTES, "batch-buffer.used-bytes", obj, f);
+    }
+
+    public <T> void registerBatchBufferFragmentedBytesGauge(T obj, ToDoubleFunction<T> f) {
+        gaugeRegistrar.registerGauge(BATCH_BUFFER_FRAGMENTED_BYTES, "batch-buffer.fragmented-bytes", obj, f);
+    }
+
+    public HermesTimer batchBufferAllocationTimer() {
+        return HermesTimer.from(
+                meterRegistry.timer("batch-buffer.allocation-time"),
+                hermesMetrics.timer("batch-buffer.allocation-time")
+        );
+    }
+
     public HermesCounter oAuthSubscriptionTokenRequestCounter(Subscription subscription, String providerName) {
         return HermesCounters.from(
                 meterRegistry.counter("oauth.token-requests", Tags.concat(
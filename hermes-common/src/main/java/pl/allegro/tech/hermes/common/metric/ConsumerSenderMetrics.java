@@ -1,6 +1,9 @@
 package pl.allegro.tech.hermes.common.metric;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import pl.allegro.tech.hermes.metrics.HermesTimer;
 
 import java.util.function.ToDoubleFunction;
 
@@ -10,6 +13,8 @@ import static pl.allegro.tech.hermes.common.metric.Gauges.CONSUMER_SENDER_HTTP_1
 import static pl.allegro.tech.hermes.common.metric.Gauges.CONSUMER_SENDER_HTTP_1_SERIAL_CLIENT_IDLE_CONNECTIONS;
 import static pl.allegro.tech.hermes.common.metric.Gauges.CONSUMER_SENDER_HTTP_2_SERIAL_CLIENT_CONNECTIONS;
 import static pl.allegro.tech.hermes.common.metric.Gauges.CONSUMER_SENDER_HTTP_2_SERIAL_CLIENT_PENDING_CONNECTIONS;
+import static pl.allegro.tech.hermes.common.metric.HermesMetrics.escapeDots;
+import static pl.allegro.tech.hermes.common.metric.Timers.CONSUMER_SENDER_ENDPOINT_QUEUE_TIME;
 
 public class ConsumerSenderMetrics {
 
@@ -66,4 +71,27 @@ public class ConsumerSenderMetrics {
     public <T> void registerHttp2SerialClientPendingConnectionsGauge(T obj, ToDoubleFunction<T> f) {
         gaugeRegistrar.registerGauge(CONSUMER_SENDER_HTTP_2_SERIAL_CLIENT_PENDING_CONNECTIONS, obj, f);
     }
+
+    public HermesTimer endpointQueueTime(String client, String host, int port) {
+        return HermesTimer.from(
+                meterRegistry.timer(CONSUMER_SENDER_ENDPOINT_QUEUE_TIME, endpointTags(client, host, port)),
+                hermesMetrics.timer(endpointQueueTimeName(client, host, port))
+        );
+    }
+
+    public void unregisterEndpointQueueTime(String client, String host, int port) {
+        Timer timer = meterRegistry.find(CONSUMER_SENDER_ENDPOINT_QUEUE_TIME).tags(endpointTags(client, host, port)).timer();
+        if (timer != null) {
+            meterRegistry.remove(timer);
+        }
+        hermesMetrics.unregister(endpointQueueTimeName(client, host, port));
+    }
+
+    private static Tags endpointTags(String client, String host, int port) {
+        return Tags.of("client", client, "endpoint", host + ":" + port);
+    }
+
+    private static String endpointQueueTimeName(String client, String host, int port) {
+        return CONSUMER_SENDER_ENDPOINT_QUEUE_TIME + "." + escapeDots(client) + "." + escapeDots(host) + "_" + port;
+    }
 }
@@ -8,6 +8,8 @@ import static pl.allegro.tech.hermes.metrics.PathsCompiler.TOPIC;
 public class Gauges {
     public static final String BATCH_BUFFER_TOTAL_BYTES = "batch-buffer-total-bytes";
     public static final String BATCH_BUFFER_AVAILABLE_BYTES = "batch-buffer-available-bytes";
+    public static final String BATCH_BUFFER_USED_BYTES = "batch-buffer-used-bytes";
+    public static final String BATCH_BUFFER_FRAGMENTED_BYTES = "batch-buffer-fragmented-bytes";
 
     public static final String THREADS = "threads";
     public static final String INFLIGHT_REQUESTS = "inflight-requests";
@@ -43,4 +45,8 @@ public class Gauges {
     public static final String TASKS_QUEUE_UTILIZATION = EXECUTORS + EXECUTOR_NAME + ".task-queue-utilization";
     public static final String TASKS_REJECTED_COUNT = EXECUTORS + EXECUTOR_NAME + "task-rejected";
     public static final String INFLIGHT = "inflight." + GROUP + "." + TOPIC + "." + SUBSCRIPTION + ".count";
+    public static final String RETRY_BACKLOG = "retry-backlog." + GROUP + "." + TOPIC + "." + SUBSCRIPTION + ".count";
+    public static final String INFLIGHT_LIMIT = "inflight-limit." + GROUP + "." + TOPIC + "." + SUBSCRIPTION + ".count";
+    public static final String INFLIGHT_LATENCY_GRADIENT = "inflight-latency-gradient." + GROUP + "." + TOPIC + "." + SUBSCRIPTION;
+    public static final String READ_QUEUE_OCCUPANCY = "read-queue-occupancy." + GROUP + "." + TOPIC + "." + SUBSCRIPTION;
 }
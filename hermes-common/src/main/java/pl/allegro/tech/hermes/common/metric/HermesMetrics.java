@@ -144,6 +144,22 @@ public class HermesMetrics {
         registerGauge(metricRegistryName(Gauges.INFLIGHT, subscription.getTopicName(), subscription.getName()), gauge);
     }
 
+    public void registerRetryBacklogGauge(SubscriptionName subscription, Gauge<?> gauge) {
+        registerGauge(metricRegistryName(Gauges.RETRY_BACKLOG, subscription.getTopicName(), subscription.getName()), gauge);
+    }
+
+    public void registerInflightLimitGauge(SubscriptionName subscription, Gauge<?> gauge) {
+        registerGauge(metricRegistryName(Gauges.INFLIGHT_LIMIT, subscription.getTopicName(), subscription.getName()), gauge);
+    }
+
+    public void registerInflightLatencyGradientGauge(SubscriptionName subscription, Gauge<?> gauge) {
+        registerGauge(metricRegistryName(Gauges.INFLIGHT_LATENCY_GRADIENT, subscription.getTopicName(), subscription.getName()), gauge);
+    }
+
+    public void registerReadQueueOccupancyGauge(SubscriptionName subscription, Gauge<?> gauge) {
+        registerGauge(metricRegistryName(Gauges.READ_QUEUE_OCCUPANCY, subscription.getTopicName(), subscription.getName()), gauge);
+    }
+
     public void unregisterInflightGauge(SubscriptionName subscription) {
         unregister(Gauges.INFLIGHT, subscription);
     }
@@ -14,6 +14,10 @@ import static pl.allegro.tech.hermes.common.metric.Counters.MAXRATE_RATE_HISTORY
 import static pl.allegro.tech.hermes.common.metric.Gauges.MAX_RATE_ACTUAL_RATE_VALUE;
 import static pl.allegro.tech.hermes.common.metric.Gauges.MAX_RATE_VALUE;
 import static pl.allegro.tech.hermes.common.metric.Gauges.OUTPUT_RATE;
+import static pl.allegro.tech.hermes.common.metric.Gauges.INFLIGHT_LATENCY_GRADIENT;
+import static pl.allegro.tech.hermes.common.metric.Gauges.INFLIGHT_LIMIT;
+import static pl.allegro.tech.hermes.common.metric.Gauges.READ_QUEUE_OCCUPANCY;
+import static pl.allegro.tech.hermes.common.metric.Gauges.RETRY_BACKLOG;
 import static pl.allegro.tech.hermes.common.metric.Meters.DISCARDED_SUBSCRIPTION_METER;
 import static pl.allegro.tech.hermes.common.metric.Meters.FAILED_METER_SUBSCRIPTION;
 import static pl.allegro.tech.hermes.common.metric.Meters.FILTERED_METER;
@@ -22,6 +26,7 @@ import static pl.allegro.tech.hermes.common.metric.Meters.SUBSCRIPTION_METER;
 import static pl.allegro.tech.hermes.common.metric.Meters.SUBSCRIPTION_THROUGHPUT_BYTES;
 import static pl.allegro.tech.hermes.common.metric.SubscriptionTagsFactory.subscriptionTags;
 import static pl.allegro.tech.hermes.common.metric.Timers.CONSUMER_IDLE_TIME;
+import static pl.allegro.tech.hermes.common.metric.Timers.CONSUMER_POLL_WAIT;
 import static pl.allegro.tech.hermes.common.metric.Timers.SUBSCRIPTION_LATENCY;
 
 public class MetricsFacade {
@@ -132,6 +137,11 @@ public class MetricsFacade {
         hermesMetrics.unregister(DELIVERED, subscription);
         hermesMetrics.unregister(DISCARDED, subscription);
         hermesMetrics.unregisterInflightGauge(subscription);
+        hermesMetrics.unregister(RETRY_BACKLOG, subscription);
+        hermesMetrics.unregister(INFLIGHT_LIMIT, subscription);
+        hermesMetrics.unregister(INFLIGHT_LATENCY_GRADIENT, subscription);
+        hermesMetrics.unregister(READ_QUEUE_OCCUPANCY, subscription);
+        hermesMetrics.unregister(CONSUMER_POLL_WAIT, subscription);
         hermesMetrics.unregisterInflightTimeHistogram(subscription);
         hermesMetrics.unregisterConsumerErrorsTimeoutMeter(subscription);
         hermesMetrics.unregisterConsumerErrorsOtherMeter(subscription);
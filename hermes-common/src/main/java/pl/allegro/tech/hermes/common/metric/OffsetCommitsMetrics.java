@@ -43,6 +43,20 @@ public class OffsetCommitsMetrics {
         );
     }
 
+    public HermesTimer ackToCommitLatency() {
+        return HermesTimer.from(
+                meterRegistry.timer("offset-commits.ack-to-commit-latency"),
+                hermesMetrics.timer("offset-committer.ack-to-commit-latency")
+        );
+    }
+
+    public HermesTimer brokerCommitLatency() {
+        return HermesTimer.from(
+                meterRegistry.timer("offset-commits.broker-latency"),
+                hermesMetrics.timer("offset-committer.broker-latency")
+        );
+    }
+
     public HermesCounter failuresCounter() {
         return HermesCounters.from(
                 meterRegistry.counter("offset-commits.failures"),
@@ -1,6 +1,8 @@
 package pl.allegro.tech.hermes.common.metric;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import pl.allegro.tech.hermes.metrics.HermesCounter;
+import pl.allegro.tech.hermes.metrics.counters.HermesCounters;
 
 import java.util.function.ToDoubleFunction;
 
@@ -9,14 +11,43 @@ import static pl.allegro.tech.hermes.common.metric.Gauges.BACKUP_STORAGE_SIZE;
 public class PersistentBufferMetrics {
     private final MeterRegistry meterRegistry;
     private final HermesMetrics hermesMetrics;
+    private final GaugeRegistrar gaugeRegistrar;
 
     public PersistentBufferMetrics(HermesMetrics hermesMetrics, MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
         this.hermesMetrics = hermesMetrics;
+        this.gaugeRegistrar = new GaugeRegistrar(meterRegistry, hermesMetrics);
     }
 
     public <T> void registerBackupStorageSizeGauge(T obj, ToDoubleFunction<T> f) {
         hermesMetrics.registerMessageRepositorySizeGauge(() -> (int) f.applyAsDouble(obj));
         meterRegistry.gauge(BACKUP_STORAGE_SIZE, obj, f);
     }
+
+    public <T> void registerBackupReplayInflightGauge(T obj, ToDoubleFunction<T> f) {
+        gaugeRegistrar.registerGauge(BACKUP_REPLAY_INFLIGHT, obj, f);
+    }
+
+    public HermesCounter backupReplayReadMessages() {
+        return counter(BACKUP_REPLAY_READ_MESSAGES);
+    }
+
+    public HermesCounter backupReplaySentMessages() {
+        return counter(BACKUP_REPLAY_SENT_MESSAGES);
+    }
+
+    public HermesCounter backupReplayDiscardedMessages() {
+        return counter(BACKUP_REPLAY_DISCARDED_MESSAGES);
+    }
+
+    private HermesCounter counter(String name) {
+        return HermesCounters.from(meterRegistry.counter(name), hermesMetrics.counter(name));
+    }
+
+    private static final String BACKUP_REPLAY = "backup-storage.replay.";
+
+    private static final String BACKUP_REPLAY_INFLIGHT = BACKUP_REPLAY + "inflight";
+    private static final String BACKUP_REPLAY_READ_MESSAGES = BACKUP_REPLAY + "read-messages";
+    private static final String BACKUP_REPLAY_SENT_MESSAGES = BACKUP_REPLAY + "sent-messages";
+    private static final String BACKUP_REPLAY_DISCARDED_MESSAGES = BACKUP_REPLAY + "discarded-messages";
 }
@@ -2,6 +2,8 @@ package pl.allegro.tech.hermes.common.metric;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
+import pl.allegro.tech.hermes.metrics.HermesCounter;
+import pl.allegro.tech.hermes.metrics.counters.HermesCounters;
 
 import java.util.concurrent.TimeUnit;
 import java.util.function.ToDoubleFunction;
@@ -44,6 +46,14 @@ public class ProducerMetrics {
         gaugeRegistrar.registerGauge(ACK_LEADER_COMPRESSION_RATE, stateObj, f);
     }
 
+    public <T> void registerAckAllRecordSizeAvgGauge(T stateObj, ToDoubleFunction<T> f) {
+        gaugeRegistrar.registerGauge(ACK_ALL_RECORD_SIZE_AVG, stateObj, f);
+    }
+
+    public <T> void registerAckLeaderRecordSizeAvgGauge(T stateObj, ToDoubleFunction<T> f) {
+        gaugeRegistrar.registerGauge(ACK_LEADER_RECORD_SIZE_AVG, stateObj, f);
+    }
+
     public <T> void registerAckAllFailedBatchesGauge(T stateObj, ToDoubleFunction<T> f) {
         gaugeRegistrar.registerGauge(ACK_ALL_FAILED_BATCHES_TOTAL, stateObj, f);
     }
@@ -69,6 +79,49 @@ public class ProducerMetrics {
                 ACK_LEADER_RECORD_QUEUE_TIME_MAX, Tags.empty(), TimeUnit.MILLISECONDS);
     }
 
+    public <T> void registerAckAllPoolMemberTotalBytesGauge(T stateObj, ToDoubleFunction<T> f, int member) {
+        registerPoolMemberGauge(stateObj, f, ACK_ALL, "buffer-total-bytes", member);
+    }
+
+    public <T> void registerAckLeaderPoolMemberTotalBytesGauge(T stateObj, ToDoubleFunction<T> f, int member) {
+        registerPoolMemberGauge(stateObj, f, ACK_LEADER, "buffer-total-bytes", member);
+    }
+
+    public <T> void registerAckAllPoolMemberAvailableBytesGauge(T stateObj, ToDoubleFunction<T> f, int member) {
+        registerPoolMemberGauge(stateObj, f, ACK_ALL, "buffer-available-bytes", member);
+    }
+
+    public <T> void registerAckLeaderPoolMemberAvailableBytesGauge(T stateObj, ToDoubleFunction<T> f, int member) {
+        registerPoolMemberGauge(stateObj, f, ACK_LEADER, "buffer-available-bytes", member);
+    }
+
+    public <T> void registerThroughputProducersBatchSizeAvgGauge(T stateObj, ToDoubleFunction<T> f) {
+        gaugeRegistrar.registerGauge(THROUGHPUT_PRODUCERS_BATCH_SIZE_AVG, stateObj, f);
+    }
+
+    public <T> void registerThroughputProducersRecordQueueTimeMaxGauge(T stateObj, ToDoubleFunction<T> f) {
+        registerTimeGauge(stateObj, f, THROUGHPUT_PRODUCERS_RECORD_QUEUE_TIME_MAX,
+                THROUGHPUT_PRODUCERS_RECORD_QUEUE_TIME_MAX, Tags.empty(), TimeUnit.MILLISECONDS);
+    }
+
+    public <T> void registerThroughputRoutedTopicsGauge(T stateObj, ToDoubleFunction<T> f) {
+        gaugeRegistrar.registerGauge(ADAPTIVE_TUNING_THROUGHPUT_TOPICS, stateObj, f);
+    }
+
+    public HermesCounter adaptiveTuningPromotions() {
+        return HermesCounters.from(
+                meterRegistry.counter(ADAPTIVE_TUNING_PROMOTIONS),
+                hermesMetrics.counter(ADAPTIVE_TUNING_PROMOTIONS)
+        );
+    }
+
+    public HermesCounter adaptiveTuningDemotions() {
+        return HermesCounters.from(
+                meterRegistry.counter(ADAPTIVE_TUNING_DEMOTIONS),
+                hermesMetrics.counter(ADAPTIVE_TUNING_DEMOTIONS)
+        );
+    }
+
     public double getBufferTotalBytes() {
         return meterRegistry.get(ACK_ALL_BUFFER_TOTAL_BYTES).gauge().value()
                 + meterRegistry.get(ACK_LEADER_BUFFER_TOTAL_BYTES).gauge().value();
@@ -111,6 +164,17 @@ public class ProducerMetrics {
         registerTimeGauge(stateObj, f, graphiteMetricName, baseMetricName, Tags.of("broker", brokerNodeId), TimeUnit.MILLISECONDS);
     }
 
+    private <T> void registerPoolMemberGauge(T stateObj,
+                                             ToDoubleFunction<T> f,
+                                             String producerName,
+                                             String metricName,
+                                             int member) {
+        String prometheusName = KAFKA_PRODUCER + producerName + POOL_MEMBER + metricName;
+        String graphiteName = KAFKA_PRODUCER + producerName + POOL_MEMBER + member + "." + metricName;
+
+        gaugeRegistrar.registerGauge(graphiteName, prometheusName, stateObj, f, Tags.of("member", String.valueOf(member)));
+    }
+
     private <T> void registerTimeGauge(T stateObj,
                                        ToDoubleFunction<T> f,
                                        String graphiteName,
@@ -124,6 +188,9 @@ public class ProducerMetrics {
     private static final String KAFKA_PRODUCER = "kafka-producer.";
     private static final String ACK_LEADER = "ack-leader.";
     private static final String ACK_ALL = "ack-all.";
+    private static final String POOL_MEMBER = "pool-member.";
+    private static final String THROUGHPUT_PRODUCERS = "throughput.";
+    private static final String ADAPTIVE_TUNING = "adaptive-tuning.";
 
     private static final String ACK_ALL_BUFFER_TOTAL_BYTES = KAFKA_PRODUCER + ACK_ALL + "buffer-total-bytes";
     private static final String ACK_ALL_BUFFER_AVAILABLE_BYTES = KAFKA_PRODUCER + ACK_ALL + "buffer-available-bytes";
@@ -131,6 +198,7 @@ public class ProducerMetrics {
     private static final String ACK_ALL_RECORD_QUEUE_TIME_MAX = KAFKA_PRODUCER + ACK_ALL + "record-queue-time-max";
     private static final String ACK_ALL_COMPRESSION_RATE = KAFKA_PRODUCER + ACK_ALL + "compression-rate-avg";
     private static final String ACK_ALL_FAILED_BATCHES_TOTAL = KAFKA_PRODUCER + ACK_ALL + "failed-batches-total";
+    private static final String ACK_ALL_RECORD_SIZE_AVG = KAFKA_PRODUCER + ACK_ALL + "record-size-avg";
 
     private static final String ACK_LEADER_FAILED_BATCHES_TOTAL = KAFKA_PRODUCER + ACK_LEADER + "failed-batches-total";
     private static final String ACK_LEADER_BUFFER_TOTAL_BYTES = KAFKA_PRODUCER + ACK_LEADER + "buffer-total-bytes";
@@ -138,4 +206,12 @@ public class ProducerMetrics {
     private static final String ACK_LEADER_RECORD_QUEUE_TIME_MAX = KAFKA_PRODUCER + ACK_LEADER + "record-queue-time-max";
     private static final String ACK_LEADER_BUFFER_AVAILABLE_BYTES = KAFKA_PRODUCER + ACK_LEADER + "buffer-available-bytes";
     private static final String ACK_LEADER_COMPRESSION_RATE = KAFKA_PRODUCER + ACK_LEADER + "compression-rate-avg";
+    private static final String ACK_LEADER_RECORD_SIZE_AVG = KAFKA_PRODUCER + ACK_LEADER + "record-size-avg";
+
+    private static final String THROUGHPUT_PRODUCERS_BATCH_SIZE_AVG = KAFKA_PRODUCER + THROUGHPUT_PRODUCERS + "batch-size-avg";
+    private static final String THROUGHPUT_PRODUCERS_RECORD_QUEUE_TIME_MAX =
+            KAFKA_PRODUCER + THROUGHPUT_PRODUCERS + "record-queue-time-max";
+    private static final String ADAPTIVE_TUNING_THROUGHPUT_TOPICS = KAFKA_PRODUCER + ADAPTIVE_TUNING + "throughput-topics";
+    private static final String ADAPTIVE_TUNING_PROMOTIONS = KAFKA_PRODUCER + ADAPTIVE_TUNING + "promotions";
+    private static final String ADAPTIVE_TUNING_DEMOTIONS = KAFKA_PRODUCER + ADAPTIVE_TUNING + "demotions";
 }
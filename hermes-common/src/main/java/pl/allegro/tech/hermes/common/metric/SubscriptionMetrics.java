@@ -4,6 +4,7 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.search.Search;
 import pl.allegro.tech.hermes.api.SubscriptionName;
 import pl.allegro.tech.hermes.metrics.HermesCounter;
 import pl.allegro.tech.hermes.metrics.HermesHistogram;
@@ -69,6 +70,42 @@ public class SubscriptionMetrics {
         meterRegistry.gauge(SubscriptionMetricsNames.SUBSCRIPTION_INFLIGHT, subscriptionTags(subscription), obj, f);
     }
 
+    public <T> void registerRetryBacklogGauge(SubscriptionName subscription, T obj, ToDoubleFunction<T> f) {
+        hermesMetrics.registerRetryBacklogGauge(subscription, () -> (int) f.applyAsDouble(obj));
+        meterRegistry.gauge(SubscriptionMetricsNames.SUBSCRIPTION_RETRY_BACKLOG, subscriptionTags(subscription), obj, f);
+    }
+
+    public <T> void registerInflightLimitGauge(SubscriptionName subscription, T obj, ToDoubleFunction<T> f) {
+        hermesMetrics.registerInflightLimitGauge(subscription, () -> (int) f.applyAsDouble(obj));
+        meterRegistry.gauge(SubscriptionMetricsNames.SUBSCRIPTION_INFLIGHT_LIMIT, subscriptionTags(subscription), obj, f);
+    }
+
+    public <T> void registerInflightLatencyGradientGauge(SubscriptionName subscription, T obj, ToDoubleFunction<T> f) {
+        hermesMetrics.registerInflightLatencyGradientGauge(subscription, () -> f.applyAsDouble(obj));
+        meterRegistry.gauge(SubscriptionMetricsNames.SUBSCRIPTION_INFLIGHT_LATENCY_GRADIENT, subscriptionTags(subscription), obj, f);
+    }
+
+    public <T> void registerReadQueueOccupancyGauge(SubscriptionName subscription, T obj, ToDoubleFunction<T> f) {
+        hermesMetrics.registerReadQueueOccupancyGauge(subscription, () -> f.applyAsDouble(obj));
+        meterRegistry.gauge(SubscriptionMetricsNames.SUBSCRIPTION_READ_QUEUE_OCCUPANCY, subscriptionTags(subscription), obj, f);
+    }
+
+    public void unregisterReadQueueOccupancyGauge(SubscriptionName subscription) {
+        hermesMetrics.unregister(Gauges.READ_QUEUE_OCCUPANCY, subscription);
+        Search.in(meterRegistry)
+                .name(SubscriptionMetricsNames.SUBSCRIPTION_READ_QUEUE_OCCUPANCY)
+                .tags(subscriptionTags(subscription))
+                .meters()
+                .forEach(meterRegistry::remove);
+    }
+
+    public HermesTimer pollWaitTimer(SubscriptionName subscription) {
+        return HermesTimer.from(
+                meterRegistry.timer(SubscriptionMetricsNames.SUBSCRIPTION_POLL_WAIT, subscriptionTags(subscription)),
+                hermesMetrics.timer(Timers.CONSUMER_POLL_WAIT, subscription.getTopicName(), subscription.getName())
+        );
+    }
+
     public HermesTimer consumerIdleTimer(SubscriptionName subscription) {
         return HermesTimer.from(
                 meterRegistry.timer(SubscriptionMetricsNames.SUBSCRIPTION_IDLE_DURATION, subscriptionTags(subscription)),
@@ -135,7 +172,12 @@ public class SubscriptionMetrics {
         public static final String SUBSCRIPTION_DISCARDED = "subscription.discarded";
         public static final String SUBSCRIPTION_LATENCY = "subscription.latency";
         public static final String SUBSCRIPTION_INFLIGHT = "subscription.inflight";
+        public static final String SUBSCRIPTION_RETRY_BACKLOG = "subscription.retry-backlog";
+        public static final String SUBSCRIPTION_INFLIGHT_LIMIT = "subscription.inflight-limit";
+        public static final String SUBSCRIPTION_INFLIGHT_LATENCY_GRADIENT = "subscription.inflight-latency-gradient";
         public static final String SUBSCRIPTION_IDLE_DURATION = "subscription.idle-duration";
+        public static final String SUBSCRIPTION_READ_QUEUE_OCCUPANCY = "subscription.read-queue-occupancy";
+        public static final String SUBSCRIPTION_POLL_WAIT = "subscription.poll-wait";
         public static final String SUBSCRIPTION_FILTERED_OUT = "subscription.filtered-out";
         public static final String SUBSCRIPTION_HTTP_STATUS_CODES = "subscription.http-status-codes";
         public static final String SUBSCRIPTION_TIMEOUTS = "subscription.timeouts";
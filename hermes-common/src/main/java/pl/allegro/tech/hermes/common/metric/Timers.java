@@ -18,6 +18,9 @@ public class Timers {
     public static final String ACK_LEADER_LATENCY = "ack-leader.latency";
     public static final String ACK_LEADER_TOPIC_LATENCY = ACK_LEADER_LATENCY + "." + GROUP + "." + TOPIC;
 
+    public static final String STAGE_LATENCY = "stage-latency";
+    public static final String TOPIC_STAGE_LATENCY = STAGE_LATENCY + "." + GROUP + "." + TOPIC;
+
     public static final String LATENCY = "latency";
     public static final String SUBSCRIPTION_LATENCY = LATENCY + "." + GROUP + "." + TOPIC + "." + SUBSCRIPTION;
 
@@ -27,6 +30,9 @@ public class Timers {
 
     public static final String CONSUMER_WORKLOAD_REBALANCE_DURATION = "consumers-workload." + KAFKA_CLUSTER + ".rebalance-duration";
     public static final String CONSUMER_IDLE_TIME = "idle-time." + GROUP + "." + TOPIC + "." + SUBSCRIPTION;
+    public static final String CONSUMER_POLL_WAIT = "poll-wait." + GROUP + "." + TOPIC + "." + SUBSCRIPTION;
+
+    public static final String CONSUMER_SENDER_ENDPOINT_QUEUE_TIME = "http-clients.endpoint-queue-time";
 
     public static final String OAUTH_PROVIDER_TOKEN_REQUEST_LATENCY = "oauth.provider." + OAUTH_PROVIDER_NAME + ".token-request-latency";
 }
@@ -62,6 +62,12 @@ public class TopicMetrics {
                 hermesMetrics.timer(Timers.ACK_LEADER_BROKER_LATENCY));
     }
 
+    public HermesTimer topicStageLatency(TopicName topic, String stage) {
+        return HermesTimer.from(
+                meterRegistry.timer(TopicMetricsNames.TOPIC_STAGE_LATENCY, topicTags(topic).and("stage", stage)),
+                hermesMetrics.timer(Timers.TOPIC_STAGE_LATENCY + "." + stage, topic));
+    }
+
     public MeterBackedHermesCounter topicThroughputBytes(TopicName topicName) {
         return HermesCounters.from(
                 micrometerCounter(TopicMetricsNames.TOPIC_THROUGHPUT, topicName),
@@ -165,6 +171,7 @@ public class TopicMetrics {
         public static final String TOPIC_ACK_LEADER_GLOBAL_LATENCY = "topic.ack-leader.global-latency";
         public static final String TOPIC_ACK_LEADER_LATENCY = "topic.ack-leader.latency";
         public static final String TOPIC_ACK_LEADER_BROKER_LATENCY = "topic.ack-leader.broker-latency";
+        public static final String TOPIC_STAGE_LATENCY = "topic.stage-latency";
         public static final String TOPIC_THROUGHPUT = "topic.throughput-bytes";
         public static final String TOPIC_GLOBAL_THROUGHPUT = "topic.global-throughput-bytes";
         public static final String TOPIC_PUBLISHED = "topic.published";
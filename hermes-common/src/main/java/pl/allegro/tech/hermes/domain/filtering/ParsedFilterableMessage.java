@@ -0,0 +1,101 @@
+package pl.allegro.tech.hermes.domain.filtering;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import pl.allegro.tech.hermes.api.ContentType;
+import pl.allegro.tech.hermes.schema.CompiledSchema;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static pl.allegro.tech.hermes.common.message.converter.AvroRecordToBytesConverter.bytesToRecord;
+
+/**
+ * Message passed to filters of a single chain, which parses its content at most once, no matter how many
+ * filters read it. Values selected by filter paths are kept as well and can be shared with chains of other
+ * subscriptions filtering the same record.
+ */
+public final class ParsedFilterableMessage implements FilterableMessage {
+
+    private final FilterableMessage message;
+    private final Map<String, List<String>> selectedValues;
+    private Configuration jsonConfiguration;
+    private DocumentContext jsonDocument;
+    private GenericRecord avroRecord;
+
+    private ParsedFilterableMessage(FilterableMessage message, Map<String, List<String>> selectedValues) {
+        this.message = message;
+        this.selectedValues = selectedValues;
+    }
+
+    public static ParsedFilterableMessage of(FilterableMessage message) {
+        if (message instanceof ParsedFilterableMessage) {
+            return (ParsedFilterableMessage) message;
+        }
+        return new ParsedFilterableMessage(message, new HashMap<>());
+    }
+
+    /**
+     * Creates a message which keeps selected values in the given map. The map has to be thread safe
+     * when it is shared between threads.
+     */
+    public static ParsedFilterableMessage of(FilterableMessage message, Map<String, List<String>> selectedValues) {
+        return new ParsedFilterableMessage(message, selectedValues);
+    }
+
+    /**
+     * Returns values selected by a filter path, identified by the key, selecting them only when
+     * they were not selected before.
+     */
+    public List<String> selectValues(String key, Function<ParsedFilterableMessage, List<String>> selector) {
+        List<String> values = selectedValues.get(key);
+        if (values == null) {
+            values = selector.apply(this);
+            selectedValues.put(key, values);
+        }
+        return values;
+    }
+
+    public DocumentContext getJsonDocument(Configuration configuration) {
+        if (jsonDocument == null || jsonConfiguration != configuration) {
+            jsonDocument = JsonPath.parse(new ByteArrayInputStream(message.getData()), configuration);
+            jsonConfiguration = configuration;
+        }
+        return jsonDocument;
+    }
+
+    public GenericRecord getAvroRecord() {
+        if (avroRecord == null) {
+            CompiledSchema<Schema> compiledSchema = message.getSchema().get();
+            avroRecord = bytesToRecord(message.getData(), compiledSchema.getSchema());
+        }
+        return avroRecord;
+    }
+
+    @Override
+    public ContentType getContentType() {
+        return message.getContentType();
+    }
+
+    @Override
+    public Map<String, String> getExternalMetadata() {
+        return message.getExternalMetadata();
+    }
+
+    @Override
+    public byte[] getData() {
+        return message.getData();
+    }
+
+    @Override
+    public Optional<CompiledSchema<Schema>> getSchema() {
+        return message.getSchema();
+    }
+}
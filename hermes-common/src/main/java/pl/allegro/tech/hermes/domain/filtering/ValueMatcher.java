@@ -0,0 +1,38 @@
+package pl.allegro.tech.hermes.domain.filtering;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Matches values against a filter matcher. Matchers which are plain values or alternatives of plain values,
+ * like {@code PL|CZ}, are matched with a hash lookup instead of a regular expression.
+ */
+public final class ValueMatcher {
+
+    private static final Pattern PLAIN_ALTERNATIVES = Pattern.compile("[\\w\\- :/@,;=#%&'\"!<>~`]+(\\|[\\w\\- :/@,;=#%&'\"!<>~`]+)*");
+
+    private final Pattern pattern;
+    private final Set<String> values;
+
+    private ValueMatcher(Pattern pattern, Set<String> values) {
+        this.pattern = pattern;
+        this.values = values;
+    }
+
+    public static ValueMatcher of(Pattern pattern) {
+        if (pattern.flags() == 0 && PLAIN_ALTERNATIVES.matcher(pattern.pattern()).matches()) {
+            Set<String> values = Arrays.stream(pattern.pattern().split("\\|")).collect(Collectors.toUnmodifiableSet());
+            return new ValueMatcher(pattern, values);
+        }
+        return new ValueMatcher(pattern, null);
+    }
+
+    public boolean matches(String value) {
+        if (values != null) {
+            return values.contains(value);
+        }
+        return pattern.matcher(value).matches();
+    }
+}
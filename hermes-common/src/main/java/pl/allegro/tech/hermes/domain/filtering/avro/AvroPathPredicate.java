@@ -1,6 +1,5 @@
 package pl.allegro.tech.hermes.domain.filtering.avro;
 
-import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.util.Utf8;
@@ -8,14 +7,13 @@ import pl.allegro.tech.hermes.api.ContentType;
 import pl.allegro.tech.hermes.domain.filtering.FilterableMessage;
 import pl.allegro.tech.hermes.domain.filtering.FilteringException;
 import pl.allegro.tech.hermes.domain.filtering.MatchingStrategy;
+import pl.allegro.tech.hermes.domain.filtering.ParsedFilterableMessage;
 import pl.allegro.tech.hermes.domain.filtering.UnsupportedMatchingStrategyException;
-import pl.allegro.tech.hermes.schema.CompiledSchema;
+import pl.allegro.tech.hermes.domain.filtering.ValueMatcher;
 
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
@@ -24,10 +22,8 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.util.Collections.emptyList;
-import static java.util.Collections.emptyListIterator;
 import static java.util.Collections.singletonList;
 import static org.apache.commons.lang.StringUtils.strip;
-import static pl.allegro.tech.hermes.common.message.converter.AvroRecordToBytesConverter.bytesToRecord;
 import static pl.allegro.tech.hermes.domain.filtering.FilteringException.check;
 
 class AvroPathPredicate implements Predicate<FilterableMessage> {
@@ -38,13 +34,17 @@ class AvroPathPredicate implements Predicate<FilterableMessage> {
     private static final String ARRAY_PATTERN_IDX_PART = "\\[(?<" + GROUP_IDX + ">\\" + WILDCARD_IDX + "|\\d+)]";
     private static final Pattern ARRAY_PATTERN = Pattern.compile(ARRAY_PATTERN_SELECTOR_PART + ARRAY_PATTERN_IDX_PART);
     private static final String NULL_AS_STRING = "null";
-    private final List<String> path;
-    private final Pattern pattern;
+    private final List<PathSegment> path;
+    private final String selectionKey;
+    private final ValueMatcher pattern;
     private final MatchingStrategy matchingStrategy;
 
     AvroPathPredicate(String path, Pattern pattern, MatchingStrategy matchingStrategy) {
-        this.path = Arrays.asList(strip(path, ".").split("\\."));
-        this.pattern = pattern;
+        this.path = Arrays.stream(strip(path, ".").split("\\."))
+            .map(PathSegment::new)
+            .collect(Collectors.toList());
+        this.selectionKey = "avropath:" + path;
+        this.pattern = ValueMatcher.of(pattern);
         this.matchingStrategy = matchingStrategy;
     }
 
@@ -52,70 +52,61 @@ class AvroPathPredicate implements Predicate<FilterableMessage> {
     public boolean test(final FilterableMessage message) {
         check(message.getContentType() == ContentType.AVRO, "This filter supports only AVRO contentType.");
         try {
-            List<Object> result = select(message);
-            Stream<String> resultStream = result.stream().map(Object::toString);
+            List<String> result = ParsedFilterableMessage.of(message).selectValues(selectionKey, this::select);
 
-            return !result.isEmpty() && matchResultsStream(resultStream);
+            return !result.isEmpty() && matchResultsStream(result.stream());
         } catch (Exception exception) {
             throw new FilteringException(exception);
         }
     }
 
-    private List<Object> select(final FilterableMessage message) throws IOException {
-        CompiledSchema<Schema> compiledSchema = message.<Schema>getSchema().get();
-        return select(bytesToRecord(message.getData(), compiledSchema.getSchema()));
-    }
-
-    private List<Object> select(GenericRecord record) {
-        ListIterator<String> iter = path.listIterator();
-        return select(record, iter);
+    private List<String> select(ParsedFilterableMessage message) {
+        return select(message.getAvroRecord(), 0).stream()
+            .map(Object::toString)
+            .collect(Collectors.toUnmodifiableList());
     }
 
-    private List<Object> select(Object record, ListIterator<String> iter) {
+    private List<Object> select(Object record, int from) {
         Object current = record;
-        while (iter.hasNext() && isSupportedType(current)) {
+        int next = from;
+        while (next < path.size() && isSupportedType(current)) {
+            PathSegment segment = path.get(next++);
             if (current instanceof GenericRecord) {
                 GenericRecord currentRecord = (GenericRecord) current;
-                String selector = iter.next();
-                Matcher arrayMatcher = ARRAY_PATTERN.matcher(selector);
 
-                if (arrayMatcher.matches()) {
-                    selector = arrayMatcher.group(GROUP_SELECTOR);
-
-                    current = currentRecord.get(selector);
+                if (segment.arraySelector) {
+                    current = currentRecord.get(segment.field);
                     if (!(current instanceof GenericArray)) {
                         return emptyList();
                     }
 
                     GenericArray<Object> currentArray = (GenericArray) current;
-                    String idx = arrayMatcher.group(GROUP_IDX);
 
-                    if (idx.equals(WILDCARD_IDX)) {
-                        return selectMultipleArrayItems(iter, currentArray);
+                    if (segment.wildcard) {
+                        return selectMultipleArrayItems(next, currentArray);
                     } else {
-                        current = selectSingleArrayItem(Integer.valueOf(idx), currentArray);
+                        current = selectSingleArrayItem(segment.index, currentArray);
                     }
 
                 } else {
-                    current = currentRecord.get(selector);
+                    current = currentRecord.get(segment.field);
                 }
             } else if (current instanceof HashMap) {
                 Map<Utf8, Object> currentRecord = (HashMap<Utf8, Object>) current;
-                Utf8 selector = new Utf8(iter.next());
-                current = currentRecord.get(selector);
+                current = currentRecord.get(segment.mapKey);
             }
         }
 
-        return iter.hasNext() ? emptyList() : singletonList(current == null ? NULL_AS_STRING : current);
+        return next < path.size() ? emptyList() : singletonList(current == null ? NULL_AS_STRING : current);
     }
 
     private boolean isSupportedType(Object record) {
         return record instanceof GenericRecord || record instanceof HashMap;
     }
 
-    private List<Object> selectMultipleArrayItems(ListIterator<String> iter, GenericArray<Object> currentArray) {
+    private List<Object> selectMultipleArrayItems(int next, GenericArray<Object> currentArray) {
         return currentArray.stream()
-            .map(item -> select(item, iter.hasNext() ? path.listIterator(iter.nextIndex()) : emptyListIterator()))
+            .map(item -> select(item, next))
             .flatMap(List::stream)
             .collect(Collectors.toList());
     }
@@ -140,6 +131,41 @@ class AvroPathPredicate implements Predicate<FilterableMessage> {
     }
 
     private boolean matches(String value) {
-        return pattern.matcher(value).matches();
+        return pattern.matches(value);
+    }
+
+    /**
+     * Selector of a single path element, parsed once instead of for every filtered message.
+     */
+    private static class PathSegment {
+        private final String field;
+        private final Utf8 mapKey;
+        private final boolean arraySelector;
+        private final boolean wildcard;
+        private final int index;
+
+        PathSegment(String selector) {
+            Matcher arrayMatcher = ARRAY_PATTERN.matcher(selector);
+            this.mapKey = new Utf8(selector);
+            this.arraySelector = arrayMatcher.matches();
+            if (arraySelector) {
+                String idx = arrayMatcher.group(GROUP_IDX);
+                this.field = arrayMatcher.group(GROUP_SELECTOR);
+                this.wildcard = idx.equals(WILDCARD_IDX);
+                this.index = wildcard ? -1 : parseIndex(idx);
+            } else {
+                this.field = selector;
+                this.wildcard = false;
+                this.index = -1;
+            }
+        }
+
+        private static int parseIndex(String idx) {
+            try {
+                return Integer.parseInt(idx);
+            } catch (NumberFormatException ex) {
+                return Integer.MAX_VALUE;
+            }
+        }
     }
 }
@@ -2,27 +2,79 @@ package pl.allegro.tech.hermes.domain.filtering.chain;
 
 import pl.allegro.tech.hermes.domain.filtering.FilterableMessage;
 import pl.allegro.tech.hermes.domain.filtering.MessageFilter;
+import pl.allegro.tech.hermes.domain.filtering.ParsedFilterableMessage;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
+/**
+ * Passes a message when all filters pass it. Content of the message is parsed at most once for all filters.
+ *
+ * <p>Filters are applied in declared order at first. Every {@value #REORDER_INTERVAL} messages they are
+ * reordered, so that filters rejecting most messages are applied first. Statistics are not synchronized,
+ * as a chain is used by a single consumer thread, and are only a hint for ordering otherwise.</p>
+ */
 public final class FilterChain {
-    private final List<MessageFilter> messageFilters;
+    static final int REORDER_INTERVAL = 1024;
+
+    private volatile ObservedFilter[] messageFilters;
+    private int appliedCount = 0;
 
     FilterChain(final List<MessageFilter> messageFilters) {
-        this.messageFilters = new ArrayList<>(messageFilters);
+        this.messageFilters = messageFilters.stream().map(ObservedFilter::new).toArray(ObservedFilter[]::new);
     }
 
     public FilterResult apply(final FilterableMessage message) {
-        for (MessageFilter filter : messageFilters) {
+        ObservedFilter[] filters = messageFilters;
+        FilterableMessage parsedMessage = ParsedFilterableMessage.of(message);
+        FilterResult result = FilterResult.PASS;
+        for (ObservedFilter filter : filters) {
+            filter.applied++;
             try {
-                if (!filter.test(message)) {
-                    return FilterResult.failed(filter.getType(), "logical");
+                if (!filter.filter.test(parsedMessage)) {
+                    filter.rejected++;
+                    result = FilterResult.failed(filter.filter.getType(), "logical");
+                    break;
                 }
             } catch (Exception ex) {
-                return FilterResult.failed(filter.getType(), ex);
+                filter.rejected++;
+                result = FilterResult.failed(filter.filter.getType(), ex);
+                break;
             }
         }
-        return FilterResult.PASS;
+        if (filters.length > 1 && ++appliedCount % REORDER_INTERVAL == 0) {
+            reorder(filters);
+        }
+        return result;
+    }
+
+    private void reorder(ObservedFilter[] filters) {
+        for (ObservedFilter filter : filters) {
+            filter.updateRejectionRate();
+        }
+        ObservedFilter[] reordered = Arrays.copyOf(filters, filters.length);
+        Arrays.sort(reordered, Comparator.comparingDouble((ObservedFilter filter) -> filter.rejectionRate).reversed());
+        messageFilters = reordered;
+    }
+
+    private static final class ObservedFilter {
+        private final MessageFilter filter;
+        private long applied;
+        private long rejected;
+        private double rejectionRate;
+
+        private ObservedFilter(MessageFilter filter) {
+            this.filter = filter;
+        }
+
+        /**
+         * Halves the statistics, so that the order follows changes of traffic.
+         */
+        private void updateRejectionRate() {
+            rejectionRate = applied == 0 ? rejectionRate : (double) rejected / applied;
+            applied /= 2;
+            rejected /= 2;
+        }
     }
 }
@@ -1,6 +1,7 @@
 package pl.allegro.tech.hermes.domain.filtering.header;
 
 import pl.allegro.tech.hermes.domain.filtering.FilterableMessage;
+import pl.allegro.tech.hermes.domain.filtering.ValueMatcher;
 
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
@@ -8,20 +9,16 @@ import java.util.regex.Pattern;
 class HeaderPredicate implements Predicate<FilterableMessage> {
 
     private final String name;
-    private final Pattern valuePattern;
+    private final ValueMatcher valuePattern;
 
     HeaderPredicate(String name, Pattern valuePattern) {
         this.name = name;
-        this.valuePattern = valuePattern;
+        this.valuePattern = ValueMatcher.of(valuePattern);
     }
 
     @Override
     public boolean test(FilterableMessage message) {
-        return message.getExternalMetadata()
-                .entrySet().stream()
-                .filter(h -> h.getKey().equals(name))
-                .findFirst()
-                .filter(h -> valuePattern.matcher(h.getValue()).matches())
-                .isPresent();
+        String value = message.getExternalMetadata().get(name);
+        return value != null && valuePattern.matches(value);
     }
 }
@@ -1,17 +1,20 @@
 package pl.allegro.tech.hermes.domain.filtering.json;
 
 import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
 import pl.allegro.tech.hermes.api.ContentType;
 import pl.allegro.tech.hermes.domain.filtering.FilterableMessage;
 import pl.allegro.tech.hermes.domain.filtering.FilteringException;
 import pl.allegro.tech.hermes.domain.filtering.MatchingStrategy;
+import pl.allegro.tech.hermes.domain.filtering.ParsedFilterableMessage;
 import pl.allegro.tech.hermes.domain.filtering.UnsupportedMatchingStrategyException;
+import pl.allegro.tech.hermes.domain.filtering.ValueMatcher;
 
-import java.io.ByteArrayInputStream;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static pl.allegro.tech.hermes.domain.filtering.FilteringException.check;
@@ -19,12 +22,16 @@ import static pl.allegro.tech.hermes.domain.filtering.FilteringException.check;
 class JsonPathPredicate implements Predicate<FilterableMessage> {
     private final Configuration configuration;
     private final String path;
-    private final Pattern matcher;
+    private final JsonPath compiledPath;
+    private final String selectionKey;
+    private final ValueMatcher matcher;
     private final MatchingStrategy matchingStrategy;
 
     JsonPathPredicate(String path, Pattern matcher, Configuration configuration, MatchingStrategy matchingStrategy) {
         this.path = path;
-        this.matcher = matcher;
+        this.compiledPath = compile(path);
+        this.selectionKey = "jsonpath:" + path;
+        this.matcher = ValueMatcher.of(matcher);
         this.configuration = configuration;
         this.matchingStrategy = matchingStrategy;
     }
@@ -33,15 +40,34 @@ class JsonPathPredicate implements Predicate<FilterableMessage> {
     public boolean test(FilterableMessage message) {
         check(message.getContentType() == ContentType.JSON, "This filter supports only JSON contentType.");
         try {
-            List<Object> result = JsonPath.parse(new ByteArrayInputStream(message.getData()), configuration).read(path);
-            Stream<String> resultStream = result.stream().map(Object::toString);
+            List<String> result = ParsedFilterableMessage.of(message).selectValues(selectionKey, this::select);
 
-            return !result.isEmpty() && matchResultsStream(resultStream);
+            return !result.isEmpty() && matchResultsStream(result.stream());
         } catch (Exception ex) {
             throw new FilteringException(ex);
         }
     }
 
+    private List<String> select(ParsedFilterableMessage message) {
+        List<Object> result = message.getJsonDocument(configuration).read(jsonPath());
+        return result.stream().map(Object::toString).collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * Invalid paths are reported when filtering, same as before paths were compiled upfront.
+     */
+    private static JsonPath compile(String path) {
+        try {
+            return JsonPath.compile(path);
+        } catch (InvalidPathException ex) {
+            return null;
+        }
+    }
+
+    private JsonPath jsonPath() {
+        return compiledPath != null ? compiledPath : JsonPath.compile(path);
+    }
+
     private boolean matchResultsStream(Stream<String> results) {
         switch (matchingStrategy) {
             case ALL:
@@ -54,6 +80,6 @@ class JsonPathPredicate implements Predicate<FilterableMessage> {
     }
 
     private boolean matches(String value) {
-        return matcher.matcher(value).matches();
+        return matcher.matches(value);
     }
 }
@@ -0,0 +1,48 @@
+package pl.allegro.tech.hermes.common.kafka
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class MessageIdHeaderCodecTest extends Specification {
+
+    def "should encode generated message id as 17 bytes"() {
+        given:
+        def messageId = UUID.randomUUID().toString()
+
+        when:
+        def encoded = MessageIdHeaderCodec.encode(messageId, true)
+
+        then:
+        encoded.length == 17
+        encoded[0] == (byte) 0xFF
+        MessageIdHeaderCodec.decode(encoded) == messageId
+    }
+
+    @Unroll
+    def "should encode message id '#messageId' as text"() {
+        when:
+        def encoded = MessageIdHeaderCodec.encode(messageId, true)
+
+        then:
+        encoded == messageId.getBytes("UTF-8")
+        MessageIdHeaderCodec.decode(encoded) == messageId
+
+        where:
+        messageId << [
+                "",
+                "custom-message-id",
+                "0123456789abcdef",
+                "C56A4180-65AA-42EC-A945-5FD21DEC0538",
+                "c56a4180x65aa-42ec-a945-5fd21dec0538",
+                "c56a4180-65aa-42ec-a945-5fd21dec053g"
+        ]
+    }
+
+    def "should encode message id as text when binary encoding is disabled"() {
+        given:
+        def messageId = UUID.randomUUID().toString()
+
+        expect:
+        MessageIdHeaderCodec.encode(messageId, false) == messageId.getBytes("UTF-8")
+    }
+}
@@ -1,12 +1,17 @@
 package pl.allegro.tech.hermes.domain.filtering
 
 import pl.allegro.tech.hermes.api.MessageFilterSpecification
+import pl.allegro.tech.hermes.domain.filtering.chain.FilterChain
 import pl.allegro.tech.hermes.domain.filtering.chain.FilterChainFactory
+import pl.allegro.tech.hermes.domain.filtering.json.JsonPathSubscriptionMessageFilterCompiler
 import spock.lang.Specification
 
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.atomic.AtomicInteger
 import java.util.function.Predicate
 
+import static java.nio.charset.StandardCharsets.UTF_8
+
 class FilterChainSpec extends Specification {
 
     AtomicInteger counter = new AtomicInteger(0)
@@ -111,6 +116,63 @@ class FilterChainSpec extends Specification {
         !subscriptionFilter2.tested
     }
 
+    def "should apply filters rejecting most messages first"() {
+        given:
+        def rejectingFilter = new RejectingSubscriptionMessageFilterCompiler("r1", counter)
+        def filterSource = new MessageFilters([], [subscriptionFilter1, rejectingFilter])
+        def filters = [
+                new MessageFilterSpecification(["type":"$subscriptionFilter1.type".toString()]),
+                new MessageFilterSpecification(["type":"$rejectingFilter.type".toString()])
+        ]
+        def chain = new FilterChainFactory(filterSource).create(filters)
+        FilterChain.REORDER_INTERVAL.times { chain.apply(FilterableMessageBuilder.testMessage()) }
+        subscriptionFilter1.tested = false
+
+        when:
+        def result = chain.apply(FilterableMessageBuilder.testMessage())
+
+        then:
+        result.filtered
+        result.filterType.get() == rejectingFilter.type
+        !subscriptionFilter1.tested
+    }
+
+    def "should parse message content once for all filters"() {
+        given:
+        def filterSource = new MessageFilters([], [new JsonPathSubscriptionMessageFilterCompiler()])
+        def filters = [
+                new MessageFilterSpecification([type: "jsonpath", path: '$.id', matcher: "1"]),
+                new MessageFilterSpecification([type: "jsonpath", path: '$.name', matcher: "cake"])
+        ]
+        def message = new DataReadCountingMessage(
+                FilterableMessageBuilder.withTestMessage().withContent('{"id": 1, "name": "cake"}', UTF_8).build())
+
+        when:
+        def result = new FilterChainFactory(filterSource).create(filters).apply(message)
+
+        then:
+        !result.filtered
+        message.dataReads == 1
+    }
+
+    def "should reuse values selected for the same record by chains of other subscriptions"() {
+        given:
+        def filterSource = new MessageFilters([], [new JsonPathSubscriptionMessageFilterCompiler()])
+        def filters = [new MessageFilterSpecification([type: "jsonpath", path: '$.id', matcher: "1"])]
+        def message = new DataReadCountingMessage(
+                FilterableMessageBuilder.withTestMessage().withContent('{"id": 1}', UTF_8).build())
+        def selectedValues = new ConcurrentHashMap<String, List<String>>()
+
+        when:
+        def first = new FilterChainFactory(filterSource).create(filters).apply(ParsedFilterableMessage.of(message, selectedValues))
+        def second = new FilterChainFactory(filterSource).create(filters).apply(ParsedFilterableMessage.of(message, selectedValues))
+
+        then:
+        !first.filtered
+        !second.filtered
+        message.dataReads == 1
+    }
+
     static class RecordingSubscriptionMessageFilterCompiler extends MessageFilter implements SubscriptionMessageFilterCompiler {
         boolean compiled = false
         boolean tested = false
@@ -147,4 +209,32 @@ class FilterChainSpec extends Specification {
             throw new IllegalStateException()
         }
     }
+
+    static class RejectingSubscriptionMessageFilterCompiler extends RecordingSubscriptionMessageFilterCompiler {
+        RejectingSubscriptionMessageFilterCompiler(String type, AtomicInteger counter) {
+            super(type, counter)
+        }
+
+        @Override
+        boolean test(FilterableMessage message) {
+            super.test(message)
+            false
+        }
+    }
+
+    static class DataReadCountingMessage implements FilterableMessage {
+        @Delegate(excludes = "getData")
+        FilterableMessage message
+        int dataReads = 0
+
+        DataReadCountingMessage(FilterableMessage message) {
+            this.message = message
+        }
+
+        @Override
+        byte[] getData() {
+            dataReads++
+            message.getData()
+        }
+    }
 }
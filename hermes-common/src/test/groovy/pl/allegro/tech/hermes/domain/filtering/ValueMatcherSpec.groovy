@@ -0,0 +1,35 @@
+package pl.allegro.tech.hermes.domain.filtering
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.regex.Pattern
+
+class ValueMatcherSpec extends Specification {
+
+    @Unroll
+    def "should match '#value' with '#matcher' same as regular expression"() {
+        expect:
+        ValueMatcher.of(Pattern.compile(matcher)).matches(value) == result
+        Pattern.compile(matcher).matcher(value).matches() == result
+
+        where:
+        matcher          | value        | result
+        "PL"             | "PL"         | true
+        "PL"             | "PLN"        | false
+        "PL|CZ"          | "CZ"         | true
+        "PL|CZ"          | "PL|CZ"      | false
+        "order-1"        | "order-1"    | true
+        "a b:c/d@e"      | "a b:c/d@e"  | true
+        "order-.*"       | "order-12"   | true
+        "item-\\d+"      | "item-1"     | true
+        "(PL|CZ)"        | "PL"         | true
+        "P.L"            | "PXL"        | true
+        "PL|"            | ""           | true
+    }
+
+    def "should match with regular expression when pattern has flags"() {
+        expect:
+        ValueMatcher.of(Pattern.compile("pl", Pattern.CASE_INSENSITIVE)).matches("PL")
+    }
+}
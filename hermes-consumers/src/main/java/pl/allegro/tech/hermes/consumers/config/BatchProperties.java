@@ -10,6 +10,8 @@ public class BatchProperties {
 
     private int maxPoolSize = 64 * 1024 * 1024;
 
+    private SegmentedPool segmentedPool = new SegmentedPool();
+
     public int getPoolableSize() {
         return poolableSize;
     }
@@ -25,4 +27,45 @@ public class BatchProperties {
     public void setMaxPoolSize(int maxPoolSize) {
         this.maxPoolSize = maxPoolSize;
     }
+
+    public SegmentedPool getSegmentedPool() {
+        return segmentedPool;
+    }
+
+    public void setSegmentedPool(SegmentedPool segmentedPool) {
+        this.segmentedPool = segmentedPool;
+    }
+
+    public static class SegmentedPool {
+
+        private boolean enabled = false;
+
+        private int minSegmentSize = 1024;
+
+        private boolean subscriptionQuotasEnabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinSegmentSize() {
+            return minSegmentSize;
+        }
+
+        public void setMinSegmentSize(int minSegmentSize) {
+            this.minSegmentSize = minSegmentSize;
+        }
+
+        public boolean isSubscriptionQuotasEnabled() {
+            return subscriptionQuotasEnabled;
+        }
+
+        public void setSubscriptionQuotasEnabled(boolean subscriptionQuotasEnabled) {
+            this.subscriptionQuotasEnabled = subscriptionQuotasEnabled;
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package pl.allegro.tech.hermes.consumers.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetCommitTriggers;
 
 import java.time.Duration;
 
@@ -11,6 +12,8 @@ public class CommitOffsetProperties {
 
     private int queuesSize = 200_000;
 
+    private Adaptive adaptive = new Adaptive();
+
     public Duration getPeriod() {
         return period;
     }
@@ -26,4 +29,52 @@ public class CommitOffsetProperties {
     public void setQueuesSize(int queuesSize) {
         this.queuesSize = queuesSize;
     }
+
+    public Adaptive getAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(Adaptive adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public OffsetCommitTriggers toOffsetCommitTriggers() {
+        if (adaptive.isEnabled()) {
+            return OffsetCommitTriggers.adaptive(adaptive.getCheckInterval(), adaptive.getMaxUncommittedMessages(), period);
+        }
+        return OffsetCommitTriggers.periodic(period);
+    }
+
+    public static final class Adaptive {
+
+        private boolean enabled = false;
+
+        private Duration checkInterval = Duration.ofSeconds(1);
+
+        private int maxUncommittedMessages = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getCheckInterval() {
+            return checkInterval;
+        }
+
+        public void setCheckInterval(Duration checkInterval) {
+            this.checkInterval = checkInterval;
+        }
+
+        public int getMaxUncommittedMessages() {
+            return maxUncommittedMessages;
+        }
+
+        public void setMaxUncommittedMessages(int maxUncommittedMessages) {
+            this.maxUncommittedMessages = maxUncommittedMessages;
+        }
+    }
 }
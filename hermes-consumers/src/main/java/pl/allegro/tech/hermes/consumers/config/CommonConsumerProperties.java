@@ -3,6 +3,7 @@ package pl.allegro.tech.hermes.consumers.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import pl.allegro.tech.hermes.consumers.CommonConsumerParameters;
 import pl.allegro.tech.hermes.consumers.consumer.SerialConsumerParameters;
+import pl.allegro.tech.hermes.consumers.consumer.rate.AdaptiveInflightParameters;
 import pl.allegro.tech.hermes.consumers.supervisor.SupervisorParameters;
 
 import java.time.Duration;
@@ -26,6 +27,12 @@ public class CommonConsumerProperties implements CommonConsumerParameters {
 
     private Duration undeliveredMessageLogPersistPeriod = Duration.ofSeconds(5);
 
+    private VirtualThreads virtualThreads = new VirtualThreads();
+
+    private Timer timer = new Timer();
+
+    private RetrySpill retrySpill = new RetrySpill();
+
     public int getThreadPoolSize() {
         return threadPoolSize;
     }
@@ -94,12 +101,167 @@ public class CommonConsumerProperties implements CommonConsumerParameters {
         this.undeliveredMessageLogPersistPeriod = undeliveredMessageLogPersistPeriod;
     }
 
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(VirtualThreads virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public Timer getTimer() {
+        return timer;
+    }
+
+    public void setTimer(Timer timer) {
+        this.timer = timer;
+    }
+
+    public RetrySpill getRetrySpill() {
+        return retrySpill;
+    }
+
+    public void setRetrySpill(RetrySpill retrySpill) {
+        this.retrySpill = retrySpill;
+    }
+
+    public static final class VirtualThreads {
+
+        private boolean enabled = false;
+
+        private Duration pinnedThreshold = Duration.ofMillis(20);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getPinnedThreshold() {
+            return pinnedThreshold;
+        }
+
+        public void setPinnedThreshold(Duration pinnedThreshold) {
+            this.pinnedThreshold = pinnedThreshold;
+        }
+    }
+
+    public static final class Timer {
+
+        private Duration tickDuration = Duration.ofMillis(10);
+
+        private int ticksPerWheel = 512;
+
+        private int wheelsCount = 2;
+
+        private int threadPoolSize = 32;
+
+        private boolean threadPoolMonitoringEnabled = false;
+
+        public Duration getTickDuration() {
+            return tickDuration;
+        }
+
+        public void setTickDuration(Duration tickDuration) {
+            this.tickDuration = tickDuration;
+        }
+
+        public int getTicksPerWheel() {
+            return ticksPerWheel;
+        }
+
+        public void setTicksPerWheel(int ticksPerWheel) {
+            this.ticksPerWheel = ticksPerWheel;
+        }
+
+        public int getWheelsCount() {
+            return wheelsCount;
+        }
+
+        public void setWheelsCount(int wheelsCount) {
+            this.wheelsCount = wheelsCount;
+        }
+
+        public int getThreadPoolSize() {
+            return threadPoolSize;
+        }
+
+        public void setThreadPoolSize(int threadPoolSize) {
+            this.threadPoolSize = threadPoolSize;
+        }
+
+        public boolean isThreadPoolMonitoringEnabled() {
+            return threadPoolMonitoringEnabled;
+        }
+
+        public void setThreadPoolMonitoringEnabled(boolean threadPoolMonitoringEnabled) {
+            this.threadPoolMonitoringEnabled = threadPoolMonitoringEnabled;
+        }
+    }
+
+    public static final class RetrySpill {
+
+        private boolean enabled = false;
+
+        private String directory = System.getProperty("java.io.tmpdir") + "/hermes-consumers-retry-spill";
+
+        private Duration threshold = Duration.ofSeconds(30);
+
+        private int segmentSizeBytes = 64 * 1024 * 1024;
+
+        private int maxSegments = 16;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(Duration threshold) {
+            this.threshold = threshold;
+        }
+
+        public int getSegmentSizeBytes() {
+            return segmentSizeBytes;
+        }
+
+        public void setSegmentSizeBytes(int segmentSizeBytes) {
+            this.segmentSizeBytes = segmentSizeBytes;
+        }
+
+        public int getMaxSegments() {
+            return maxSegments;
+        }
+
+        public void setMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+        }
+    }
+
     public static final class SerialConsumer implements SerialConsumerParameters {
 
         private Duration signalProcessingInterval = Duration.ofMillis(5_000);
 
         private int inflightSize = 100;
 
+        private AdaptiveInflight adaptiveInflight = new AdaptiveInflight();
+
         @Override
         public Duration getSignalProcessingInterval() {
             return signalProcessingInterval;
@@ -117,6 +279,84 @@ public class CommonConsumerProperties implements CommonConsumerParameters {
         public void setInflightSize(int inflightSize) {
             this.inflightSize = inflightSize;
         }
+
+        @Override
+        public AdaptiveInflight getAdaptiveInflight() {
+            return adaptiveInflight;
+        }
+
+        public void setAdaptiveInflight(AdaptiveInflight adaptiveInflight) {
+            this.adaptiveInflight = adaptiveInflight;
+        }
+    }
+
+    public static final class AdaptiveInflight implements AdaptiveInflightParameters {
+
+        private boolean enabled = false;
+
+        private int minInflight = 1;
+
+        private int maxInflight = 1_000;
+
+        private double latencyTolerance = 2.0;
+
+        private double smoothing = 0.2;
+
+        private double backoffRatio = 0.9;
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        @Override
+        public int getMinInflight() {
+            return minInflight;
+        }
+
+        public void setMinInflight(int minInflight) {
+            this.minInflight = minInflight;
+        }
+
+        @Override
+        public int getMaxInflight() {
+            return maxInflight;
+        }
+
+        public void setMaxInflight(int maxInflight) {
+            this.maxInflight = maxInflight;
+        }
+
+        @Override
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+
+        public void setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        @Override
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        @Override
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
     }
 
     public static final class BackgroundSupervisor implements SupervisorParameters {
@@ -9,8 +9,11 @@ import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.common.metric.executor.InstrumentedExecutorServiceFactory;
 import pl.allegro.tech.hermes.consumers.consumer.ConsumerAuthorizationHandler;
 import pl.allegro.tech.hermes.consumers.consumer.ConsumerMessageSenderFactory;
+import pl.allegro.tech.hermes.consumers.consumer.batch.BatchBufferPool;
 import pl.allegro.tech.hermes.consumers.consumer.batch.ByteBufferMessageBatchFactory;
+import pl.allegro.tech.hermes.consumers.consumer.batch.DirectBufferPool;
 import pl.allegro.tech.hermes.consumers.consumer.batch.MessageBatchFactory;
+import pl.allegro.tech.hermes.consumers.consumer.batch.SegmentedDirectBufferPool;
 import pl.allegro.tech.hermes.consumers.consumer.converter.AvroToJsonMessageConverter;
 import pl.allegro.tech.hermes.consumers.consumer.converter.DefaultMessageConverterResolver;
 import pl.allegro.tech.hermes.consumers.consumer.converter.MessageConverterResolver;
@@ -27,6 +30,8 @@ import pl.allegro.tech.hermes.consumers.consumer.rate.maxrate.MaxRateRegistry;
 import pl.allegro.tech.hermes.consumers.consumer.rate.maxrate.MaxRateSupervisor;
 import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSenderFactory;
 import pl.allegro.tech.hermes.consumers.consumer.sender.timeout.FutureAsyncTimeout;
+import pl.allegro.tech.hermes.consumers.consumer.spill.RetrySpillStore;
+import pl.allegro.tech.hermes.consumers.consumer.timer.HashedWheelTimer;
 import pl.allegro.tech.hermes.consumers.registry.ConsumerNodesRegistry;
 import pl.allegro.tech.hermes.consumers.subscription.cache.SubscriptionsCache;
 import pl.allegro.tech.hermes.consumers.subscription.id.SubscriptionIds;
@@ -144,7 +149,12 @@ public class ConsumerConfiguration {
     public MessageBatchFactory messageBatchFactory(MetricsFacade metrics,
                                                    Clock clock,
                                                    BatchProperties batchProperties) {
-        return new ByteBufferMessageBatchFactory(batchProperties.getPoolableSize(), batchProperties.getMaxPoolSize(), clock, metrics);
+        BatchProperties.SegmentedPool segmentedPool = batchProperties.getSegmentedPool();
+        BatchBufferPool bufferPool = segmentedPool.isEnabled()
+                ? new SegmentedDirectBufferPool(
+                        batchProperties.getMaxPoolSize(), segmentedPool.getMinSegmentSize(), segmentedPool.isSubscriptionQuotasEnabled())
+                : new DirectBufferPool(batchProperties.getMaxPoolSize(), batchProperties.getPoolableSize(), true);
+        return new ByteBufferMessageBatchFactory(bufferPool, clock, metrics);
     }
 
     @Bean
@@ -165,7 +175,9 @@ public class ConsumerConfiguration {
                                                                      ConsumerAuthorizationHandler consumerAuthorizationHandler,
                                                                      SenderAsyncTimeoutProperties senderAsyncTimeoutProperties,
                                                                      RateProperties rateProperties,
-                                                                     DatacenterNameProvider datacenterNameProvider) {
+                                                                     DatacenterNameProvider datacenterNameProvider,
+                                                                     HashedWheelTimer consumerTimer,
+                                                                     RetrySpillStore retrySpillStore) {
         KafkaProperties kafkaProperties = kafkaClustersProperties.toKafkaProperties(datacenterNameProvider);
         return new ConsumerMessageSenderFactory(
                 kafkaProperties.getClusterName(),
@@ -178,7 +190,9 @@ public class ConsumerConfiguration {
                 consumerAuthorizationHandler,
                 senderAsyncTimeoutProperties.getMilliseconds(),
                 rateProperties.getLimiterReportingThreadPoolSize(),
-                rateProperties.isLimiterReportingThreadMonitoringEnabled()
+                rateProperties.isLimiterReportingThreadMonitoringEnabled(),
+                consumerTimer,
+                retrySpillStore
         );
     }
 
@@ -1,5 +1,6 @@
 package pl.allegro.tech.hermes.consumers.config;
 
+import org.slf4j.Logger;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,6 +22,8 @@ import pl.allegro.tech.hermes.tracker.consumers.Trackers;
 
 import java.time.Clock;
 
+import static org.slf4j.LoggerFactory.getLogger;
+
 @Configuration
 @EnableConfigurationProperties({
         ConsumerReceiverProperties.class,
@@ -31,6 +34,8 @@ import java.time.Clock;
 })
 public class ConsumerReceiverConfiguration {
 
+    private static final Logger logger = getLogger(ConsumerReceiverConfiguration.class);
+
     @Bean
     public ReceiverFactory kafkaMessageReceiverFactory(CommonConsumerProperties commonConsumerProperties,
                                                        ConsumerReceiverProperties consumerReceiverProperties,
@@ -43,7 +48,8 @@ public class ConsumerReceiverConfiguration {
                                                        FilterChainFactory filterChainFactory,
                                                        Trackers trackers,
                                                        ConsumerPartitionAssignmentState consumerPartitionAssignmentState,
-                                                       DatacenterNameProvider datacenterNameProvider) {
+                                                       DatacenterNameProvider datacenterNameProvider,
+                                                       CommitOffsetProperties commitOffsetProperties) {
         KafkaProperties kafkaProperties = kafkaClustersProperties.toKafkaProperties(datacenterNameProvider);
 
 
@@ -58,7 +64,8 @@ public class ConsumerReceiverConfiguration {
                 kafkaNamesMapper,
                 filterChainFactory,
                 trackers,
-                consumerPartitionAssignmentState
+                consumerPartitionAssignmentState,
+                commitOffsetProperties.getAdaptive().isEnabled()
         );
     }
 
@@ -66,8 +73,15 @@ public class ConsumerReceiverConfiguration {
     public KafkaConsumerRecordToMessageConverterFactory kafkaMessageConverterFactory(
             MessageContentReaderFactory messageContentReaderFactory,
             KafkaHeaderExtractor kafkaHeaderExtractor,
+            ConsumerReceiverProperties consumerReceiverProperties,
             Clock clock) {
-        return new KafkaConsumerRecordToMessageConverterFactory(messageContentReaderFactory, kafkaHeaderExtractor, clock);
+        // content of passed messages is unwrapped by the filtering receiver, before they leave the receiver
+        boolean lazyContent = consumerReceiverProperties.isLazyContentEnabled() && consumerReceiverProperties.isFilteringEnabled();
+        if (consumerReceiverProperties.isLazyContentEnabled() && !lazyContent) {
+            logger.warn("Lazy message content is enabled, but has no effect, because filtering is disabled. "
+                    + "Enable consumer.receiver.filteringEnabled or disable consumer.receiver.lazyContentEnabled.");
+        }
+        return new KafkaConsumerRecordToMessageConverterFactory(messageContentReaderFactory, kafkaHeaderExtractor, clock, lazyContent);
     }
 
     @Bean
@@ -25,6 +25,14 @@ public class ConsumerReceiverProperties implements KafkaReceiverParameters {
 
     private boolean filteringEnabled = true;
 
+    private boolean lazyContentEnabled = false;
+
+    private SharedFetchProperties sharedFetch = new SharedFetchProperties();
+
+    private PrefetchProperties prefetch = new PrefetchProperties();
+
+    private FilterValuesCacheProperties filterValuesCache = new FilterValuesCacheProperties();
+
     @Override
     public Duration getPoolTimeout() {
         return poolTimeout;
@@ -96,4 +104,151 @@ public class ConsumerReceiverProperties implements KafkaReceiverParameters {
     public void setFilteringEnabled(boolean filteringEnabled) {
         this.filteringEnabled = filteringEnabled;
     }
+
+    @Override
+    public boolean isLazyContentEnabled() {
+        return lazyContentEnabled;
+    }
+
+    public void setLazyContentEnabled(boolean lazyContentEnabled) {
+        this.lazyContentEnabled = lazyContentEnabled;
+    }
+
+    public SharedFetchProperties getSharedFetch() {
+        return sharedFetch;
+    }
+
+    public void setSharedFetch(SharedFetchProperties sharedFetch) {
+        this.sharedFetch = sharedFetch;
+    }
+
+    @Override
+    public boolean isSharedFetchEnabled() {
+        return sharedFetch.isEnabled();
+    }
+
+    @Override
+    public int getSharedFetchQueueCapacity() {
+        return sharedFetch.getQueueCapacity();
+    }
+
+    @Override
+    public long getSharedFetchMaxLag() {
+        return sharedFetch.getMaxLag();
+    }
+
+    public PrefetchProperties getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(PrefetchProperties prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public boolean isPrefetchEnabled() {
+        return prefetch.isEnabled();
+    }
+
+    @Override
+    public double getPrefetchLowWatermark() {
+        return prefetch.getLowWatermark();
+    }
+
+    public FilterValuesCacheProperties getFilterValuesCache() {
+        return filterValuesCache;
+    }
+
+    public void setFilterValuesCache(FilterValuesCacheProperties filterValuesCache) {
+        this.filterValuesCache = filterValuesCache;
+    }
+
+    @Override
+    public boolean isFilterValuesCacheEnabled() {
+        return filterValuesCache.isEnabled();
+    }
+
+    @Override
+    public long getFilterValuesCacheMaxSize() {
+        return filterValuesCache.getMaxSize();
+    }
+
+    public static class SharedFetchProperties {
+
+        private boolean enabled = false;
+
+        private int queueCapacity = 1000;
+
+        private long maxLag = 10_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getMaxLag() {
+            return maxLag;
+        }
+
+        public void setMaxLag(long maxLag) {
+            this.maxLag = maxLag;
+        }
+    }
+
+    public static class PrefetchProperties {
+
+        private boolean enabled = false;
+
+        private double lowWatermark = 0.5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getLowWatermark() {
+            return lowWatermark;
+        }
+
+        public void setLowWatermark(double lowWatermark) {
+            this.lowWatermark = lowWatermark;
+        }
+    }
+
+    public static class FilterValuesCacheProperties {
+
+        private boolean enabled = false;
+
+        private long maxSize = 100_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
 }
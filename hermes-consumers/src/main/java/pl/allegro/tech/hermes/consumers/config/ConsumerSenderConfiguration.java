@@ -12,6 +12,7 @@ import com.google.common.collect.ImmutableSet;
 import jakarta.inject.Named;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
+import org.slf4j.Logger;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -51,14 +52,21 @@ import pl.allegro.tech.hermes.consumers.consumer.sender.jms.JmsMetadataAppender;
 import pl.allegro.tech.hermes.consumers.consumer.sender.resolver.EndpointAddressResolver;
 import pl.allegro.tech.hermes.consumers.consumer.sender.resolver.InterpolatingEndpointAddressResolver;
 import pl.allegro.tech.hermes.consumers.consumer.sender.timeout.FutureAsyncTimeout;
+import pl.allegro.tech.hermes.consumers.consumer.spill.RetrySpillStore;
+import pl.allegro.tech.hermes.consumers.consumer.timer.HashedWheelTimer;
 import pl.allegro.tech.hermes.consumers.consumer.trace.MetadataAppender;
+import pl.allegro.tech.hermes.consumers.supervisor.ConsumerThreadsFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.jms.Message;
 
+import static org.slf4j.LoggerFactory.getLogger;
+
 @Configuration
 @EnableConfigurationProperties({
         SslContextProperties.class,
@@ -68,6 +76,8 @@ import javax.jms.Message;
 })
 public class ConsumerSenderConfiguration {
 
+    private static final Logger logger = getLogger(ConsumerSenderConfiguration.class);
+
     @Bean(name = "http1-serial-client-parameters")
     @ConfigurationProperties(prefix = "consumer.http-client.serial.http1")
     public Http1ClientProperties http1SerialClientProperties() {
@@ -197,8 +207,9 @@ public class ConsumerSenderConfiguration {
 
     @Bean
     public HttpClientsFactory httpClientsFactory(InstrumentedExecutorServiceFactory executorFactory,
-                                                 SslContextFactoryProvider sslContextFactoryProvider) {
-        return new HttpClientsFactory(executorFactory, sslContextFactoryProvider);
+                                                 SslContextFactoryProvider sslContextFactoryProvider,
+                                                 MetricsFacade metrics) {
+        return new HttpClientsFactory(executorFactory, sslContextFactoryProvider, metrics);
     }
 
     @Bean
@@ -259,14 +270,59 @@ public class ConsumerSenderConfiguration {
         return new InterpolatingEndpointAddressResolver(interpolator);
     }
 
-    @Bean
-    public FutureAsyncTimeout futureAsyncTimeoutFactory(InstrumentedExecutorServiceFactory executorFactory,
-                                                        SenderAsyncTimeoutProperties senderAsyncTimeoutProperties) {
-        ScheduledExecutorService timeoutExecutorService = executorFactory.getScheduledExecutorService(
-                "async-timeout",
-                senderAsyncTimeoutProperties.getThreadPoolSize(),
-                senderAsyncTimeoutProperties.isThreadPoolMonitoringEnabled()
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public HashedWheelTimer consumerTimer(CommonConsumerProperties commonConsumerProperties,
+                                          SenderAsyncTimeoutProperties senderAsyncTimeoutProperties,
+                                          ConsumerThreadsFactory consumerThreadsFactory,
+                                          InstrumentedExecutorServiceFactory executorFactory) {
+        CommonConsumerProperties.Timer timer = commonConsumerProperties.getTimer();
+        return new HashedWheelTimer(
+                "consumer-timer",
+                timer.getTickDuration(),
+                timer.getTicksPerWheel(),
+                timer.getWheelsCount(),
+                consumerTimerExecutor(timer, senderAsyncTimeoutProperties, consumerThreadsFactory, executorFactory)
         );
-        return new FutureAsyncTimeout(timeoutExecutorService);
+    }
+
+    private static ExecutorService consumerTimerExecutor(CommonConsumerProperties.Timer timer,
+                                                         SenderAsyncTimeoutProperties senderAsyncTimeoutProperties,
+                                                         ConsumerThreadsFactory consumerThreadsFactory,
+                                                         InstrumentedExecutorServiceFactory executorFactory) {
+        if (consumerThreadsFactory.isVirtualThreadsEnabled()) {
+            return Executors.newCachedThreadPool(consumerThreadsFactory.create("consumer-timer-task-"));
+        }
+        int threadPoolSize = timer.getThreadPoolSize();
+        boolean monitoringEnabled = timer.isThreadPoolMonitoringEnabled();
+        if (senderAsyncTimeoutProperties.getThreadPoolSize() != null) {
+            logger.warn("Property consumer.sender.async.timeout.threadPoolSize is deprecated, "
+                    + "use consumer.timer.threadPoolSize instead");
+            threadPoolSize = senderAsyncTimeoutProperties.getThreadPoolSize();
+        }
+        if (senderAsyncTimeoutProperties.getThreadPoolMonitoringEnabled() != null) {
+            logger.warn("Property consumer.sender.async.timeout.threadPoolMonitoringEnabled is deprecated, "
+                    + "use consumer.timer.threadPoolMonitoringEnabled instead");
+            monitoringEnabled = senderAsyncTimeoutProperties.getThreadPoolMonitoringEnabled();
+        }
+        return executorFactory.getExecutorService("consumer-timer", threadPoolSize, monitoringEnabled);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public RetrySpillStore retrySpillStore(CommonConsumerProperties commonConsumerProperties) {
+        CommonConsumerProperties.RetrySpill retrySpill = commonConsumerProperties.getRetrySpill();
+        if (!retrySpill.isEnabled()) {
+            return RetrySpillStore.disabled();
+        }
+        return RetrySpillStore.create(
+                new File(retrySpill.getDirectory()),
+                retrySpill.getSegmentSizeBytes(),
+                retrySpill.getMaxSegments(),
+                retrySpill.getThreshold()
+        );
+    }
+
+    @Bean
+    public FutureAsyncTimeout futureAsyncTimeoutFactory(HashedWheelTimer consumerTimer) {
+        return new FutureAsyncTimeout(consumerTimer);
     }
 }
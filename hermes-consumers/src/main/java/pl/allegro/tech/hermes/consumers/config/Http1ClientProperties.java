@@ -20,6 +20,10 @@ public class Http1ClientProperties implements Http1ClientParameters {
 
     private Duration connectionTimeout = Duration.ofSeconds(15);
 
+    private boolean connectionWarmUpEnabled = false;
+
+    private Duration connectionWarmUpInterval = Duration.ofSeconds(1);
+
 
     @Override
     public int getThreadPoolSize() {
@@ -83,4 +87,22 @@ public class Http1ClientProperties implements Http1ClientParameters {
     public void setConnectionTimeout(Duration connectionTimeout) {
         this.connectionTimeout = connectionTimeout;
     }
+
+    @Override
+    public boolean isConnectionWarmUpEnabled() {
+        return connectionWarmUpEnabled;
+    }
+
+    public void setConnectionWarmUpEnabled(boolean connectionWarmUpEnabled) {
+        this.connectionWarmUpEnabled = connectionWarmUpEnabled;
+    }
+
+    @Override
+    public Duration getConnectionWarmUpInterval() {
+        return connectionWarmUpInterval;
+    }
+
+    public void setConnectionWarmUpInterval(Duration connectionWarmUpInterval) {
+        this.connectionWarmUpInterval = connectionWarmUpInterval;
+    }
 }
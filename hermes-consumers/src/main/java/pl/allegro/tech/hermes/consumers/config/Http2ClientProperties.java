@@ -20,6 +20,14 @@ public class Http2ClientProperties implements Http2ClientParameters {
 
     private Duration connectionTimeout = Duration.ofSeconds(15);
 
+    private int maxConnectionsPerDestination = 64;
+
+    private int maxStreamsPerConnection = 100;
+
+    private boolean connectionWarmUpEnabled = false;
+
+    private Duration connectionWarmUpInterval = Duration.ofSeconds(1);
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -81,4 +89,40 @@ public class Http2ClientProperties implements Http2ClientParameters {
     public void setConnectionTimeout(Duration connectionTimeout) {
         this.connectionTimeout = connectionTimeout;
     }
+
+    @Override
+    public int getMaxConnectionsPerDestination() {
+        return maxConnectionsPerDestination;
+    }
+
+    public void setMaxConnectionsPerDestination(int maxConnectionsPerDestination) {
+        this.maxConnectionsPerDestination = maxConnectionsPerDestination;
+    }
+
+    @Override
+    public int getMaxStreamsPerConnection() {
+        return maxStreamsPerConnection;
+    }
+
+    public void setMaxStreamsPerConnection(int maxStreamsPerConnection) {
+        this.maxStreamsPerConnection = maxStreamsPerConnection;
+    }
+
+    @Override
+    public boolean isConnectionWarmUpEnabled() {
+        return connectionWarmUpEnabled;
+    }
+
+    public void setConnectionWarmUpEnabled(boolean connectionWarmUpEnabled) {
+        this.connectionWarmUpEnabled = connectionWarmUpEnabled;
+    }
+
+    @Override
+    public Duration getConnectionWarmUpInterval() {
+        return connectionWarmUpInterval;
+    }
+
+    public void setConnectionWarmUpInterval(Duration connectionWarmUpInterval) {
+        this.connectionWarmUpInterval = connectionWarmUpInterval;
+    }
 }
@@ -7,9 +7,9 @@ public class SenderAsyncTimeoutProperties {
 
     private int milliseconds = 5_000;
 
-    private int threadPoolSize = 32;
+    private Integer threadPoolSize;
 
-    private boolean threadPoolMonitoringEnabled = false;
+    private Boolean threadPoolMonitoringEnabled;
 
     public int getMilliseconds() {
         return milliseconds;
@@ -19,19 +19,31 @@ public class SenderAsyncTimeoutProperties {
         this.milliseconds = milliseconds;
     }
 
-    public int getThreadPoolSize() {
+    /**
+     * @deprecated timeouts are run by the consumer timer, use {@code consumer.timer.threadPoolSize} instead.
+     *     When set, it overrides the size of the consumer timer thread pool.
+     */
+    @Deprecated
+    public Integer getThreadPoolSize() {
         return threadPoolSize;
     }
 
-    public void setThreadPoolSize(int threadPoolSize) {
+    @Deprecated
+    public void setThreadPoolSize(Integer threadPoolSize) {
         this.threadPoolSize = threadPoolSize;
     }
 
-    public boolean isThreadPoolMonitoringEnabled() {
+    /**
+     * @deprecated timeouts are run by the consumer timer, use {@code consumer.timer.threadPoolMonitoringEnabled}
+     *     instead. When set, it overrides monitoring of the consumer timer thread pool.
+     */
+    @Deprecated
+    public Boolean getThreadPoolMonitoringEnabled() {
         return threadPoolMonitoringEnabled;
     }
 
-    public void setThreadPoolMonitoringEnabled(boolean threadPoolMonitoringEnabled) {
+    @Deprecated
+    public void setThreadPoolMonitoringEnabled(Boolean threadPoolMonitoringEnabled) {
         this.threadPoolMonitoringEnabled = threadPoolMonitoringEnabled;
     }
 }
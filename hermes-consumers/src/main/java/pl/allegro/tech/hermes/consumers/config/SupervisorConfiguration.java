@@ -31,6 +31,7 @@ import pl.allegro.tech.hermes.consumers.registry.ConsumerNodesRegistry;
 import pl.allegro.tech.hermes.consumers.subscription.cache.SubscriptionsCache;
 import pl.allegro.tech.hermes.consumers.subscription.id.SubscriptionIds;
 import pl.allegro.tech.hermes.consumers.supervisor.ConsumerFactory;
+import pl.allegro.tech.hermes.consumers.supervisor.ConsumerThreadsFactory;
 import pl.allegro.tech.hermes.consumers.supervisor.ConsumersExecutorService;
 import pl.allegro.tech.hermes.consumers.supervisor.ConsumersSupervisor;
 import pl.allegro.tech.hermes.consumers.supervisor.NonblockingConsumersSupervisor;
@@ -294,10 +295,20 @@ public class SupervisorConfiguration {
         );
     }
 
+    @Bean
+    public ConsumerThreadsFactory consumerThreadsFactory(CommonConsumerProperties commonConsumerProperties) {
+        return new ConsumerThreadsFactory(commonConsumerProperties.getVirtualThreads().isEnabled());
+    }
+
     @Bean
     public ConsumersExecutorService consumersExecutorService(CommonConsumerProperties commonConsumerProperties,
+                                                             ConsumerThreadsFactory consumerThreadsFactory,
                                                              MetricsFacade metrics) {
-        return new ConsumersExecutorService(commonConsumerProperties.getThreadPoolSize(), metrics);
+        return new ConsumersExecutorService(
+                commonConsumerProperties.getThreadPoolSize(),
+                consumerThreadsFactory,
+                commonConsumerProperties.getVirtualThreads().getPinnedThreshold(),
+                metrics);
     }
 
     @Bean
@@ -315,7 +326,7 @@ public class SupervisorConfiguration {
                                                               CommitOffsetProperties commitOffsetProperties) {
         return new NonblockingConsumersSupervisor(commonConsumerProperties, executor, consumerFactory, offsetQueue,
                 consumerPartitionAssignmentState, retransmitter, undeliveredMessageLogPersister,
-                subscriptionRepository, metrics, monitor, clock, commitOffsetProperties.getPeriod());
+                subscriptionRepository, metrics, monitor, clock, commitOffsetProperties.toOffsetCommitTriggers());
     }
 
     @Bean(initMethod = "start", destroyMethod = "shutdown")
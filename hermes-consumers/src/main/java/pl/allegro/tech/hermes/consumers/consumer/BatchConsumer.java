@@ -19,13 +19,16 @@ import pl.allegro.tech.hermes.consumers.consumer.batch.MessageBatchingResult;
 import pl.allegro.tech.hermes.consumers.consumer.converter.MessageConverterResolver;
 import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder;
 import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetQueue;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartition;
 import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitions;
 import pl.allegro.tech.hermes.consumers.consumer.rate.BatchConsumerRateLimiter;
 import pl.allegro.tech.hermes.consumers.consumer.receiver.MessageReceiver;
 import pl.allegro.tech.hermes.consumers.consumer.receiver.ReceiverFactory;
 import pl.allegro.tech.hermes.consumers.consumer.sender.MessageBatchSender;
 import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSendingResult;
 import pl.allegro.tech.hermes.metrics.HermesTimerContext;
+import pl.allegro.tech.hermes.tracker.consumers.MessageMetadata;
 import pl.allegro.tech.hermes.tracker.consumers.Trackers;
 
 import java.io.IOException;
@@ -52,6 +55,7 @@ public class BatchConsumer implements Consumer {
 
     private Topic topic;
     private final OffsetQueue offsetQueue;
+    private final SubscriptionPartitions subscriptionPartitions;
     private Subscription subscription;
 
     private volatile boolean consuming = true;
@@ -76,6 +80,7 @@ public class BatchConsumer implements Consumer {
         this.sender = sender;
         this.batchFactory = batchFactory;
         this.offsetQueue = offsetQueue;
+        this.subscriptionPartitions = new SubscriptionPartitions(subscription.getQualifiedName());
         this.subscription = subscription;
         this.useTopicMessageSize = useTopicMessageSize;
         this.loadRecorder = loadRecorder;
@@ -119,11 +124,19 @@ public class BatchConsumer implements Consumer {
     }
 
     private void offerInflightOffsets(MessageBatch batch) {
-        batch.getPartitionOffsets().forEach(offsetQueue::offerInflightOffset);
+        for (MessageMetadata metadata : batch.getMessagesMetadata()) {
+            offsetQueue.offerInflightOffset(subscriptionPartition(metadata), metadata.getOffset());
+        }
     }
 
     private void offerCommittedOffsets(MessageBatch batch) {
-        batch.getPartitionOffsets().forEach(offsetQueue::offerCommittedOffset);
+        for (MessageMetadata metadata : batch.getMessagesMetadata()) {
+            offsetQueue.offerCommittedOffset(subscriptionPartition(metadata), metadata.getOffset());
+        }
+    }
+
+    private SubscriptionPartition subscriptionPartition(MessageMetadata metadata) {
+        return subscriptionPartitions.get(metadata.getKafkaTopic(), metadata.getPartition(), metadata.getPartitionAssignmentTerm());
     }
 
     @Override
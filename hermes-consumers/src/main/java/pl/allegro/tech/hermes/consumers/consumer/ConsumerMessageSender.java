@@ -1,12 +1,12 @@
 package pl.allegro.tech.hermes.consumers.consumer;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.eclipse.jetty.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.allegro.tech.hermes.api.Subscription;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder;
+import pl.allegro.tech.hermes.consumers.consumer.rate.AdaptiveInflightLimit;
 import pl.allegro.tech.hermes.consumers.consumer.rate.InflightsPool;
 import pl.allegro.tech.hermes.consumers.consumer.rate.SerialConsumerRateLimiter;
 import pl.allegro.tech.hermes.consumers.consumer.result.ErrorHandler;
@@ -16,6 +16,9 @@ import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSenderFactory;
 import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSendingResult;
 import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSendingResultLogInfo;
 import pl.allegro.tech.hermes.consumers.consumer.sender.timeout.FutureAsyncTimeout;
+import pl.allegro.tech.hermes.consumers.consumer.spill.RetrySpillQueue;
+import pl.allegro.tech.hermes.consumers.consumer.timer.HashedWheelTimer;
+import pl.allegro.tech.hermes.consumers.consumer.timer.TimerTaskGroup;
 import pl.allegro.tech.hermes.metrics.HermesTimer;
 import pl.allegro.tech.hermes.metrics.HermesTimerContext;
 
@@ -23,11 +26,9 @@ import java.net.URI;
 import java.time.Clock;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -43,17 +44,20 @@ public class ConsumerMessageSender {
     private final MessageSenderFactory messageSenderFactory;
     private final Clock clock;
     private final InflightsPool inflight;
+    private final AdaptiveInflightLimit inflightLimit;
     private final SubscriptionLoadRecorder loadRecorder;
     private final HermesTimer consumerLatencyTimer;
     private final SerialConsumerRateLimiter rateLimiter;
     private final FutureAsyncTimeout async;
     private final int asyncTimeoutMs;
     private final LongAdder inflightCount = new LongAdder();
+    private final HashedWheelTimer timer;
+    private final RetrySpillQueue<Message> spilledRetries;
 
     private MessageSender messageSender;
     private Subscription subscription;
 
-    private ScheduledExecutorService retrySingleThreadExecutor;
+    private volatile TimerTaskGroup scheduledSends;
     private volatile boolean running = true;
 
     public ConsumerMessageSender(Subscription subscription,
@@ -63,11 +67,14 @@ public class ConsumerMessageSender {
                                  SerialConsumerRateLimiter rateLimiter,
                                  ExecutorService deliveryReportingExecutor,
                                  InflightsPool inflight,
+                                 AdaptiveInflightLimit inflightLimit,
                                  MetricsFacade metrics,
                                  int asyncTimeoutMs,
                                  FutureAsyncTimeout futureAsyncTimeout,
                                  Clock clock,
-                                 SubscriptionLoadRecorder loadRecorder) {
+                                 SubscriptionLoadRecorder loadRecorder,
+                                 HashedWheelTimer timer,
+                                 RetrySpillQueue<Message> spilledRetries) {
         this.deliveryReportingExecutor = deliveryReportingExecutor;
         this.successHandlers = successHandlers;
         this.errorHandlers = errorHandlers;
@@ -80,26 +87,30 @@ public class ConsumerMessageSender {
         this.messageSender = messageSender(subscription);
         this.subscription = subscription;
         this.inflight = inflight;
+        this.inflightLimit = inflightLimit;
+        this.timer = timer;
+        this.spilledRetries = spilledRetries;
         this.consumerLatencyTimer = metrics.subscriptions().latency(subscription.getQualifiedName());
         metrics.subscriptions().registerInflightGauge(subscription.getQualifiedName(), this, sender -> sender.inflightCount.doubleValue());
+        metrics.subscriptions().registerRetryBacklogGauge(
+                subscription.getQualifiedName(), this, ConsumerMessageSender::scheduledSendsBacklog);
     }
 
     public void initialize() {
         running = true;
-        ThreadFactory threadFactory =
-                new ThreadFactoryBuilder().setNameFormat(subscription.getQualifiedName() + "-retry-executor-%d").build();
-        this.retrySingleThreadExecutor = Executors.newScheduledThreadPool(1, threadFactory);
+        this.scheduledSends = timer.newGroup();
     }
 
     public void shutdown() {
         running = false;
         messageSender.stop();
-        retrySingleThreadExecutor.shutdownNow();
-        try {
-            retrySingleThreadExecutor.awaitTermination(1, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            logger.warn("Failed to stop retry executor within one minute with following exception", e);
-        }
+        scheduledSends.cancelAll();
+        spilledRetries.clear();
+    }
+
+    private double scheduledSendsBacklog() {
+        TimerTaskGroup sends = scheduledSends;
+        return (sends == null ? 0 : sends.getBacklog()) + spilledRetries.size();
     }
 
     public void sendAsync(Message message) {
@@ -108,7 +119,17 @@ public class ConsumerMessageSender {
     }
 
     private void sendAsync(Message message, int delayMillis) {
-        retrySingleThreadExecutor.schedule(() -> sendMessage(message), delayMillis, TimeUnit.MILLISECONDS);
+        scheduledSends.schedule(() -> sendMessage(message), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends the earliest spilled retry which is due. The caller has to hold an inflight permit for it, the permit
+     * of the message was released when it was spilled.
+     */
+    public boolean resendSpilledRetry() {
+        Optional<Message> message = spilledRetries.pollDue(clock.millis(), Message::attachData);
+        message.ifPresent(this::sendAsync);
+        return message.isPresent();
     }
 
     private int calculateMessageDelay(long publishingMessageTimestamp) {
@@ -132,9 +153,10 @@ public class ConsumerMessageSender {
     private void sendMessage(final Message message) {
         loadRecorder.recordSingleOperation();
         HermesTimerContext timer = consumerLatencyTimer.time();
+        long sentAtNanos = System.nanoTime();
         CompletableFuture<MessageSendingResult> response = messageSender.send(message);
 
-        response.thenAcceptAsync(new ResponseHandlingListener(message, timer), deliveryReportingExecutor)
+        response.thenAcceptAsync(new ResponseHandlingListener(message, timer, sentAtNanos), deliveryReportingExecutor)
                 .exceptionally(e -> {
                     logger.error(
                             "An error occurred while handling message sending response of subscription {} [partition={}, offset={}, id={}]",
@@ -190,8 +212,12 @@ public class ConsumerMessageSender {
     }
 
     private void handleFailedSending(Message message, MessageSendingResult result) {
-        retrySending(message, result);
-        errorHandlers.forEach(h -> h.handleFailed(message, subscription, result));
+        // error handlers go first, as content of the message may be spilled out of the heap once retry is scheduled
+        try {
+            errorHandlers.forEach(h -> h.handleFailed(message, subscription, result));
+        } finally {
+            retrySending(message, result);
+        }
     }
 
     private void retrySending(Message message, MessageSendingResult result) {
@@ -200,12 +226,33 @@ public class ConsumerMessageSender {
 
         long retryDelay = extractRetryDelay(message, result);
         if (shouldAttemptResending(message, result, retryDelay)) {
-            retrySingleThreadExecutor.schedule(() -> resend(message, result), retryDelay, TimeUnit.MILLISECONDS);
+            if (!spillRetry(message, retryDelay)) {
+                scheduledSends.schedule(() -> resend(message, result), retryDelay, TimeUnit.MILLISECONDS);
+            }
         } else {
             handleMessageDiscarding(message, result);
         }
     }
 
+    /**
+     * Moves content of a message waiting long for its retry out of the heap and releases its inflight permit,
+     * so that the subscription can keep sending other messages. Its offset is still reported as inflight,
+     * as it is committed only when delivery of the message ends.
+     */
+    private boolean spillRetry(Message message, long retryDelay) {
+        if (!spilledRetries.accepts(retryDelay)) {
+            return false;
+        }
+        byte[] data = message.detachData();
+        if (!spilledRetries.offer(message, data, clock.millis() + retryDelay)) {
+            message.attachData(data);
+            return false;
+        }
+        inflight.release();
+        inflightCount.decrement();
+        return true;
+    }
+
     private boolean shouldAttemptResending(Message message, MessageSendingResult result, long retryDelay) {
         return !willExceedTtl(message, retryDelay) && shouldResendMessage(result);
     }
@@ -260,14 +307,32 @@ public class ConsumerMessageSender {
         return subscription.hasOAuthPolicy() && result.getStatusCode() == HttpStatus.UNAUTHORIZED_401;
     }
 
+    private void updateInflightLimit(MessageSendingResult result, long sentAtNanos) {
+        long now = System.nanoTime();
+        if (isEndpointOverloaded(result)) {
+            inflightLimit.onOverload(now);
+        } else {
+            inflightLimit.onResponse(now - sentAtNanos, inflightCount.sum());
+        }
+    }
+
+    private boolean isEndpointOverloaded(MessageSendingResult result) {
+        return result.isTimeout()
+                || !result.hasHttpAnswer()
+                || result.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS_429
+                || HttpStatus.isServerError(result.getStatusCode());
+    }
+
     class ResponseHandlingListener implements java.util.function.Consumer<MessageSendingResult> {
 
         private final Message message;
         private final HermesTimerContext timer;
+        private final long sentAtNanos;
 
-        public ResponseHandlingListener(Message message, HermesTimerContext timer) {
+        public ResponseHandlingListener(Message message, HermesTimerContext timer, long sentAtNanos) {
             this.message = message;
             this.timer = timer;
+            this.sentAtNanos = sentAtNanos;
         }
 
         @Override
@@ -275,6 +340,7 @@ public class ConsumerMessageSender {
             timer.close();
             loadRecorder.recordSingleOperation();
             if (running) {
+                updateInflightLimit(result, sentAtNanos);
                 if (result.succeeded()) {
                     handleMessageSendingSuccess(message, result);
                 } else {
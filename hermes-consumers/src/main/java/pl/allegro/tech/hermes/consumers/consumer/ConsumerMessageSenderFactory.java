@@ -6,6 +6,7 @@ import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.common.metric.executor.InstrumentedExecutorServiceFactory;
 import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder;
 import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetQueue;
+import pl.allegro.tech.hermes.consumers.consumer.rate.AdaptiveInflightLimit;
 import pl.allegro.tech.hermes.consumers.consumer.rate.InflightsPool;
 import pl.allegro.tech.hermes.consumers.consumer.rate.SerialConsumerRateLimiter;
 import pl.allegro.tech.hermes.consumers.consumer.result.DefaultErrorHandler;
@@ -14,6 +15,8 @@ import pl.allegro.tech.hermes.consumers.consumer.result.ErrorHandler;
 import pl.allegro.tech.hermes.consumers.consumer.result.SuccessHandler;
 import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSenderFactory;
 import pl.allegro.tech.hermes.consumers.consumer.sender.timeout.FutureAsyncTimeout;
+import pl.allegro.tech.hermes.consumers.consumer.spill.RetrySpillStore;
+import pl.allegro.tech.hermes.consumers.consumer.timer.HashedWheelTimer;
 import pl.allegro.tech.hermes.tracker.consumers.Trackers;
 
 import java.time.Clock;
@@ -32,6 +35,8 @@ public class ConsumerMessageSenderFactory {
     private final ConsumerAuthorizationHandler consumerAuthorizationHandler;
     private final ExecutorService rateLimiterReportingExecutor;
     private final int senderAsyncTimeoutMs;
+    private final HashedWheelTimer timer;
+    private final RetrySpillStore retrySpillStore;
 
     public ConsumerMessageSenderFactory(String kafkaClusterName, MessageSenderFactory messageSenderFactory,
                                         Trackers trackers, FutureAsyncTimeout futureAsyncTimeout,
@@ -40,7 +45,9 @@ public class ConsumerMessageSenderFactory {
                                         ConsumerAuthorizationHandler consumerAuthorizationHandler,
                                         int senderAsyncTimeoutMs,
                                         int rateLimiterReportingThreadPoolSize,
-                                        boolean rateLimiterReportingThreadMonitoringEnabled) {
+                                        boolean rateLimiterReportingThreadMonitoringEnabled,
+                                        HashedWheelTimer timer,
+                                        RetrySpillStore retrySpillStore) {
 
         this.kafkaClusterName = kafkaClusterName;
         this.messageSenderFactory = messageSenderFactory;
@@ -53,12 +60,15 @@ public class ConsumerMessageSenderFactory {
                 "rate-limiter-reporter", rateLimiterReportingThreadPoolSize,
                 rateLimiterReportingThreadMonitoringEnabled);
         this.senderAsyncTimeoutMs = senderAsyncTimeoutMs;
+        this.timer = timer;
+        this.retrySpillStore = retrySpillStore;
     }
 
     public ConsumerMessageSender create(Subscription subscription,
                                         SerialConsumerRateLimiter consumerRateLimiter,
                                         OffsetQueue offsetQueue,
                                         InflightsPool inflight,
+                                        AdaptiveInflightLimit inflightLimit,
                                         SubscriptionLoadRecorder subscriptionLoadRecorder,
                                         MetricsFacade metrics) {
 
@@ -86,11 +96,14 @@ public class ConsumerMessageSenderFactory {
                 consumerRateLimiter,
                 rateLimiterReportingExecutor,
                 inflight,
+                inflightLimit,
                 metrics,
                 senderAsyncTimeoutMs,
                 futureAsyncTimeout,
                 clock,
-                subscriptionLoadRecorder
+                subscriptionLoadRecorder,
+                timer,
+                retrySpillStore.newQueue()
         );
     }
 
@@ -7,9 +7,12 @@ import org.apache.avro.Schema;
 import org.apache.commons.lang.ArrayUtils;
 import pl.allegro.tech.hermes.api.ContentType;
 import pl.allegro.tech.hermes.api.Header;
+import pl.allegro.tech.hermes.api.SubscriptionName;
 import pl.allegro.tech.hermes.api.SubscriptionPolicy;
 import pl.allegro.tech.hermes.common.kafka.KafkaTopicName;
 import pl.allegro.tech.hermes.common.kafka.offset.PartitionOffset;
+import pl.allegro.tech.hermes.common.message.wrapper.UnwrappedMessageContent;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartition;
 import pl.allegro.tech.hermes.domain.filtering.FilterableMessage;
 import pl.allegro.tech.hermes.schema.CompiledSchema;
 
@@ -21,6 +24,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static java.util.stream.Collectors.toList;
 
@@ -41,6 +45,7 @@ public class Message implements FilterableMessage {
 
     private int retryCounter = 0;
     private long partitionAssignmentTerm = -1;
+    private SubscriptionPartition subscriptionPartition;
     private Map<String, String> externalMetadata = Collections.emptyMap();
 
     private List<Header> additionalHeaders = Collections.emptyList();
@@ -49,6 +54,8 @@ public class Message implements FilterableMessage {
 
     private long currentMessageBackoff = -1;
 
+    private volatile Supplier<UnwrappedMessageContent> wrappedContent;
+
     private Message() {}
 
     public Message(String id,
@@ -79,6 +86,26 @@ public class Message implements FilterableMessage {
         this.hasSubscriptionIdentityHeaders = hasSubscriptionIdentityHeaders;
     }
 
+    /**
+     * Creates a message with content which is unwrapped on first access to its data, schema or external metadata,
+     * so that messages which are never read do not pay for unwrapping.
+     */
+    public Message(String id,
+                   String topic,
+                   Supplier<UnwrappedMessageContent> wrappedContent,
+                   ContentType contentType,
+                   long publishingTimestamp,
+                   long readingTimestamp,
+                   PartitionOffset partitionOffset,
+                   long partitionAssignmentTerm,
+                   List<Header> additionalHeaders,
+                   String subscription,
+                   boolean hasSubscriptionIdentityHeaders) {
+        this(id, topic, null, contentType, Optional.empty(), publishingTimestamp, readingTimestamp, partitionOffset,
+                partitionAssignmentTerm, Collections.emptyMap(), additionalHeaders, subscription, hasSubscriptionIdentityHeaders);
+        this.wrappedContent = wrappedContent;
+    }
+
     public long getPublishingTimestamp() {
         return publishingTimestamp;
     }
@@ -97,6 +124,7 @@ public class Message implements FilterableMessage {
 
     @Override
     public byte[] getData() {
+        unwrapContent();
         return data;
     }
 
@@ -129,6 +157,7 @@ public class Message implements FilterableMessage {
 
     @Override
     public Optional<CompiledSchema<Schema>> getSchema() {
+        unwrapContent();
         return schema;
     }
 
@@ -138,6 +167,7 @@ public class Message implements FilterableMessage {
 
     @Override
     public Map<String, String> getExternalMetadata() {
+        unwrapContent();
         return Collections.unmodifiableMap(externalMetadata);
     }
 
@@ -184,12 +214,67 @@ public class Message implements FilterableMessage {
         return partitionOffset;
     }
 
+    /**
+     * Returns the partition the offset of the message was reported inflight for, so that its committed offset is
+     * reported without allocating. A new instance is created for a message which was not reported inflight.
+     */
+    public SubscriptionPartition getSubscriptionPartition(SubscriptionName subscriptionName) {
+        SubscriptionPartition partition = subscriptionPartition;
+        if (partition == null) {
+            return new SubscriptionPartition(getKafkaTopic(), subscriptionName, getPartition(), partitionAssignmentTerm);
+        }
+        return partition;
+    }
+
+    public void setSubscriptionPartition(SubscriptionPartition subscriptionPartition) {
+        this.subscriptionPartition = subscriptionPartition;
+    }
+
     public boolean hasNotBeenSentTo(String uri) {
         return !succeededUris.contains(uri);
     }
 
     public long getSize() {
-        return ArrayUtils.getLength(data);
+        return ArrayUtils.getLength(getData());
+    }
+
+    /**
+     * Unwraps content of a lazily created message, unless it was already unwrapped. Unwrapping is retried on
+     * next access when it fails.
+     *
+     * <p>The lock is taken only while the content is still wrapped, so that a single thread writes the unwrapped
+     * fields. Clearing the volatile wrapped content afterwards publishes them to threads which find it unwrapped
+     * without locking.</p>
+     *
+     * @throws pl.allegro.tech.hermes.common.message.wrapper.UnwrappingException when content cannot be unwrapped
+     */
+    public void unwrapContent() {
+        if (wrappedContent != null) {
+            synchronized (this) {
+                Supplier<UnwrappedMessageContent> content = wrappedContent;
+                if (content != null) {
+                    UnwrappedMessageContent unwrapped = content.get();
+                    this.data = unwrapped.getContent();
+                    this.schema = unwrapped.getSchema();
+                    this.externalMetadata = ImmutableMap.copyOf(unwrapped.getMessageMetadata().getExternalMetadata());
+                    this.wrappedContent = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands over the content of a message which is about to wait for its retry outside the heap.
+     */
+    byte[] detachData() {
+        unwrapContent();
+        byte[] detached = data;
+        data = null;
+        return detached;
+    }
+
+    void attachData(byte[] data) {
+        this.data = data;
     }
 
     public boolean hasSubscriptionIdentityHeaders() {
@@ -219,6 +304,7 @@ public class Message implements FilterableMessage {
             this.message.readingTimestamp = message.getReadingTimestamp();
             this.message.partitionOffset = message.partitionOffset;
             this.message.partitionAssignmentTerm = message.partitionAssignmentTerm;
+            this.message.subscriptionPartition = message.subscriptionPartition;
             this.message.externalMetadata = message.getExternalMetadata();
             this.message.additionalHeaders = message.getAdditionalHeaders();
             this.message.schema = message.getSchema();
@@ -11,6 +11,10 @@ import pl.allegro.tech.hermes.consumers.consumer.converter.MessageConverterResol
 import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder;
 import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetQueue;
 import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartition;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitions;
+import pl.allegro.tech.hermes.consumers.consumer.rate.AdaptiveInflightLimit;
+import pl.allegro.tech.hermes.consumers.consumer.rate.AdaptiveInflightParameters;
 import pl.allegro.tech.hermes.consumers.consumer.rate.AdjustableSemaphore;
 import pl.allegro.tech.hermes.consumers.consumer.rate.SerialConsumerRateLimiter;
 import pl.allegro.tech.hermes.consumers.consumer.receiver.MessageReceiver;
@@ -24,7 +28,6 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static pl.allegro.tech.hermes.consumers.consumer.message.MessageConverter.toMessageMetadata;
-import static pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset.subscriptionPartitionOffset;
 
 public class SerialConsumer implements Consumer {
 
@@ -38,11 +41,14 @@ public class SerialConsumer implements Consumer {
     private final ConsumerMessageSender sender;
     private final boolean useTopicMessageSizeEnabled;
     private final OffsetQueue offsetQueue;
+    private final SubscriptionPartitions subscriptionPartitions;
     private final ConsumerAuthorizationHandler consumerAuthorizationHandler;
     private final AdjustableSemaphore inflightSemaphore;
+    private final AdaptiveInflightLimit inflightLimit;
     private final SubscriptionLoadRecorder loadRecorder;
 
     private final int defaultInflight;
+    private final AdaptiveInflightParameters adaptiveInflight;
     private final Duration signalProcessingInterval;
 
     private Topic topic;
@@ -64,14 +70,18 @@ public class SerialConsumer implements Consumer {
                           SubscriptionLoadRecorder loadRecorder) {
 
         this.defaultInflight = commonConsumerParameters.getSerialConsumer().getInflightSize();
+        this.adaptiveInflight = commonConsumerParameters.getSerialConsumer().getAdaptiveInflight();
         this.signalProcessingInterval = commonConsumerParameters.getSerialConsumer().getSignalProcessingInterval();
         this.inflightSemaphore = new AdjustableSemaphore(calculateInflightSize(subscription));
+        this.inflightLimit = new AdaptiveInflightLimit(
+                inflightSemaphore, adaptiveInflight, calculateInflightSize(subscription), calculateMaxInflightSize(subscription));
         this.messageReceiverFactory = messageReceiverFactory;
         this.metrics = metrics;
         this.subscription = subscription;
         this.rateLimiter = rateLimiter;
         this.useTopicMessageSizeEnabled = commonConsumerParameters.isUseTopicMessageSizeEnabled();
         this.offsetQueue = offsetQueue;
+        this.subscriptionPartitions = new SubscriptionPartitions(subscription.getQualifiedName());
         this.consumerAuthorizationHandler = consumerAuthorizationHandler;
         this.trackers = trackers;
         this.messageConverterResolver = messageConverterResolver;
@@ -83,9 +93,14 @@ public class SerialConsumer implements Consumer {
                 rateLimiter,
                 offsetQueue,
                 inflightSemaphore::release,
+                inflightLimit,
                 loadRecorder,
                 metrics
         );
+        metrics.subscriptions().registerInflightLimitGauge(
+                subscription.getQualifiedName(), inflightLimit, AdaptiveInflightLimit::getLimit);
+        metrics.subscriptions().registerInflightLatencyGradientGauge(
+                subscription.getQualifiedName(), inflightLimit, AdaptiveInflightLimit::getGradient);
     }
 
     private int calculateInflightSize(Subscription subscription) {
@@ -93,6 +108,17 @@ public class SerialConsumer implements Consumer {
         return subscriptionInflight.orElse(defaultInflight);
     }
 
+    /**
+     * Inflight size set explicitly for a subscription bounds its adaptive window.
+     */
+    private int calculateMaxInflightSize(Subscription subscription) {
+        if (!adaptiveInflight.isEnabled()) {
+            return calculateInflightSize(subscription);
+        }
+        Optional<Integer> subscriptionInflight = Optional.ofNullable(subscription.getSerialSubscriptionPolicy().getInflightSize());
+        return subscriptionInflight.orElse(adaptiveInflight.getMaxInflight());
+    }
+
     @Override
     public void consume(Runnable signalsInterrupt) {
         try {
@@ -101,6 +127,10 @@ public class SerialConsumer implements Consumer {
                 signalsInterrupt.run();
             } while (!inflightSemaphore.tryAcquire(signalProcessingInterval.toMillis(), TimeUnit.MILLISECONDS));
 
+            if (sender.resendSpilledRetry()) {
+                return;
+            }
+
             Optional<Message> maybeMessage = messageReceiver.next();
 
             if (maybeMessage.isPresent()) {
@@ -127,11 +157,10 @@ public class SerialConsumer implements Consumer {
     }
 
     private void sendMessage(Message message) {
-        offsetQueue.offerInflightOffset(
-                subscriptionPartitionOffset(subscription.getQualifiedName(),
-                message.getPartitionOffset(),
-                message.getPartitionAssignmentTerm())
-        );
+        SubscriptionPartition partition = subscriptionPartitions.get(
+                message.getKafkaTopic(), message.getPartition(), message.getPartitionAssignmentTerm());
+        message.setSubscriptionPartition(partition);
+        offsetQueue.offerInflightOffset(partition, message.getOffset());
 
         trackers.get(subscription).logInflight(toMessageMetadata(message, subscription));
 
@@ -168,7 +197,7 @@ public class SerialConsumer implements Consumer {
     @Override
     public void updateSubscription(Subscription newSubscription) {
         logger.info("Updating consumer for subscription {}", subscription.getQualifiedName());
-        inflightSemaphore.setMaxPermits(calculateInflightSize(newSubscription));
+        inflightLimit.updateMaxLimit(calculateMaxInflightSize(newSubscription));
         rateLimiter.updateSubscription(newSubscription);
         sender.updateSubscription(newSubscription);
         messageReceiver.update(newSubscription);
@@ -181,11 +210,17 @@ public class SerialConsumer implements Consumer {
         if (this.topic.getContentType() != newTopic.getContentType()
                 || messageSizeChanged(newTopic)
                 || this.topic.isSchemaIdAwareSerializationEnabled() != newTopic.isSchemaIdAwareSerializationEnabled()) {
-            logger.info("Reinitializing message receiver, contentType, messageSize or schemaIdAwareSerialization changed.");
+            boolean sizeChanged = messageSizeChanged(newTopic);
             this.topic = newTopic;
 
-            messageReceiver.stop();
-            initializeMessageReceiver();
+            // a new Kafka consumer would leave and join the consumer group, which rebalances all its partitions
+            if (sizeChanged || !messageReceiver.updateTopic(newTopic)) {
+                logger.info("Reinitializing message receiver, contentType, messageSize or schemaIdAwareSerialization changed.");
+                messageReceiver.stop();
+                initializeMessageReceiver();
+            } else {
+                logger.info("Updated message receiver, contentType or schemaIdAwareSerialization changed.");
+            }
         }
     }
 
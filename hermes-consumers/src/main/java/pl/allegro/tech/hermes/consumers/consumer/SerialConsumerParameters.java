@@ -1,5 +1,7 @@
 package pl.allegro.tech.hermes.consumers.consumer;
 
+import pl.allegro.tech.hermes.consumers.consumer.rate.AdaptiveInflightParameters;
+
 import java.time.Duration;
 
 public interface SerialConsumerParameters {
@@ -7,4 +9,6 @@ public interface SerialConsumerParameters {
     Duration getSignalProcessingInterval();
 
     int getInflightSize();
+
+    AdaptiveInflightParameters getAdaptiveInflight();
 }
@@ -0,0 +1,224 @@
+package pl.allegro.tech.hermes.consumers.consumer.batch;
+
+import pl.allegro.tech.hermes.api.Header;
+import pl.allegro.tech.hermes.api.Subscription;
+import pl.allegro.tech.hermes.api.SubscriptionName;
+import pl.allegro.tech.hermes.common.kafka.KafkaTopicName;
+import pl.allegro.tech.hermes.common.kafka.offset.PartitionOffset;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
+import pl.allegro.tech.hermes.tracker.consumers.MessageMetadata;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static com.google.common.base.Preconditions.checkState;
+import static pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset.subscriptionPartitionOffset;
+
+/**
+ * Batch written straight into a pooled buffer. Implementations define how elements are framed in the buffer and how
+ * the content is finished on close.
+ */
+@NotThreadSafe
+abstract class AbstractMessageBatch implements MessageBatch {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Clock clock;
+
+    private final int maxBatchTime;
+    private final int batchSize;
+
+    private final String id;
+    private final String topic;
+    private final SubscriptionName subscription;
+    private final boolean hasSubscriptionIdentityHeaders;
+    private final List<MessageMetadata> metadata = new ArrayList<>();
+    private final List<Header> additionalHeaders;
+
+    protected final ByteBuffer byteBuffer;
+    private final int capacity;
+
+    private int elements = 0;
+    private long batchStart;
+    private boolean closed = false;
+    private int retryCounter = 0;
+    private int contentStart = 0;
+    private String contentEncoding;
+
+    AbstractMessageBatch(String id, ByteBuffer buffer, Subscription subscription, Clock clock) {
+        this.id = id;
+        this.clock = clock;
+        this.maxBatchTime = subscription.getBatchSubscriptionPolicy().getBatchTime();
+        this.batchSize = subscription.getBatchSubscriptionPolicy().getBatchSize();
+        this.byteBuffer = buffer;
+        this.capacity = buffer.limit();
+        this.additionalHeaders = subscription.getHeaders();
+        this.topic = subscription.getQualifiedTopicName();
+        this.subscription = subscription.getQualifiedName();
+        this.hasSubscriptionIdentityHeaders = subscription.isSubscriptionIdentityHeadersEnabled();
+    }
+
+    /**
+     * Number of bytes which have to be free in the buffer to append given element.
+     */
+    protected abstract int requiredFreeSpace(byte[] data);
+
+    protected abstract void write(byte[] data);
+
+    /**
+     * Completes content of the batch, which has to end at the current position of the buffer.
+     * Returns position at which the content starts.
+     */
+    protected abstract int finish();
+
+    @Override
+    public boolean isFull() {
+        return elements >= batchSize || byteBuffer.remaining() < requiredFreeSpace(EMPTY);
+    }
+
+    @Override
+    public void append(byte[] data, MessageMetadata metadata) {
+        checkState(!closed, "Batch already closed.");
+        if (!canFit(data)) {
+            throw new BufferOverflowException();
+        }
+        if (isEmpty()) {
+            batchStart = clock.millis();
+        }
+
+        write(data);
+        this.metadata.add(metadata);
+        elements++;
+    }
+
+    @Override
+    public boolean canFit(byte[] data) {
+        return byteBuffer.remaining() >= requiredFreeSpace(data);
+    }
+
+    @Override
+    public boolean isExpired() {
+        return !isEmpty() && getLifetime() > maxBatchTime;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public MessageBatch close() {
+        contentStart = finish();
+        int position = byteBuffer.position();
+        byteBuffer.position(contentStart);
+        byteBuffer.limit(position);
+        this.closed = true;
+        return this;
+    }
+
+    protected void setContentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    @Override
+    public Optional<String> getContentEncoding() {
+        return Optional.ofNullable(contentEncoding);
+    }
+
+    @Override
+    public ByteBuffer getContent() {
+        if (closed) {
+            byteBuffer.position(contentStart);
+        }
+        return byteBuffer;
+    }
+
+    @Override
+    public List<SubscriptionPartitionOffset> getPartitionOffsets() {
+        return metadata.stream()
+                .map(m -> subscriptionPartitionOffset(this.subscription,
+                        new PartitionOffset(KafkaTopicName.valueOf(m.getKafkaTopic()), m.getOffset(), m.getPartition()),
+                        m.getPartitionAssignmentTerm()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<MessageMetadata> getMessagesMetadata() {
+        return Collections.unmodifiableList(metadata);
+    }
+
+    @Override
+    public List<Header> getAdditionalHeaders() {
+        return Collections.unmodifiableList(additionalHeaders);
+    }
+
+    @Override
+    public int getMessageCount() {
+        return elements;
+    }
+
+    @Override
+    public long getLifetime() {
+        return clock.millis() - batchStart;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return elements == 0;
+    }
+
+    @Override
+    public boolean isBiggerThanTotalCapacity(byte[] data) {
+        return requiredFreeSpace(data) > getCapacity();
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getSize() {
+        if (closed) {
+            return byteBuffer.limit() - contentStart;
+        }
+        return byteBuffer.position();
+    }
+
+    @Override
+    public void incrementRetryCounter() {
+        this.retryCounter++;
+    }
+
+    @Override
+    public int getRetryCounter() {
+        return retryCounter;
+    }
+
+    @Override
+    public boolean hasSubscriptionIdentityHeaders() {
+        return hasSubscriptionIdentityHeaders;
+    }
+
+    @Override
+    public String getTopic() {
+        return topic;
+    }
+
+    @Override
+    public SubscriptionName getSubscription() {
+        return subscription;
+    }
+}
@@ -0,0 +1,166 @@
+package pl.allegro.tech.hermes.consumers.consumer.batch;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.Codec;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.io.BinaryData;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import pl.allegro.tech.hermes.api.BatchFormat;
+import pl.allegro.tech.hermes.api.ContentType;
+import pl.allegro.tech.hermes.api.Subscription;
+import pl.allegro.tech.hermes.common.exception.InternalProcessingException;
+import pl.allegro.tech.hermes.consumers.consumer.Message;
+import pl.allegro.tech.hermes.schema.CompiledSchema;
+import pl.allegro.tech.hermes.tracker.consumers.MessageMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * <p>Avro object container file with a single block holding all messages of the batch. Messages are appended to
+ * the buffer as they are, already serialized with the schema of the batch, which is the schema of its first message.
+ * A message with a different schema does not fit and starts the next batch.</p>
+ *
+ * <p>The file header and the block header depend on the number and size of messages, so on the first append space
+ * for both is reserved before the messages, and on close they are written right before the first message.
+ * The block is compressed on close with the codec chosen in the subscription policy.</p>
+ */
+@NotThreadSafe
+public class AvroObjectContainerMessageBatch extends AbstractMessageBatch {
+
+    private static final int MAX_BLOCK_HEADER_SIZE = 2 * 10;
+
+    private final Optional<Codec> codec;
+    private final byte[] sync = new byte[DataFileConstants.SYNC_SIZE];
+
+    private Schema schema;
+    private int blockStart;
+
+    AvroObjectContainerMessageBatch(String id, ByteBuffer buffer, Subscription subscription, Clock clock) {
+        super(id, buffer, subscription, clock);
+        this.codec = BatchCompressor.blockCodec(subscription.getBatchSubscriptionPolicy().getBatchCompression());
+        ThreadLocalRandom.current().nextBytes(sync);
+    }
+
+    @Override
+    public boolean canFit(Message message) {
+        Schema messageSchema = schemaOf(message);
+        if (isEmpty()) {
+            return byteBuffer.remaining() >= reservedHeaderSize(messageSchema) + requiredFreeSpace(message.getData());
+        }
+        return sameSchema(messageSchema) && canFit(message.getData());
+    }
+
+    @Override
+    public boolean isBiggerThanTotalCapacity(Message message) {
+        return reservedHeaderSize(schemaOf(message)) + requiredFreeSpace(message.getData()) > getCapacity();
+    }
+
+    @Override
+    public void append(Message message, MessageMetadata metadata) {
+        if (isEmpty()) {
+            schema = schemaOf(message);
+            blockStart = reservedHeaderSize(schema);
+            byteBuffer.position(blockStart);
+        }
+        checkState(sameSchema(schemaOf(message)), "Message schema differs from schema of the batch.");
+        append(message.getData(), metadata);
+    }
+
+    @Override
+    protected int requiredFreeSpace(byte[] data) {
+        return data.length + DataFileConstants.SYNC_SIZE;
+    }
+
+    @Override
+    protected void write(byte[] data) {
+        checkState(schema != null, "Avro batch requires schema of its messages.");
+        byteBuffer.put(data);
+    }
+
+    @Override
+    protected int finish() {
+        if (isEmpty()) {
+            return 0;
+        }
+        int blockEnd = byteBuffer.position();
+        String codecName = DataFileConstants.NULL_CODEC;
+        if (codec.isPresent()) {
+            int compressedEnd = BatchCompressor.compressBlock(codec.get(), byteBuffer, blockStart, blockEnd);
+            if (compressedEnd != blockEnd) {
+                blockEnd = compressedEnd;
+                codecName = codec.get().getName();
+            }
+        }
+        byteBuffer.position(blockEnd).put(sync);
+
+        byte[] blockHeader = new byte[MAX_BLOCK_HEADER_SIZE];
+        int blockHeaderSize = BinaryData.encodeLong(getMessageCount(), blockHeader, 0);
+        blockHeaderSize += BinaryData.encodeLong(blockEnd - blockStart, blockHeader, blockHeaderSize);
+        byte[] fileHeader = fileHeader(schema, codecName);
+
+        int contentStart = blockStart - blockHeaderSize - fileHeader.length;
+        byteBuffer.put(contentStart, fileHeader);
+        byteBuffer.put(contentStart + fileHeader.length, blockHeader, 0, blockHeaderSize);
+        return contentStart;
+    }
+
+    @Override
+    public ContentType getContentType() {
+        return ContentType.AVRO;
+    }
+
+    @Override
+    public BatchFormat getFormat() {
+        return BatchFormat.AVRO_OBJECT_CONTAINER;
+    }
+
+    private boolean sameSchema(Schema messageSchema) {
+        return schema == messageSchema || schema.equals(messageSchema);
+    }
+
+    private int reservedHeaderSize(Schema schema) {
+        int fileHeaderSize = fileHeader(schema, DataFileConstants.NULL_CODEC).length;
+        if (codec.isPresent()) {
+            fileHeaderSize = Math.max(fileHeaderSize, fileHeader(schema, codec.get().getName()).length);
+        }
+        return fileHeaderSize + MAX_BLOCK_HEADER_SIZE;
+    }
+
+    private byte[] fileHeader(Schema schema, String codecName) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(DataFileConstants.MAGIC);
+            BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+            encoder.writeMapStart();
+            encoder.setItemCount(2);
+            encoder.startItem();
+            encoder.writeString(DataFileConstants.SCHEMA);
+            encoder.writeBytes(schema.toString().getBytes(UTF_8));
+            encoder.startItem();
+            encoder.writeString(DataFileConstants.CODEC);
+            encoder.writeBytes(codecName.getBytes(UTF_8));
+            encoder.writeMapEnd();
+            encoder.writeFixed(sync);
+            encoder.flush();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new InternalProcessingException("Failed to write header of Avro batch", e);
+        }
+    }
+
+    private static Schema schemaOf(Message message) {
+        return message.getSchema()
+                .map(CompiledSchema::getSchema)
+                .orElseThrow(() -> new InternalProcessingException("Avro batch requires schema of message " + message.getId()));
+    }
+}
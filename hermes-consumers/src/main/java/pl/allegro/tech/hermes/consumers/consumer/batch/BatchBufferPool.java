@@ -0,0 +1,36 @@
+package pl.allegro.tech.hermes.consumers.consumer.batch;
+
+import pl.allegro.tech.hermes.api.SubscriptionName;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Memory for batches of all batch subscriptions running on a consumer node.
+ */
+public interface BatchBufferPool {
+
+    /**
+     * Returns a buffer with at least {@code size} bytes between its position and limit, blocking until there is enough
+     * memory in the pool.
+     */
+    ByteBuffer allocate(SubscriptionName subscription, int size) throws InterruptedException;
+
+    /**
+     * Returns buffer obtained with {@link #allocate(SubscriptionName, int)} of given {@code size} to the pool.
+     */
+    void deallocate(SubscriptionName subscription, ByteBuffer buffer, int size);
+
+    long totalMemory();
+
+    /**
+     * Memory which is not used by batches, either not allocated yet or kept for reuse.
+     */
+    long availableMemory();
+
+    long usedMemory();
+
+    /**
+     * Memory given to batches on top of requested sizes.
+     */
+    long fragmentedMemory();
+}
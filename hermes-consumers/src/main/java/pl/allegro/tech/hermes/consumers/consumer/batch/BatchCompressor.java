@@ -0,0 +1,122 @@
+package pl.allegro.tech.hermes.consumers.consumer.batch;
+
+import org.apache.avro.file.Codec;
+import org.apache.avro.file.DeflateCodec;
+import org.apache.avro.file.ZstandardCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.api.BatchCompression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses content of a batch in place. Compression is skipped when it fails or does not make the content smaller,
+ * so the caller always ends up with valid content.
+ */
+final class BatchCompressor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchCompressor.class);
+
+    private static final int DEFLATE_LEVEL = 6;
+    private static final int ZSTANDARD_LEVEL = 3;
+
+    private BatchCompressor() {
+    }
+
+    /**
+     * Codec of Avro object container file blocks.
+     */
+    static Optional<Codec> blockCodec(BatchCompression compression) {
+        switch (compression) {
+            case DEFLATE:
+                return Optional.of(new DeflateCodec(DEFLATE_LEVEL));
+            case ZSTANDARD:
+                return Optional.of(new ZstandardCodec(ZSTANDARD_LEVEL, false));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * Value of the Content-Encoding header of content compressed by {@link #compressBody}.
+     */
+    static Optional<String> contentEncoding(BatchCompression compression) {
+        switch (compression) {
+            case DEFLATE:
+                return Optional.of("deflate");
+            case ZSTANDARD:
+                return Optional.of("zstd");
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * Compresses bytes between given positions of the buffer with the codec and writes them back starting at
+     * {@code from}. Returns the new end of the region, or {@code to} when the region was left intact.
+     */
+    static int compressBlock(Codec codec, ByteBuffer buffer, int from, int to) {
+        try {
+            byte[] raw = new byte[to - from];
+            buffer.get(from, raw);
+            return putIfSmaller(codec.compress(ByteBuffer.wrap(raw)), buffer, from, to);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to compress batch with {} codec, sending it uncompressed", codec.getName(), e);
+            return to;
+        }
+    }
+
+    /**
+     * Compresses bytes between given positions of the buffer as a http content encoding, see
+     * {@link #contentEncoding}. Returns the new end of the region, or {@code to} when the region was left intact.
+     */
+    static int compressBody(BatchCompression compression, ByteBuffer buffer, int from, int to) {
+        switch (compression) {
+            case DEFLATE:
+                return deflate(buffer, from, to);
+            case ZSTANDARD:
+                return compressBlock(new ZstandardCodec(ZSTANDARD_LEVEL, false), buffer, from, to);
+            default:
+                return to;
+        }
+    }
+
+    /**
+     * Zlib wrapped deflate, as expected by http clients, unlike raw deflate used in Avro files.
+     * Reads the region straight from the buffer.
+     */
+    private static int deflate(ByteBuffer buffer, int from, int to) {
+        Deflater deflater = new Deflater(DEFLATE_LEVEL);
+        try {
+            deflater.setInput(buffer.duplicate().position(from).limit(to));
+            deflater.finish();
+            byte[] output = new byte[Math.max(64, (to - from) / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    if (length >= to - from) {
+                        return to;
+                    }
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return putIfSmaller(ByteBuffer.wrap(output, 0, length), buffer, from, to);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static int putIfSmaller(ByteBuffer compressed, ByteBuffer buffer, int from, int to) {
+        int length = compressed.remaining();
+        if (length >= to - from) {
+            return to;
+        }
+        buffer.put(from, compressed, compressed.position(), length);
+        return from + length;
+    }
+}
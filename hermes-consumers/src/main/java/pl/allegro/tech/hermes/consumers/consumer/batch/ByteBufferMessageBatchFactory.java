@@ -1,8 +1,11 @@
 package pl.allegro.tech.hermes.consumers.consumer.batch;
 
+import pl.allegro.tech.hermes.api.BatchFormat;
 import pl.allegro.tech.hermes.api.Subscription;
 import pl.allegro.tech.hermes.common.exception.InternalProcessingException;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.metrics.HermesTimer;
+import pl.allegro.tech.hermes.metrics.HermesTimerContext;
 
 import java.nio.ByteBuffer;
 import java.time.Clock;
@@ -11,36 +14,52 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.UUID.randomUUID;
 
 public class ByteBufferMessageBatchFactory implements MessageBatchFactory {
-    private final DirectBufferPool bufferPool;
+    private final BatchBufferPool bufferPool;
     private final Clock clock;
+    private final HermesTimer allocationTimer;
 
     public ByteBufferMessageBatchFactory(int poolableSize, int maxPoolSize, Clock clock, MetricsFacade metrics) {
+        this(new DirectBufferPool(maxPoolSize, poolableSize, true), clock, metrics);
+    }
+
+    public ByteBufferMessageBatchFactory(BatchBufferPool bufferPool, Clock clock, MetricsFacade metrics) {
         this.clock = clock;
-        this.bufferPool = new DirectBufferPool(maxPoolSize, poolableSize, true);
-        metrics.consumer().registerBatchBufferTotalBytesGauge(bufferPool, DirectBufferPool::totalMemory);
-        metrics.consumer().registerBatchBufferAvailableBytesGauge(bufferPool, DirectBufferPool::availableMemory);
+        this.bufferPool = bufferPool;
+        this.allocationTimer = metrics.consumer().batchBufferAllocationTimer();
+        metrics.consumer().registerBatchBufferTotalBytesGauge(bufferPool, BatchBufferPool::totalMemory);
+        metrics.consumer().registerBatchBufferAvailableBytesGauge(bufferPool, BatchBufferPool::availableMemory);
+        metrics.consumer().registerBatchBufferUsedBytesGauge(bufferPool, BatchBufferPool::usedMemory);
+        metrics.consumer().registerBatchBufferFragmentedBytesGauge(bufferPool, BatchBufferPool::fragmentedMemory);
     }
 
     @Override
     public MessageBatch createBatch(Subscription subscription) {
+        BatchFormat format = subscription.getBatchSubscriptionPolicy().getBatchFormat();
         try {
-            ByteBuffer buffer = bufferPool.allocate(subscription.getBatchSubscriptionPolicy().getBatchVolume());
-            switch (subscription.getContentType()) {
-                case JSON:
-                    return new JsonMessageBatch(randomUUID().toString(), buffer, subscription, clock);
-                case AVRO:
+            ByteBuffer buffer = allocate(subscription);
+            switch (format) {
+                case AVRO_OBJECT_CONTAINER:
+                    return new AvroObjectContainerMessageBatch(randomUUID().toString(), buffer, subscription, clock);
+                case LENGTH_PREFIXED:
+                    return new LengthPrefixedMessageBatch(randomUUID().toString(), buffer, subscription, clock);
+                case JSON_ARRAY:
                 default:
-                    throw new UnsupportedOperationException(
-                            "Batching is not supported yet for contentType " + subscription.getContentType());
+                    return new JsonMessageBatch(randomUUID().toString(), buffer, subscription, clock);
             }
         } catch (InterruptedException e) {
             throw new InternalProcessingException(e);
         }
     }
 
+    private ByteBuffer allocate(Subscription subscription) throws InterruptedException {
+        try (HermesTimerContext ignored = allocationTimer.time()) {
+            return bufferPool.allocate(subscription.getQualifiedName(), subscription.getBatchSubscriptionPolicy().getBatchVolume());
+        }
+    }
+
     @Override
     public void destroyBatch(MessageBatch batch) {
         checkNotNull(batch);
-        bufferPool.deallocate(batch.getContent());
+        bufferPool.deallocate(batch.getSubscription(), batch.getContent(), batch.getCapacity());
     }
 }
@@ -16,6 +16,8 @@
  */
 package pl.allegro.tech.hermes.consumers.consumer.batch;
 
+import pl.allegro.tech.hermes.api.SubscriptionName;
+
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
@@ -30,6 +32,7 @@ import java.util.concurrent.locks.ReentrantLock;
  *  Most notable changes:
  *  - direct memory allocation
  *  - lack of kafka specific monitoring dependencies
+ *  - BatchBufferPool methods delegating to the original ones
  *
  *  Implementation was deliberately not refactored for easier comparison with the original.
  *
@@ -46,7 +49,7 @@ import java.util.concurrent.locks.ReentrantLock;
  * buffers are deallocated.
  * </ol>
  */
-public final class DirectBufferPool {
+public final class DirectBufferPool implements BatchBufferPool {
 
     private final long totalMemory;
     private final int poolableSize;
@@ -203,9 +206,20 @@ public final class DirectBufferPool {
         deallocate(buffer, buffer.capacity());
     }
 
+    @Override
+    public ByteBuffer allocate(SubscriptionName subscription, int size) throws InterruptedException {
+        return allocate(size);
+    }
+
+    @Override
+    public void deallocate(SubscriptionName subscription, ByteBuffer buffer, int size) {
+        deallocate(buffer);
+    }
+
     /**
      * the total free memory both unallocated and in the free list
      */
+    @Override
     public long availableMemory() {
         lock.lock();
         try {
@@ -249,7 +263,21 @@ public final class DirectBufferPool {
     /**
      * The total memory managed by this pool
      */
+    @Override
     public long totalMemory() {
         return this.totalMemory;
     }
+
+    @Override
+    public long usedMemory() {
+        return this.totalMemory - availableMemory();
+    }
+
+    /**
+     * Buffers are allocated with exactly requested sizes
+     */
+    @Override
+    public long fragmentedMemory() {
+        return 0;
+    }
 }
@@ -0,0 +1,62 @@
+package pl.allegro.tech.hermes.consumers.consumer.batch;
+
+import pl.allegro.tech.hermes.api.BatchCompression;
+import pl.allegro.tech.hermes.api.BatchFormat;
+import pl.allegro.tech.hermes.api.ContentType;
+import pl.allegro.tech.hermes.api.Subscription;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Messages in content type of the subscription, each preceded by its length as a 4 byte big-endian integer.
+ * The whole content may be compressed on close.
+ */
+@NotThreadSafe
+public class LengthPrefixedMessageBatch extends AbstractMessageBatch {
+
+    private static final int LENGTH_PREFIX_SIZE = Integer.BYTES;
+
+    private final ContentType contentType;
+    private final BatchCompression compression;
+
+    LengthPrefixedMessageBatch(String id, ByteBuffer buffer, Subscription subscription, Clock clock) {
+        super(id, buffer, subscription, clock);
+        this.contentType = subscription.getContentType();
+        this.compression = subscription.getBatchSubscriptionPolicy().getBatchCompression();
+    }
+
+    @Override
+    protected int requiredFreeSpace(byte[] data) {
+        return data.length + LENGTH_PREFIX_SIZE;
+    }
+
+    @Override
+    protected void write(byte[] data) {
+        byteBuffer.putInt(data.length).put(data);
+    }
+
+    @Override
+    protected int finish() {
+        int end = byteBuffer.position();
+        if (!isEmpty() && compression != BatchCompression.NONE) {
+            int compressedEnd = BatchCompressor.compressBody(compression, byteBuffer, 0, end);
+            if (compressedEnd != end) {
+                byteBuffer.position(compressedEnd);
+                BatchCompressor.contentEncoding(compression).ifPresent(this::setContentEncoding);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public ContentType getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public BatchFormat getFormat() {
+        return BatchFormat.LENGTH_PREFIXED;
+    }
+}
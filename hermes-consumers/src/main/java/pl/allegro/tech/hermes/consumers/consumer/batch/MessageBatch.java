@@ -1,14 +1,17 @@
 package pl.allegro.tech.hermes.consumers.consumer.batch;
 
+import pl.allegro.tech.hermes.api.BatchFormat;
 import pl.allegro.tech.hermes.api.ContentType;
 import pl.allegro.tech.hermes.api.Header;
 import pl.allegro.tech.hermes.api.SubscriptionName;
+import pl.allegro.tech.hermes.consumers.consumer.Message;
 import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
 import pl.allegro.tech.hermes.tracker.consumers.MessageMetadata;
 
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Optional;
 
 public interface MessageBatch {
 
@@ -20,6 +23,18 @@ public interface MessageBatch {
 
     boolean canFit(byte[] data);
 
+    default void append(Message message, MessageMetadata batchMessageMetadata) throws BufferOverflowException {
+        append(message.getData(), batchMessageMetadata);
+    }
+
+    default boolean canFit(Message message) {
+        return canFit(message.getData());
+    }
+
+    default boolean isBiggerThanTotalCapacity(Message message) {
+        return isBiggerThanTotalCapacity(message.getData());
+    }
+
     boolean isExpired();
 
     boolean isClosed();
@@ -30,6 +45,13 @@ public interface MessageBatch {
 
     ContentType getContentType();
 
+    BatchFormat getFormat();
+
+    /**
+     * Encoding of the whole content, when the content was compressed on close.
+     */
+    Optional<String> getContentEncoding();
+
     ByteBuffer getContent();
 
     List<SubscriptionPartitionOffset> getPartitionOffsets();
@@ -3,6 +3,7 @@ package pl.allegro.tech.hermes.consumers.consumer.batch;
 import org.apache.avro.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.api.BatchFormat;
 import pl.allegro.tech.hermes.api.Subscription;
 import pl.allegro.tech.hermes.api.Topic;
 import pl.allegro.tech.hermes.common.kafka.offset.PartitionOffset;
@@ -81,9 +82,9 @@ public class MessageBatchReceiver {
             if (maybeMessage.isPresent()) {
                 Message message = maybeMessage.get();
 
-                if (batch.canFit(message.getData())) {
-                    batch.append(message.getData(), toMessageMetadata(message, subscription, batch.getId()));
-                } else if (batch.isBiggerThanTotalCapacity(message.getData())) {
+                if (batch.canFit(message)) {
+                    batch.append(message, toMessageMetadata(message, subscription, batch.getId()));
+                } else if (batch.isBiggerThanTotalCapacity(message)) {
                     logger.error("Message size exceeds buffer total capacity [size={}, capacity={}, subscription={}]",
                             message.getData().length, batch.getCapacity(), subscription.getQualifiedName());
                     discarded.add(toMessageMetadata(message, subscription));
@@ -122,6 +123,11 @@ public class MessageBatchReceiver {
     private byte[] wrap(Subscription subscription, Message next) {
         switch (subscription.getContentType()) {
             case AVRO:
+                if (subscription.getBatchSubscriptionPolicy().getBatchFormat() == BatchFormat.AVRO_OBJECT_CONTAINER) {
+                    // header of the container file holds the schema, a schema id in front of each record corrupts the file
+                    return compositeMessageContentWrapper.wrapAvroWithoutSchemaIdHeader(next.getData(), next.getId(),
+                            next.getPublishingTimestamp(), next.<Schema>getSchema().get(), next.getExternalMetadata());
+                }
                 return compositeMessageContentWrapper.wrapAvro(next.getData(), next.getId(), next.getPublishingTimestamp(), topic,
                         next.<Schema>getSchema().get(), next.getExternalMetadata());
             case JSON:
@@ -0,0 +1,273 @@
+package pl.allegro.tech.hermes.consumers.consumer.batch;
+
+import pl.allegro.tech.hermes.api.SubscriptionName;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of direct buffers kept under a given memory limit, which does not take any lock unless it is out of memory.
+ * <ol>
+ * <li>Requested sizes are rounded up to power of two size classes, starting with a minimal segment size. Released
+ * buffers are kept on lock-free free lists of their size class. Requests bigger than the biggest size class are
+ * allocated with exact size and released on deallocation.
+ * <li>Every subscription caches the last released buffer, so a consumer creating batches of the same size one after
+ * another does not touch shared free lists at all.
+ * <li>When there is no memory left, cached buffers of other size classes and subscriptions are released to make
+ * room. If it is still not enough, the allocating thread waits until some memory is returned.
+ * <li>With subscription quotas enabled, a subscription holding more than its fair share of memory (total memory
+ * divided by number of subscriptions holding any buffers) cannot take memory while some subscription below its
+ * share waits for it. A subscription which holds no buffers is always within its share.
+ * </ol>
+ */
+public final class SegmentedDirectBufferPool implements BatchBufferPool {
+
+    private final long totalMemory;
+    private final boolean subscriptionQuotasEnabled;
+    private final int minSegmentShift;
+    private final SizeClass[] sizeClasses;
+    private final ConcurrentMap<SubscriptionName, Quota> quotas = new ConcurrentHashMap<>();
+
+    private final AtomicLong allocatedMemory = new AtomicLong();
+    private final AtomicLong cachedMemory = new AtomicLong();
+    private final AtomicLong usedMemory = new AtomicLong();
+    private final AtomicLong requestedMemory = new AtomicLong();
+    private final AtomicInteger activeSubscriptions = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition moreMemory = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicInteger starvingWaiters = new AtomicInteger();
+
+    /**
+     * @param memory The maximum amount of memory that this buffer pool can allocate
+     * @param minSegmentSize The smallest size class, rounded up to power of two
+     * @param subscriptionQuotasEnabled Whether subscriptions are limited to their fair share of memory when it is scarce
+     */
+    public SegmentedDirectBufferPool(long memory, int minSegmentSize, boolean subscriptionQuotasEnabled) {
+        if (minSegmentSize <= 0 || minSegmentSize > memory) {
+            throw new IllegalArgumentException("Minimal segment size " + minSegmentSize + " has to be between 1 and " + memory);
+        }
+        this.totalMemory = memory;
+        this.subscriptionQuotasEnabled = subscriptionQuotasEnabled;
+        this.minSegmentShift = ceilLog2(minSegmentSize);
+        int classes = 0;
+        while (classes + minSegmentShift < Integer.SIZE - 1 && (1L << (classes + minSegmentShift)) <= memory) {
+            classes++;
+        }
+        this.sizeClasses = new SizeClass[classes];
+        for (int i = 0; i < classes; i++) {
+            sizeClasses[i] = new SizeClass(1 << (i + minSegmentShift));
+        }
+    }
+
+    @Override
+    public ByteBuffer allocate(SubscriptionName subscription, int size) throws InterruptedException {
+        if (size > totalMemory) {
+            throw new IllegalArgumentException("Attempt to allocate " + size + " bytes, but there is a hard limit of "
+                    + totalMemory + " on memory allocations.");
+        }
+        SizeClass sizeClass = sizeClassOf(size);
+        int capacity = sizeClass == null ? size : sizeClass.size;
+        Quota quota = quotas.computeIfAbsent(subscription, name -> new Quota());
+
+        ByteBuffer buffer = tryAllocate(quota, sizeClass, capacity);
+        if (buffer == null) {
+            buffer = awaitAllocation(quota, sizeClass, capacity);
+        }
+
+        if (quota.used.getAndAdd(capacity) == 0) {
+            activeSubscriptions.incrementAndGet();
+        }
+        usedMemory.addAndGet(capacity);
+        requestedMemory.addAndGet(size);
+        buffer.limit(size);
+        return buffer;
+    }
+
+    @Override
+    public void deallocate(SubscriptionName subscription, ByteBuffer buffer, int size) {
+        int capacity = buffer.capacity();
+        Quota quota = quotas.get(subscription);
+        if (quota != null && quota.used.addAndGet(-capacity) == 0) {
+            activeSubscriptions.decrementAndGet();
+        }
+        usedMemory.addAndGet(-capacity);
+        requestedMemory.addAndGet(-size);
+
+        SizeClass sizeClass = sizeClassOf(capacity);
+        if (sizeClass == null || sizeClass.size != capacity) {
+            DirectBufferUtils.release(buffer);
+            allocatedMemory.addAndGet(-capacity);
+        } else {
+            buffer.clear();
+            cachedMemory.addAndGet(capacity);
+            boolean cached = quota != null && waiters.get() == 0 && quota.cached.compareAndSet(null, buffer);
+            if (!cached) {
+                sizeClass.free.offer(buffer);
+            }
+        }
+
+        if (waiters.get() > 0) {
+            signalWaiters();
+        }
+    }
+
+    private ByteBuffer tryAllocate(Quota quota, SizeClass sizeClass, int capacity) {
+        if (!isWithinShare(quota, capacity) && starvingWaiters.get() > 0) {
+            return null;
+        }
+        if (sizeClass != null) {
+            ByteBuffer cached = quota.cached.get();
+            if (cached != null && cached.capacity() == capacity && quota.cached.compareAndSet(cached, null)) {
+                cachedMemory.addAndGet(-capacity);
+                return cached;
+            }
+            ByteBuffer pooled = sizeClass.free.poll();
+            if (pooled != null) {
+                cachedMemory.addAndGet(-capacity);
+                return pooled;
+            }
+        }
+        return reserve(capacity) ? ByteBuffer.allocateDirect(capacity) : null;
+    }
+
+    private ByteBuffer awaitAllocation(Quota quota, SizeClass sizeClass, int capacity) throws InterruptedException {
+        boolean starving = isWithinShare(quota, capacity);
+        lock.lock();
+        waiters.incrementAndGet();
+        if (starving) {
+            starvingWaiters.incrementAndGet();
+        }
+        try {
+            ByteBuffer buffer;
+            while ((buffer = tryAllocate(quota, sizeClass, capacity)) == null) {
+                moreMemory.await();
+            }
+            return buffer;
+        } finally {
+            waiters.decrementAndGet();
+            if (starving) {
+                starvingWaiters.decrementAndGet();
+            }
+            // waiters over their share might have been held back by this one
+            if (waiters.get() > 0) {
+                moreMemory.signalAll();
+            }
+            lock.unlock();
+        }
+    }
+
+    private void signalWaiters() {
+        lock.lock();
+        try {
+            moreMemory.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean reserve(int capacity) {
+        while (true) {
+            long allocated = allocatedMemory.get();
+            if (allocated + capacity <= totalMemory) {
+                if (allocatedMemory.compareAndSet(allocated, allocated + capacity)) {
+                    return true;
+                }
+            } else if (!evictCached()) {
+                return false;
+            }
+        }
+    }
+
+    private boolean evictCached() {
+        for (int i = sizeClasses.length - 1; i >= 0; i--) {
+            ByteBuffer buffer = sizeClasses[i].free.poll();
+            if (buffer != null) {
+                release(buffer);
+                return true;
+            }
+        }
+        for (Quota quota : quotas.values()) {
+            ByteBuffer buffer = quota.cached.getAndSet(null);
+            if (buffer != null) {
+                release(buffer);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        DirectBufferUtils.release(buffer);
+        cachedMemory.addAndGet(-capacity);
+        allocatedMemory.addAndGet(-capacity);
+    }
+
+    private boolean isWithinShare(Quota quota, int capacity) {
+        if (!subscriptionQuotasEnabled) {
+            return true;
+        }
+        long used = quota.used.get();
+        return used == 0 || used + capacity <= totalMemory / Math.max(1, activeSubscriptions.get());
+    }
+
+    private SizeClass sizeClassOf(int size) {
+        int index = Math.max(ceilLog2(size) - minSegmentShift, 0);
+        return index < sizeClasses.length ? sizeClasses[index] : null;
+    }
+
+    private static int ceilLog2(int value) {
+        return value <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(value - 1);
+    }
+
+    @Override
+    public long totalMemory() {
+        return totalMemory;
+    }
+
+    @Override
+    public long availableMemory() {
+        return totalMemory - allocatedMemory.get() + cachedMemory.get();
+    }
+
+    @Override
+    public long usedMemory() {
+        return usedMemory.get();
+    }
+
+    @Override
+    public long fragmentedMemory() {
+        return usedMemory.get() - requestedMemory.get();
+    }
+
+    /**
+     * The number of threads blocked waiting on memory
+     */
+    public int queued() {
+        return waiters.get();
+    }
+
+    private static final class SizeClass {
+        private final int size;
+        private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+
+        private SizeClass(int size) {
+            this.size = size;
+        }
+    }
+
+    private static final class Quota {
+        private final AtomicLong used = new AtomicLong();
+        private final AtomicReference<ByteBuffer> cached = new AtomicReference<>();
+    }
+}
@@ -0,0 +1,45 @@
+package pl.allegro.tech.hermes.consumers.consumer.filtering;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import pl.allegro.tech.hermes.common.kafka.offset.PartitionOffset;
+import pl.allegro.tech.hermes.consumers.consumer.Message;
+import pl.allegro.tech.hermes.domain.filtering.FilterableMessage;
+import pl.allegro.tech.hermes.domain.filtering.ParsedFilterableMessage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values selected by filter paths for recently filtered records, shared by all subscriptions of a topic on the node.
+ * Subscriptions with filters on the same paths select them once per record, whether they read the record
+ * from a shared fetcher or on their own.
+ */
+public class FilterValuesCache {
+
+    private static final FilterValuesCache DISABLED = new FilterValuesCache(null);
+
+    private final Cache<PartitionOffset, Map<String, List<String>>> selectedValues;
+
+    private FilterValuesCache(Cache<PartitionOffset, Map<String, List<String>>> selectedValues) {
+        this.selectedValues = selectedValues;
+    }
+
+    public static FilterValuesCache create(long maxSize) {
+        return new FilterValuesCache(CacheBuilder.newBuilder().maximumSize(maxSize).build());
+    }
+
+    public static FilterValuesCache disabled() {
+        return DISABLED;
+    }
+
+    public FilterableMessage forFiltering(Message message) {
+        if (selectedValues == null) {
+            return message;
+        }
+        Map<String, List<String>> values = selectedValues.asMap()
+                .computeIfAbsent(message.getPartitionOffset(), partitionOffset -> new ConcurrentHashMap<>());
+        return ParsedFilterableMessage.of(message, values);
+    }
+}
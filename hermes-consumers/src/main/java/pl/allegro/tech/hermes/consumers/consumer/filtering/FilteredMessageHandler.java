@@ -7,6 +7,7 @@ import pl.allegro.tech.hermes.api.SubscriptionName;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.consumers.consumer.Message;
 import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetQueue;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitions;
 import pl.allegro.tech.hermes.consumers.consumer.rate.ConsumerRateLimiter;
 import pl.allegro.tech.hermes.domain.filtering.chain.FilterResult;
 import pl.allegro.tech.hermes.metrics.HermesCounter;
@@ -15,7 +16,6 @@ import pl.allegro.tech.hermes.tracker.consumers.Trackers;
 import java.util.Optional;
 
 import static pl.allegro.tech.hermes.consumers.consumer.message.MessageConverter.toMessageMetadata;
-import static pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset.subscriptionPartitionOffset;
 
 public class FilteredMessageHandler {
 
@@ -23,6 +23,8 @@ public class FilteredMessageHandler {
     private final Optional<ConsumerRateLimiter> consumerRateLimiter;
     private final Trackers trackers;
     private final HermesCounter filteredOutCounter;
+    // messages are filtered by the consumer thread only
+    private final SubscriptionPartitions subscriptionPartitions;
 
     private static final Logger logger = LoggerFactory.getLogger(FilteredMessageHandler.class);
 
@@ -35,6 +37,7 @@ public class FilteredMessageHandler {
         this.consumerRateLimiter = Optional.ofNullable(consumerRateLimiter);
         this.trackers = trackers;
         this.filteredOutCounter = metrics.subscriptions().filteredOutCounter(subscriptionName);
+        this.subscriptionPartitions = new SubscriptionPartitions(subscriptionName);
     }
 
     public void handle(FilterResult result, Message message, Subscription subscription) {
@@ -43,8 +46,9 @@ public class FilteredMessageHandler {
                 logger.debug("Message filtered for subscription {} {}", subscription.getQualifiedName(), result);
             }
 
-            offsetQueue.offerCommittedOffset(subscriptionPartitionOffset(subscription.getQualifiedName(),
-                    message.getPartitionOffset(), message.getPartitionAssignmentTerm()));
+            offsetQueue.offerCommittedOffset(
+                    subscriptionPartitions.get(message.getKafkaTopic(), message.getPartition(), message.getPartitionAssignmentTerm()),
+                    message.getOffset());
 
             filteredOutCounter.increment();
 
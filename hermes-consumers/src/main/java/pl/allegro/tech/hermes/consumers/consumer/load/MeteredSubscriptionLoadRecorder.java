@@ -0,0 +1,59 @@
+package pl.allegro.tech.hermes.consumers.consumer.load;
+
+import pl.allegro.tech.hermes.api.SubscriptionName;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.metrics.HermesTimer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports occupancy of the read queue and time spent waiting for records as subscription metrics,
+ * passing operations to the recorder which measures the subscription load.
+ * <p>
+ * A recorder is created for every receiver, while the delegate belongs to the consumer, which initializes and shuts it
+ * down. Shutting down this recorder only unregisters its gauge, so a gauge of a receiver created later does not keep
+ * reporting this one.
+ */
+public class MeteredSubscriptionLoadRecorder implements SubscriptionLoadRecorder {
+
+    private final SubscriptionLoadRecorder delegate;
+    private final SubscriptionName subscriptionName;
+    private final MetricsFacade metrics;
+    private final HermesTimer pollWaitTimer;
+    private volatile double readQueueOccupancy;
+
+    public MeteredSubscriptionLoadRecorder(SubscriptionLoadRecorder delegate,
+                                           SubscriptionName subscriptionName,
+                                           MetricsFacade metrics) {
+        this.delegate = delegate;
+        this.subscriptionName = subscriptionName;
+        this.metrics = metrics;
+        this.pollWaitTimer = metrics.subscriptions().pollWaitTimer(subscriptionName);
+        metrics.subscriptions().registerReadQueueOccupancyGauge(subscriptionName, this, recorder -> recorder.readQueueOccupancy);
+    }
+
+    @Override
+    public void initialize() {
+    }
+
+    @Override
+    public void recordSingleOperation() {
+        delegate.recordSingleOperation();
+    }
+
+    @Override
+    public void shutdown() {
+        readQueueOccupancy = 0;
+        metrics.subscriptions().unregisterReadQueueOccupancyGauge(subscriptionName);
+    }
+
+    @Override
+    public void recordReadQueueOccupancy(int queued, int capacity) {
+        readQueueOccupancy = (double) queued / capacity;
+    }
+
+    @Override
+    public void recordPollWait(long nanos) {
+        pollWaitTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -7,4 +7,8 @@ public interface SubscriptionLoadRecorder {
     void recordSingleOperation();
 
     void shutdown();
+
+    default void recordReadQueueOccupancy(int queued, int capacity) {}
+
+    default void recordPollWait(long nanos) {}
 }
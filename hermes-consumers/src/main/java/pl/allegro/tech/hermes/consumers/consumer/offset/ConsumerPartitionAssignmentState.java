@@ -4,44 +4,55 @@ import org.slf4j.Logger;
 import pl.allegro.tech.hermes.api.SubscriptionName;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-import static java.util.stream.Collectors.toSet;
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * Partitions of subscriptions assigned to this consumer node, with the term in which each of them was assigned.
+ *
+ * <p>Every assignment starts a new term of the subscription. Only the partitions being assigned get the new term,
+ * partitions which stay assigned keep theirs. With the eager protocol all partitions are revoked before any
+ * assignment, so all of them get the new term. With the cooperative protocol only partitions which move between
+ * consumers are revoked and assigned, so offsets of messages read from the other partitions before the rebalance
+ * are still committed.</p>
+ */
 public class ConsumerPartitionAssignmentState {
 
     private static final Logger logger = getLogger(ConsumerPartitionAssignmentState.class);
 
-    private final Map<SubscriptionName, Set<Integer>> assigned = new ConcurrentHashMap<>();
+    private final Map<SubscriptionName, Map<Integer, Long>> assigned = new ConcurrentHashMap<>();
 
     private final Map<SubscriptionName, Long> terms = new ConcurrentHashMap<>();
 
     public void assign(SubscriptionName name, Collection<Integer> partitions) {
-        incrementTerm(name);
-        logger.info("Assigning partitions {} of {}, term={}", partitions, name, currentTerm(name));
+        if (partitions.isEmpty()) {
+            // cooperative rebalance which did not assign any new partition
+            return;
+        }
+        long term = incrementTerm(name);
+        logger.info("Assigning partitions {} of {}, term={}", partitions, name, term);
         assigned.compute(name, ((subscriptionName, assigned) -> {
-            HashSet<Integer> extended = new HashSet<>(partitions);
-            if (assigned == null) {
-                return extended;
-            } else {
-                extended.addAll(assigned);
-                return extended;
-            }
+            Map<Integer, Long> extended = assigned == null ? new HashMap<>() : new HashMap<>(assigned);
+            partitions.forEach(partition -> extended.put(partition, term));
+            return extended;
         }));
     }
 
-    private void incrementTerm(SubscriptionName name) {
-        terms.compute(name, ((subscriptionName, term) -> term == null ? 0L : term + 1L));
+    private long incrementTerm(SubscriptionName name) {
+        return terms.compute(name, ((subscriptionName, term) -> term == null ? 0L : term + 1L));
     }
 
     public void revoke(SubscriptionName name, Collection<Integer> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
         logger.info("Revoking partitions {} of {}", partitions, name);
         assigned.computeIfPresent(name, (subscriptionName, assigned) -> {
-            Set<Integer> filtered = assigned.stream().filter(p -> !partitions.contains(p)).collect(toSet());
+            Map<Integer, Long> filtered = new HashMap<>(assigned);
+            filtered.keySet().removeAll(partitions);
             return filtered.isEmpty() ? null : filtered;
         });
     }
@@ -55,12 +66,22 @@ public class ConsumerPartitionAssignmentState {
         return terms.getOrDefault(name, -1L);
     }
 
-    public boolean isAssignedPartitionAtCurrentTerm(SubscriptionPartition subscriptionPartition) {
-        return currentTerm(subscriptionPartition.getSubscriptionName()) == subscriptionPartition.getPartitionAssignmentTerm()
-                && isAssigned(subscriptionPartition.getSubscriptionName(), subscriptionPartition.getPartition());
+    /**
+     * Returns the term in which the partition was assigned, or the current term of the subscription when the partition
+     * is not assigned.
+     */
+    public long currentTerm(SubscriptionName name, int partition) {
+        Map<Integer, Long> partitions = assigned.get(name);
+        Long term = partitions == null ? null : partitions.get(partition);
+        return term == null ? currentTerm(name) : term;
     }
 
-    private boolean isAssigned(SubscriptionName name, int partition) {
-        return assigned.containsKey(name) && assigned.get(name).contains(partition);
+    public boolean isAssignedPartitionAtCurrentTerm(SubscriptionPartition subscriptionPartition) {
+        Map<Integer, Long> partitions = assigned.get(subscriptionPartition.getSubscriptionName());
+        if (partitions == null) {
+            return false;
+        }
+        Long term = partitions.get(subscriptionPartition.getPartition());
+        return term != null && term == subscriptionPartition.getPartitionAssignmentTerm();
     }
 }
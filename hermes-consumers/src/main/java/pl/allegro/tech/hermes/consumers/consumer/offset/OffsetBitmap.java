@@ -0,0 +1,143 @@
+package pl.allegro.tech.hermes.consumers.consumer.offset;
+
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * <p>Set of offsets of a single partition, kept as a bitmap of {@code long} words over a window spanning from the lowest
+ * to the highest offset in the set. Words are stored in a ring, so the window slides forward as offsets are removed
+ * from its beginning and added past its end, without copying. The window grows when offsets spread apart.</p>
+ *
+ * <p>Finding the lowest offset resumes scanning from the word where the previous scan stopped. As offsets are
+ * consumed from Kafka in order, every word is scanned over at most once, which is O(1) amortised per offset.</p>
+ *
+ * <p>Offsets which would make the window bigger than {@link #MAX_WORDS} words, e.g. messages waiting for a retry for
+ * a long time while newer ones are being sent, are kept in a sorted overflow set instead.</p>
+ */
+final class OffsetBitmap {
+
+    private static final int INITIAL_WORDS = 64;
+
+    static final int MAX_WORDS = 1 << 20;
+
+    private long[] words = new long[INITIAL_WORDS];
+    private long lowWord;
+    private long highWord;
+    private int bitmapSize;
+    private final NavigableSet<Long> overflow = new TreeSet<>();
+
+    boolean add(long offset) {
+        if (!overflow.isEmpty() && overflow.contains(offset)) {
+            return false;
+        }
+        long word = offset >>> 6;
+        if (bitmapSize == 0) {
+            reset(word);
+        } else if (word < lowWord || word > highWord) {
+            if (Math.max(highWord, word) - Math.min(lowWord, word) >= words.length && !resize(word)) {
+                return overflow.add(offset);
+            }
+            lowWord = Math.min(lowWord, word);
+            highWord = Math.max(highWord, word);
+        }
+
+        int index = index(word);
+        long bit = 1L << offset;
+        if ((words[index] & bit) != 0) {
+            return false;
+        }
+        words[index] |= bit;
+        bitmapSize++;
+        return true;
+    }
+
+    boolean remove(long offset) {
+        long word = offset >>> 6;
+        if (bitmapSize > 0 && word >= lowWord && word <= highWord) {
+            int index = index(word);
+            long bit = 1L << offset;
+            if ((words[index] & bit) != 0) {
+                words[index] &= ~bit;
+                bitmapSize--;
+                return true;
+            }
+        }
+        return !overflow.isEmpty() && overflow.remove(offset);
+    }
+
+    /**
+     * Returns the lowest offset in the set or {@link Long#MAX_VALUE} when it is empty.
+     */
+    long min() {
+        long min = Long.MAX_VALUE;
+        if (bitmapSize > 0) {
+            skipEmptyLowWords();
+            min = (lowWord << 6) + Long.numberOfTrailingZeros(words[index(lowWord)]);
+        }
+        if (!overflow.isEmpty()) {
+            min = Math.min(min, overflow.first());
+        }
+        return min;
+    }
+
+    boolean isEmpty() {
+        return bitmapSize == 0 && overflow.isEmpty();
+    }
+
+    int size() {
+        return bitmapSize + overflow.size();
+    }
+
+    void clear() {
+        if (bitmapSize > 0) {
+            for (long word = lowWord; word <= highWord; word++) {
+                words[index(word)] = 0;
+            }
+            bitmapSize = 0;
+        }
+        overflow.clear();
+    }
+
+    private void reset(long word) {
+        if (words.length > INITIAL_WORDS) {
+            words = new long[INITIAL_WORDS];
+        }
+        lowWord = word;
+        highWord = word;
+    }
+
+    private boolean resize(long word) {
+        skipEmptyLowWords();
+        skipEmptyHighWords();
+        long required = Math.max(highWord, word) - Math.min(lowWord, word) + 1;
+        if (required <= words.length) {
+            return true;
+        }
+        if (required > MAX_WORDS) {
+            return false;
+        }
+
+        long[] resized = new long[Integer.highestOneBit((int) required - 1) << 1];
+        for (long copied = lowWord; copied <= highWord; copied++) {
+            resized[(int) (copied & (resized.length - 1))] = words[index(copied)];
+        }
+        words = resized;
+        return true;
+    }
+
+    private void skipEmptyLowWords() {
+        while (words[index(lowWord)] == 0) {
+            lowWord++;
+        }
+    }
+
+    private void skipEmptyHighWords() {
+        while (words[index(highWord)] == 0) {
+            highWord--;
+        }
+    }
+
+    private int index(long word) {
+        return (int) (word & (words.length - 1));
+    }
+}
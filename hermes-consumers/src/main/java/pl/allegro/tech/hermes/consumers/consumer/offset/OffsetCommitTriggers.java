@@ -0,0 +1,51 @@
+package pl.allegro.tech.hermes.consumers.consumer.offset;
+
+import java.time.Duration;
+
+/**
+ * Conditions on which {@link OffsetCommitter} commits offsets of a partition. They are checked every check interval.
+ *
+ * <p>Periodic triggers commit offsets of all partitions on every check. Adaptive triggers commit offsets of
+ * a partition only when they changed since its last commit and either there are at least
+ * {@code maxUncommittedMessages} messages acknowledged and not committed yet, or the oldest of them waits
+ * for at least {@code maxUncommittedAge}. Busy partitions are committed often, which bounds the number of
+ * messages delivered again after a crash, while idle ones are not committed at all.</p>
+ */
+public final class OffsetCommitTriggers {
+
+    private final boolean adaptive;
+    private final Duration checkInterval;
+    private final int maxUncommittedMessages;
+    private final Duration maxUncommittedAge;
+
+    private OffsetCommitTriggers(boolean adaptive, Duration checkInterval, int maxUncommittedMessages, Duration maxUncommittedAge) {
+        this.adaptive = adaptive;
+        this.checkInterval = checkInterval;
+        this.maxUncommittedMessages = maxUncommittedMessages;
+        this.maxUncommittedAge = maxUncommittedAge;
+    }
+
+    public static OffsetCommitTriggers periodic(Duration period) {
+        return new OffsetCommitTriggers(false, period, 0, period);
+    }
+
+    public static OffsetCommitTriggers adaptive(Duration checkInterval, int maxUncommittedMessages, Duration maxUncommittedAge) {
+        return new OffsetCommitTriggers(true, checkInterval, maxUncommittedMessages, maxUncommittedAge);
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public Duration getCheckInterval() {
+        return checkInterval;
+    }
+
+    public int getMaxUncommittedMessages() {
+        return maxUncommittedMessages;
+    }
+
+    public Duration getMaxUncommittedAge() {
+        return maxUncommittedAge;
+    }
+}
@@ -1,25 +1,23 @@
 package pl.allegro.tech.hermes.consumers.consumer.offset;
 
-import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import org.jctools.queues.MessagePassingQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.consumers.consumer.receiver.MessageCommitter;
+import pl.allegro.tech.hermes.consumers.queue.ObjectLongMpscQueue;
 import pl.allegro.tech.hermes.metrics.HermesCounter;
 import pl.allegro.tech.hermes.metrics.HermesTimer;
 import pl.allegro.tech.hermes.metrics.HermesTimerContext;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiFunction;
-import java.util.function.Function;
 
 /**
  * <p>Note on algorithm used to calculate offsets to actually commit.
@@ -36,39 +34,38 @@ import java.util.function.Function;
  *
  * <p>There are two queues which are used by Consumers to report message state:</p>
  * <ul>
- * <li><code>inflightOffsets</code>: message offsets that are currently being sent (inflight),</li>
+ * <li><code>inflightOffsets</code>: message offsets that are currently being sent (inflight), including messages waiting
+ * for their retry, also the ones spilled out of the heap,</li>
  * <li><code>commitedOffsets</code>: message offsets that are ready to get committed.</li>
  * </ul>
  *
- * <p>This committer class holds internal state in form of inflightOffsets and maxCommittedOffsets collections.</p>
+ * <p>This committer class holds internal state of every subscription partition in form of:</p>
  * <ul>
- * <li><code>inflightOffsets</code> are all offsets that are currently in inflight state,</li>
- * <li><code>maxCommittedOffsets</code> are offsets (maximum per partition) of already committed messages that could not yet be committed
+ * <li><code>inflight</code>: {@link OffsetBitmap} of all offsets that are currently in inflight state,</li>
+ * <li><code>maxCommitted</code>: maximum offset of already committed messages that could not yet be committed
  * to kafka due to an existing inflight offset on the same partition.</li>
  * </ul>
  *
- * <p>In scheduled periods, commit algorithm is run. It has three phases. First one is draining the queues and performing
- * reductions:</p>
+ * <p>In scheduled periods, commit algorithm is run. It has two phases. First one is draining the queues:</p>
  * <ul>
- * <li>drain <code>committedOffsets</code> queue to collection - it needs to be done before draining inflights, so this collection
- * will not grow anymore, resulting in having inflights unmatched by commits; commits are incremented by 1 to match
- * Kafka commit definition,</li>
- * <li>update the <code>maxCommittedOffsets</code> map with largest committed offsets,</li>
- * <li>drain <code>inflightOffsets</code>.</li>
+ * <li>drain <code>committedOffsets</code> queue - it needs to be done before draining inflights, so that no commit shows
+ * up with its inflight offset not drained yet; each committed offset is removed from <code>inflight</code>, or
+ * remembered until the end of the run if it is not there yet, and <code>maxCommitted</code> is updated with
+ * the offset incremented by 1 to match Kafka commit definition,</li>
+ * <li>drain <code>inflightOffsets</code> into <code>inflight</code>, skipping offsets already committed in this run.</li>
  * </ul>
  *
- * <p>Second phase is calculating the offsets:</p>
- * <ul>
- * <li>calculate maximal committed offset for each subscription and partition,</li>
- * <li>calculate minimal inflight offset for each subscription and partition.</li>
- * </ul>
- *
- * <p>Third phase is choosing which offset to commit for each subscription/partition. This is the minimal value of:</p>
+ * <p>Second phase is choosing which offset to commit for each subscription/partition. This is the minimal value of:</p>
  * <ul>
  * <li>maximum committed offset,</li>
  * <li>minimum inflight offset.</li>
  * </ul>
- * <p>This algorithm is very simple, memory efficient, can be performed in single thread and introduces no locks.</p>
+ * <p>This algorithm is very simple, memory efficient, can be performed in single thread and introduces no locks. Offsets
+ * are kept in primitive bitmaps, so neither reporting nor tracking an offset allocates.</p>
+ *
+ * <p>Whether the chosen offset is actually committed in a run depends on {@link OffsetCommitTriggers}. The time
+ * between acknowledging a message and scheduling the commit of its offset is measured, with resolution of the check
+ * interval, as the age of the oldest acknowledged offset not committed yet when its partition is committed.</p>
  */
 public class OffsetCommitter implements Runnable {
 
@@ -78,7 +75,8 @@ public class OffsetCommitter implements Runnable {
     private final ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor(
             new ThreadFactoryBuilder().setNameFormat("offset-committer-%d").build());
 
-    private final int offsetCommitPeriodSeconds;
+    private final OffsetCommitTriggers triggers;
+    private final Clock clock;
 
     private final OffsetQueue offsetQueue;
 
@@ -88,9 +86,17 @@ public class OffsetCommitter implements Runnable {
     private final HermesCounter obsoleteCounter;
     private final HermesCounter committedCounter;
     private final HermesTimer timer;
+    private final HermesTimer ackToCommitTimer;
+
+    private long previousRunMillis;
 
-    private final Set<SubscriptionPartitionOffset> inflightOffsets = new HashSet<>();
-    private final Map<SubscriptionPartition, Long> maxCommittedOffsets = new HashMap<>();
+    private final Map<SubscriptionPartition, PartitionOffsets> partitionOffsets = new HashMap<>();
+
+    private final ObjectLongMpscQueue.Consumer<SubscriptionPartition> committedOffsetsConsumer =
+            (partition, offset) -> partitionOffsets.computeIfAbsent(partition, PartitionOffsets::new).committed(offset, previousRunMillis);
+
+    private final ObjectLongMpscQueue.Consumer<SubscriptionPartition> inflightOffsetsConsumer =
+            (partition, offset) -> partitionOffsets.computeIfAbsent(partition, PartitionOffsets::new).inflight(offset);
 
     public OffsetCommitter(
             OffsetQueue offsetQueue,
@@ -98,113 +104,112 @@ public class OffsetCommitter implements Runnable {
             MessageCommitter messageCommitter,
             int offsetCommitPeriodSeconds,
             MetricsFacade metrics
+    ) {
+        this(offsetQueue, partitionAssignmentState, messageCommitter,
+                OffsetCommitTriggers.periodic(Duration.ofSeconds(offsetCommitPeriodSeconds)), metrics, Clock.systemUTC());
+    }
+
+    public OffsetCommitter(
+            OffsetQueue offsetQueue,
+            ConsumerPartitionAssignmentState partitionAssignmentState,
+            MessageCommitter messageCommitter,
+            OffsetCommitTriggers triggers,
+            MetricsFacade metrics,
+            Clock clock
     ) {
         this.offsetQueue = offsetQueue;
         this.partitionAssignmentState = partitionAssignmentState;
         this.messageCommitter = messageCommitter;
-        this.offsetCommitPeriodSeconds = offsetCommitPeriodSeconds;
+        this.triggers = triggers;
+        this.clock = clock;
         this.obsoleteCounter = metrics.offsetCommits().obsoleteCounter();
         this.committedCounter = metrics.offsetCommits().committedCounter();
         this.timer = metrics.offsetCommits().duration();
+        this.ackToCommitTimer = metrics.offsetCommits().ackToCommitLatency();
+        this.previousRunMillis = clock.millis();
     }
 
     @Override
     public void run() {
         try (HermesTimerContext ignored = timer.time()) {
+            long now = clock.millis();
             // committed offsets need to be drained first so that there is no possibility of new committed offsets
             // showing up after inflight queue is drained - this would lead to stall in committing offsets
-            ReducingConsumer committedOffsetsReducer = processCommittedOffsets();
-
-            // update stored max committed offsets with offsets drained from queue
-            Map<SubscriptionPartition, Long> maxDrainedCommittedOffsets = committedOffsetsReducer.reduced;
-            updateMaxCommittedOffsets(maxDrainedCommittedOffsets);
-
-            ReducingConsumer inflightOffsetReducer = processInflightOffsets(committedOffsetsReducer.all);
-            Map<SubscriptionPartition, Long> minInflightOffsets = inflightOffsetReducer.reduced;
+            offsetQueue.drainCommittedOffsets(committedOffsetsConsumer);
+            offsetQueue.drainInflightOffsets(inflightOffsetsConsumer);
 
             int scheduledToCommitCount = 0;
             int obsoleteCount = 0;
 
-            Set<SubscriptionPartition> committedOffsetToBeRemoved = new HashSet<>();
-
             OffsetsToCommit offsetsToCommit = new OffsetsToCommit();
-            for (SubscriptionPartition partition : Sets.union(minInflightOffsets.keySet(), maxCommittedOffsets.keySet())) {
+            Iterator<PartitionOffsets> iterator = partitionOffsets.values().iterator();
+            while (iterator.hasNext()) {
+                PartitionOffsets offsets = iterator.next();
+                offsets.endOfRun();
+                SubscriptionPartition partition = offsets.partition;
                 if (partitionAssignmentState.isAssignedPartitionAtCurrentTerm(partition)) {
-                    long minInflight = minInflightOffsets.getOrDefault(partition, Long.MAX_VALUE);
-                    long maxCommitted = maxCommittedOffsets.getOrDefault(partition, Long.MAX_VALUE);
+                    long minInflight = offsets.inflight.min();
+                    long maxCommitted = offsets.maxCommitted;
 
                     long offsetToBeCommitted = Math.min(minInflight, maxCommitted);
                     if (offsetToBeCommitted >= 0 && offsetToBeCommitted < Long.MAX_VALUE) {
-                        scheduledToCommitCount++;
-                        offsetsToCommit.add(new SubscriptionPartitionOffset(partition, offsetToBeCommitted));
-
-                        // if we just committed the maximum possible offset for partition, we can safely forget about it
-                        if (maxCommitted == offsetToBeCommitted) {
-                            committedOffsetToBeRemoved.add(partition);
+                        if (isCommitDue(offsets, offsetToBeCommitted, now)) {
+                            scheduledToCommitCount++;
+                            offsetsToCommit.add(new SubscriptionPartitionOffset(partition, offsetToBeCommitted));
+                            if (offsets.oldestUncommittedAckMillis >= 0) {
+                                ackToCommitTimer.record(now - offsets.oldestUncommittedAckMillis, TimeUnit.MILLISECONDS);
+                            }
+                            offsets.lastCommitted = offsetToBeCommitted;
+
+                            // if we just committed the maximum possible offset for partition, we can safely forget about it
+                            if (maxCommitted == offsetToBeCommitted) {
+                                offsets.maxCommitted = Long.MAX_VALUE;
+                                offsets.acksCommitted(-1);
+                            } else {
+                                // acknowledged offsets above the committed one still wait, count them from now on
+                                offsets.acksCommitted(now);
+                            }
                         }
                     } else {
                         logger.warn("Skipping offset out of bounds for subscription {}: partition={}, offset={}",
                                 partition.getSubscriptionName(), partition.getPartition(), offsetToBeCommitted);
                     }
+                    if (offsets.inflight.isEmpty() && offsets.maxCommitted == Long.MAX_VALUE) {
+                        iterator.remove();
+                    }
                 } else {
                     obsoleteCount++;
+                    iterator.remove();
                 }
             }
-            committedOffsetToBeRemoved.forEach(maxCommittedOffsets::remove);
             messageCommitter.commitOffsets(offsetsToCommit);
 
+            previousRunMillis = now;
+
             obsoleteCounter.increment(obsoleteCount);
             committedCounter.increment(scheduledToCommitCount);
-
-            cleanupStoredOffsetsWithObsoleteTerms();
         } catch (Exception exception) {
             logger.error("Failed to run offset committer: {}", exception.getMessage(), exception);
         }
     }
 
-    private ReducingConsumer processCommittedOffsets() {
-        ReducingConsumer committedOffsetsReducer = new ReducingConsumer(Math::max, c -> c + 1);
-        offsetQueue.drainCommittedOffsets(committedOffsetsReducer);
-        committedOffsetsReducer.resetModifierFunction();
-        return committedOffsetsReducer;
-    }
-
-    private void updateMaxCommittedOffsets(Map<SubscriptionPartition, Long> maxDrainedCommittedOffsets) {
-        maxDrainedCommittedOffsets.forEach((partition, drainedOffset) ->
-                maxCommittedOffsets.compute(partition, (p, storedOffset) ->
-                        storedOffset == null || storedOffset < drainedOffset ? drainedOffset : storedOffset)
-        );
-    }
-
-    private ReducingConsumer processInflightOffsets(Set<SubscriptionPartitionOffset> committedOffsets) {
-        ReducingConsumer inflightOffsetReducer = new ReducingConsumer(Math::min);
-        offsetQueue.drainInflightOffsets(o -> reduceIfNotCommitted(o, inflightOffsetReducer, committedOffsets));
-        inflightOffsets.forEach(o -> reduceIfNotCommitted(o, inflightOffsetReducer, committedOffsets));
-
-        inflightOffsets.clear();
-        inflightOffsets.addAll(inflightOffsetReducer.all);
-
-        return inflightOffsetReducer;
-    }
-
-    private void reduceIfNotCommitted(SubscriptionPartitionOffset offset,
-                                      ReducingConsumer inflightOffsetReducer,
-                                      Set<SubscriptionPartitionOffset> committedOffsets) {
-        if (!committedOffsets.contains(offset)) {
-            inflightOffsetReducer.accept(offset);
+    private boolean isCommitDue(PartitionOffsets offsets, long offsetToBeCommitted, long now) {
+        if (!triggers.isAdaptive()) {
+            return true;
         }
-    }
-
-    private void cleanupStoredOffsetsWithObsoleteTerms() {
-        inflightOffsets.removeIf(o -> !partitionAssignmentState.isAssignedPartitionAtCurrentTerm(o.getSubscriptionPartition()));
-        maxCommittedOffsets.entrySet().removeIf(entry -> !partitionAssignmentState.isAssignedPartitionAtCurrentTerm(entry.getKey()));
+        if (offsetToBeCommitted == offsets.lastCommitted || offsets.oldestUncommittedAckMillis < 0) {
+            return false;
+        }
+        return offsets.uncommittedAcks >= triggers.getMaxUncommittedMessages()
+                || now - offsets.oldestUncommittedAckMillis >= triggers.getMaxUncommittedAge().toMillis();
     }
 
     public void start() {
+        long checkIntervalMillis = triggers.getCheckInterval().toMillis();
         scheduledExecutor.scheduleWithFixedDelay(this,
-                offsetCommitPeriodSeconds,
-                offsetCommitPeriodSeconds,
-                TimeUnit.SECONDS
+                checkIntervalMillis,
+                checkIntervalMillis,
+                TimeUnit.MILLISECONDS
         );
     }
 
@@ -212,35 +217,48 @@ public class OffsetCommitter implements Runnable {
         scheduledExecutor.shutdown();
     }
 
-    private static final class ReducingConsumer implements MessagePassingQueue.Consumer<SubscriptionPartitionOffset> {
-        private final BiFunction<Long, Long, Long> reductor;
-        private Function<Long, Long> modifier;
-        private final Map<SubscriptionPartition, Long> reduced = new HashMap<>();
-        private final Set<SubscriptionPartitionOffset> all = new HashSet<>();
+    private static final class PartitionOffsets {
+        private final SubscriptionPartition partition;
+        private final OffsetBitmap inflight = new OffsetBitmap();
+        // committed offsets with inflight offsets not drained yet, only within a single run
+        private final OffsetBitmap committedNotInflight = new OffsetBitmap();
+        private long maxCommitted = Long.MAX_VALUE;
+        private long lastCommitted = -1;
+        private int uncommittedAcks = 0;
+        private long oldestUncommittedAckMillis = -1;
+
+        private PartitionOffsets(SubscriptionPartition partition) {
+            this.partition = partition;
+        }
 
-        private ReducingConsumer(BiFunction<Long, Long, Long> reductor, Function<Long, Long> offsetModifier) {
-            this.reductor = reductor;
-            this.modifier = offsetModifier;
+        private void committed(long offset, long ackedAfterMillis) {
+            uncommittedAcks++;
+            if (oldestUncommittedAckMillis < 0) {
+                oldestUncommittedAckMillis = ackedAfterMillis;
+            }
+            if (!inflight.remove(offset)) {
+                committedNotInflight.add(offset);
+            }
+            long committed = offset + 1;
+            if (maxCommitted == Long.MAX_VALUE || maxCommitted < committed) {
+                maxCommitted = committed;
+            }
         }
 
-        private ReducingConsumer(BiFunction<Long, Long, Long> reductor) {
-            this(reductor, Function.identity());
+        private void inflight(long offset) {
+            if (!committedNotInflight.remove(offset)) {
+                inflight.add(offset);
+            }
         }
 
-        private void resetModifierFunction() {
-            this.modifier = Function.identity();
+        private void acksCommitted(long oldestRemainingAckMillis) {
+            uncommittedAcks = 0;
+            oldestUncommittedAckMillis = oldestRemainingAckMillis;
         }
 
-        @Override
-        public void accept(SubscriptionPartitionOffset p) {
-            all.add(p);
-            reduced.compute(
-                    p.getSubscriptionPartition(),
-                    (k, v) -> {
-                        long offset = modifier.apply(p.getOffset());
-                        return v == null ? offset : reductor.apply(v, offset);
-                    }
-            );
+        private void endOfRun() {
+            // offsets committed without being inflight, e.g. filtered messages
+            committedNotInflight.clear();
         }
     }
 }
@@ -3,6 +3,7 @@ package pl.allegro.tech.hermes.consumers.consumer.offset;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.common.TopicPartition;
 import pl.allegro.tech.hermes.api.SubscriptionName;
+import pl.allegro.tech.hermes.consumers.consumer.offset.kafka.broker.KafkaConsumerOffsetCommitter;
 
 import java.util.Collection;
 import java.util.Set;
@@ -13,14 +14,34 @@ public class OffsetCommitterConsumerRebalanceListener implements ConsumerRebalan
 
     private final SubscriptionName name;
     private final ConsumerPartitionAssignmentState state;
+    private final KafkaConsumerOffsetCommitter offsetCommitter;
 
     public OffsetCommitterConsumerRebalanceListener(SubscriptionName name, ConsumerPartitionAssignmentState state) {
+        this(name, state, null);
+    }
+
+    public OffsetCommitterConsumerRebalanceListener(SubscriptionName name,
+                                                    ConsumerPartitionAssignmentState state,
+                                                    KafkaConsumerOffsetCommitter offsetCommitter) {
         this.name = name;
         this.state = state;
+        this.offsetCommitter = offsetCommitter;
     }
 
     @Override
     public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        if (offsetCommitter != null) {
+            offsetCommitter.commitNotConfirmed(partitions);
+        }
+        state.revoke(name, integerPartitions(partitions));
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        // partitions are already owned by other consumers, so their offsets cannot be committed anymore
+        if (offsetCommitter != null) {
+            offsetCommitter.discardNotConfirmed(partitions);
+        }
         state.revoke(name, integerPartitions(partitions));
     }
 
@@ -1,38 +1,74 @@
 package pl.allegro.tech.hermes.consumers.consumer.offset;
 
-import org.jctools.queues.MessagePassingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
-import pl.allegro.tech.hermes.consumers.queue.FullDrainMpscQueue;
-import pl.allegro.tech.hermes.consumers.queue.MonitoredMpscQueue;
-import pl.allegro.tech.hermes.consumers.queue.MpscQueue;
-import pl.allegro.tech.hermes.consumers.queue.WaitFreeDrainMpscQueue;
+import pl.allegro.tech.hermes.consumers.queue.ObjectLongMpscQueue;
+import pl.allegro.tech.hermes.metrics.HermesCounter;
 
+/**
+ * Offsets are passed as pairs of a partition and a primitive offset. Producers which report offsets of many messages
+ * should reuse {@link SubscriptionPartition} instances, e.g. with {@link SubscriptionPartitions}, so that reporting
+ * an offset does not allocate.
+ */
 public class OffsetQueue {
 
-    private final MpscQueue<SubscriptionPartitionOffset> inflightOffsetsQueue;
+    private static final Logger logger = LoggerFactory.getLogger(OffsetQueue.class);
 
-    private final MpscQueue<SubscriptionPartitionOffset> commitOffsetsQueue;
+    private static final String INFLIGHT_OFFSETS = "inflightOffsets";
+    private static final String COMMITTED_OFFSETS = "committedOffsets";
+
+    private final ObjectLongMpscQueue<SubscriptionPartition> inflightOffsetsQueue;
+
+    private final ObjectLongMpscQueue<SubscriptionPartition> commitOffsetsQueue;
+
+    private final HermesCounter inflightOffsetsFailures;
+
+    private final HermesCounter commitOffsetsFailures;
 
     public OffsetQueue(MetricsFacade metrics, int commitOffsetQueuesSize) {
-        this.inflightOffsetsQueue =
-                new MonitoredMpscQueue<>(new FullDrainMpscQueue<>(commitOffsetQueuesSize), metrics, "inflightOffsets");
-        this.commitOffsetsQueue =
-                new MonitoredMpscQueue<>(new WaitFreeDrainMpscQueue<>(commitOffsetQueuesSize), metrics, "committedOffsets");
+        this.inflightOffsetsQueue = new ObjectLongMpscQueue<>(commitOffsetQueuesSize);
+        this.commitOffsetsQueue = new ObjectLongMpscQueue<>(commitOffsetQueuesSize);
+        metrics.consumer().registerQueueUtilizationGauge(inflightOffsetsQueue, INFLIGHT_OFFSETS, OffsetQueue::utilization);
+        metrics.consumer().registerQueueUtilizationGauge(commitOffsetsQueue, COMMITTED_OFFSETS, OffsetQueue::utilization);
+        this.inflightOffsetsFailures = metrics.consumer().queueFailuresCounter(INFLIGHT_OFFSETS);
+        this.commitOffsetsFailures = metrics.consumer().queueFailuresCounter(COMMITTED_OFFSETS);
     }
 
     public void offerInflightOffset(SubscriptionPartitionOffset offset) {
-        inflightOffsetsQueue.offer(offset);
+        offerInflightOffset(offset.getSubscriptionPartition(), offset.getOffset());
+    }
+
+    public void offerInflightOffset(SubscriptionPartition partition, long offset) {
+        if (!inflightOffsetsQueue.offer(partition, offset)) {
+            queueFull(INFLIGHT_OFFSETS, inflightOffsetsFailures, partition, offset);
+        }
     }
 
     public void offerCommittedOffset(SubscriptionPartitionOffset offset) {
-        commitOffsetsQueue.offer(offset);
+        offerCommittedOffset(offset.getSubscriptionPartition(), offset.getOffset());
     }
 
-    public void drainInflightOffsets(MessagePassingQueue.Consumer<SubscriptionPartitionOffset> consumer) {
+    public void offerCommittedOffset(SubscriptionPartition partition, long offset) {
+        if (!commitOffsetsQueue.offer(partition, offset)) {
+            queueFull(COMMITTED_OFFSETS, commitOffsetsFailures, partition, offset);
+        }
+    }
+
+    public void drainInflightOffsets(ObjectLongMpscQueue.Consumer<SubscriptionPartition> consumer) {
         inflightOffsetsQueue.drain(consumer);
     }
 
-    public void drainCommittedOffsets(MessagePassingQueue.Consumer<SubscriptionPartitionOffset> consumer) {
+    public void drainCommittedOffsets(ObjectLongMpscQueue.Consumer<SubscriptionPartition> consumer) {
         commitOffsetsQueue.drain(consumer);
     }
+
+    private static void queueFull(String name, HermesCounter failures, SubscriptionPartition partition, long offset) {
+        failures.increment();
+        logger.error("[Queue: {}] Unable to add item: queue is full. Offered item: {}, offset={}", name, partition, offset);
+    }
+
+    private static double utilization(ObjectLongMpscQueue<?> queue) {
+        return (double) queue.size() / queue.capacity();
+    }
 }
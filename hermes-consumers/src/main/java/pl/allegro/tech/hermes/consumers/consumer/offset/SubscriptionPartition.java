@@ -15,6 +15,8 @@ public class SubscriptionPartition {
 
     private final long partitionAssignmentTerm;
 
+    private final int hashCode;
+
     public SubscriptionPartition(KafkaTopicName kafkaTopicName,
                                  SubscriptionName subscriptionName,
                                  int partition,
@@ -23,6 +25,7 @@ public class SubscriptionPartition {
         this.subscriptionName = subscriptionName;
         this.partition = partition;
         this.partitionAssignmentTerm = partitionAssignmentTerm;
+        this.hashCode = Objects.hash(kafkaTopicName, subscriptionName, partition, partitionAssignmentTerm);
     }
 
     public KafkaTopicName getKafkaTopicName() {
@@ -50,7 +53,8 @@ public class SubscriptionPartition {
             return false;
         }
         SubscriptionPartition that = (SubscriptionPartition) o;
-        return partition == that.partition
+        return hashCode == that.hashCode
+                && partition == that.partition
                 && partitionAssignmentTerm == that.partitionAssignmentTerm
                 && Objects.equals(kafkaTopicName, that.kafkaTopicName)
                 && Objects.equals(subscriptionName, that.subscriptionName);
@@ -58,7 +62,7 @@ public class SubscriptionPartition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(kafkaTopicName, subscriptionName, partition, partitionAssignmentTerm);
+        return hashCode;
     }
 
     @Override
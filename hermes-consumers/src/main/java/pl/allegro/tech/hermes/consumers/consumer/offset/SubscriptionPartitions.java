@@ -0,0 +1,51 @@
+package pl.allegro.tech.hermes.consumers.consumer.offset;
+
+import pl.allegro.tech.hermes.api.SubscriptionName;
+import pl.allegro.tech.hermes.common.kafka.KafkaTopicName;
+
+import java.util.Arrays;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Reuses {@link SubscriptionPartition} instances of a subscription, so that offsets of consecutive messages from
+ * the same partition and assignment term are reported without allocating.
+ */
+@NotThreadSafe
+public class SubscriptionPartitions {
+
+    private final SubscriptionName subscriptionName;
+
+    private SubscriptionPartition[] partitions = new SubscriptionPartition[16];
+
+    public SubscriptionPartitions(SubscriptionName subscriptionName) {
+        this.subscriptionName = subscriptionName;
+    }
+
+    public SubscriptionPartition get(KafkaTopicName kafkaTopicName, int partition, long partitionAssignmentTerm) {
+        SubscriptionPartition cached = cached(partition);
+        if (cached == null
+                || cached.getPartitionAssignmentTerm() != partitionAssignmentTerm
+                || !cached.getKafkaTopicName().equals(kafkaTopicName)) {
+            cached = new SubscriptionPartition(kafkaTopicName, subscriptionName, partition, partitionAssignmentTerm);
+            partitions[partition] = cached;
+        }
+        return cached;
+    }
+
+    public SubscriptionPartition get(String kafkaTopicName, int partition, long partitionAssignmentTerm) {
+        SubscriptionPartition cached = cached(partition);
+        if (cached == null
+                || cached.getPartitionAssignmentTerm() != partitionAssignmentTerm
+                || !cached.getKafkaTopicName().asString().equals(kafkaTopicName)) {
+            return get(KafkaTopicName.valueOf(kafkaTopicName), partition, partitionAssignmentTerm);
+        }
+        return cached;
+    }
+
+    private SubscriptionPartition cached(int partition) {
+        if (partition >= partitions.length) {
+            partitions = Arrays.copyOf(partitions, Integer.highestOneBit(partition) << 1);
+        }
+        return partitions[partition];
+    }
+}
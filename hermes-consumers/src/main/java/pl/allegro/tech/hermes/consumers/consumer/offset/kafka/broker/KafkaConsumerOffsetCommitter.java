@@ -0,0 +1,151 @@
+package pl.allegro.tech.hermes.consumers.consumer.offset.kafka.broker;
+
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.api.SubscriptionName;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.metrics.HermesCounter;
+import pl.allegro.tech.hermes.metrics.HermesTimer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commits offsets with a Kafka consumer, synchronously or asynchronously.
+ *
+ * <p>Asynchronous commits do not block the consumer process thread for a broker round trip. Offsets of a failed commit
+ * which were not replaced by a newer commit are retried by {@link #retryFailedCommits()}, as an idle partition is not
+ * committed again otherwise. Offsets of partitions which are about to be revoked, and are not confirmed yet, are
+ * committed synchronously, so that a rebalance does not redeliver messages which were already acknowledged
+ * and scheduled to commit.</p>
+ *
+ * <p>All methods are called by the consumer process thread, same as the commit callbacks.</p>
+ */
+public class KafkaConsumerOffsetCommitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaConsumerOffsetCommitter.class);
+
+    private static final Duration DEFAULT_RETRY_BACKOFF = Duration.ofSeconds(1);
+
+    private final SubscriptionName subscriptionName;
+    private final KafkaConsumer<?, ?> consumer;
+    private final boolean async;
+    private final HermesCounter failuresCounter;
+    private final HermesTimer brokerLatencyTimer;
+    private final long retryBackoffNanos;
+
+    private final Map<TopicPartition, OffsetAndMetadata> notConfirmed = new HashMap<>();
+    private final Map<TopicPartition, OffsetAndMetadata> failed = new HashMap<>();
+    private long lastFailureNanos;
+
+    public KafkaConsumerOffsetCommitter(SubscriptionName subscriptionName,
+                                        KafkaConsumer<?, ?> consumer,
+                                        boolean async,
+                                        MetricsFacade metrics) {
+        this(subscriptionName, consumer, async, metrics, DEFAULT_RETRY_BACKOFF);
+    }
+
+    KafkaConsumerOffsetCommitter(SubscriptionName subscriptionName,
+                                 KafkaConsumer<?, ?> consumer,
+                                 boolean async,
+                                 MetricsFacade metrics,
+                                 Duration retryBackoff) {
+        this.subscriptionName = subscriptionName;
+        this.consumer = consumer;
+        this.async = async;
+        this.failuresCounter = metrics.offsetCommits().failuresCounter();
+        this.brokerLatencyTimer = metrics.offsetCommits().brokerCommitLatency();
+        this.retryBackoffNanos = retryBackoff.toNanos();
+    }
+
+    public void commit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        if (offsets.isEmpty()) {
+            return;
+        }
+        if (async) {
+            commitAsync(offsets);
+        } else {
+            commitSync(offsets);
+        }
+    }
+
+    /**
+     * Commits again offsets of failed asynchronous commits, once the retry backoff passes since the last failure.
+     * Meant to be called by the consumer process thread on every receive, so that offsets of idle partitions are not lost.
+     */
+    public void retryFailedCommits() {
+        if (failed.isEmpty() || System.nanoTime() - lastFailureNanos < retryBackoffNanos) {
+            return;
+        }
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(failed);
+        logger.info("Retrying failed commit of offsets of partitions {} of subscription {}", offsets.keySet(), subscriptionName);
+        commitAsync(offsets);
+    }
+
+    /**
+     * Commits offsets of given partitions which were committed asynchronously and are not confirmed yet.
+     */
+    public void commitNotConfirmed(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            failed.remove(partition);
+            OffsetAndMetadata offset = notConfirmed.remove(partition);
+            if (offset != null) {
+                offsets.put(partition, offset);
+            }
+        }
+        if (!offsets.isEmpty()) {
+            logger.info("Committing offsets of revoked partitions {} of subscription {}", offsets.keySet(), subscriptionName);
+            commitSync(offsets);
+        }
+    }
+
+    public void discardNotConfirmed(Collection<TopicPartition> partitions) {
+        partitions.forEach(notConfirmed::remove);
+        partitions.forEach(failed::remove);
+    }
+
+    private void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        notConfirmed.putAll(offsets);
+        offsets.keySet().forEach(failed::remove);
+        long startNanos = System.nanoTime();
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            if (exception == null) {
+                brokerLatencyTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                // removes only offsets which were not replaced by a newer commit in the meantime
+                committed.forEach(notConfirmed::remove);
+            } else {
+                logger.warn("Error while committing offsets asynchronously for subscription {}", subscriptionName, exception);
+                failuresCounter.increment();
+                lastFailureNanos = System.nanoTime();
+                committed.forEach((partition, offset) -> {
+                    // offsets replaced by a newer commit in the meantime are committed by it
+                    if (offset.equals(notConfirmed.get(partition))) {
+                        failed.put(partition, offset);
+                    }
+                });
+            }
+        });
+    }
+
+    private void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        long startNanos = System.nanoTime();
+        try {
+            consumer.commitSync(offsets);
+            brokerLatencyTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptException ex) {
+            logger.info("Kafka consumer thread interrupted", ex);
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            logger.error("Error while committing offset for subscription {}", subscriptionName, ex);
+            failuresCounter.increment();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package pl.allegro.tech.hermes.consumers.consumer.rate;
+
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * <p>Size of the inflight window of a serial subscription, applied to its {@link AdjustableSemaphore}.</p>
+ *
+ * <p>When adaptive inflight is disabled, the window is the static size of the subscription or the default one.
+ * Otherwise the window follows the latency of the endpoint. Two moving averages of the latency are kept: a short
+ * one, reacting to the current load, and a long one, approximating the latency of an endpoint which is not queueing
+ * requests. The ratio of the long to the short average, multiplied by the tolerance and limited to [0.5, 1], is the
+ * latency gradient. After each response the window becomes {@code window * gradient + sqrt(window)}, smoothed,
+ * so it grows while latency stays within the tolerance and shrinks as soon as the endpoint starts queueing.
+ * Timeouts, connection errors, 5xx and 429 responses shrink the window multiplicatively, at most once per
+ * short latency.</p>
+ *
+ * <p>The window never grows when less than half of it is used, so idle subscriptions do not accumulate a window
+ * they have never proven to handle.</p>
+ */
+@ThreadSafe
+public class AdaptiveInflightLimit {
+
+    private static final double SHORT_LATENCY_WEIGHT = 0.1;
+    private static final double LONG_LATENCY_WEIGHT = 0.01;
+    private static final double LONG_LATENCY_DRIFT_RATIO = 2.0;
+    private static final double LONG_LATENCY_DECAY = 0.95;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double MAX_GRADIENT = 1.0;
+
+    private final AdjustableSemaphore semaphore;
+    private final boolean enabled;
+    private final int minLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int maxLimit;
+    private double limit;
+    private int appliedLimit;
+    private double shortLatency;
+    private double longLatency;
+    private double gradient = MAX_GRADIENT;
+    private long lastBackoffNanos;
+
+    public AdaptiveInflightLimit(AdjustableSemaphore semaphore,
+                                 AdaptiveInflightParameters parameters,
+                                 int initialLimit,
+                                 int maxLimit) {
+        this.semaphore = semaphore;
+        this.enabled = parameters.isEnabled();
+        this.minLimit = Math.max(1, parameters.getMinInflight());
+        this.tolerance = parameters.getLatencyTolerance();
+        this.smoothing = parameters.getSmoothing();
+        this.backoffRatio = parameters.getBackoffRatio();
+        this.maxLimit = Math.max(minLimit, maxLimit);
+        this.appliedLimit = initialLimit;
+        this.limit = initialLimit;
+        if (enabled) {
+            apply(clamp(initialLimit));
+        }
+    }
+
+    /**
+     * Records latency of a request answered by the endpoint without signs of overload.
+     */
+    public void onResponse(long latencyNanos, long inflight) {
+        if (!enabled || latencyNanos <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (longLatency == 0) {
+                shortLatency = latencyNanos;
+                longLatency = latencyNanos;
+                return;
+            }
+            shortLatency += (latencyNanos - shortLatency) * SHORT_LATENCY_WEIGHT;
+            longLatency += (shortLatency - longLatency) * LONG_LATENCY_WEIGHT;
+            if (longLatency / shortLatency > LONG_LATENCY_DRIFT_RATIO) {
+                // endpoint got faster, forget the old baseline quicker than the average would
+                longLatency *= LONG_LATENCY_DECAY;
+            }
+
+            gradient = Math.max(MIN_GRADIENT, Math.min(MAX_GRADIENT, tolerance * longLatency / shortLatency));
+            double newLimit = limit * gradient + Math.sqrt(limit);
+            if (newLimit > limit && inflight * 2 < limit) {
+                return;
+            }
+            apply(clamp(limit * (1 - smoothing) + newLimit * smoothing));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a request which timed out or was rejected by an overloaded endpoint.
+     */
+    public void onOverload(long nowNanos) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (lastBackoffNanos != 0 && nowNanos - lastBackoffNanos < shortLatency) {
+                return;
+            }
+            lastBackoffNanos = nowNanos;
+            apply(clamp(limit * backoffRatio));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the upper bound of the window, or the window itself when adaptive inflight is disabled.
+     */
+    public void updateMaxLimit(int newMaxLimit) {
+        lock.lock();
+        try {
+            if (enabled) {
+                maxLimit = Math.max(minLimit, newMaxLimit);
+                apply(clamp(limit));
+            } else {
+                apply(newMaxLimit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return appliedLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getGradient() {
+        lock.lock();
+        try {
+            return gradient;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    private void apply(double newLimit) {
+        limit = newLimit;
+        int permits = (int) newLimit;
+        if (permits != appliedLimit) {
+            semaphore.setMaxPermits(permits);
+            appliedLimit = permits;
+        }
+    }
+}
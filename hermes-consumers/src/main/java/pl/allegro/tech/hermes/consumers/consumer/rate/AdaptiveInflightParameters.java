@@ -0,0 +1,16 @@
+package pl.allegro.tech.hermes.consumers.consumer.rate;
+
+public interface AdaptiveInflightParameters {
+
+    boolean isEnabled();
+
+    int getMinInflight();
+
+    int getMaxInflight();
+
+    double getLatencyTolerance();
+
+    double getSmoothing();
+
+    double getBackoffRatio();
+}
@@ -2,6 +2,7 @@ package pl.allegro.tech.hermes.consumers.consumer.rate;
 
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.concurrent.ThreadSafe;
 
 /*
@@ -12,6 +13,7 @@ import javax.annotation.concurrent.ThreadSafe;
  *
  *  Most notable changes:
  *  - set maxPermits in constructor
+ *  - ReentrantLock instead of synchronized, which does not pin virtual threads to their carriers
  *
  *  Implementation was deliberately not refactored for easier comparison with the original.
  *
@@ -30,10 +32,12 @@ public final class AdjustableSemaphore {
 
     /**
      * How many permits are allowed as governed by this semaphore.
-     * Access must be synchronized on this object.
+     * Access must be guarded by maxPermitsLock.
      */
     private int maxPermits = 0;
 
+    private final ReentrantLock maxPermitsLock = new ReentrantLock();
+
     /**
      * New instances should be configured with setMaxPermits().
      */
@@ -55,27 +59,32 @@ public final class AdjustableSemaphore {
      * have the number of outstanding permits fall below the new maximum. In
      * other words, it does what you probably think it should.</p>
      */
-    public synchronized void setMaxPermits(int newMax) {
+    public void setMaxPermits(int newMax) {
         if (newMax < 1) {
             throw new IllegalArgumentException("Semaphore size must be at least 1,"
                     + " was " + newMax);
         }
 
-        int delta = newMax - this.maxPermits;
-
-        if (delta == 0) {
-            return;
-        } else if (delta > 0) {
-            // new max is higher, so release that many permits
-            this.semaphore.release(delta);
-        } else {
-            delta *= -1;
-            // delta < 0.
-            // reducePermits needs a positive #, though.
-            this.semaphore.reducePermits(delta);
+        maxPermitsLock.lock();
+        try {
+            int delta = newMax - this.maxPermits;
+
+            if (delta == 0) {
+                return;
+            } else if (delta > 0) {
+                // new max is higher, so release that many permits
+                this.semaphore.release(delta);
+            } else {
+                delta *= -1;
+                // delta < 0.
+                // reducePermits needs a positive #, though.
+                this.semaphore.reducePermits(delta);
+            }
+
+            this.maxPermits = newMax;
+        } finally {
+            maxPermitsLock.unlock();
         }
-
-        this.maxPermits = newMax;
     }
 
     /**
@@ -1,6 +1,7 @@
 package pl.allegro.tech.hermes.consumers.consumer.receiver;
 
 import pl.allegro.tech.hermes.api.Subscription;
+import pl.allegro.tech.hermes.api.Topic;
 import pl.allegro.tech.hermes.common.kafka.offset.PartitionOffset;
 import pl.allegro.tech.hermes.consumers.consumer.Message;
 import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
@@ -16,6 +17,15 @@ public interface MessageReceiver {
 
     default void update(Subscription newSubscription) {}
 
+    /**
+     * Applies changes of the topic which do not require a new Kafka consumer, e.g. content type.
+     *
+     * @return false when the receiver could not apply the changes and has to be recreated
+     */
+    default boolean updateTopic(Topic newTopic) {
+        return false;
+    }
+
     void commit(Set<SubscriptionPartitionOffset> offsets);
 
     boolean moveOffset(PartitionOffset offset);
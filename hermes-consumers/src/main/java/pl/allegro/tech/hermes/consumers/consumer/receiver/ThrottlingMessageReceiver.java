@@ -2,6 +2,7 @@ package pl.allegro.tech.hermes.consumers.consumer.receiver;
 
 import pl.allegro.tech.hermes.api.Subscription;
 import pl.allegro.tech.hermes.api.SubscriptionName;
+import pl.allegro.tech.hermes.api.Topic;
 import pl.allegro.tech.hermes.common.kafka.offset.PartitionOffset;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.consumers.consumer.Message;
@@ -67,4 +68,9 @@ public class ThrottlingMessageReceiver implements MessageReceiver {
     public void update(Subscription newSubscription) {
         this.receiver.update(newSubscription);
     }
+
+    @Override
+    public boolean updateTopic(Topic newTopic) {
+        return receiver.updateTopic(newTopic);
+    }
 }
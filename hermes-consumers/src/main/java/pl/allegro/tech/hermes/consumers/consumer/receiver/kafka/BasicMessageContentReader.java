@@ -11,6 +11,8 @@ import pl.allegro.tech.hermes.schema.SchemaExistenceEnsurer;
 import pl.allegro.tech.hermes.schema.SchemaId;
 import pl.allegro.tech.hermes.schema.SchemaVersion;
 
+import java.util.function.Supplier;
+
 class BasicMessageContentReader implements MessageContentReader {
 
     private final CompositeMessageContentWrapper compositeMessageContentWrapper;
@@ -40,6 +42,20 @@ class BasicMessageContentReader implements MessageContentReader {
         throw new UnsupportedContentTypeException(topic);
     }
 
+    @Override
+    public Supplier<UnwrappedMessageContent> readLazily(ConsumerRecord<byte[], byte[]> message, ContentType contentType) {
+        byte[] data = message.value();
+        if (contentType == ContentType.AVRO) {
+            Integer schemaVersion = kafkaHeaderExtractor.extractSchemaVersion(message.headers());
+            Integer schemaId = kafkaHeaderExtractor.extractSchemaId(message.headers());
+            ensureExistence(schemaVersion, schemaId);
+            return () -> compositeMessageContentWrapper.unwrapAvro(data, topic, schemaId, schemaVersion);
+        } else if (contentType == ContentType.JSON) {
+            return () -> compositeMessageContentWrapper.unwrapJson(data);
+        }
+        throw new UnsupportedContentTypeException(topic);
+    }
+
     private void ensureExistence(Integer schemaVersion, Integer schemaId) {
         try {
             if (schemaVersion != null) {
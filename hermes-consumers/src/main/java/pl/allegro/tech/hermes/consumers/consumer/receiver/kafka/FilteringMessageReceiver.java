@@ -1,8 +1,10 @@
 package pl.allegro.tech.hermes.consumers.consumer.receiver.kafka;
 
 import pl.allegro.tech.hermes.api.Subscription;
+import pl.allegro.tech.hermes.api.Topic;
 import pl.allegro.tech.hermes.common.kafka.offset.PartitionOffset;
 import pl.allegro.tech.hermes.consumers.consumer.Message;
+import pl.allegro.tech.hermes.consumers.consumer.filtering.FilterValuesCache;
 import pl.allegro.tech.hermes.consumers.consumer.filtering.FilteredMessageHandler;
 import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
 import pl.allegro.tech.hermes.consumers.consumer.receiver.MessageReceiver;
@@ -15,9 +17,12 @@ import java.util.Optional;
 import java.util.Set;
 
 public class FilteringMessageReceiver implements MessageReceiver {
+    static final String CONTENT_FILTER_TYPE = "content";
+
     private final MessageReceiver receiver;
     private final FilteredMessageHandler filteredMessageHandler;
     private final FilterChainFactory filterChainFactory;
+    private final FilterValuesCache filterValuesCache;
 
     private volatile FilterChain filterChain;
     private Subscription subscription;
@@ -26,9 +31,18 @@ public class FilteringMessageReceiver implements MessageReceiver {
                                     FilteredMessageHandler filteredMessageHandler,
                                     FilterChainFactory filterChainFactory,
                                     Subscription subscription) {
+        this(receiver, filteredMessageHandler, filterChainFactory, FilterValuesCache.disabled(), subscription);
+    }
+
+    public FilteringMessageReceiver(MessageReceiver receiver,
+                                    FilteredMessageHandler filteredMessageHandler,
+                                    FilterChainFactory filterChainFactory,
+                                    FilterValuesCache filterValuesCache,
+                                    Subscription subscription) {
         this.receiver = receiver;
         this.filteredMessageHandler = filteredMessageHandler;
         this.filterChainFactory = filterChainFactory;
+        this.filterValuesCache = filterValuesCache;
         this.subscription = subscription;
         this.filterChain = filterChainFactory.create(subscription.getFilters());
     }
@@ -41,11 +55,27 @@ public class FilteringMessageReceiver implements MessageReceiver {
     }
 
     private boolean allow(Message message) {
-        FilterResult result = filterChain.apply(message);
+        FilterResult result = filterChain.apply(filterValuesCache.forFiltering(message));
+        if (!result.isFiltered()) {
+            result = unwrapContent(message);
+        }
         filteredMessageHandler.handle(result, message, subscription);
         return !result.isFiltered();
     }
 
+    /**
+     * Unwraps content of a lazily created message which passed filters, so that a message which cannot be
+     * unwrapped is filtered out like a message which filters failed to read, instead of failing after it was received.
+     */
+    private FilterResult unwrapContent(Message message) {
+        try {
+            message.unwrapContent();
+            return FilterResult.PASS;
+        } catch (Exception ex) {
+            return FilterResult.failed(CONTENT_FILTER_TYPE, ex);
+        }
+    }
+
     @Override
     public void stop() {
         receiver.stop();
@@ -60,6 +90,11 @@ public class FilteringMessageReceiver implements MessageReceiver {
         this.receiver.update(newSubscription);
     }
 
+    @Override
+    public boolean updateTopic(Topic newTopic) {
+        return receiver.updateTopic(newTopic);
+    }
+
     @Override
     public void commit(Set<SubscriptionPartitionOffset> offsets) {
         receiver.commit(offsets);
@@ -10,6 +10,7 @@ import pl.allegro.tech.hermes.consumers.consumer.Message;
 
 import java.time.Clock;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class KafkaConsumerRecordToMessageConverter {
 
@@ -19,6 +20,7 @@ public class KafkaConsumerRecordToMessageConverter {
     private final MessageContentReader messageContentReader;
     private final KafkaHeaderExtractor kafkaHeaderExtractor;
     private final Clock clock;
+    private final boolean lazyContent;
 
     public KafkaConsumerRecordToMessageConverter(Topic topic,
                                                  Subscription subscription,
@@ -26,16 +28,30 @@ public class KafkaConsumerRecordToMessageConverter {
                                                  MessageContentReader messageContentReader,
                                                  KafkaHeaderExtractor kafkaHeaderExtractor,
                                                  Clock clock) {
+        this(topic, subscription, topics, messageContentReader, kafkaHeaderExtractor, clock, false);
+    }
+
+    public KafkaConsumerRecordToMessageConverter(Topic topic,
+                                                 Subscription subscription,
+                                                 Map<String, KafkaTopic> topics,
+                                                 MessageContentReader messageContentReader,
+                                                 KafkaHeaderExtractor kafkaHeaderExtractor,
+                                                 Clock clock,
+                                                 boolean lazyContent) {
         this.topic = topic;
         this.subscription = subscription;
         this.topics = topics;
         this.messageContentReader = messageContentReader;
         this.kafkaHeaderExtractor = kafkaHeaderExtractor;
         this.clock = clock;
+        this.lazyContent = lazyContent;
     }
 
     public Message convertToMessage(ConsumerRecord<byte[], byte[]> record, long partitionAssignmentTerm) {
         KafkaTopic kafkaTopic = topics.get(record.topic());
+        if (lazyContent) {
+            return convertToLazyMessage(record, kafkaTopic, partitionAssignmentTerm);
+        }
         UnwrappedMessageContent unwrappedContent = messageContentReader.read(record, kafkaTopic.contentType());
         return new Message(
                 kafkaHeaderExtractor.extractMessageId(record.headers()),
@@ -54,6 +70,23 @@ public class KafkaConsumerRecordToMessageConverter {
         );
     }
 
+    private Message convertToLazyMessage(ConsumerRecord<byte[], byte[]> record, KafkaTopic kafkaTopic, long partitionAssignmentTerm) {
+        Supplier<UnwrappedMessageContent> wrappedContent = messageContentReader.readLazily(record, kafkaTopic.contentType());
+        return new Message(
+                kafkaHeaderExtractor.extractMessageId(record.headers()),
+                topic.getQualifiedName(),
+                wrappedContent,
+                kafkaTopic.contentType(),
+                record.timestamp(),
+                clock.millis(),
+                new PartitionOffset(kafkaTopic.name(), record.offset(), record.partition()),
+                partitionAssignmentTerm,
+                subscription.getHeaders(),
+                subscription.getName(),
+                subscription.isSubscriptionIdentityHeadersEnabled()
+        );
+    }
+
     public void update(Subscription newSubscription) {
         this.subscription = newSubscription;
     }
@@ -12,17 +12,25 @@ public class KafkaConsumerRecordToMessageConverterFactory {
     private final MessageContentReaderFactory messageContentReaderFactory;
     private final KafkaHeaderExtractor kafkaHeaderExtractor;
     private final Clock clock;
+    private final boolean lazyContent;
 
     public KafkaConsumerRecordToMessageConverterFactory(MessageContentReaderFactory messageContentReaderFactory,
                                                         KafkaHeaderExtractor kafkaHeaderExtractor, Clock clock) {
+        this(messageContentReaderFactory, kafkaHeaderExtractor, clock, false);
+    }
+
+    public KafkaConsumerRecordToMessageConverterFactory(MessageContentReaderFactory messageContentReaderFactory,
+                                                        KafkaHeaderExtractor kafkaHeaderExtractor, Clock clock,
+                                                        boolean lazyContent) {
         this.messageContentReaderFactory = messageContentReaderFactory;
         this.kafkaHeaderExtractor = kafkaHeaderExtractor;
         this.clock = clock;
+        this.lazyContent = lazyContent;
     }
 
     public KafkaConsumerRecordToMessageConverter create(Topic topic, Subscription subscription, Map<String, KafkaTopic> topics) {
         return new KafkaConsumerRecordToMessageConverter(topic, subscription, topics, messageContentReaderFactory.provide(topic),
-                kafkaHeaderExtractor, clock);
+                kafkaHeaderExtractor, clock, lazyContent);
     }
 
 }
@@ -3,10 +3,9 @@ package pl.allegro.tech.hermes.consumers.consumer.receiver.kafka;
 import com.google.common.primitives.Ints;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
+import pl.allegro.tech.hermes.common.kafka.MessageIdHeaderCodec;
 import pl.allegro.tech.hermes.consumers.config.KafkaHeaderNameProperties;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 public class KafkaHeaderExtractor {
 
     private final KafkaHeaderNameProperties kafkaHeaderNameProperties;
@@ -39,7 +38,7 @@ public class KafkaHeaderExtractor {
         if (header == null) {
             return "";
         }
-        return new String(header.value(), UTF_8);
+        return MessageIdHeaderCodec.decode(header.value());
     }
 
 }
@@ -8,9 +8,11 @@ import pl.allegro.tech.hermes.common.kafka.KafkaNamesMapper;
 import pl.allegro.tech.hermes.common.kafka.KafkaParameters;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.consumers.CommonConsumerParameters;
+import pl.allegro.tech.hermes.consumers.consumer.filtering.FilterValuesCache;
 import pl.allegro.tech.hermes.consumers.consumer.filtering.FilteredMessageHandler;
 import pl.allegro.tech.hermes.consumers.consumer.idletime.ExponentiallyGrowingIdleTimeCalculator;
 import pl.allegro.tech.hermes.consumers.consumer.idletime.IdleTimeCalculator;
+import pl.allegro.tech.hermes.consumers.consumer.load.MeteredSubscriptionLoadRecorder;
 import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder;
 import pl.allegro.tech.hermes.consumers.consumer.offset.ConsumerPartitionAssignmentState;
 import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetQueue;
@@ -21,6 +23,7 @@ import pl.allegro.tech.hermes.consumers.consumer.receiver.ThrottlingMessageRecei
 import pl.allegro.tech.hermes.domain.filtering.chain.FilterChainFactory;
 import pl.allegro.tech.hermes.tracker.consumers.Trackers;
 
+import java.time.Clock;
 import java.util.List;
 import java.util.Properties;
 
@@ -65,6 +68,9 @@ public class KafkaMessageReceiverFactory implements ReceiverFactory {
     private final FilterChainFactory filterChainFactory;
     private final Trackers trackers;
     private final ConsumerPartitionAssignmentState consumerPartitionAssignmentState;
+    private final SharedTopicFetchers sharedTopicFetchers;
+    private final FilterValuesCache filterValuesCache;
+    private final boolean asyncCommit;
 
     public KafkaMessageReceiverFactory(CommonConsumerParameters commonConsumerParameters,
                                        KafkaReceiverParameters consumerReceiverParameters,
@@ -76,7 +82,8 @@ public class KafkaMessageReceiverFactory implements ReceiverFactory {
                                        KafkaNamesMapper kafkaNamesMapper,
                                        FilterChainFactory filterChainFactory,
                                        Trackers trackers,
-                                       ConsumerPartitionAssignmentState consumerPartitionAssignmentState) {
+                                       ConsumerPartitionAssignmentState consumerPartitionAssignmentState,
+                                       boolean asyncCommit) {
         this.commonConsumerParameters = commonConsumerParameters;
         this.consumerReceiverParameters = consumerReceiverParameters;
         this.kafkaConsumerParameters = kafkaConsumerParameters;
@@ -88,6 +95,15 @@ public class KafkaMessageReceiverFactory implements ReceiverFactory {
         this.filterChainFactory = filterChainFactory;
         this.trackers = trackers;
         this.consumerPartitionAssignmentState = consumerPartitionAssignmentState;
+        this.asyncCommit = asyncCommit;
+        this.sharedTopicFetchers = new SharedTopicFetchers(
+                this::createSharedFetchKafkaConsumerProperties,
+                properties -> new KafkaConsumer<>(properties),
+                consumerReceiverParameters.getPoolTimeout(),
+                consumerReceiverParameters.getSharedFetchMaxLag());
+        this.filterValuesCache = consumerReceiverParameters.isFilterValuesCacheEnabled()
+                ? FilterValuesCache.create(consumerReceiverParameters.getFilterValuesCacheMaxSize())
+                : FilterValuesCache.disabled();
     }
 
     @Override
@@ -97,7 +113,14 @@ public class KafkaMessageReceiverFactory implements ReceiverFactory {
                                                  SubscriptionLoadRecorder loadReporter,
                                                  MetricsFacade metrics) {
 
-        MessageReceiver receiver = createKafkaSingleThreadedMessageReceiver(topic, subscription, loadReporter);
+        MessageReceiver receiver;
+        if (consumerReceiverParameters.isSharedFetchEnabled()) {
+            receiver = createSharedFetchMessageReceiver(topic, subscription, loadReporter);
+        } else if (consumerReceiverParameters.isPrefetchEnabled()) {
+            receiver = createPrefetchingMessageReceiver(topic, subscription, loadReporter);
+        } else {
+            receiver = createKafkaSingleThreadedMessageReceiver(topic, subscription, loadReporter);
+        }
 
         if (consumerReceiverParameters.isWaitBetweenUnsuccessfulPolls()) {
             receiver = createThrottlingMessageReceiver(receiver, subscription, metrics);
@@ -123,7 +146,47 @@ public class KafkaMessageReceiverFactory implements ReceiverFactory {
                 consumerReceiverParameters.getPoolTimeout(),
                 consumerReceiverParameters.getReadQueueCapacity(),
                 loadReporter,
-                consumerPartitionAssignmentState
+                consumerPartitionAssignmentState,
+                asyncCommit
+        );
+    }
+
+    private MessageReceiver createPrefetchingMessageReceiver(Topic topic,
+                                                             Subscription subscription,
+                                                             SubscriptionLoadRecorder loadReporter) {
+        return new PrefetchingMessageReceiver(
+                createKafkaConsumer(topic, subscription),
+                messageConverterFactory,
+                metricsFacade,
+                kafkaNamesMapper,
+                topic,
+                subscription,
+                consumerReceiverParameters.getPoolTimeout(),
+                consumerReceiverParameters.getReadQueueCapacity(),
+                consumerReceiverParameters.getPrefetchLowWatermark(),
+                new MeteredSubscriptionLoadRecorder(loadReporter, subscription.getQualifiedName(), metricsFacade),
+                consumerPartitionAssignmentState,
+                asyncCommit
+        );
+    }
+
+    private MessageReceiver createSharedFetchMessageReceiver(Topic topic,
+                                                             Subscription subscription,
+                                                             SubscriptionLoadRecorder loadReporter) {
+        return new SharedFetchMessageReceiver(
+                createKafkaConsumer(topic, subscription),
+                sharedTopicFetchers,
+                messageConverterFactory,
+                metricsFacade,
+                kafkaNamesMapper,
+                topic,
+                subscription,
+                consumerReceiverParameters.getPoolTimeout(),
+                consumerReceiverParameters.getSharedFetchQueueCapacity(),
+                loadReporter,
+                consumerPartitionAssignmentState,
+                Clock.systemDefaultZone(),
+                asyncCommit
         );
     }
 
@@ -149,7 +212,7 @@ public class KafkaMessageReceiverFactory implements ReceiverFactory {
                 metrics,
                 subscription.getQualifiedName()
         );
-        return new FilteringMessageReceiver(receiver, filteredMessageHandler, filterChainFactory, subscription);
+        return new FilteringMessageReceiver(receiver, filteredMessageHandler, filterChainFactory, filterValuesCache, subscription);
     }
 
     private KafkaConsumer<byte[], byte[]> createKafkaConsumer(Topic topic, Subscription subscription) {
@@ -167,6 +230,19 @@ public class KafkaMessageReceiverFactory implements ReceiverFactory {
         return new KafkaConsumer<>(props);
     }
 
+    private Properties createSharedFetchKafkaConsumerProperties(Topic topic) {
+        Properties props = new Properties();
+        props.put(BOOTSTRAP_SERVERS_CONFIG, kafkaAuthorizationParameters.getBrokerList());
+        props.put(CLIENT_ID_CONFIG, consumerReceiverParameters.getClientId() + "_shared_" + topic.getQualifiedName());
+        props.put(ENABLE_AUTO_COMMIT_CONFIG, "false");
+        props.put("key.deserializer", "org.apache.kafka.common.serialization.ByteArrayDeserializer");
+        props.put("value.deserializer", "org.apache.kafka.common.serialization.ByteArrayDeserializer");
+
+        addKafkaAuthorizationParameters(props);
+        addKafkaConsumerParameters(props, topic);
+        return props;
+    }
+
     private void addKafkaAuthorizationParameters(Properties props) {
         if (kafkaAuthorizationParameters.isEnabled()) {
             props.put(SASL_MECHANISM, kafkaAuthorizationParameters.getMechanism());
@@ -19,4 +19,20 @@ public interface KafkaReceiverParameters {
     boolean isFilteringRateLimiterEnabled();
 
     boolean isFilteringEnabled();
+
+    boolean isSharedFetchEnabled();
+
+    int getSharedFetchQueueCapacity();
+
+    long getSharedFetchMaxLag();
+
+    boolean isPrefetchEnabled();
+
+    double getPrefetchLowWatermark();
+
+    boolean isFilterValuesCacheEnabled();
+
+    long getFilterValuesCacheMaxSize();
+
+    boolean isLazyContentEnabled();
 }
@@ -22,6 +22,7 @@ import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder;
 import pl.allegro.tech.hermes.consumers.consumer.offset.ConsumerPartitionAssignmentState;
 import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetCommitterConsumerRebalanceListener;
 import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
+import pl.allegro.tech.hermes.consumers.consumer.offset.kafka.broker.KafkaConsumerOffsetCommitter;
 import pl.allegro.tech.hermes.consumers.consumer.offset.kafka.broker.KafkaConsumerOffsetMover;
 import pl.allegro.tech.hermes.consumers.consumer.receiver.MessageReceiver;
 import pl.allegro.tech.hermes.consumers.consumer.receiver.RetryableReceiverError;
@@ -42,10 +43,13 @@ public class KafkaSingleThreadedMessageReceiver implements MessageReceiver {
     private static final Logger logger = LoggerFactory.getLogger(KafkaSingleThreadedMessageReceiver.class);
 
     private final KafkaConsumer<byte[], byte[]> consumer;
-    private final KafkaConsumerRecordToMessageConverter messageConverter;
+    private final KafkaConsumerRecordToMessageConverterFactory messageConverterFactory;
+    private final KafkaNamesMapper kafkaNamesMapper;
+    private KafkaConsumerRecordToMessageConverter messageConverter;
 
     private final BlockingQueue<ConsumerRecord<byte[], byte[]>> readQueue;
     private final KafkaConsumerOffsetMover offsetMover;
+    private final KafkaConsumerOffsetCommitter offsetCommitter;
 
     private final HermesCounter skippedCounter;
     private final HermesCounter failuresCounter;
@@ -64,7 +68,8 @@ public class KafkaSingleThreadedMessageReceiver implements MessageReceiver {
                                               Duration poolTimeout,
                                               int readQueueCapacity,
                                               SubscriptionLoadRecorder loadReporter,
-                                              ConsumerPartitionAssignmentState partitionAssignmentState) {
+                                              ConsumerPartitionAssignmentState partitionAssignmentState,
+                                              boolean asyncCommit) {
         this.skippedCounter = metrics.offsetCommits().skippedCounter();
         this.failuresCounter = metrics.offsetCommits().failuresCounter();
         this.subscription = subscription;
@@ -74,11 +79,19 @@ public class KafkaSingleThreadedMessageReceiver implements MessageReceiver {
         this.consumer = consumer;
         this.readQueue = new ArrayBlockingQueue<>(readQueueCapacity);
         this.offsetMover = new KafkaConsumerOffsetMover(subscription.getQualifiedName(), consumer);
-        Map<String, KafkaTopic> topics = getKafkaTopics(topic, kafkaNamesMapper).stream()
-                .collect(Collectors.toMap(t -> t.name().asString(), Function.identity()));
+        this.offsetCommitter = new KafkaConsumerOffsetCommitter(subscription.getQualifiedName(), consumer, asyncCommit, metrics);
+        this.messageConverterFactory = messageConverterFactory;
+        this.kafkaNamesMapper = kafkaNamesMapper;
+        Map<String, KafkaTopic> topics = getKafkaTopics(topic);
         this.messageConverter = messageConverterFactory.create(topic, subscription, topics);
         this.consumer.subscribe(topics.keySet(),
-                new OffsetCommitterConsumerRebalanceListener(subscription.getQualifiedName(), partitionAssignmentState));
+                new OffsetCommitterConsumerRebalanceListener(subscription.getQualifiedName(), partitionAssignmentState,
+                        offsetCommitter));
+    }
+
+    private Map<String, KafkaTopic> getKafkaTopics(Topic topic) {
+        return getKafkaTopics(topic, kafkaNamesMapper).stream()
+                .collect(Collectors.toMap(t -> t.name().asString(), Function.identity()));
     }
 
     private Collection<KafkaTopic> getKafkaTopics(Topic topic, KafkaNamesMapper kafkaNamesMapper) {
@@ -91,6 +104,7 @@ public class KafkaSingleThreadedMessageReceiver implements MessageReceiver {
     @Override
     public Optional<Message> next() {
         try {
+            offsetCommitter.retryFailedCommits();
             supplyReadQueue();
             return getMessageFromReadQueue();
         } catch (InterruptException ex) {
@@ -145,7 +159,7 @@ public class KafkaSingleThreadedMessageReceiver implements MessageReceiver {
     }
 
     private Message convertToMessage(ConsumerRecord<byte[], byte[]> record) {
-        long currentTerm = partitionAssignmentState.currentTerm(subscription.getQualifiedName());
+        long currentTerm = partitionAssignmentState.currentTerm(subscription.getQualifiedName(), record.partition());
         return messageConverter.convertToMessage(record, currentTerm);
     }
 
@@ -170,10 +184,17 @@ public class KafkaSingleThreadedMessageReceiver implements MessageReceiver {
         messageConverter.update(subscription);
     }
 
+    @Override
+    public boolean updateTopic(Topic newTopic) {
+        // records are converted according to the topic, the consumer keeps its partitions
+        this.messageConverter = messageConverterFactory.create(newTopic, subscription, getKafkaTopics(newTopic));
+        return true;
+    }
+
     @Override
     public void commit(Set<SubscriptionPartitionOffset> offsets) {
         try {
-            consumer.commitSync(createOffset(offsets));
+            offsetCommitter.commit(createOffset(offsets));
         } catch (InterruptException ex) {
             logger.info("Kafka consumer thread interrupted", ex);
             Thread.currentThread().interrupt();
@@ -201,7 +222,7 @@ public class KafkaSingleThreadedMessageReceiver implements MessageReceiver {
                         "Consumer is not assigned to partition {} of subscription {} at current term {},"
                                 + " ignoring offset {} from term {} to commit",
                         partitionOffset.getPartition(), partitionOffset.getSubscriptionName(),
-                        partitionAssignmentState.currentTerm(partitionOffset.getSubscriptionName()),
+                        partitionAssignmentState.currentTerm(partitionOffset.getSubscriptionName(), partitionOffset.getPartition()),
                         partitionOffset.getOffset(), partitionOffset.getPartitionAssignmentTerm());
             }
         }
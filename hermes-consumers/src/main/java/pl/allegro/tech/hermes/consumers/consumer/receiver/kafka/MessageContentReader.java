@@ -4,6 +4,16 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import pl.allegro.tech.hermes.api.ContentType;
 import pl.allegro.tech.hermes.common.message.wrapper.UnwrappedMessageContent;
 
+import java.util.function.Supplier;
+
 public interface MessageContentReader {
     UnwrappedMessageContent read(ConsumerRecord<byte[], byte[]> message, ContentType contentType);
+
+    /**
+     * Checks whether the message can be read and returns a supplier which unwraps its content when called.
+     * Checks which can fail temporarily are done upfront, so that the message is read again later.
+     */
+    default Supplier<UnwrappedMessageContent> readLazily(ConsumerRecord<byte[], byte[]> message, ContentType contentType) {
+        return () -> read(message, contentType);
+    }
 }
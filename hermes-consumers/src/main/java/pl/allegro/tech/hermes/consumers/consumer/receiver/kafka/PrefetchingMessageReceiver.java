@@ -0,0 +1,361 @@
+package pl.allegro.tech.hermes.consumers.consumer.receiver.kafka;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.api.Subscription;
+import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.common.kafka.KafkaNamesMapper;
+import pl.allegro.tech.hermes.common.kafka.KafkaTopic;
+import pl.allegro.tech.hermes.common.kafka.KafkaTopics;
+import pl.allegro.tech.hermes.common.kafka.offset.PartitionOffset;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.consumers.consumer.Message;
+import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder;
+import pl.allegro.tech.hermes.consumers.consumer.offset.ConsumerPartitionAssignmentState;
+import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetCommitterConsumerRebalanceListener;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
+import pl.allegro.tech.hermes.consumers.consumer.offset.kafka.broker.KafkaConsumerOffsetCommitter;
+import pl.allegro.tech.hermes.consumers.consumer.offset.kafka.broker.KafkaConsumerOffsetMover;
+import pl.allegro.tech.hermes.consumers.consumer.receiver.MessageReceiver;
+import pl.allegro.tech.hermes.consumers.consumer.receiver.RetryableReceiverError;
+import pl.allegro.tech.hermes.metrics.HermesCounter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Receives records with a dedicated Kafka consumer, like {@link KafkaSingleThreadedMessageReceiver}, but does not
+ * wait for a whole fetch round trip every time the read queue drains.
+ *
+ * <p>Kafka consumer sends next fetch requests before {@code poll} returns, so the next batch is fetched in the
+ * background while the current one is being delivered. Once the queue falls to its low watermark, the receiver polls
+ * without blocking to take over records which have already been fetched. It blocks for {@code poolTimeout} only
+ * when there is nothing left to deliver.</p>
+ *
+ * <p>Records are queued per partition and handed out in round robin, one record of a partition at a time, so that
+ * a big chunk of records of one partition does not hold back the others. When the queue reaches its capacity,
+ * partitions with queued records are paused until the queue falls to the low watermark again. The queue can exceed
+ * its capacity by records returned by a single poll.</p>
+ *
+ * <p>All methods are called by the consumer process thread, same as the Kafka consumer callbacks.</p>
+ */
+public class PrefetchingMessageReceiver implements MessageReceiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchingMessageReceiver.class);
+
+    private static final int PREFETCH_POLLS_PER_WATERMARK = 4;
+
+    private final KafkaConsumer<byte[], byte[]> consumer;
+    private final KafkaConsumerRecordToMessageConverterFactory messageConverterFactory;
+    private final KafkaNamesMapper kafkaNamesMapper;
+    private KafkaConsumerRecordToMessageConverter messageConverter;
+    private final KafkaConsumerOffsetMover offsetMover;
+    private final KafkaConsumerOffsetCommitter offsetCommitter;
+
+    private final Map<TopicPartition, Queue<ConsumerRecord<byte[], byte[]>>> partitionQueues = new HashMap<>();
+    private final Deque<TopicPartition> partitionsWithRecords = new ArrayDeque<>();
+    private final Set<TopicPartition> pausedPartitions = new HashSet<>();
+    private final int capacity;
+    private final int lowWatermark;
+    private final int prefetchInterval;
+    private int queued = 0;
+    private int deliveredSincePoll = 0;
+
+    private final HermesCounter skippedCounter;
+    private final HermesCounter failuresCounter;
+    private final SubscriptionLoadRecorder loadReporter;
+    private volatile Subscription subscription;
+
+    private final Duration poolTimeout;
+    private final ConsumerPartitionAssignmentState partitionAssignmentState;
+
+    public PrefetchingMessageReceiver(KafkaConsumer<byte[], byte[]> consumer,
+                                      KafkaConsumerRecordToMessageConverterFactory messageConverterFactory,
+                                      MetricsFacade metrics,
+                                      KafkaNamesMapper kafkaNamesMapper,
+                                      Topic topic,
+                                      Subscription subscription,
+                                      Duration poolTimeout,
+                                      int readQueueCapacity,
+                                      double lowWatermark,
+                                      SubscriptionLoadRecorder loadReporter,
+                                      ConsumerPartitionAssignmentState partitionAssignmentState,
+                                      boolean asyncCommit) {
+        this.skippedCounter = metrics.offsetCommits().skippedCounter();
+        this.failuresCounter = metrics.offsetCommits().failuresCounter();
+        this.subscription = subscription;
+        this.poolTimeout = poolTimeout;
+        this.loadReporter = loadReporter;
+        this.partitionAssignmentState = partitionAssignmentState;
+        this.consumer = consumer;
+        this.capacity = readQueueCapacity;
+        this.lowWatermark = (int) (readQueueCapacity * lowWatermark);
+        this.prefetchInterval = Math.max(1, this.lowWatermark / PREFETCH_POLLS_PER_WATERMARK);
+        this.offsetMover = new KafkaConsumerOffsetMover(subscription.getQualifiedName(), consumer);
+        this.offsetCommitter = new KafkaConsumerOffsetCommitter(subscription.getQualifiedName(), consumer, asyncCommit, metrics);
+        this.messageConverterFactory = messageConverterFactory;
+        this.kafkaNamesMapper = kafkaNamesMapper;
+        Map<String, KafkaTopic> topics = getKafkaTopics(topic);
+        this.messageConverter = messageConverterFactory.create(topic, subscription, topics);
+        this.consumer.subscribe(topics.keySet(), new PrefetchingRebalanceListener(
+                new OffsetCommitterConsumerRebalanceListener(subscription.getQualifiedName(), partitionAssignmentState,
+                        offsetCommitter)));
+    }
+
+    private Map<String, KafkaTopic> getKafkaTopics(Topic topic) {
+        return getKafkaTopics(topic, kafkaNamesMapper).stream()
+                .collect(Collectors.toMap(t -> t.name().asString(), Function.identity()));
+    }
+
+    private Collection<KafkaTopic> getKafkaTopics(Topic topic, KafkaNamesMapper kafkaNamesMapper) {
+        KafkaTopics kafkaTopics = kafkaNamesMapper.toKafkaTopics(topic);
+        ImmutableList.Builder<KafkaTopic> topicsBuilder = new ImmutableList.Builder<KafkaTopic>().add(kafkaTopics.getPrimary());
+        kafkaTopics.getSecondary().ifPresent(topicsBuilder::add);
+        return topicsBuilder.build();
+    }
+
+    @Override
+    public Optional<Message> next() {
+        try {
+            offsetCommitter.retryFailedCommits();
+            supplyReadQueue();
+            return getMessageFromReadQueue();
+        } catch (InterruptException ex) {
+            logger.info("Kafka consumer thread interrupted", ex);
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (KafkaException ex) {
+            logger.error("Error while reading message for subscription {}", subscription.getQualifiedName(), ex);
+            return Optional.empty();
+        } catch (Exception ex) {
+            logger.error("Failed to read message for subscription {}, readQueueSize {}",
+                    subscription.getQualifiedName(),
+                    queued,
+                    ex);
+            return Optional.empty();
+        }
+    }
+
+    private void supplyReadQueue() {
+        if (queued == 0) {
+            resumePartitions();
+            long start = System.nanoTime();
+            ConsumerRecords<byte[], byte[]> records = consumer.poll(poolTimeout);
+            loadReporter.recordPollWait(System.nanoTime() - start);
+            addToReadQueue(records);
+        } else if (queued <= lowWatermark && deliveredSincePoll >= prefetchInterval) {
+            resumePartitions();
+            addToReadQueue(consumer.poll(Duration.ZERO));
+        } else {
+            return;
+        }
+        deliveredSincePoll = 0;
+        if (queued >= capacity) {
+            pausePartitionsWithRecords();
+        }
+        loadReporter.recordReadQueueOccupancy(queued, capacity);
+    }
+
+    private void addToReadQueue(ConsumerRecords<byte[], byte[]> records) {
+        for (TopicPartition partition : records.partitions()) {
+            Queue<ConsumerRecord<byte[], byte[]>> partitionQueue = partitionQueues.computeIfAbsent(partition, p -> new ArrayDeque<>());
+            if (partitionQueue.isEmpty()) {
+                partitionsWithRecords.addLast(partition);
+            }
+            for (ConsumerRecord<byte[], byte[]> record : records.records(partition)) {
+                loadReporter.recordSingleOperation();
+                partitionQueue.add(record);
+                queued++;
+            }
+        }
+    }
+
+    private void pausePartitionsWithRecords() {
+        List<TopicPartition> toPause = new ArrayList<>();
+        for (TopicPartition partition : partitionsWithRecords) {
+            if (pausedPartitions.add(partition)) {
+                toPause.add(partition);
+            }
+        }
+        if (!toPause.isEmpty()) {
+            consumer.pause(toPause);
+        }
+    }
+
+    private void resumePartitions() {
+        if (!pausedPartitions.isEmpty()) {
+            consumer.resume(new ArrayList<>(pausedPartitions));
+            pausedPartitions.clear();
+        }
+    }
+
+    private Optional<Message> getMessageFromReadQueue() {
+        TopicPartition partition = partitionsWithRecords.peekFirst();
+        if (partition != null) {
+            Queue<ConsumerRecord<byte[], byte[]>> partitionQueue = partitionQueues.get(partition);
+            ConsumerRecord<byte[], byte[]> record = partitionQueue.element();
+            try {
+                Message message = convertToMessage(record);
+                partitionQueue.poll();
+                queued--;
+                deliveredSincePoll++;
+                partitionsWithRecords.pollFirst();
+                if (!partitionQueue.isEmpty()) {
+                    partitionsWithRecords.addLast(partition);
+                }
+                return Optional.of(message);
+            } catch (RetryableReceiverError ex) {
+                logger.warn("Cannot convert record to message... Operation will be delayed", ex);
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Message convertToMessage(ConsumerRecord<byte[], byte[]> record) {
+        long currentTerm = partitionAssignmentState.currentTerm(subscription.getQualifiedName(), record.partition());
+        return messageConverter.convertToMessage(record, currentTerm);
+    }
+
+    private void discardQueuedRecords(TopicPartition partition) {
+        Queue<ConsumerRecord<byte[], byte[]>> partitionQueue = partitionQueues.remove(partition);
+        if (partitionQueue != null && !partitionQueue.isEmpty()) {
+            queued -= partitionQueue.size();
+            partitionsWithRecords.remove(partition);
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            consumer.close();
+        } catch (IllegalStateException ex) {
+            // means it was already closed
+        } catch (InterruptException ex) {
+            // means that the thread was interrupted
+        } catch (KafkaException ex) {
+            logger.warn("KafkaException occurred during closing consumer.", ex);
+        } finally {
+            partitionAssignmentState.revokeAll(subscription.getQualifiedName());
+            loadReporter.shutdown();
+        }
+    }
+
+    @Override
+    public void update(Subscription newSubscription) {
+        this.subscription = newSubscription;
+        messageConverter.update(subscription);
+    }
+
+    @Override
+    public boolean updateTopic(Topic newTopic) {
+        // records are converted according to the topic, the consumer keeps its partitions
+        this.messageConverter = messageConverterFactory.create(newTopic, subscription, getKafkaTopics(newTopic));
+        return true;
+    }
+
+    @Override
+    public void commit(Set<SubscriptionPartitionOffset> offsets) {
+        try {
+            offsetCommitter.commit(createOffset(offsets));
+        } catch (InterruptException ex) {
+            logger.info("Kafka consumer thread interrupted", ex);
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            logger.error("Error while committing offset for subscription {}", subscription.getQualifiedName(), ex);
+            failuresCounter.increment();
+        }
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> createOffset(Set<SubscriptionPartitionOffset> partitionOffsets) {
+        Map<TopicPartition, OffsetAndMetadata> offsetsData = new LinkedHashMap<>();
+        for (SubscriptionPartitionOffset partitionOffset : partitionOffsets) {
+            TopicPartition topicAndPartition = new TopicPartition(
+                    partitionOffset.getKafkaTopicName().asString(),
+                    partitionOffset.getPartition());
+
+            if (partitionAssignmentState.isAssignedPartitionAtCurrentTerm(partitionOffset.getSubscriptionPartition())) {
+                if (consumer.position(topicAndPartition) >= partitionOffset.getOffset()) {
+                    offsetsData.put(topicAndPartition, new OffsetAndMetadata(partitionOffset.getOffset()));
+                } else {
+                    skippedCounter.increment();
+                }
+            } else {
+                logger.warn(
+                        "Consumer is not assigned to partition {} of subscription {} at current term {},"
+                                + " ignoring offset {} from term {} to commit",
+                        partitionOffset.getPartition(), partitionOffset.getSubscriptionName(),
+                        partitionAssignmentState.currentTerm(partitionOffset.getSubscriptionName(), partitionOffset.getPartition()),
+                        partitionOffset.getOffset(), partitionOffset.getPartitionAssignmentTerm());
+            }
+        }
+        return offsetsData;
+    }
+
+    /**
+     * Records queued before the offset was moved are discarded, so the partition is delivered from the new offset.
+     */
+    @Override
+    public boolean moveOffset(PartitionOffset offset) {
+        boolean moved = offsetMover.move(offset);
+        if (moved) {
+            discardQueuedRecords(new TopicPartition(offset.getTopic().asString(), offset.getPartition()));
+        }
+        return moved;
+    }
+
+    private class PrefetchingRebalanceListener implements ConsumerRebalanceListener {
+
+        private final ConsumerRebalanceListener delegate;
+
+        private PrefetchingRebalanceListener(ConsumerRebalanceListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            delegate.onPartitionsRevoked(partitions);
+            forget(partitions);
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            delegate.onPartitionsLost(partitions);
+            forget(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            delegate.onPartitionsAssigned(partitions);
+        }
+
+        private void forget(Collection<TopicPartition> partitions) {
+            for (TopicPartition partition : partitions) {
+                discardQueuedRecords(partition);
+                pausedPartitions.remove(partition);
+            }
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package pl.allegro.tech.hermes.consumers.consumer.receiver.kafka;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.api.Subscription;
+import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.common.kafka.KafkaNamesMapper;
+import pl.allegro.tech.hermes.common.kafka.KafkaTopic;
+import pl.allegro.tech.hermes.common.kafka.KafkaTopics;
+import pl.allegro.tech.hermes.common.kafka.offset.PartitionOffset;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.consumers.consumer.Message;
+import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder;
+import pl.allegro.tech.hermes.consumers.consumer.offset.ConsumerPartitionAssignmentState;
+import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetCommitterConsumerRebalanceListener;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
+import pl.allegro.tech.hermes.consumers.consumer.offset.kafka.broker.KafkaConsumerOffsetCommitter;
+import pl.allegro.tech.hermes.consumers.consumer.offset.kafka.broker.KafkaConsumerOffsetMover;
+import pl.allegro.tech.hermes.consumers.consumer.receiver.MessageReceiver;
+import pl.allegro.tech.hermes.consumers.consumer.receiver.RetryableReceiverError;
+import pl.allegro.tech.hermes.metrics.HermesCounter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Receives records fetched by a {@link SharedTopicFetcher} shared by all subscriptions of the topic.
+ *
+ * <p>The subscription still has its own consumer, which takes part in its consumer group and commits its offsets,
+ * but keeps assigned partitions paused and does not fetch any records. Assigned partitions are registered in the
+ * shared fetcher starting from the committed offsets. Once the fetcher detaches the subscription, because it
+ * cannot keep up with the others, the consumer is moved to the last consumed offsets and resumed, so the
+ * subscription fetches its records on its own until the receiver is restarted.</p>
+ *
+ * <p>All methods are called by the consumer process thread, same as the Kafka consumer callbacks.</p>
+ */
+public class SharedFetchMessageReceiver implements MessageReceiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedFetchMessageReceiver.class);
+
+    private final KafkaConsumer<byte[], byte[]> consumer;
+    private final SharedTopicFetchers fetchers;
+    private final SharedTopicFetcher fetcher;
+    private final SubscriptionFeed feed;
+    private final KafkaConsumerRecordToMessageConverterFactory messageConverterFactory;
+    private final KafkaNamesMapper kafkaNamesMapper;
+    private KafkaConsumerRecordToMessageConverter messageConverter;
+    private final KafkaConsumerOffsetMover offsetMover;
+    private final KafkaConsumerOffsetCommitter offsetCommitter;
+    private final Queue<ConsumerRecord<byte[], byte[]>> readQueue = new ArrayDeque<>();
+    private final Map<TopicPartition, Long> consumedOffsets = new HashMap<>();
+
+    private final HermesCounter skippedCounter;
+    private final HermesCounter failuresCounter;
+    private final SubscriptionLoadRecorder loadReporter;
+    private volatile Subscription subscription;
+
+    private final Duration poolTimeout;
+    private final ConsumerPartitionAssignmentState partitionAssignmentState;
+    private final Clock clock;
+
+    private boolean dedicated = false;
+    private long lastMembershipPoll = 0;
+
+    public SharedFetchMessageReceiver(KafkaConsumer<byte[], byte[]> consumer,
+                                      SharedTopicFetchers fetchers,
+                                      KafkaConsumerRecordToMessageConverterFactory messageConverterFactory,
+                                      MetricsFacade metrics,
+                                      KafkaNamesMapper kafkaNamesMapper,
+                                      Topic topic,
+                                      Subscription subscription,
+                                      Duration poolTimeout,
+                                      int feedCapacity,
+                                      SubscriptionLoadRecorder loadReporter,
+                                      ConsumerPartitionAssignmentState partitionAssignmentState,
+                                      Clock clock,
+                                      boolean asyncCommit) {
+        this.skippedCounter = metrics.offsetCommits().skippedCounter();
+        this.failuresCounter = metrics.offsetCommits().failuresCounter();
+        this.subscription = subscription;
+        this.poolTimeout = poolTimeout;
+        this.loadReporter = loadReporter;
+        this.partitionAssignmentState = partitionAssignmentState;
+        this.clock = clock;
+        this.consumer = consumer;
+        this.fetchers = fetchers;
+        this.fetcher = fetchers.acquire(topic);
+        this.feed = new SubscriptionFeed(subscription.getQualifiedName(), feedCapacity);
+        this.offsetMover = new KafkaConsumerOffsetMover(subscription.getQualifiedName(), consumer);
+        this.offsetCommitter = new KafkaConsumerOffsetCommitter(subscription.getQualifiedName(), consumer, asyncCommit, metrics);
+        this.messageConverterFactory = messageConverterFactory;
+        this.kafkaNamesMapper = kafkaNamesMapper;
+        Map<String, KafkaTopic> topics = getKafkaTopics(topic);
+        this.messageConverter = messageConverterFactory.create(topic, subscription, topics);
+        this.consumer.subscribe(topics.keySet(), new SharedFetchRebalanceListener(
+                new OffsetCommitterConsumerRebalanceListener(subscription.getQualifiedName(), partitionAssignmentState,
+                        offsetCommitter)));
+    }
+
+    private Map<String, KafkaTopic> getKafkaTopics(Topic topic) {
+        return getKafkaTopics(topic, kafkaNamesMapper).stream()
+                .collect(Collectors.toMap(t -> t.name().asString(), Function.identity()));
+    }
+
+    private Collection<KafkaTopic> getKafkaTopics(Topic topic, KafkaNamesMapper kafkaNamesMapper) {
+        KafkaTopics kafkaTopics = kafkaNamesMapper.toKafkaTopics(topic);
+        ImmutableList.Builder<KafkaTopic> topicsBuilder = new ImmutableList.Builder<KafkaTopic>().add(kafkaTopics.getPrimary());
+        kafkaTopics.getSecondary().ifPresent(topicsBuilder::add);
+        return topicsBuilder.build();
+    }
+
+    @Override
+    public Optional<Message> next() {
+        try {
+            offsetCommitter.retryFailedCommits();
+            if (!dedicated && feed.isDetached()) {
+                switchToDedicatedFetching();
+            }
+            if (dedicated) {
+                supplyReadQueue();
+            } else {
+                pollMembership();
+                supplyReadQueueFromFeed();
+            }
+            return getMessageFromReadQueue();
+        } catch (InterruptException ex) {
+            logger.info("Kafka consumer thread interrupted", ex);
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (KafkaException ex) {
+            logger.error("Error while reading message for subscription {}", subscription.getQualifiedName(), ex);
+            return Optional.empty();
+        } catch (Exception ex) {
+            logger.error("Failed to read message for subscription {}, readQueueSize {}, feedSize {}",
+                    subscription.getQualifiedName(),
+                    readQueue.size(),
+                    feed.size(),
+                    ex);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Partitions are paused, so polling returns no records, but keeps the consumer in its group
+     * and runs rebalance callbacks.
+     */
+    private void pollMembership() {
+        long now = clock.millis();
+        if (now - lastMembershipPoll >= poolTimeout.toMillis()) {
+            lastMembershipPoll = now;
+            consumer.poll(Duration.ZERO);
+        }
+    }
+
+    private void supplyReadQueueFromFeed() throws InterruptedException {
+        if (readQueue.isEmpty()) {
+            ConsumerRecord<byte[], byte[]> record = feed.poll(poolTimeout);
+            // records of revoked partitions might have been queued before the fetcher unregistered them
+            if (record != null && consumedOffsets.containsKey(new TopicPartition(record.topic(), record.partition()))) {
+                loadReporter.recordSingleOperation();
+                readQueue.add(record);
+            }
+        }
+    }
+
+    private void supplyReadQueue() {
+        if (readQueue.isEmpty()) {
+            ConsumerRecords<byte[], byte[]> records = consumer.poll(poolTimeout);
+            for (ConsumerRecord<byte[], byte[]> record : records) {
+                loadReporter.recordSingleOperation();
+                readQueue.add(record);
+            }
+        }
+    }
+
+    private Optional<Message> getMessageFromReadQueue() {
+        if (!readQueue.isEmpty()) {
+            ConsumerRecord<byte[], byte[]> record = readQueue.element();
+            try {
+                Message message = convertToMessage(record);
+                readQueue.poll();
+                consumedOffsets.put(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
+                return Optional.of(message);
+            } catch (RetryableReceiverError ex) {
+                logger.warn("Cannot convert record to message... Operation will be delayed", ex);
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Message convertToMessage(ConsumerRecord<byte[], byte[]> record) {
+        long currentTerm = partitionAssignmentState.currentTerm(subscription.getQualifiedName(), record.partition());
+        return messageConverter.convertToMessage(record, currentTerm);
+    }
+
+    private void switchToDedicatedFetching() {
+        logger.info("Subscription {} switches to fetching records on its own", subscription.getQualifiedName());
+        dedicated = true;
+        // the fetcher unregisters the feed asynchronously, records it pushes until then are dropped by the closed feed
+        feed.close();
+        fetcher.unregisterAll(feed);
+        readQueue.clear();
+        Set<TopicPartition> assignment = consumer.assignment();
+        for (TopicPartition partition : assignment) {
+            Long offset = consumedOffsets.get(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset);
+            }
+        }
+        consumer.resume(assignment);
+    }
+
+    @Override
+    public void stop() {
+        try {
+            feed.close();
+            fetcher.unregisterAll(feed);
+            fetchers.release(fetcher);
+            consumer.close();
+        } catch (IllegalStateException ex) {
+            // means it was already closed
+        } catch (InterruptException ex) {
+            // means that the thread was interrupted
+        } catch (KafkaException ex) {
+            logger.warn("KafkaException occurred during closing consumer.", ex);
+        } finally {
+            partitionAssignmentState.revokeAll(subscription.getQualifiedName());
+        }
+    }
+
+    @Override
+    public void update(Subscription newSubscription) {
+        this.subscription = newSubscription;
+        messageConverter.update(subscription);
+    }
+
+    @Override
+    public boolean updateTopic(Topic newTopic) {
+        // records are converted according to the topic, the consumer keeps its partitions
+        this.messageConverter = messageConverterFactory.create(newTopic, subscription, getKafkaTopics(newTopic));
+        return true;
+    }
+
+    @Override
+    public void commit(Set<SubscriptionPartitionOffset> offsets) {
+        try {
+            offsetCommitter.commit(createOffset(offsets));
+        } catch (InterruptException ex) {
+            logger.info("Kafka consumer thread interrupted", ex);
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            logger.error("Error while committing offset for subscription {}", subscription.getQualifiedName(), ex);
+            failuresCounter.increment();
+        }
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> createOffset(Set<SubscriptionPartitionOffset> partitionOffsets) {
+        Map<TopicPartition, OffsetAndMetadata> offsetsData = new LinkedHashMap<>();
+        for (SubscriptionPartitionOffset partitionOffset : partitionOffsets) {
+            TopicPartition topicAndPartition = new TopicPartition(
+                    partitionOffset.getKafkaTopicName().asString(),
+                    partitionOffset.getPartition());
+
+            if (partitionAssignmentState.isAssignedPartitionAtCurrentTerm(partitionOffset.getSubscriptionPartition())) {
+                if (position(topicAndPartition) >= partitionOffset.getOffset()) {
+                    offsetsData.put(topicAndPartition, new OffsetAndMetadata(partitionOffset.getOffset()));
+                } else {
+                    skippedCounter.increment();
+                }
+            } else {
+                logger.warn(
+                        "Consumer is not assigned to partition {} of subscription {} at current term {},"
+                                + " ignoring offset {} from term {} to commit",
+                        partitionOffset.getPartition(), partitionOffset.getSubscriptionName(),
+                        partitionAssignmentState.currentTerm(partitionOffset.getSubscriptionName(), partitionOffset.getPartition()),
+                        partitionOffset.getOffset(), partitionOffset.getPartitionAssignmentTerm());
+            }
+        }
+        return offsetsData;
+    }
+
+    private long position(TopicPartition partition) {
+        if (dedicated) {
+            return consumer.position(partition);
+        }
+        return consumedOffsets.getOrDefault(partition, -1L);
+    }
+
+    /**
+     * Records before the shared fetcher position are not fetched again, so moving offsets is supported
+     * by fetching on its own.
+     */
+    @Override
+    public boolean moveOffset(PartitionOffset offset) {
+        if (!dedicated) {
+            feed.detach();
+            switchToDedicatedFetching();
+        }
+        return offsetMover.move(offset);
+    }
+
+    private class SharedFetchRebalanceListener implements ConsumerRebalanceListener {
+
+        private final ConsumerRebalanceListener delegate;
+
+        private SharedFetchRebalanceListener(ConsumerRebalanceListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            delegate.onPartitionsRevoked(partitions);
+            forget(partitions);
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            delegate.onPartitionsLost(partitions);
+            forget(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            delegate.onPartitionsAssigned(partitions);
+            if (!dedicated) {
+                consumer.pause(partitions);
+                for (TopicPartition partition : partitions) {
+                    long offset = consumer.position(partition);
+                    consumedOffsets.put(partition, offset);
+                    fetcher.register(feed, partition, offset);
+                }
+            }
+        }
+
+        private void forget(Collection<TopicPartition> partitions) {
+            if (!dedicated) {
+                fetcher.unregister(feed, partitions);
+                readQueue.removeIf(record -> partitions.contains(new TopicPartition(record.topic(), record.partition())));
+            }
+            partitions.forEach(consumedOffsets::remove);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package pl.allegro.tech.hermes.consumers.consumer.receiver.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches partitions of a topic once per node and fans records out to {@link SubscriptionFeed}s of all
+ * subscriptions reading them. The fetcher uses manually assigned partitions and no consumer group, partitions
+ * are assigned to subscriptions by their own consumer groups and registered here.
+ *
+ * <p>A subscription is detached, and has to fetch records on its own, when its feed is full or when it starts
+ * more than {@code maxLag} records behind the fetcher, so a slow subscription does not hold back the others.</p>
+ *
+ * <p>The Kafka consumer is used by the fetcher thread only, other threads submit commands to it.</p>
+ */
+class SharedTopicFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedTopicFetcher.class);
+
+    private final String name;
+    private final Consumer<byte[], byte[]> consumer;
+    private final Duration pollTimeout;
+    private final long maxLag;
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final Map<TopicPartition, List<SubscriptionFeed>> feeds = new HashMap<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    SharedTopicFetcher(String name, Consumer<byte[], byte[]> consumer, Duration pollTimeout, long maxLag) {
+        this.name = name;
+        this.consumer = consumer;
+        this.pollTimeout = pollTimeout;
+        this.maxLag = maxLag;
+        this.thread = new Thread(this::run, "shared-fetcher-" + name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        consumer.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void register(SubscriptionFeed feed, TopicPartition partition, long offset) {
+        submit(() -> doRegister(feed, partition, offset));
+    }
+
+    void unregister(SubscriptionFeed feed, Collection<TopicPartition> partitions) {
+        List<TopicPartition> unregistered = new ArrayList<>(partitions);
+        submit(() -> doUnregister(feed, unregistered));
+    }
+
+    void unregisterAll(SubscriptionFeed feed) {
+        submit(() -> doUnregister(feed, new ArrayList<>(feeds.keySet())));
+    }
+
+    private void submit(Runnable command) {
+        commands.add(command);
+        consumer.wakeup();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                try {
+                    runCommands();
+                    if (feeds.isEmpty()) {
+                        Thread.sleep(pollTimeout.toMillis());
+                    } else {
+                        dispatch(consumer.poll(pollTimeout));
+                    }
+                } catch (WakeupException e) {
+                    // new commands to run or stopping
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                } catch (Exception e) {
+                    logger.error("Error while fetching records of topic {}", name, e);
+                }
+            }
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private void runCommands() {
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            command.run();
+        }
+    }
+
+    private void dispatch(ConsumerRecords<byte[], byte[]> records) {
+        Set<SubscriptionFeed> lagging = new HashSet<>();
+        for (TopicPartition partition : records.partitions()) {
+            List<SubscriptionFeed> partitionFeeds = feeds.get(partition);
+            if (partitionFeeds == null) {
+                continue;
+            }
+            for (ConsumerRecord<byte[], byte[]> record : records.records(partition)) {
+                for (SubscriptionFeed feed : partitionFeeds) {
+                    if (!lagging.contains(feed) && !feed.offer(record)) {
+                        lagging.add(feed);
+                    }
+                }
+            }
+        }
+        for (SubscriptionFeed feed : lagging) {
+            detach(feed, "its queue is full");
+        }
+    }
+
+    private void doRegister(SubscriptionFeed feed, TopicPartition partition, long offset) {
+        if (feed.isDetached()) {
+            return;
+        }
+        List<SubscriptionFeed> partitionFeeds = feeds.get(partition);
+        if (partitionFeeds == null) {
+            partitionFeeds = new ArrayList<>();
+            feeds.put(partition, partitionFeeds);
+            consumer.assign(feeds.keySet());
+            consumer.seek(partition, offset);
+        } else {
+            long fetchedOffset = consumer.position(partition);
+            if (offset < fetchedOffset - maxLag) {
+                detach(feed, "it is " + (fetchedOffset - offset) + " records behind on partition " + partition);
+                return;
+            } else if (offset < fetchedOffset) {
+                // records already delivered to other subscriptions are skipped by their feeds
+                consumer.seek(partition, offset);
+            }
+        }
+        partitionFeeds.add(feed);
+        feed.register(partition, offset);
+    }
+
+    private void doUnregister(SubscriptionFeed feed, Collection<TopicPartition> partitions) {
+        boolean assignmentChanged = false;
+        for (TopicPartition partition : partitions) {
+            List<SubscriptionFeed> partitionFeeds = feeds.get(partition);
+            if (partitionFeeds != null && partitionFeeds.remove(feed)) {
+                feed.unregister(partition);
+                if (partitionFeeds.isEmpty()) {
+                    feeds.remove(partition);
+                    assignmentChanged = true;
+                }
+            }
+        }
+        if (assignmentChanged) {
+            consumer.assign(feeds.keySet());
+        }
+    }
+
+    private void detach(SubscriptionFeed feed, String reason) {
+        logger.info("Subscription {} detached from shared fetcher of topic {} and will fetch on its own, because {}",
+                feed.getSubscriptionName(), name, reason);
+        feed.detach();
+        doUnregister(feed, new ArrayList<>(feeds.keySet()));
+    }
+}
@@ -0,0 +1,120 @@
+package pl.allegro.tech.hermes.consumers.consumer.receiver.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import pl.allegro.tech.hermes.api.Topic;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Keeps a single {@link SharedTopicFetcher} per topic and consumer settings for as long as any subscription
+ * of the topic uses it.
+ *
+ * <p>Fetchers are keyed by the consumer properties derived from the topic, not by the topic name only, so a
+ * subscription never reads through a consumer configured for an older version of the topic. Once the topic
+ * changes settings the consumer depends on, like the maximum message size, receivers created afterwards get
+ * a new fetcher, while the old one serves the remaining receivers until they are stopped.</p>
+ */
+class SharedTopicFetchers {
+
+    private final Function<Topic, Properties> consumerProperties;
+    private final Function<Properties, Consumer<byte[], byte[]>> consumerFactory;
+    private final Duration pollTimeout;
+    private final long maxLag;
+    private final Map<FetcherKey, Entry> fetchers = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    SharedTopicFetchers(Function<Topic, Properties> consumerProperties,
+                        Function<Properties, Consumer<byte[], byte[]>> consumerFactory,
+                        Duration pollTimeout,
+                        long maxLag) {
+        this.consumerProperties = consumerProperties;
+        this.consumerFactory = consumerFactory;
+        this.pollTimeout = pollTimeout;
+        this.maxLag = maxLag;
+    }
+
+    SharedTopicFetcher acquire(Topic topic) {
+        Properties properties = consumerProperties.apply(topic);
+        lock.lock();
+        try {
+            Entry entry = fetchers.computeIfAbsent(new FetcherKey(topic.getQualifiedName(), properties), key -> {
+                SharedTopicFetcher fetcher = new SharedTopicFetcher(
+                        key.topicName, consumerFactory.apply(properties), pollTimeout, maxLag);
+                fetcher.start();
+                return new Entry(fetcher);
+            });
+            entry.references++;
+            return entry.fetcher;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(SharedTopicFetcher fetcher) {
+        SharedTopicFetcher unused = null;
+        lock.lock();
+        try {
+            Iterator<Entry> entries = fetchers.values().iterator();
+            while (entries.hasNext()) {
+                Entry entry = entries.next();
+                if (entry.fetcher == fetcher) {
+                    if (--entry.references == 0) {
+                        entries.remove();
+                        unused = fetcher;
+                    }
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (unused != null) {
+            unused.stop();
+        }
+    }
+
+    private static final class FetcherKey {
+
+        private final String topicName;
+        private final Properties properties;
+
+        private FetcherKey(String topicName, Properties properties) {
+            this.topicName = topicName;
+            this.properties = properties;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FetcherKey that = (FetcherKey) o;
+            return topicName.equals(that.topicName) && properties.equals(that.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(topicName, properties);
+        }
+    }
+
+    private static class Entry {
+
+        private final SharedTopicFetcher fetcher;
+        private int references = 0;
+
+        private Entry(SharedTopicFetcher fetcher) {
+            this.fetcher = fetcher;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package pl.allegro.tech.hermes.consumers.consumer.receiver.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import pl.allegro.tech.hermes.api.SubscriptionName;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of records fetched by a {@link SharedTopicFetcher} for a single subscription. Offsets of records
+ * the subscription expects next are tracked by the fetcher thread only, records below them are skipped, so
+ * subscriptions starting at different offsets can share one fetcher.
+ *
+ * <p>Once closed by the receiver, the feed drops records the fetcher still pushes until it processes
+ * the unregistration, so no record of the fetcher is left in the queue after it is cleared.</p>
+ */
+class SubscriptionFeed {
+
+    private final SubscriptionName subscriptionName;
+    private final BlockingQueue<ConsumerRecord<byte[], byte[]>> queue;
+    private final Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+    private volatile boolean detached = false;
+    private volatile boolean closed = false;
+
+    SubscriptionFeed(SubscriptionName subscriptionName, int capacity) {
+        this.subscriptionName = subscriptionName;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    SubscriptionName getSubscriptionName() {
+        return subscriptionName;
+    }
+
+    void register(TopicPartition partition, long offset) {
+        nextOffsets.put(partition, offset);
+    }
+
+    void unregister(TopicPartition partition) {
+        nextOffsets.remove(partition);
+    }
+
+    /**
+     * Returns false when the record is expected by the subscription but its queue is full.
+     */
+    boolean offer(ConsumerRecord<byte[], byte[]> record) {
+        if (closed) {
+            return true;
+        }
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        Long nextOffset = nextOffsets.get(partition);
+        if (nextOffset == null || record.offset() < nextOffset) {
+            return true;
+        }
+        if (!queue.offer(record)) {
+            return false;
+        }
+        if (closed) {
+            // closed while the record was being queued, the receiver might have cleared the queue already
+            queue.clear();
+            return true;
+        }
+        nextOffsets.put(partition, record.offset() + 1);
+        return true;
+    }
+
+    ConsumerRecord<byte[], byte[]> poll(Duration timeout) throws InterruptedException {
+        return queue.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rejects records pushed from now on and drops the queued ones.
+     */
+    void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    void detach() {
+        detached = true;
+    }
+
+    boolean isDetached() {
+        return detached;
+    }
+}
@@ -19,7 +19,6 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import static pl.allegro.tech.hermes.api.SentMessageTrace.Builder.undeliveredMessage;
 import static pl.allegro.tech.hermes.consumers.consumer.message.MessageConverter.toMessageMetadata;
-import static pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset.subscriptionPartitionOffset;
 
 public class DefaultErrorHandler implements ErrorHandler {
 
@@ -67,8 +66,7 @@ public class DefaultErrorHandler implements ErrorHandler {
     public void handleDiscarded(Message message, Subscription subscription, MessageSendingResult result) {
         logResult(message, subscription, result);
 
-        offsetQueue.offerCommittedOffset(subscriptionPartitionOffset(subscription.getQualifiedName(),
-                message.getPartitionOffset(), message.getPartitionAssignmentTerm()));
+        offsetQueue.offerCommittedOffset(message.getSubscriptionPartition(subscription.getQualifiedName()), message.getOffset());
 
         discarded.increment();
         inflightTime.record(System.currentTimeMillis() - message.getReadingTimestamp());
@@ -14,7 +14,6 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static pl.allegro.tech.hermes.consumers.consumer.message.MessageConverter.toMessageMetadata;
-import static pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset.subscriptionPartitionOffset;
 
 public class DefaultSuccessHandler implements SuccessHandler {
 
@@ -42,8 +41,7 @@ public class DefaultSuccessHandler implements SuccessHandler {
 
     @Override
     public void handleSuccess(Message message, Subscription subscription, MessageSendingResult result) {
-        offsetQueue.offerCommittedOffset(subscriptionPartitionOffset(subscription.getQualifiedName(),
-                message.getPartitionOffset(), message.getPartitionAssignmentTerm()));
+        offsetQueue.offerCommittedOffset(message.getSubscriptionPartition(subscription.getQualifiedName()), message.getOffset());
         markSuccess(message, result);
         trackers.get(subscription).logSent(toMessageMetadata(message, subscription), result.getHostname());
     }
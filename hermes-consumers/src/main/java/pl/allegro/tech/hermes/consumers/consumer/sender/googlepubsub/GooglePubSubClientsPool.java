@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 class GooglePubSubClientsPool {
     private static final Logger logger = LoggerFactory.getLogger(GooglePubSubClientsPool.class);
@@ -25,6 +26,9 @@ class GooglePubSubClientsPool {
 
     private final TransportChannelProvider transportChannelProvider;
 
+    // creating and shutting down clients blocks, ReentrantLock does not pin virtual threads like synchronized does
+    private final ReentrantLock lock = new ReentrantLock();
+
     GooglePubSubClientsPool(CredentialsProvider credentialsProvider,
                             ExecutorProvider publishingExecutorProvider,
                             RetrySettings retrySettings,
@@ -37,34 +41,49 @@ class GooglePubSubClientsPool {
         this.transportChannelProvider = transportChannelProvider;
     }
 
-    synchronized GooglePubSubClient acquire(GooglePubSubSenderTarget resolvedTarget) throws IOException {
-        GooglePubSubClient client = clients.get(resolvedTarget);
-        if (client == null) {
-            client = createClient(resolvedTarget);
+    GooglePubSubClient acquire(GooglePubSubSenderTarget resolvedTarget) throws IOException {
+        lock.lock();
+        try {
+            GooglePubSubClient client = clients.get(resolvedTarget);
+            if (client == null) {
+                client = createClient(resolvedTarget);
+            }
+            clients.put(resolvedTarget, client);
+            Integer counter = counters.getOrDefault(resolvedTarget, 0);
+            counters.put(resolvedTarget, ++counter);
+            return client;
+        } finally {
+            lock.unlock();
         }
-        clients.put(resolvedTarget, client);
-        Integer counter = counters.getOrDefault(resolvedTarget, 0);
-        counters.put(resolvedTarget, ++counter);
-        return client;
     }
 
-    synchronized void release(GooglePubSubSenderTarget resolvedTarget) {
-        Integer counter = counters.getOrDefault(resolvedTarget, 0);
-        if (counter == 0) {
-            logger.warn("Attempt to release GooglePubSubClient that is not acquired");
-        } else if (counter == 1) {
-            counters.remove(resolvedTarget);
-            GooglePubSubClient client = clients.remove(resolvedTarget);
-            client.shutdown();
-        } else if (counter > 1) {
-            counters.put(resolvedTarget, --counter);
+    void release(GooglePubSubSenderTarget resolvedTarget) {
+        lock.lock();
+        try {
+            Integer counter = counters.getOrDefault(resolvedTarget, 0);
+            if (counter == 0) {
+                logger.warn("Attempt to release GooglePubSubClient that is not acquired");
+            } else if (counter == 1) {
+                counters.remove(resolvedTarget);
+                GooglePubSubClient client = clients.remove(resolvedTarget);
+                client.shutdown();
+            } else if (counter > 1) {
+                counters.put(resolvedTarget, --counter);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
-    synchronized void shutdown() {
-        clients.values().forEach(GooglePubSubClient::shutdown);
-        clients.clear();
-        counters.clear();
+    void shutdown() {
+        lock.lock();
+        try {
+            clients.values().forEach(GooglePubSubClient::shutdown);
+            clients.clear();
+            counters.clear();
+        } finally {
+            lock.unlock();
+        }
     }
 
     protected GooglePubSubClient createClient(GooglePubSubSenderTarget resolvedTarget) throws IOException {
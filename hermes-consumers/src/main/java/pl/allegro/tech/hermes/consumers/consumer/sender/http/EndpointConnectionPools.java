@@ -0,0 +1,284 @@
+package pl.allegro.tech.hermes.consumers.consumer.sender.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.eclipse.jetty.client.AbstractConnectionPool;
+import org.eclipse.jetty.client.ConnectionPool;
+import org.eclipse.jetty.client.DuplexConnectionPool;
+import org.eclipse.jetty.client.HttpDestination;
+import org.eclipse.jetty.client.MultiplexConnectionPool;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.common.metric.ConsumerSenderMetrics;
+import pl.allegro.tech.hermes.metrics.HermesTimer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Creates connection pools of a single http client, one per endpoint (scheme, host and port). The client is shared by
+ * all subscriptions, so subscriptions sending to the same host share connections of its pool, and with http/2 they
+ * multiplex their requests as streams of the same connections.</p>
+ *
+ * <p>Pools open connections when all existing ones are busy, up to the limit per destination. Opening a connection,
+ * especially with TLS, adds latency to requests which wait for it. With warm-up enabled, the number of connections
+ * needed by each endpoint is sampled periodically as busy connections plus connections needed by queued requests.
+ * Pools are kept at the decaying peak of this demand, so connections are ready before the next burst.</p>
+ *
+ * <p>Time requests spend queued before they are sent is reported per endpoint. Subscription senders register endpoints
+ * they send to with {@link SenderEndpoints}. When the last sender of an endpoint is released, the endpoint and its
+ * metrics are evicted, so they do not accumulate as subscriptions come and go. Pools live as long as the client keeps
+ * their destinations.</p>
+ */
+public class EndpointConnectionPools extends AbstractLifeCycle implements ConnectionPool.Factory, Request.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EndpointConnectionPools.class);
+
+    private static final String QUEUED_AT_ATTRIBUTE = EndpointConnectionPools.class.getName() + ".queuedAt";
+    private static final double DEMAND_DECAY = 0.9;
+
+    private final String clientName;
+    private final int maxConnectionsPerDestination;
+    private final int maxStreamsPerConnection;
+    private final boolean multiplexed;
+    private final boolean warmUpEnabled;
+    private final Duration warmUpInterval;
+    private final ConsumerSenderMetrics metrics;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, PooledDestination> destinations = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService warmUpExecutor;
+
+    private EndpointConnectionPools(String clientName,
+                                    int maxConnectionsPerDestination,
+                                    int maxStreamsPerConnection,
+                                    boolean multiplexed,
+                                    HttpClientParameters parameters,
+                                    ConsumerSenderMetrics metrics) {
+        this.clientName = clientName;
+        this.maxConnectionsPerDestination = maxConnectionsPerDestination;
+        this.maxStreamsPerConnection = maxStreamsPerConnection;
+        this.multiplexed = multiplexed;
+        this.warmUpEnabled = parameters.isConnectionWarmUpEnabled();
+        this.warmUpInterval = parameters.getConnectionWarmUpInterval();
+        this.metrics = metrics;
+    }
+
+    static EndpointConnectionPools duplex(String clientName, Http1ClientParameters parameters, ConsumerSenderMetrics metrics) {
+        return new EndpointConnectionPools(clientName, parameters.getMaxConnectionsPerDestination(), 1, false, parameters, metrics);
+    }
+
+    static EndpointConnectionPools multiplexed(String clientName, Http2ClientParameters parameters, ConsumerSenderMetrics metrics) {
+        return new EndpointConnectionPools(
+                clientName,
+                parameters.getMaxConnectionsPerDestination(),
+                parameters.getMaxStreamsPerConnection(),
+                true,
+                parameters,
+                metrics
+        );
+    }
+
+    @Override
+    public ConnectionPool newConnectionPool(HttpDestination destination) {
+        String name = endpointName(destination.getScheme(), destination.getHost(), destination.getPort());
+        AbstractConnectionPool pool = multiplexed
+                ? new EndpointMultiplexConnectionPool(destination, name)
+                : new EndpointDuplexConnectionPool(destination, name);
+        destinations.put(name, new PooledDestination(destination, pool));
+        return pool;
+    }
+
+    public SenderEndpoints senderEndpoints() {
+        return new SenderEndpoints();
+    }
+
+    @Override
+    public void onQueued(Request request) {
+        request.attribute(QUEUED_AT_ATTRIBUTE, System.nanoTime());
+    }
+
+    @Override
+    public void onBegin(Request request) {
+        Object queuedAt = request.getAttributes().get(QUEUED_AT_ATTRIBUTE);
+        if (queuedAt != null) {
+            endpoint(endpointName(request.getScheme(), request.getHost(), request.getPort()), request.getHost(), request.getPort())
+                    .queueTime.record(System.nanoTime() - (long) queuedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        if (warmUpEnabled) {
+            warmUpExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat(clientName + "-warm-up-%d").setDaemon(true).build());
+            long intervalMillis = warmUpInterval.toMillis();
+            warmUpExecutor.scheduleWithFixedDelay(this::warmUp, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        if (warmUpExecutor != null) {
+            warmUpExecutor.shutdownNow();
+            warmUpExecutor = null;
+        }
+        super.doStop();
+    }
+
+    void warmUp() {
+        try {
+            destinations.values().forEach(PooledDestination::warmUp);
+        } catch (Exception e) {
+            logger.warn("Failed to warm up connection pools of {}", clientName, e);
+        }
+    }
+
+    private Endpoint endpoint(String name, String host, int port) {
+        return endpoints.computeIfAbsent(name, n -> new Endpoint(host, port, metrics.endpointQueueTime(clientName, host, port)));
+    }
+
+    private synchronized void retain(SenderEndpoints sender, String name, String host, int port) {
+        if (!sender.released && sender.names.add(name)) {
+            endpoint(name, host, port).senders++;
+        }
+    }
+
+    private synchronized void release(SenderEndpoints sender) {
+        sender.released = true;
+        for (String name : sender.names) {
+            Endpoint endpoint = endpoints.get(name);
+            if (endpoint != null && --endpoint.senders <= 0) {
+                endpoints.remove(name, endpoint);
+                metrics.unregisterEndpointQueueTime(clientName, endpoint.host, endpoint.port);
+            }
+        }
+        sender.names.clear();
+    }
+
+    private void detach(String name, AbstractConnectionPool pool) {
+        destinations.computeIfPresent(name, (n, destination) -> destination.pool == pool ? null : destination);
+    }
+
+    private static String endpointName(String scheme, String host, int port) {
+        return scheme + "://" + host + ":" + port;
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() > 0) {
+            return uri.getPort();
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    /**
+     * Endpoints used by a single subscription sender. Endpoints are registered when the sender first sends to them
+     * and released all at once when the sender stops.
+     */
+    public final class SenderEndpoints {
+
+        private final Set<String> names = ConcurrentHashMap.newKeySet();
+        private boolean released;
+
+        private SenderEndpoints() {
+        }
+
+        public void use(URI uri) {
+            int port = port(uri);
+            String name = endpointName(uri.getScheme(), uri.getHost(), port);
+            if (!names.contains(name)) {
+                retain(this, name, uri.getHost(), port);
+            }
+        }
+
+        public void release() {
+            EndpointConnectionPools.this.release(this);
+        }
+    }
+
+    private static final class Endpoint {
+
+        private final String host;
+        private final int port;
+        private final HermesTimer queueTime;
+
+        private int senders;
+
+        private Endpoint(String host, int port, HermesTimer queueTime) {
+            this.host = host;
+            this.port = port;
+            this.queueTime = queueTime;
+        }
+    }
+
+    private final class PooledDestination {
+
+        private final HttpDestination destination;
+        private final AbstractConnectionPool pool;
+        private double demand;
+
+        private PooledDestination(HttpDestination destination, AbstractConnectionPool pool) {
+            this.destination = destination;
+            this.pool = pool;
+        }
+
+        /**
+         * Runs on the warm-up thread only.
+         */
+        void warmUp() {
+            if (pool.isClosed()) {
+                return;
+            }
+            int streamsPerConnection = Math.max(1, multiplexed ? pool.getMaxMultiplex() : 1);
+            int queued = destination.getHttpExchanges().size();
+            int needed = pool.getActiveConnectionCount() + (queued + streamsPerConnection - 1) / streamsPerConnection;
+            demand = Math.max(needed, demand * DEMAND_DECAY);
+
+            int target = Math.min(maxConnectionsPerDestination, (int) Math.ceil(demand));
+            int missing = target - pool.getConnectionCount() - pool.getPendingConnectionCount();
+            if (missing > 0) {
+                pool.preCreateConnections(missing);
+            }
+        }
+    }
+
+    private final class EndpointDuplexConnectionPool extends DuplexConnectionPool {
+
+        private final String name;
+
+        private EndpointDuplexConnectionPool(HttpDestination destination, String name) {
+            super(destination, maxConnectionsPerDestination, destination);
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            detach(name, this);
+            super.close();
+        }
+    }
+
+    private final class EndpointMultiplexConnectionPool extends MultiplexConnectionPool {
+
+        private final String name;
+
+        private EndpointMultiplexConnectionPool(HttpDestination destination, String name) {
+            super(destination, maxConnectionsPerDestination, destination, maxStreamsPerConnection);
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            detach(name, this);
+            super.close();
+        }
+    }
+}
@@ -3,4 +3,10 @@ package pl.allegro.tech.hermes.consumers.consumer.sender.http;
 
 public interface Http2ClientParameters extends HttpClientParameters {
 
+    int getMaxConnectionsPerDestination();
+
+    /**
+     * Streams opened on a single connection until the endpoint announces its own limit.
+     */
+    int getMaxStreamsPerConnection();
 }
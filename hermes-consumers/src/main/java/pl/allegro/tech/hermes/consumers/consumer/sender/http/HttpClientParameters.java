@@ -15,4 +15,8 @@ public interface HttpClientParameters {
         int getMaxRequestsQueuedPerDestination();
 
         Duration getConnectionTimeout();
+
+        boolean isConnectionWarmUpEnabled();
+
+        Duration getConnectionWarmUpInterval();
 }
@@ -6,6 +6,7 @@ import org.eclipse.jetty.http2.client.HTTP2Client;
 import org.eclipse.jetty.http2.client.http.HttpClientTransportOverHTTP2;
 import org.eclipse.jetty.io.ClientConnector;
 import org.eclipse.jetty.util.HttpCookieStore;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.common.metric.executor.InstrumentedExecutorServiceFactory;
 
 import java.util.concurrent.ExecutorService;
@@ -14,12 +15,15 @@ public class HttpClientsFactory {
 
     private final InstrumentedExecutorServiceFactory executorFactory;
     private final SslContextFactoryProvider sslContextFactoryProvider;
+    private final MetricsFacade metrics;
 
     public HttpClientsFactory(
             InstrumentedExecutorServiceFactory executorFactory,
-            SslContextFactoryProvider sslContextFactoryProvider) {
+            SslContextFactoryProvider sslContextFactoryProvider,
+            MetricsFacade metrics) {
         this.executorFactory = executorFactory;
         this.sslContextFactoryProvider = sslContextFactoryProvider;
+        this.metrics = metrics;
     }
 
     public HttpClient createClientForHttp1(String name, Http1ClientParameters http1ClientParameters) {
@@ -27,7 +31,11 @@ public class HttpClientsFactory {
         sslContextFactoryProvider.provideSslContextFactory()
                 .ifPresent(clientConnector::setSslContextFactory);
         HttpClientTransportOverHTTP transport = new HttpClientTransportOverHTTP(clientConnector);
+        EndpointConnectionPools connectionPools = EndpointConnectionPools.duplex(name, http1ClientParameters, metrics.consumerSender());
+        transport.setConnectionPoolFactory(connectionPools);
         HttpClient client = new HttpClient(transport);
+        client.addBean(connectionPools);
+        client.getRequestListeners().add(connectionPools);
 
         ExecutorService executor = executorFactory.getExecutorService(
                 name,
@@ -59,8 +67,14 @@ public class HttpClientsFactory {
         http2Client.setExecutor(executor);
 
         HttpClientTransportOverHTTP2 transport = new HttpClientTransportOverHTTP2(http2Client);
+        EndpointConnectionPools connectionPools =
+                EndpointConnectionPools.multiplexed(name, http2ClientParameters, metrics.consumerSender());
+        transport.setConnectionPoolFactory(connectionPools);
         HttpClient client = new HttpClient(transport);
+        client.addBean(connectionPools);
+        client.getRequestListeners().add(connectionPools);
 
+        client.setMaxConnectionsPerDestination(http2ClientParameters.getMaxConnectionsPerDestination());
         client.setMaxRequestsQueuedPerDestination(http2ClientParameters.getMaxRequestsQueuedPerDestination());
         client.setCookieStore(new HttpCookieStore.Empty());
         client.setIdleTimeout(http2ClientParameters.getIdleTimeout().toMillis());
@@ -9,8 +9,10 @@ import pl.allegro.tech.hermes.api.EndpointAddress;
 import pl.allegro.tech.hermes.api.EndpointAddressResolverMetadata;
 import pl.allegro.tech.hermes.api.Subscription;
 import pl.allegro.tech.hermes.api.SubscriptionMode;
+import pl.allegro.tech.hermes.consumers.consumer.Message;
 import pl.allegro.tech.hermes.consumers.consumer.ResilientMessageSender;
 import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSender;
+import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSendingResult;
 import pl.allegro.tech.hermes.consumers.consumer.sender.ProtocolMessageSenderProvider;
 import pl.allegro.tech.hermes.consumers.consumer.sender.SingleRecipientMessageSenderAdapter;
 import pl.allegro.tech.hermes.consumers.consumer.sender.http.auth.HttpAuthorizationProvider;
@@ -27,6 +29,7 @@ import pl.allegro.tech.hermes.consumers.consumer.trace.MetadataAppender;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class JettyHttpMessageSenderProvider implements ProtocolMessageSenderProvider {
 
@@ -72,9 +75,29 @@ public class JettyHttpMessageSenderProvider implements ProtocolMessageSenderProv
         EndpointAddressResolverMetadata endpointAddressResolverMetadata = subscription.getEndpointAddressResolverMetadata();
         ResolvableEndpointAddress resolvableEndpoint =
                 new ResolvableEndpointAddress(endpoint, endpointAddressResolver, endpointAddressResolverMetadata);
+        HttpClient client = getHttpClient(subscription);
         HttpRequestFactory requestFactory =
-                requestFactoryProvider.provideRequestFactory(subscription, getHttpClient(subscription), metadataAppender);
+                requestFactoryProvider.provideRequestFactory(subscription, client, metadataAppender);
 
+        EndpointConnectionPools connectionPools = client.getBean(EndpointConnectionPools.class);
+        if (connectionPools == null) {
+            return createSender(subscription, resolvableEndpoint, requestFactory, resilientMessageSender);
+        }
+        EndpointConnectionPools.SenderEndpoints senderEndpoints = connectionPools.senderEndpoints();
+        HttpRequestFactory registeringRequestFactory = (message, uri, headers) -> {
+            senderEndpoints.use(uri);
+            return requestFactory.buildRequest(message, uri, headers);
+        };
+        return new EndpointReleasingMessageSender(
+                createSender(subscription, resolvableEndpoint, registeringRequestFactory, resilientMessageSender),
+                senderEndpoints
+        );
+    }
+
+    private MessageSender createSender(Subscription subscription,
+                                       ResolvableEndpointAddress resolvableEndpoint,
+                                       HttpRequestFactory requestFactory,
+                                       ResilientMessageSender resilientMessageSender) {
         if (subscription.getMode() == SubscriptionMode.BROADCAST) {
             return new JettyBroadCastMessageSender(
                     requestFactory,
@@ -169,4 +192,29 @@ public class JettyHttpMessageSenderProvider implements ProtocolMessageSenderProv
             }
         }
     }
+
+    private static class EndpointReleasingMessageSender implements MessageSender {
+
+        private final MessageSender sender;
+        private final EndpointConnectionPools.SenderEndpoints senderEndpoints;
+
+        private EndpointReleasingMessageSender(MessageSender sender, EndpointConnectionPools.SenderEndpoints senderEndpoints) {
+            this.sender = sender;
+            this.senderEndpoints = senderEndpoints;
+        }
+
+        @Override
+        public CompletableFuture<MessageSendingResult> send(Message message) {
+            return sender.send(message);
+        }
+
+        @Override
+        public void stop() {
+            try {
+                sender.stop();
+            } finally {
+                senderEndpoints.release();
+            }
+        }
+    }
 }
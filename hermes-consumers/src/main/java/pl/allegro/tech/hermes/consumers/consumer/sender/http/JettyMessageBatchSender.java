@@ -6,6 +6,7 @@ import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.api.BatchFormat;
 import pl.allegro.tech.hermes.api.EndpointAddress;
 import pl.allegro.tech.hermes.api.EndpointAddressResolverMetadata;
 import pl.allegro.tech.hermes.consumers.consumer.batch.MessageBatch;
@@ -24,6 +25,7 @@ import java.util.concurrent.TimeoutException;
 
 import static pl.allegro.tech.hermes.api.AvroMediaType.AVRO_BINARY;
 import static pl.allegro.tech.hermes.api.ContentType.AVRO;
+import static pl.allegro.tech.hermes.common.http.MessageMetadataHeaders.BATCH_FORMAT;
 import static pl.allegro.tech.hermes.common.http.MessageMetadataHeaders.BATCH_ID;
 import static pl.allegro.tech.hermes.common.http.MessageMetadataHeaders.RETRY_COUNT;
 import static pl.allegro.tech.hermes.common.http.MessageMetadataHeaders.SUBSCRIPTION_NAME;
@@ -79,10 +81,14 @@ public class JettyMessageBatchSender implements MessageBatchSender {
     private HttpRequestHeaders buildHeaders(MessageBatch batch, HttpRequestHeaders baseHeaders) {
         Map<String, String> headers = new HashMap<>(baseHeaders.asMap());
 
-        ContentType contentType = getMediaType(batch.getContentType());
+        ContentType contentType = getMediaType(batch.getFormat(), batch.getContentType());
         headers.put(BATCH_ID.getName(), batch.getId());
         headers.put(HTTP.CONTENT_TYPE, contentType.getMimeType());
         headers.put(RETRY_COUNT.getName(), Integer.toString(batch.getRetryCounter()));
+        if (batch.getFormat() != BatchFormat.JSON_ARRAY) {
+            headers.put(BATCH_FORMAT.getName(), batch.getFormat().name());
+        }
+        batch.getContentEncoding().ifPresent(encoding -> headers.put(HTTP.CONTENT_ENCODING, encoding));
 
         if (batch.hasSubscriptionIdentityHeaders()) {
             headers.put(TOPIC_NAME.getName(), batch.getTopic());
@@ -93,7 +99,10 @@ public class JettyMessageBatchSender implements MessageBatchSender {
         return new HttpRequestHeaders(headers);
     }
 
-    private ContentType getMediaType(pl.allegro.tech.hermes.api.ContentType contentType) {
+    private ContentType getMediaType(BatchFormat format, pl.allegro.tech.hermes.api.ContentType contentType) {
+        if (format == BatchFormat.LENGTH_PREFIXED) {
+            return ContentType.APPLICATION_OCTET_STREAM;
+        }
         return AVRO.equals(contentType) ? ContentType.create(AVRO_BINARY) : ContentType.APPLICATION_JSON;
     }
 }
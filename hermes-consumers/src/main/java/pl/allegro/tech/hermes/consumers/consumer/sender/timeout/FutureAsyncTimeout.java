@@ -1,10 +1,13 @@
 package pl.allegro.tech.hermes.consumers.consumer.sender.timeout;
 
+import pl.allegro.tech.hermes.consumers.consumer.timer.HashedWheelTimer;
+
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 /**
@@ -12,11 +15,21 @@ import java.util.function.Function;
  */
 public class FutureAsyncTimeout {
 
-    private final ScheduledExecutorService executor;
-
+    private final BiConsumer<Runnable, Duration> scheduler;
+    private final Runnable onShutdown;
 
     public FutureAsyncTimeout(ScheduledExecutorService scheduledExecutorService) {
-        this.executor = scheduledExecutorService;
+        this((task, delay) -> scheduledExecutorService.schedule(task, delay.toMillis(), TimeUnit.MILLISECONDS),
+                scheduledExecutorService::shutdown);
+    }
+
+    public FutureAsyncTimeout(HashedWheelTimer timer) {
+        this((task, delay) -> timer.schedule(task, delay.toMillis(), TimeUnit.MILLISECONDS), () -> { });
+    }
+
+    private FutureAsyncTimeout(BiConsumer<Runnable, Duration> scheduler, Runnable onShutdown) {
+        this.scheduler = scheduler;
+        this.onShutdown = onShutdown;
     }
 
     public <T> CompletableFuture<T> within(CompletableFuture<T> future, Duration duration, Function<Throwable, T> exceptionMapper) {
@@ -25,14 +38,14 @@ public class FutureAsyncTimeout {
 
     private <T> CompletableFuture<T> failAfter(Duration duration, Function<Throwable, T> exceptionMapper) {
         final CompletableFuture<T> promise = new CompletableFuture<>();
-        executor.schedule(() -> {
+        scheduler.accept(() -> {
             TimeoutException ex = new TimeoutException("Timeout after " + duration);
-            return promise.complete(exceptionMapper.apply(ex));
-        }, duration.toMillis(), TimeUnit.MILLISECONDS);
+            promise.complete(exceptionMapper.apply(ex));
+        }, duration);
         return promise;
     }
 
     public void shutdown() {
-        executor.shutdown();
+        onShutdown.run();
     }
 }
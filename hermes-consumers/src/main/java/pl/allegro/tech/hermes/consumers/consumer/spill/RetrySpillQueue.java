@@ -0,0 +1,94 @@
+package pl.allegro.tech.hermes.consumers.consumer.spill;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Retries of a single subscription spilled to a {@link RetrySpillStore}, ordered by the time they are due.
+ * Only a small descriptor of each element stays on heap, its payload is kept by the store until the element is
+ * polled. A lock is used instead of monitors, so that virtual threads waiting for it do not pin their carriers.
+ */
+public class RetrySpillQueue<T> {
+
+    private final RetrySpillStore store;
+    private final PriorityQueue<Entry<T>> entries = new PriorityQueue<>(Comparator.comparingLong(e -> e.dueAtMillis));
+    private final ReentrantLock lock = new ReentrantLock();
+
+    RetrySpillQueue(RetrySpillStore store) {
+        this.store = store;
+    }
+
+    public boolean accepts(long retryDelayMillis) {
+        return store.accepts(retryDelayMillis);
+    }
+
+    /**
+     * Returns false when the store is out of space, the payload has to stay with the element then.
+     */
+    public boolean offer(T element, byte[] payload, long dueAtMillis) {
+        lock.lock();
+        try {
+            RetrySpillStore.Slot slot = store.write(payload);
+            if (slot == null) {
+                return false;
+            }
+            entries.add(new Entry<>(element, slot, dueAtMillis));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the earliest element due at given time and hands it over with its payload to the restorer.
+     */
+    public Optional<T> pollDue(long nowMillis, BiConsumer<T, byte[]> restorer) {
+        lock.lock();
+        try {
+            Entry<T> entry = entries.peek();
+            if (entry == null || entry.dueAtMillis > nowMillis) {
+                return Optional.empty();
+            }
+            entries.poll();
+            restorer.accept(entry.element, store.read(entry.slot));
+            return Optional.of(entry.element);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.forEach(entry -> store.release(entry.slot));
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Entry<T> {
+
+        private final T element;
+        private final RetrySpillStore.Slot slot;
+        private final long dueAtMillis;
+
+        private Entry(T element, RetrySpillStore.Slot slot, long dueAtMillis) {
+            this.element = element;
+            this.slot = slot;
+            this.dueAtMillis = dueAtMillis;
+        }
+    }
+}
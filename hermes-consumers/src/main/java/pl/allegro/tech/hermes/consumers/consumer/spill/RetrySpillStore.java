@@ -0,0 +1,196 @@
+package pl.allegro.tech.hermes.consumers.consumer.spill;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Node-wide, memory mapped storage for payloads of messages waiting a long time for their retry. Keeping them in
+ * segment files instead of the heap lets a subscription release inflight permits of such messages, see
+ * {@link RetrySpillQueue}.</p>
+ *
+ * <p>Spilled payloads are not meant to survive a restart. Offsets of spilled messages are never committed, so after
+ * a restart the messages are read from Kafka again. Leftover segment files are removed on start.</p>
+ *
+ * <p>Segments are written and read on the sending path, so access is guarded by a lock instead of monitors, which
+ * would pin carriers of virtual threads for the time of file I/O.</p>
+ */
+public class RetrySpillStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetrySpillStore.class);
+
+    private final boolean enabled;
+    private final File directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final long thresholdMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<SpillSegment> segments = new ArrayList<>();
+    private final Deque<SpillSegment> freeSegments = new ArrayDeque<>();
+    private SpillSegment current;
+    private boolean running = false;
+
+    private RetrySpillStore(boolean enabled, File directory, int segmentSize, int maxSegments, Duration threshold) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.thresholdMillis = threshold.toMillis();
+    }
+
+    public static RetrySpillStore create(File directory, int segmentSize, int maxSegments, Duration threshold) {
+        return new RetrySpillStore(true, directory, segmentSize, maxSegments, threshold);
+    }
+
+    public static RetrySpillStore disabled() {
+        return new RetrySpillStore(false, null, 0, 0, Duration.ZERO);
+    }
+
+    public void start() {
+        lock.lock();
+        try {
+            if (!enabled) {
+                return;
+            }
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IllegalStateException("Failed to create retry spill directory " + directory.getAbsolutePath());
+            }
+            deleteSegmentFiles();
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void stop() {
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            segments.clear();
+            freeSegments.clear();
+            current = null;
+            deleteSegmentFiles();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> RetrySpillQueue<T> newQueue() {
+        return new RetrySpillQueue<>(this);
+    }
+
+    /**
+     * Tells if a retry delayed by given time should be spilled.
+     */
+    public boolean accepts(long retryDelayMillis) {
+        return enabled && retryDelayMillis >= thresholdMillis;
+    }
+
+    /**
+     * Returns a slot holding the payload or null when there is no space left, in which case the retry should
+     * be kept in memory.
+     */
+    Slot write(byte[] payload) {
+        lock.lock();
+        try {
+            if (!running || payload.length > segmentSize) {
+                return null;
+            }
+            if (current == null || !current.hasRemaining(payload.length)) {
+                SpillSegment next = nextSegment();
+                if (next == null) {
+                    return null;
+                }
+                current = next;
+            }
+            return new Slot(current, current.append(payload), payload.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    byte[] read(Slot slot) {
+        lock.lock();
+        try {
+            byte[] payload = slot.segment.read(slot.position, slot.length);
+            release(slot);
+            return payload;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(Slot slot) {
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            SpillSegment segment = slot.segment;
+            segment.release();
+            if (segment.isEmpty()) {
+                segment.rewind();
+                if (segment != current) {
+                    freeSegments.push(segment);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SpillSegment nextSegment() {
+        SpillSegment free = freeSegments.poll();
+        if (free != null) {
+            return free;
+        }
+        if (segments.size() >= maxSegments) {
+            return null;
+        }
+        try {
+            SpillSegment segment = SpillSegment.create(directory, segments.size(), segmentSize);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            logger.warn("Failed to create retry spill segment in {}", directory.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    private void deleteSegmentFiles() {
+        File[] files = directory.listFiles(SpillSegment::isSegmentFile);
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                logger.warn("Failed to delete retry spill segment {}", file.getAbsolutePath());
+            }
+        }
+    }
+
+    static final class Slot {
+
+        private final SpillSegment segment;
+        private final int position;
+        private final int length;
+
+        private Slot(SpillSegment segment, int position, int length) {
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package pl.allegro.tech.hermes.consumers.consumer.spill;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import static java.lang.String.format;
+
+/**
+ * Memory mapped file holding payloads of spilled retries. Payloads are appended one after another, the segment is
+ * rewound once none of its payloads is live anymore, so files are reused instead of being recreated.
+ */
+final class SpillSegment {
+
+    private static final String SUFFIX = ".spill";
+
+    private final MappedByteBuffer buffer;
+
+    private int writePosition;
+    private int livePayloads;
+
+    private SpillSegment(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    static SpillSegment create(File directory, int index, int size) throws IOException {
+        File file = new File(directory, format("%010d%s", index, SUFFIX));
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new SpillSegment(channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    static boolean isSegmentFile(File file) {
+        return file.isFile() && file.getName().endsWith(SUFFIX);
+    }
+
+    boolean hasRemaining(int payloadSize) {
+        return buffer.capacity() - writePosition >= payloadSize;
+    }
+
+    int append(byte[] payload) {
+        int position = writePosition;
+        buffer.put(position, payload);
+        writePosition += payload.length;
+        livePayloads++;
+        return position;
+    }
+
+    byte[] read(int position, int length) {
+        byte[] payload = new byte[length];
+        buffer.get(position, payload);
+        return payload;
+    }
+
+    void release() {
+        livePayloads--;
+    }
+
+    boolean isEmpty() {
+        return livePayloads == 0;
+    }
+
+    void rewind() {
+        writePosition = 0;
+    }
+}
@@ -0,0 +1,209 @@
+package pl.allegro.tech.hermes.consumers.consumer.timer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Node-wide timer for delayed sends, retries and timeouts of all subscriptions. Tasks are kept in hashed timing
+ * wheels, each driven by its own thread, so scheduling a task costs adding it to a queue instead of rebalancing
+ * a heap of a scheduled executor. Expired tasks are run by the given executor, as they might block, and tasks
+ * without delay are passed to it right away.
+ *
+ * <p>Deadlines are rounded up to the tick duration.</p>
+ */
+public class HashedWheelTimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    private final Wheel[] wheels;
+    private final ExecutorService executor;
+    private final AtomicInteger nextWheel = new AtomicInteger();
+
+    public HashedWheelTimer(String name, Duration tickDuration, int ticksPerWheel, int wheelsCount,
+                            ExecutorService executor) {
+        checkArgument(!tickDuration.isNegative() && !tickDuration.isZero(), "Tick duration must be positive");
+        checkArgument(ticksPerWheel > 0, "Ticks per wheel must be positive");
+        checkArgument(wheelsCount > 0, "Wheels count must be positive");
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build();
+        this.executor = executor;
+        this.wheels = new Wheel[wheelsCount];
+        for (int i = 0; i < wheelsCount; i++) {
+            wheels[i] = new Wheel(tickDuration.toNanos(), ticksPerWheel, threadFactory, executor);
+        }
+    }
+
+    public void start() {
+        for (Wheel wheel : wheels) {
+            wheel.start();
+        }
+    }
+
+    public void stop() {
+        for (Wheel wheel : wheels) {
+            wheel.stop();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Creates a group of tasks, e.g. of a single subscription, which can be cancelled at once. Tasks of a group
+     * are kept in the same wheel.
+     */
+    public TimerTaskGroup newGroup() {
+        return new TimerTaskGroup(this, wheels[Math.floorMod(nextWheel.getAndIncrement(), wheels.length)]);
+    }
+
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        schedule(new TimerTask(task, null), wheels[ThreadLocalRandom.current().nextInt(wheels.length)], delay, unit);
+    }
+
+    void schedule(TimerTask task, Wheel wheel, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            executor.execute(task);
+        } else {
+            task.deadline = System.nanoTime() + unit.toNanos(delay);
+            wheel.add(task);
+        }
+    }
+
+    static final class TimerTask implements Runnable {
+
+        private final Runnable task;
+        private final TimerTaskGroup group;
+        private long deadline;
+        private long remainingRounds;
+
+        TimerTask(Runnable task, TimerTaskGroup group) {
+            this.task = task;
+            this.group = group;
+        }
+
+        @Override
+        public void run() {
+            if (group != null && !group.onExpired()) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("Timer task failed", e);
+            }
+        }
+
+        boolean isCancelled() {
+            return group != null && group.isCancelled();
+        }
+    }
+
+    static final class Wheel {
+
+        private final long tickNanos;
+        private final List<TimerTask>[] buckets;
+        private final Queue<TimerTask> added = new ConcurrentLinkedQueue<>();
+        private final Executor executor;
+        private final Thread thread;
+        private volatile boolean running = true;
+        private long startTime;
+        private long tick;
+
+        @SuppressWarnings("unchecked")
+        Wheel(long tickNanos, int ticksPerWheel, ThreadFactory threadFactory, Executor executor) {
+            this.tickNanos = tickNanos;
+            this.executor = executor;
+            this.buckets = new List[ticksPerWheel];
+            for (int i = 0; i < ticksPerWheel; i++) {
+                buckets[i] = new ArrayList<>();
+            }
+            this.thread = threadFactory.newThread(this::run);
+        }
+
+        void start() {
+            startTime = System.nanoTime();
+            thread.start();
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void add(TimerTask task) {
+            added.add(task);
+        }
+
+        private void run() {
+            while (running) {
+                waitForNextTick();
+                transferAddedTasks();
+                expire(buckets[(int) (tick % buckets.length)]);
+                tick++;
+            }
+        }
+
+        private void waitForNextTick() {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleepNanos;
+            while (running && (sleepNanos = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+            }
+        }
+
+        private void transferAddedTasks() {
+            TimerTask task;
+            while ((task = added.poll()) != null) {
+                if (task.isCancelled()) {
+                    continue;
+                }
+                long expirationTick = Math.max((task.deadline - startTime + tickNanos - 1) / tickNanos - 1, tick);
+                task.remainingRounds = (expirationTick - tick) / buckets.length;
+                buckets[(int) (expirationTick % buckets.length)].add(task);
+            }
+        }
+
+        private void expire(List<TimerTask> bucket) {
+            int kept = 0;
+            for (int i = 0; i < bucket.size(); i++) {
+                TimerTask task = bucket.get(i);
+                if (task.isCancelled()) {
+                    continue;
+                }
+                if (task.remainingRounds <= 0) {
+                    execute(task);
+                } else {
+                    task.remainingRounds--;
+                    bucket.set(kept++, task);
+                }
+            }
+            bucket.subList(kept, bucket.size()).clear();
+        }
+
+        private void execute(TimerTask task) {
+            try {
+                executor.execute(task);
+            } catch (RuntimeException e) {
+                logger.error("Could not run expired timer task", e);
+            }
+        }
+    }
+}
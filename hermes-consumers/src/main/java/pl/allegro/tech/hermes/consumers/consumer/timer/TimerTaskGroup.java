@@ -0,0 +1,53 @@
+package pl.allegro.tech.hermes.consumers.consumer.timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tasks of a single subscription scheduled in a {@link HashedWheelTimer}. Cancelling the group marks all its
+ * tasks as cancelled at once, they are dropped when their wheel reaches them.
+ */
+public class TimerTaskGroup {
+
+    private final HashedWheelTimer timer;
+    private final HashedWheelTimer.Wheel wheel;
+    private final AtomicInteger backlog = new AtomicInteger();
+    private volatile boolean cancelled = false;
+
+    TimerTaskGroup(HashedWheelTimer timer, HashedWheelTimer.Wheel wheel) {
+        this.timer = timer;
+        this.wheel = wheel;
+    }
+
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        if (cancelled) {
+            return;
+        }
+        backlog.incrementAndGet();
+        timer.schedule(new HashedWheelTimer.TimerTask(task, this), wheel, delay, unit);
+    }
+
+    public void cancelAll() {
+        cancelled = true;
+        backlog.set(0);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Number of tasks scheduled and not run yet.
+     */
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    boolean onExpired() {
+        if (cancelled) {
+            return false;
+        }
+        backlog.decrementAndGet();
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+package pl.allegro.tech.hermes.consumers.queue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Bounded multi producer, single consumer queue of pairs of a reference and a primitive long, kept in parallel
+ * arrays, so that neither offering nor draining allocates.</p>
+ *
+ * <p>Like {@link FullDrainMpscQueue}, {@link #drain(Consumer)} returns all pairs offered before it was called,
+ * waiting for producers which already claimed their slots to finish writing them.</p>
+ */
+public class ObjectLongMpscQueue<T> {
+
+    private final int capacity;
+    private final int mask;
+    private final Object[] references;
+    private final long[] values;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    public ObjectLongMpscQueue(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.references = new Object[this.capacity];
+        this.values = new long[this.capacity];
+        this.sequences = new AtomicLongArray(this.capacity);
+    }
+
+    public boolean offer(T reference, long value) {
+        long index;
+        do {
+            index = tail.get();
+            if (index - head.get() >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(index, index + 1));
+
+        int slot = (int) index & mask;
+        references[slot] = reference;
+        values[slot] = value;
+        sequences.lazySet(slot, index + 1);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void drain(Consumer<T> consumer) {
+        long limit = tail.get();
+        for (long index = head.get(); index < limit; index++) {
+            int slot = (int) index & mask;
+            while (sequences.get(slot) != index + 1) {
+                Thread.onSpinWait();
+            }
+            T reference = (T) references[slot];
+            long value = values[slot];
+            references[slot] = null;
+            head.lazySet(index + 1);
+            consumer.accept(reference, value);
+        }
+    }
+
+    public int size() {
+        return (int) Math.min(tail.get() - head.get(), capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @FunctionalInterface
+    public interface Consumer<T> {
+        void accept(T reference, long value);
+    }
+}
@@ -0,0 +1,61 @@
+package pl.allegro.tech.hermes.consumers.supervisor;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates threads running consumer processes and delayed or retried sends. Threads are either platform
+ * threads or, when enabled, virtual threads, which make thousands of subscriptions per node cheap in terms of
+ * memory and context switches. Virtual threads are created through reflection, as Hermes is built for Java 17
+ * while virtual threads require running on Java 21 or newer.
+ */
+public class ConsumerThreadsFactory {
+
+    private final boolean virtualThreadsEnabled;
+
+    public ConsumerThreadsFactory(boolean virtualThreadsEnabled) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+        if (virtualThreadsEnabled) {
+            // fail on startup instead of when the first consumer process starts
+            virtualThreadFactory("probe-", (t, e) -> { });
+        }
+    }
+
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    public ThreadFactory create(String namePrefix) {
+        return create(namePrefix, Thread.getDefaultUncaughtExceptionHandler());
+    }
+
+    public ThreadFactory create(String namePrefix, UncaughtExceptionHandler uncaughtExceptionHandler) {
+        if (virtualThreadsEnabled) {
+            return virtualThreadFactory(namePrefix, uncaughtExceptionHandler);
+        }
+        ThreadFactoryBuilder builder = new ThreadFactoryBuilder().setNameFormat(namePrefix + "%d");
+        if (uncaughtExceptionHandler != null) {
+            builder.setUncaughtExceptionHandler(uncaughtExceptionHandler);
+        }
+        return builder.build();
+    }
+
+    private static ThreadFactory virtualThreadFactory(String namePrefix, UncaughtExceptionHandler uncaughtExceptionHandler) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            if (uncaughtExceptionHandler != null) {
+                Method handlerSetter = builderClass.getMethod("uncaughtExceptionHandler", UncaughtExceptionHandler.class);
+                builder = handlerSetter.invoke(builder, uncaughtExceptionHandler);
+            }
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or newer, running on Java "
+                    + Runtime.version().feature(), e);
+        }
+    }
+}
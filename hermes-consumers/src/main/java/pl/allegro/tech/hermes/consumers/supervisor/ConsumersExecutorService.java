@@ -1,13 +1,15 @@
 package pl.allegro.tech.hermes.consumers.supervisor;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.consumers.supervisor.process.ConsumerProcess;
 
+import java.time.Duration;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -16,19 +18,55 @@ public class ConsumersExecutorService {
 
     private static final Logger logger = LoggerFactory.getLogger(ConsumersExecutorService.class);
     private final ThreadPoolExecutor executor;
+    private final VirtualThreadsMonitor virtualThreadsMonitor;
+    private final Semaphore runningConsumers;
 
     public ConsumersExecutorService(int poolSize, MetricsFacade metrics) {
-        ThreadFactory threadFactory = new ThreadFactoryBuilder()
-            .setNameFormat("Consumer-%d")
-            .setUncaughtExceptionHandler((t, e) -> logger.error("Exception from consumer with name {}", t.getName(), e)).build();
+        this(poolSize, new ConsumerThreadsFactory(false), Duration.ZERO, metrics);
+    }
 
-        executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(poolSize, threadFactory);
+    public ConsumersExecutorService(int poolSize,
+                                    ConsumerThreadsFactory consumerThreadsFactory,
+                                    Duration virtualThreadPinnedThreshold,
+                                    MetricsFacade metrics) {
+        ThreadFactory threadFactory = consumerThreadsFactory.create("Consumer-",
+                (t, e) -> logger.error("Exception from consumer with name {}", t.getName(), e));
 
-        metrics.consumer().registerConsumerProcessesThreadsGauge(executor, ThreadPoolExecutor::getActiveCount);
+        if (consumerThreadsFactory.isVirtualThreadsEnabled()) {
+            // virtual threads are cheap to create, so every consumer process gets a new one instead of a pooled one,
+            // while the semaphore still bounds running processes by the pool size, like the fixed pool does
+            executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+            runningConsumers = new Semaphore(poolSize);
+            virtualThreadsMonitor = new VirtualThreadsMonitor(metrics, virtualThreadPinnedThreshold);
+            virtualThreadsMonitor.start();
+            metrics.consumer().registerConsumerProcessesThreadsGauge(runningConsumers,
+                    semaphore -> poolSize - semaphore.availablePermits());
+        } else {
+            executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(poolSize, threadFactory);
+            runningConsumers = null;
+            virtualThreadsMonitor = null;
+            metrics.consumer().registerConsumerProcessesThreadsGauge(executor, ThreadPoolExecutor::getActiveCount);
+        }
     }
 
     public Future<?> execute(ConsumerProcess consumer) {
-        return executor.submit(consumer);
+        if (runningConsumers == null) {
+            return executor.submit(consumer);
+        }
+        // waiting for a permit parks the virtual thread only, so processes over the limit wait like queued tasks
+        return executor.submit(() -> {
+            try {
+                runningConsumers.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                consumer.run();
+            } finally {
+                runningConsumers.release();
+            }
+        });
     }
 
     public void shutdown() {
@@ -38,6 +76,9 @@ public class ConsumersExecutorService {
         } catch (InterruptedException e) {
             logger.error("Termination of consumers executor service interrupted.", e);
         }
+        if (virtualThreadsMonitor != null) {
+            virtualThreadsMonitor.stop();
+        }
     }
 
 }
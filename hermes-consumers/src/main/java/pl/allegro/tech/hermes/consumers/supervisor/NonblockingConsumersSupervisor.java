@@ -9,6 +9,7 @@ import pl.allegro.tech.hermes.api.Topic;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.consumers.CommonConsumerParameters;
 import pl.allegro.tech.hermes.consumers.consumer.offset.ConsumerPartitionAssignmentState;
+import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetCommitTriggers;
 import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetCommitter;
 import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetQueue;
 import pl.allegro.tech.hermes.consumers.health.ConsumerMonitor;
@@ -55,7 +56,7 @@ public class NonblockingConsumersSupervisor implements ConsumersSupervisor {
                                           MetricsFacade metrics,
                                           ConsumerMonitor monitor,
                                           Clock clock,
-                                          Duration commitOffsetPeriod) {
+                                          OffsetCommitTriggers offsetCommitTriggers) {
         this.undeliveredMessageLogPersister = undeliveredMessageLogPersister;
         this.subscriptionRepository = subscriptionRepository;
         this.backgroundSupervisorInterval = commonConsumerParameters.getBackgroundSupervisor().getInterval();
@@ -74,8 +75,9 @@ public class NonblockingConsumersSupervisor implements ConsumersSupervisor {
                 (offsets) -> offsets.subscriptionNames().forEach(subscription ->
                         backgroundProcess.accept(Signal.of(COMMIT, subscription, offsets.batchFor(subscription)))
                 ),
-                (int) commitOffsetPeriod.toSeconds(),
-                metrics
+                offsetCommitTriggers,
+                metrics,
+                clock
         );
         monitor.register(SUBSCRIPTIONS, backgroundProcess::runningSubscriptionsStatus);
         monitor.register(SUBSCRIPTIONS_COUNT, backgroundProcess::countRunningProcesses);
@@ -0,0 +1,112 @@
+package pl.allegro.tech.hermes.consumers.supervisor;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.metrics.HermesTimer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports how virtual threads use their carrier threads: utilisation of carriers and events of virtual threads
+ * pinned to a carrier, e.g. when blocking inside a synchronized block, recorded through JFR.
+ * <p>
+ * Utilisation is sampled on a schedule and cached, as listing all threads is expensive and holds a JVM wide lock,
+ * so gauge reads only return the last sample.
+ */
+class VirtualThreadsMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String CARRIER_THREAD_CLASS = "jdk.internal.misc.CarrierThread";
+    private static final Duration CARRIERS_SAMPLING_INTERVAL = Duration.ofSeconds(10);
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final HermesTimer pinnedTimer;
+    private final Duration pinnedThreshold;
+    private final ScheduledExecutorService carriersSampler;
+
+    private RecordingStream recordingStream;
+    private long lastCarriersCpuNanos;
+    private long lastMeasurementNanos;
+    private volatile double carriersUtilization;
+
+    VirtualThreadsMonitor(MetricsFacade metrics, Duration pinnedThreshold) {
+        this.pinnedTimer = metrics.consumer().virtualThreadPinnedTimer();
+        this.pinnedThreshold = pinnedThreshold;
+        this.carriersSampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("carrier-threads-sampler-%d")
+                .setDaemon(true)
+                .build());
+        metrics.consumer().registerCarrierThreadsUtilizationGauge(this, VirtualThreadsMonitor::getCarriersUtilization);
+    }
+
+    void start() {
+        long intervalMillis = CARRIERS_SAMPLING_INTERVAL.toMillis();
+        carriersSampler.scheduleAtFixedRate(this::sampleCarriersUtilization, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT).withThreshold(pinnedThreshold);
+            recordingStream.onEvent(PINNED_EVENT, event -> pinnedTimer.record(event.getDuration().toNanos(), TimeUnit.NANOSECONDS));
+            recordingStream.startAsync();
+        } catch (RuntimeException e) {
+            logger.warn("Could not start recording of pinned virtual threads events", e);
+        }
+    }
+
+    void stop() {
+        carriersSampler.shutdownNow();
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    /**
+     * Fraction of time carrier threads spent running virtual threads between the two last samples.
+     */
+    double getCarriersUtilization() {
+        return carriersUtilization;
+    }
+
+    private void sampleCarriersUtilization() {
+        try {
+            carriersUtilization = measureCarriersUtilization();
+        } catch (RuntimeException e) {
+            logger.warn("Could not sample utilization of carrier threads", e);
+        }
+    }
+
+    // runs on the sampler thread only
+    private double measureCarriersUtilization() {
+        long carriersCpuNanos = 0;
+        int carriers = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (CARRIER_THREAD_CLASS.equals(thread.getClass().getName())) {
+                long cpuNanos = threadMXBean.getThreadCpuTime(thread.getId());
+                if (cpuNanos > 0) {
+                    carriersCpuNanos += cpuNanos;
+                    carriers++;
+                }
+            }
+        }
+        long now = System.nanoTime();
+        long elapsedNanos = now - lastMeasurementNanos;
+        long cpuDeltaNanos = carriersCpuNanos - lastCarriersCpuNanos;
+        boolean firstMeasurement = lastMeasurementNanos == 0;
+        lastCarriersCpuNanos = carriersCpuNanos;
+        lastMeasurementNanos = now;
+
+        if (firstMeasurement || carriers == 0 || elapsedNanos <= 0 || cpuDeltaNanos < 0) {
+            return 0;
+        }
+        return Math.min(1.0, (double) cpuDeltaNanos / ((double) elapsedNanos * carriers));
+    }
+}
@@ -7,11 +7,16 @@ import org.slf4j.LoggerFactory;
 import pl.allegro.tech.hermes.api.Subscription;
 import pl.allegro.tech.hermes.api.SubscriptionName;
 import pl.allegro.tech.hermes.consumers.consumer.Consumer;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartition;
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset;
 
 import java.time.Clock;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static pl.allegro.tech.hermes.consumers.supervisor.process.Signal.SignalType.START;
@@ -38,6 +43,9 @@ public class ConsumerProcess implements Runnable {
 
     private final Map<Signal.SignalType, Long> signalTimesheet = new ConcurrentHashMap<>();
 
+    // offsets of COMMIT signals drained at once, so that the consumer commits them in a single request
+    private final Map<SubscriptionPartition, SubscriptionPartitionOffset> offsetsToCommit = new HashMap<>();
+
     public ConsumerProcess(
             Signal startSignal,
             Consumer consumer,
@@ -99,7 +107,8 @@ public class ConsumerProcess implements Runnable {
 
     private void processSignals() {
         refreshHealthcheck();
-        signals.drain(this::process);
+        signals.drain(this::processCoalescingCommits);
+        commitCoalescedOffsets();
         refreshHealthcheck();
     }
 
@@ -107,6 +116,30 @@ public class ConsumerProcess implements Runnable {
         this.healthcheckRefreshTime = clock.millis();
     }
 
+    private void processCoalescingCommits(Signal signal) {
+        if (signal.getType() == Signal.SignalType.COMMIT) {
+            Set<SubscriptionPartitionOffset> offsets = signal.getPayload();
+            offsets.forEach(offset -> offsetsToCommit.put(offset.getSubscriptionPartition(), offset));
+            signalTimesheet.put(signal.getType(), clock.millis());
+        } else {
+            // signals other than commits may restart or reconfigure the consumer, so offsets received before go first
+            commitCoalescedOffsets();
+            process(signal);
+        }
+    }
+
+    private void commitCoalescedOffsets() {
+        if (!offsetsToCommit.isEmpty()) {
+            Set<SubscriptionPartitionOffset> offsets = new HashSet<>(offsetsToCommit.values());
+            offsetsToCommit.clear();
+            try {
+                consumer.commit(offsets);
+            } catch (Exception ex) {
+                logger.error("Failed to commit offsets {} of subscription {}", offsets, getSubscriptionName(), ex);
+            }
+        }
+    }
+
     private void process(Signal signal) {
         try {
             switch (signal.getType()) {
@@ -0,0 +1,141 @@
+package pl.allegro.tech.hermes.consumers.consumer.batch
+
+import org.apache.avro.Schema
+import org.apache.avro.file.DataFileStream
+import org.apache.avro.generic.GenericDatumReader
+import org.apache.avro.generic.GenericRecord
+import pl.allegro.tech.hermes.api.BatchCompression
+import pl.allegro.tech.hermes.api.BatchFormat
+import pl.allegro.tech.hermes.api.ContentType
+import pl.allegro.tech.hermes.api.Subscription
+import pl.allegro.tech.hermes.common.message.wrapper.AvroMessageContentWrapper
+import pl.allegro.tech.hermes.common.message.wrapper.CompositeMessageContentWrapper
+import pl.allegro.tech.hermes.consumers.consumer.Message
+import pl.allegro.tech.hermes.consumers.consumer.converter.MessageConverter
+import pl.allegro.tech.hermes.consumers.consumer.converter.MessageConverterResolver
+import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder
+import pl.allegro.tech.hermes.consumers.consumer.receiver.MessageReceiver
+import pl.allegro.tech.hermes.test.helper.avro.AvroUser
+import pl.allegro.tech.hermes.tracker.consumers.MessageMetadata
+import pl.allegro.tech.hermes.tracker.consumers.SendingTracker
+import pl.allegro.tech.hermes.tracker.consumers.Trackers
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static java.nio.ByteBuffer.allocateDirect
+import static java.time.Clock.systemDefaultZone
+import static pl.allegro.tech.hermes.api.BatchSubscriptionPolicy.Builder.batchSubscriptionPolicy
+import static pl.allegro.tech.hermes.consumers.test.MessageBuilder.withTestMessage
+import static pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder.subscription
+import static pl.allegro.tech.hermes.test.helper.builder.TopicBuilder.topic
+
+class AvroObjectContainerMessageBatchTest extends Specification {
+
+    static def BATCH_ID = "1"
+
+    @Unroll
+    def "should write messages as a readable object container file with #compression compression"() {
+        given:
+        def batch = batch(1024, compression)
+        def users = [new AvroUser("Bob", 30, "blue"), new AvroUser("Alice", 25, "red"), new AvroUser("Bob", 30, "blue")]
+
+        when:
+        users.each { batch.append(message(it), Stub(MessageMetadata)) }
+        batch.close()
+
+        then:
+        def records = read(batch)
+        records.collect { it.get("name").toString() } == ["Bob", "Alice", "Bob"]
+        records.collect { it.get("age") } == [30, 25, 30]
+        batch.getSize() == batch.getContent().remaining()
+        !batch.getContentEncoding().isPresent()
+
+        where:
+        compression << BatchCompression.values()
+    }
+
+    def "should not fit message with schema different than schema of the batch"() {
+        given:
+        def batch = batch(1024, BatchCompression.NONE)
+        def user = new AvroUser("Bob", 30, "blue")
+        def otherSchema = new Schema.Parser().parse(user.getSchemaAsString().replace("\"User\"", "\"OtherUser\""))
+        batch.append(message(user), Stub(MessageMetadata))
+
+        expect:
+        batch.canFit(message(user))
+        !batch.canFit(withTestMessage().withSchema(otherSchema, 2, 2).withContent(user.asBytes()).build())
+    }
+
+    def "should reserve space for headers of the file"() {
+        given:
+        def user = new AvroUser("Bob", 30, "blue")
+        def batch = batch(64, BatchCompression.NONE)
+
+        expect:
+        !batch.canFit(message(user))
+        batch.isBiggerThanTotalCapacity(message(user))
+    }
+
+    def "should write messages of topic with schema id aware serialization without schema id headers"() {
+        given:
+        def topic = topic("group.topic").withContentType(ContentType.AVRO).withSchemaIdAwareSerialization().build()
+        def subscription = avroSubscription(BatchCompression.NONE, 2)
+        def batch = new AvroObjectContainerMessageBatch(BATCH_ID, allocateDirect(1024), subscription, systemDefaultZone())
+        def users = [new AvroUser("Bob", 30, "blue"), new AvroUser("Alice", 25, "red")]
+        def receiver = new MessageBatchReceiver(
+                Stub(MessageReceiver) { next() >>> users.collect { Optional.of(message(it)) } },
+                Stub(MessageBatchFactory) { createBatch(_) >> batch },
+                Stub(MessageConverterResolver) { converterFor(_, _) >> ({ converted, t -> converted } as MessageConverter) },
+                new CompositeMessageContentWrapper(null, new AvroMessageContentWrapper(systemDefaultZone()), null, null, null, null),
+                topic,
+                Stub(Trackers) { get(_) >> Stub(SendingTracker) },
+                Stub(SubscriptionLoadRecorder)
+        )
+
+        when:
+        def result = receiver.next(subscription, {})
+
+        then:
+        read(result.getBatch()).collect { it.get("name").toString() } == ["Bob", "Alice"]
+    }
+
+    def "should produce empty content for empty batch"() {
+        given:
+        def batch = batch(1024, BatchCompression.NONE)
+
+        when:
+        batch.close()
+
+        then:
+        batch.getSize() == 0
+    }
+
+    private static Message message(AvroUser user) {
+        return withTestMessage().withSchema(user.getSchema(), 1, 1).withContent(user.asBytes()).build()
+    }
+
+    private static List<GenericRecord> read(MessageBatch batch) {
+        def content = batch.getContent()
+        byte[] bytes = new byte[content.remaining()]
+        content.get(bytes)
+        def stream = new DataFileStream<GenericRecord>(new ByteArrayInputStream(bytes), new GenericDatumReader<GenericRecord>())
+        return stream.collect()
+    }
+
+    private static AvroObjectContainerMessageBatch batch(int capacity, BatchCompression compression) {
+        return new AvroObjectContainerMessageBatch(BATCH_ID, allocateDirect(capacity), avroSubscription(compression, 100), systemDefaultZone())
+    }
+
+    private static Subscription avroSubscription(BatchCompression compression, int batchSize) {
+        def policy = batchSubscriptionPolicy()
+                .withBatchSize(batchSize)
+                .withBatchTime(Integer.MAX_VALUE)
+                .withBatchFormat(BatchFormat.AVRO_OBJECT_CONTAINER)
+                .withBatchCompression(compression)
+                .build()
+        return subscription("group.topic", "subscription")
+                .withContentType(ContentType.AVRO)
+                .withSubscriptionPolicy(policy)
+                .build()
+    }
+}
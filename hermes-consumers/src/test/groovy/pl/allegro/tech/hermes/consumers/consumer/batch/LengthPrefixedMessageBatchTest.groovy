@@ -0,0 +1,113 @@
+package pl.allegro.tech.hermes.consumers.consumer.batch
+
+import pl.allegro.tech.hermes.api.BatchCompression
+import pl.allegro.tech.hermes.api.BatchFormat
+import pl.allegro.tech.hermes.tracker.consumers.MessageMetadata
+import spock.lang.Specification
+
+import java.nio.BufferOverflowException
+import java.nio.ByteBuffer
+import java.util.zip.Inflater
+
+import static java.nio.ByteBuffer.allocateDirect
+import static java.time.Clock.systemDefaultZone
+import static pl.allegro.tech.hermes.api.BatchSubscriptionPolicy.Builder.batchSubscriptionPolicy
+import static pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder.subscription
+
+class LengthPrefixedMessageBatchTest extends Specification {
+
+    static def BATCH_ID = "1"
+
+    def "should prefix each message with its length"() {
+        given:
+        def batch = batch(64, BatchCompression.NONE)
+
+        when:
+        batch.append("a".bytes, Stub(MessageMetadata))
+        batch.append("bc".bytes, Stub(MessageMetadata))
+        batch.close()
+
+        then:
+        bytes(batch.getContent()) == ByteBuffer.allocate(11).putInt(1).put("a".bytes).putInt(2).put("bc".bytes).array()
+        batch.getSize() == 11
+        !batch.getContentEncoding().isPresent()
+    }
+
+    def "should throw exception when there is no space for message and its length"() {
+        given:
+        def batch = batch(5, BatchCompression.NONE)
+
+        when:
+        batch.append("xx".bytes, Stub(MessageMetadata))
+
+        then:
+        thrown BufferOverflowException
+    }
+
+    def "should compress content with deflate content encoding"() {
+        given:
+        def batch = batch(1024, BatchCompression.DEFLATE)
+        def message = ("x" * 100).bytes
+
+        when:
+        5.times { batch.append(message, Stub(MessageMetadata)) }
+        batch.close()
+
+        then:
+        batch.getContentEncoding().get() == "deflate"
+        batch.getSize() < 5 * (message.length + 4)
+
+        and:
+        def inflated = inflate(bytes(batch.getContent()))
+        def content = ByteBuffer.wrap(inflated)
+        5.times {
+            assert content.getInt() == message.length
+            byte[] element = new byte[message.length]
+            content.get(element)
+            assert element == message
+        }
+        !content.hasRemaining()
+    }
+
+    def "should leave content uncompressed when compression does not make it smaller"() {
+        given:
+        def batch = batch(64, BatchCompression.DEFLATE)
+
+        when:
+        batch.append("a".bytes, Stub(MessageMetadata))
+        batch.close()
+
+        then:
+        !batch.getContentEncoding().isPresent()
+        bytes(batch.getContent()) == ByteBuffer.allocate(5).putInt(1).put("a".bytes).array()
+    }
+
+    private static byte[] bytes(ByteBuffer content) {
+        byte[] bytes = new byte[content.remaining()]
+        content.get(bytes)
+        return bytes
+    }
+
+    private static byte[] inflate(byte[] compressed) {
+        def inflater = new Inflater()
+        inflater.setInput(compressed)
+        def output = new ByteArrayOutputStream()
+        byte[] chunk = new byte[256]
+        while (!inflater.finished()) {
+            output.write(chunk, 0, inflater.inflate(chunk))
+        }
+        inflater.end()
+        return output.toByteArray()
+    }
+
+    private static LengthPrefixedMessageBatch batch(int capacity, BatchCompression compression) {
+        def policy = batchSubscriptionPolicy()
+                .withBatchSize(100)
+                .withBatchTime(Integer.MAX_VALUE)
+                .withBatchFormat(BatchFormat.LENGTH_PREFIXED)
+                .withBatchCompression(compression)
+                .build()
+        def subscription = subscription("group.topic", "subscription").withSubscriptionPolicy(policy).build()
+        return new LengthPrefixedMessageBatch(BATCH_ID, allocateDirect(capacity), subscription, systemDefaultZone())
+    }
+}
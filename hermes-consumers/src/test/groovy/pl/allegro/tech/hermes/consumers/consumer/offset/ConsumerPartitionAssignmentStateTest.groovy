@@ -86,6 +86,54 @@ class ConsumerPartitionAssignmentStateTest extends Specification {
         }
     }
 
+    def "should keep term of partitions which stay assigned when other partitions are assigned"() {
+        given:
+        def sub = subscriptionName('cooperative1')
+        state.assign(sub, [1, 2, 3])
+
+        when:
+        state.revoke(sub, [3])
+        state.assign(sub, [4])
+
+        then:
+        state.currentTerm(sub) == 1
+        state.currentTerm(sub, 1) == 0
+        state.currentTerm(sub, 4) == 1
+        state.isAssignedPartitionAtCurrentTerm(subscriptionPartition(sub, 1, 0))
+        state.isAssignedPartitionAtCurrentTerm(subscriptionPartition(sub, 2, 0))
+        !state.isAssignedPartitionAtCurrentTerm(subscriptionPartition(sub, 3, 0))
+        state.isAssignedPartitionAtCurrentTerm(subscriptionPartition(sub, 4, 1))
+        !state.isAssignedPartitionAtCurrentTerm(subscriptionPartition(sub, 4, 0))
+    }
+
+    def "should start new term of partition assigned again"() {
+        given:
+        def sub = subscriptionName('cooperative2')
+        state.assign(sub, [1, 2])
+
+        when:
+        state.revoke(sub, [1])
+        state.assign(sub, [1])
+
+        then:
+        !state.isAssignedPartitionAtCurrentTerm(subscriptionPartition(sub, 1, 0))
+        state.isAssignedPartitionAtCurrentTerm(subscriptionPartition(sub, 1, 1))
+        state.isAssignedPartitionAtCurrentTerm(subscriptionPartition(sub, 2, 0))
+    }
+
+    def "should not start new term when no partitions are assigned"() {
+        given:
+        def sub = subscriptionName('cooperative3')
+        state.assign(sub, [1])
+
+        when:
+        state.assign(sub, [])
+
+        then:
+        state.currentTerm(sub) == 0
+        state.isAssignedPartitionAtCurrentTerm(subscriptionPartition(sub, 1, 0))
+    }
+
     private SubscriptionName subscriptionName(String name) {
         return SubscriptionName.fromString("group.topic\$$name")
     }
@@ -0,0 +1,148 @@
+package pl.allegro.tech.hermes.consumers.consumer.offset
+
+import spock.lang.Specification
+
+class OffsetBitmapTest extends Specification {
+
+    private OffsetBitmap bitmap = new OffsetBitmap()
+
+    def "should return max value as minimum of empty set"() {
+        expect:
+        bitmap.isEmpty()
+        bitmap.min() == Long.MAX_VALUE
+    }
+
+    def "should track lowest offset while offsets are added and removed"() {
+        given:
+        [5L, 3L, 200L, 64L].each { bitmap.add(it) }
+
+        expect:
+        bitmap.min() == 3
+        bitmap.size() == 4
+
+        when:
+        bitmap.remove(3)
+        bitmap.remove(5)
+
+        then:
+        bitmap.min() == 64
+
+        when:
+        bitmap.remove(64)
+        bitmap.remove(200)
+
+        then:
+        bitmap.isEmpty()
+        bitmap.min() == Long.MAX_VALUE
+    }
+
+    def "should not count duplicated offsets"() {
+        when:
+        def first = bitmap.add(10)
+        def second = bitmap.add(10)
+
+        then:
+        first
+        !second
+        bitmap.size() == 1
+    }
+
+    def "should not remove offsets which are not in the set"() {
+        given:
+        bitmap.add(10)
+
+        expect:
+        !bitmap.remove(11)
+        !bitmap.remove(100_000)
+        bitmap.size() == 1
+    }
+
+    def "should slide window over offsets consumed in order"() {
+        when:
+        (0L..<1_000_000L).each {
+            bitmap.add(it)
+            if (it >= 100) {
+                bitmap.remove(it - 100)
+            }
+        }
+
+        then:
+        bitmap.size() == 100
+        bitmap.min() == 999_900
+    }
+
+    def "should grow window when offsets spread apart"() {
+        given:
+        bitmap.add(0)
+
+        when:
+        bitmap.add(64 * 10_000)
+
+        then:
+        bitmap.size() == 2
+        bitmap.min() == 0
+
+        when:
+        bitmap.remove(0)
+
+        then:
+        bitmap.min() == 64 * 10_000
+    }
+
+    def "should keep offsets too far from the window in overflow"() {
+        given:
+        long far = 64L * OffsetBitmap.MAX_WORDS * 2
+        bitmap.add(10)
+
+        when:
+        bitmap.add(far)
+        bitmap.add(far + 1)
+
+        then:
+        bitmap.size() == 3
+        !bitmap.add(far)
+        bitmap.min() == 10
+
+        when:
+        bitmap.remove(10)
+
+        then:
+        bitmap.min() == far
+
+        when:
+        bitmap.remove(far)
+
+        then:
+        bitmap.min() == far + 1
+    }
+
+    def "should accept offsets lower than the window"() {
+        given:
+        bitmap.add(1000)
+
+        when:
+        bitmap.add(1)
+
+        then:
+        bitmap.min() == 1
+    }
+
+    def "should remove all offsets on clear"() {
+        given:
+        [1L, 100L, 64L * OffsetBitmap.MAX_WORDS * 2].each { bitmap.add(it) }
+
+        when:
+        bitmap.clear()
+
+        then:
+        bitmap.isEmpty()
+        bitmap.min() == Long.MAX_VALUE
+
+        when:
+        bitmap.add(7)
+
+        then:
+        bitmap.min() == 7
+        bitmap.size() == 1
+    }
+}
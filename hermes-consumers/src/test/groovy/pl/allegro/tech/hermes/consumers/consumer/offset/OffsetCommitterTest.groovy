@@ -3,9 +3,12 @@ package pl.allegro.tech.hermes.consumers.consumer.offset
 import pl.allegro.tech.hermes.api.SubscriptionName
 import pl.allegro.tech.hermes.common.kafka.KafkaTopicName
 import pl.allegro.tech.hermes.test.helper.metrics.TestMetricsFacadeFactory
+import pl.allegro.tech.hermes.test.helper.time.ModifiableClock
 import spock.lang.Shared
 import spock.lang.Specification
 
+import java.time.Duration
+
 class OffsetCommitterTest extends Specification {
 
     @Shared
@@ -338,8 +341,115 @@ class OffsetCommitterTest extends Specification {
         messageCommitter.nothingCommitted(3)
     }
 
+    def "should commit offsets of partitions which stay assigned when other partitions are reassigned"() {
+        given:
+        assignPartitions(1, 2)
+        queue.offerInflightOffset(offset(1, 1))
+        queue.offerInflightOffset(offset(2, 1))
+
+        when:
+        revokePartitions(2)
+        assignPartitions(3)
+
+        and:
+        queue.offerCommittedOffset(offset(1, 1))
+        queue.offerCommittedOffset(offsetFromTerm(2, 1, 0))
+        committer.run()
+
+        then:
+        messageCommitter.wereCommitted(1, offset(1, 2))
+    }
+
+    def "should commit offsets with adaptive triggers once enough messages are acknowledged"() {
+        given:
+        def committer = adaptiveCommitter(3, Duration.ofMinutes(1))
+        assignPartitions(1)
+        queue.offerInflightOffset(offset(1, 1))
+        queue.offerInflightOffset(offset(1, 2))
+        queue.offerCommittedOffset(offset(1, 1))
+
+        when:
+        committer.run()
+
+        then:
+        messageCommitter.nothingCommitted(1)
+
+        when:
+        queue.offerInflightOffset(offset(1, 3))
+        queue.offerInflightOffset(offset(1, 4))
+        queue.offerCommittedOffset(offset(1, 2))
+        queue.offerCommittedOffset(offset(1, 3))
+
+        and:
+        committer.run()
+
+        then:
+        messageCommitter.wereCommitted(2, offset(1, 4))
+    }
+
+    def "should commit offsets with adaptive triggers once the oldest acknowledgement waits long enough"() {
+        given:
+        def clock = new ModifiableClock()
+        def committer = adaptiveCommitter(1000, Duration.ofSeconds(10), clock)
+        assignPartitions(1)
+        queue.offerInflightOffset(offset(1, 1))
+        queue.offerCommittedOffset(offset(1, 1))
+
+        when:
+        committer.run()
+
+        then:
+        messageCommitter.nothingCommitted(1)
+
+        when:
+        clock.advance(Duration.ofSeconds(10))
+        committer.run()
+
+        then:
+        messageCommitter.wereCommitted(2, offset(1, 2))
+
+        when:
+        clock.advance(Duration.ofSeconds(10))
+        committer.run()
+
+        then:
+        messageCommitter.nothingCommitted(3)
+    }
+
+    def "should not commit unchanged offset with adaptive triggers"() {
+        given:
+        def committer = adaptiveCommitter(1, Duration.ofMinutes(1))
+        assignPartitions(1)
+        queue.offerInflightOffset(offset(1, 1))
+        queue.offerInflightOffset(offset(1, 2))
+        queue.offerCommittedOffset(offset(1, 1))
+
+        when:
+        committer.run()
+
+        then:
+        messageCommitter.wereCommitted(1, offset(1, 2))
+
+        when:
+        queue.offerInflightOffset(offset(1, 3))
+        queue.offerCommittedOffset(offset(1, 3))
+
+        and:
+        committer.run()
+
+        then:
+        messageCommitter.nothingCommitted(2)
+    }
+
+    private OffsetCommitter adaptiveCommitter(int maxUncommittedMessages,
+                                              Duration maxUncommittedAge,
+                                              ModifiableClock clock = new ModifiableClock()) {
+        def triggers = OffsetCommitTriggers.adaptive(Duration.ofSeconds(1), maxUncommittedMessages, maxUncommittedAge)
+        return new OffsetCommitter(queue, state, messageCommitter, triggers, TestMetricsFacadeFactory.create(), clock)
+    }
+
     private SubscriptionPartitionOffset offset(int partition, long offset) {
-        offsetFromTerm(partition, offset, state.currentTerm(SUBSCRIPTION_NAME))
+        offsetFromTerm(partition, offset, state.currentTerm(SUBSCRIPTION_NAME, partition))
     }
 
     private SubscriptionPartitionOffset offsetFromTerm(int partition, long offset, long term) {
@@ -0,0 +1,132 @@
+package pl.allegro.tech.hermes.consumers.consumer.offset.kafka.broker
+
+import org.apache.kafka.clients.consumer.KafkaConsumer
+import org.apache.kafka.clients.consumer.OffsetAndMetadata
+import org.apache.kafka.clients.consumer.OffsetCommitCallback
+import org.apache.kafka.common.TopicPartition
+import pl.allegro.tech.hermes.api.SubscriptionName
+import pl.allegro.tech.hermes.test.helper.metrics.TestMetricsFacadeFactory
+import spock.lang.Specification
+
+import java.time.Duration
+
+class KafkaConsumerOffsetCommitterTest extends Specification {
+
+    private static final SubscriptionName SUBSCRIPTION_NAME = SubscriptionName.fromString('group.topic$sub')
+
+    private KafkaConsumer<byte[], byte[]> consumer = Mock(KafkaConsumer)
+
+    def "should commit offsets synchronously when asynchronous commits are disabled"() {
+        given:
+        def committer = new KafkaConsumerOffsetCommitter(SUBSCRIPTION_NAME, consumer, false, TestMetricsFacadeFactory.create())
+
+        when:
+        committer.commit(offsets(0, 10))
+
+        then:
+        1 * consumer.commitSync(offsets(0, 10))
+        0 * consumer.commitAsync(*_)
+    }
+
+    def "should commit not confirmed offsets of revoked partitions synchronously"() {
+        given:
+        def committer = new KafkaConsumerOffsetCommitter(SUBSCRIPTION_NAME, consumer, true, TestMetricsFacadeFactory.create())
+
+        when:
+        committer.commit(offsets(0, 10) + offsets(1, 20))
+
+        then:
+        1 * consumer.commitAsync(offsets(0, 10) + offsets(1, 20), _)
+        0 * consumer.commitSync(*_)
+
+        when:
+        committer.commitNotConfirmed([partition(0)])
+
+        then:
+        1 * consumer.commitSync(offsets(0, 10))
+    }
+
+    def "should not commit offsets of revoked partitions again once asynchronous commit is confirmed"() {
+        given:
+        def committer = new KafkaConsumerOffsetCommitter(SUBSCRIPTION_NAME, consumer, true, TestMetricsFacadeFactory.create())
+        OffsetCommitCallback callback = null
+        consumer.commitAsync(_, _) >> { arguments -> callback = arguments[1] }
+
+        when:
+        committer.commit(offsets(0, 10))
+        callback.onComplete(offsets(0, 10), null)
+        committer.commitNotConfirmed([partition(0)])
+
+        then:
+        0 * consumer.commitSync(*_)
+    }
+
+    def "should commit offsets of revoked partitions again when asynchronous commit failed"() {
+        given:
+        def committer = new KafkaConsumerOffsetCommitter(SUBSCRIPTION_NAME, consumer, true, TestMetricsFacadeFactory.create())
+        OffsetCommitCallback callback = null
+        consumer.commitAsync(_, _) >> { arguments -> callback = arguments[1] }
+
+        when:
+        committer.commit(offsets(0, 10))
+        callback.onComplete(offsets(0, 10), new RuntimeException("commit failed"))
+        committer.commitNotConfirmed([partition(0)])
+
+        then:
+        1 * consumer.commitSync(offsets(0, 10))
+    }
+
+    def "should retry failed asynchronous commit of idle partition"() {
+        given:
+        def committer = new KafkaConsumerOffsetCommitter(SUBSCRIPTION_NAME, consumer, true, TestMetricsFacadeFactory.create(), Duration.ZERO)
+        List<OffsetCommitCallback> callbacks = []
+        consumer.commitAsync(_, _) >> { arguments -> callbacks << arguments[1] }
+
+        when:
+        committer.commit(offsets(0, 10))
+        committer.retryFailedCommits()
+
+        then:
+        callbacks.size() == 1
+
+        when:
+        callbacks[0].onComplete(offsets(0, 10), new RuntimeException("commit failed"))
+        committer.retryFailedCommits()
+
+        then:
+        callbacks.size() == 2
+
+        when:
+        callbacks[1].onComplete(offsets(0, 10), null)
+        committer.retryFailedCommits()
+        committer.commitNotConfirmed([partition(0)])
+
+        then:
+        callbacks.size() == 2
+        0 * consumer.commitSync(*_)
+    }
+
+    def "should not retry failed asynchronous commit replaced by a newer one"() {
+        given:
+        def committer = new KafkaConsumerOffsetCommitter(SUBSCRIPTION_NAME, consumer, true, TestMetricsFacadeFactory.create(), Duration.ZERO)
+        List<OffsetCommitCallback> callbacks = []
+        consumer.commitAsync(_, _) >> { arguments -> callbacks << arguments[1] }
+
+        when:
+        committer.commit(offsets(0, 10))
+        committer.commit(offsets(0, 20))
+        callbacks[0].onComplete(offsets(0, 10), new RuntimeException("commit failed"))
+        committer.retryFailedCommits()
+
+        then:
+        callbacks.size() == 2
+    }
+
+    private static Map<TopicPartition, OffsetAndMetadata> offsets(int partition, long offset) {
+        return [(partition(partition)): new OffsetAndMetadata(offset)]
+    }
+
+    private static TopicPartition partition(int partition) {
+        return new TopicPartition("group_topic", partition)
+    }
+}
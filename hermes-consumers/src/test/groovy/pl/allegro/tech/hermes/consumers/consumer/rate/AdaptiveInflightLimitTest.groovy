@@ -0,0 +1,111 @@
+package pl.allegro.tech.hermes.consumers.consumer.rate
+
+import pl.allegro.tech.hermes.consumers.config.CommonConsumerProperties
+import spock.lang.Specification
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS
+
+class AdaptiveInflightLimitTest extends Specification {
+
+    def parameters = new CommonConsumerProperties.AdaptiveInflight(enabled: true, minInflight: 1, maxInflight: 1000)
+
+    def "should grow window while latency is stable and window is used"() {
+        given:
+        def semaphore = new AdjustableSemaphore(10)
+        def limit = new AdaptiveInflightLimit(semaphore, parameters, 10, 1000)
+
+        when:
+        100.times { limit.onResponse(MILLISECONDS.toNanos(10), limit.getLimit()) }
+
+        then:
+        limit.getLimit() > 10
+        limit.getGradient() == 1.0d
+        semaphore.availablePermits() == limit.getLimit()
+    }
+
+    def "should not grow window when less than half of it is used"() {
+        given:
+        def limit = new AdaptiveInflightLimit(new AdjustableSemaphore(10), parameters, 10, 1000)
+
+        when:
+        100.times { limit.onResponse(MILLISECONDS.toNanos(10), 1) }
+
+        then:
+        limit.getLimit() == 10
+    }
+
+    def "should shrink window when latency grows over the tolerance"() {
+        given:
+        def limit = new AdaptiveInflightLimit(new AdjustableSemaphore(10), parameters, 10, 1000)
+        50.times { limit.onResponse(MILLISECONDS.toNanos(10), 1000) }
+        def limitBeforeSlowdown = limit.getLimit()
+
+        when:
+        50.times { limit.onResponse(MILLISECONDS.toNanos(100), 1000) }
+
+        then:
+        limit.getGradient() < 1.0d
+        limit.getLimit() < limitBeforeSlowdown
+    }
+
+    def "should back off on overload at most once per short latency"() {
+        given:
+        def semaphore = new AdjustableSemaphore(100)
+        def limit = new AdaptiveInflightLimit(semaphore, parameters, 100, 1000)
+        limit.onResponse(MILLISECONDS.toNanos(10), 100)
+        def now = MILLISECONDS.toNanos(1000)
+
+        when:
+        limit.onOverload(now)
+        limit.onOverload(now + MILLISECONDS.toNanos(1))
+
+        then:
+        limit.getLimit() == 90
+
+        when:
+        limit.onOverload(now + MILLISECONDS.toNanos(20))
+
+        then:
+        limit.getLimit() == 81
+        semaphore.availablePermits() == 81
+    }
+
+    def "should keep window within bounds"() {
+        given:
+        def semaphore = new AdjustableSemaphore(50)
+        def limit = new AdaptiveInflightLimit(semaphore, parameters, 50, 1000)
+
+        when:
+        limit.updateMaxLimit(20)
+
+        then:
+        limit.getLimit() == 20
+        semaphore.availablePermits() == 20
+
+        when:
+        100.times { limit.onOverload(MILLISECONDS.toNanos(it + 1)) }
+
+        then:
+        limit.getLimit() == 1
+    }
+
+    def "should use static window when adaptive inflight is disabled"() {
+        given:
+        def semaphore = new AdjustableSemaphore(10)
+        def limit = new AdaptiveInflightLimit(semaphore, new CommonConsumerProperties.AdaptiveInflight(), 10, 10)
+
+        when:
+        limit.onOverload(MILLISECONDS.toNanos(1))
+        100.times { limit.onResponse(MILLISECONDS.toNanos(10), 10) }
+
+        then:
+        limit.getLimit() == 10
+
+        when:
+        limit.updateMaxLimit(30)
+
+        then:
+        limit.getLimit() == 30
+        semaphore.availablePermits() == 30
+    }
+}
@@ -4,6 +4,7 @@ import org.apache.kafka.clients.consumer.ConsumerRecord
 import org.apache.kafka.clients.consumer.ConsumerRecords
 import org.apache.kafka.clients.consumer.KafkaConsumer
 import org.apache.kafka.common.TopicPartition
+import pl.allegro.tech.hermes.api.ContentType
 import pl.allegro.tech.hermes.common.kafka.KafkaNamesMapper
 import pl.allegro.tech.hermes.common.kafka.NamespaceKafkaNamesMapper
 import pl.allegro.tech.hermes.common.metric.MetricsFacade
@@ -42,7 +43,8 @@ class KafkaSingleThreadedMessageReceiverTest extends Specification {
                 consumer, converterFactory, metricsFacade,
                 kafkaNamesMapper, topic, subscription, Duration.ofMillis(10), 10,
                 Mock(SubscriptionLoadRecorder),
-                Mock(ConsumerPartitionAssignmentState)
+                Mock(ConsumerPartitionAssignmentState),
+                false
         )
     }
 
@@ -73,4 +75,18 @@ class KafkaSingleThreadedMessageReceiverTest extends Specification {
         result.isPresent()
         result.get() == message
     }
-}
\ No newline at end of file
+
+    def "should convert records according to updated topic without recreating consumer"() {
+        given:
+        def updatedTopic = TopicBuilder.topic("pl.allegro.someTestTopic").withContentType(ContentType.AVRO).build()
+
+        when:
+        def updated = receiver.updateTopic(updatedTopic)
+
+        then:
+        updated
+        1 * converterFactory.create(updatedTopic, subscription, _) >> messageConverter
+        0 * consumer.close()
+        0 * consumer.unsubscribe()
+    }
+}
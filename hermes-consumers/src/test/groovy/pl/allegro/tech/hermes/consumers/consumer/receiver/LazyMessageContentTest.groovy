@@ -0,0 +1,130 @@
+package pl.allegro.tech.hermes.consumers.consumer.receiver
+
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import pl.allegro.tech.hermes.api.ContentType
+import pl.allegro.tech.hermes.common.kafka.KafkaTopic
+import pl.allegro.tech.hermes.common.kafka.KafkaTopicName
+import pl.allegro.tech.hermes.common.message.wrapper.MessageMetadata
+import pl.allegro.tech.hermes.common.message.wrapper.UnwrappedMessageContent
+import pl.allegro.tech.hermes.common.message.wrapper.UnwrappingException
+import pl.allegro.tech.hermes.consumers.config.KafkaHeaderNameProperties
+import pl.allegro.tech.hermes.consumers.consumer.filtering.FilteredMessageHandler
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.FilteringMessageReceiver
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.KafkaConsumerRecordToMessageConverter
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.KafkaHeaderExtractor
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.MessageContentReader
+import pl.allegro.tech.hermes.domain.filtering.MessageFilters
+import pl.allegro.tech.hermes.domain.filtering.chain.FilterChainFactory
+import pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder
+import pl.allegro.tech.hermes.test.helper.builder.TopicBuilder
+import spock.lang.Specification
+
+import java.time.Clock
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Supplier
+
+class LazyMessageContentTest extends Specification {
+
+    static final String KAFKA_TOPIC = "pl_allegro_someTestTopic"
+
+    def topic = TopicBuilder.topic("pl.allegro.someTestTopic").build()
+    def subscription = SubscriptionBuilder.subscription(topic, "someSub").build()
+
+    MessageContentReader contentReader = Mock(MessageContentReader)
+
+    def converter = new KafkaConsumerRecordToMessageConverter(
+            topic,
+            subscription,
+            [(KAFKA_TOPIC): new KafkaTopic(KafkaTopicName.valueOf(KAFKA_TOPIC), ContentType.JSON)],
+            contentReader,
+            new KafkaHeaderExtractor(new KafkaHeaderNameProperties()),
+            Clock.systemUTC(),
+            true
+    )
+
+    def "should unwrap content of lazily converted message once, when it is read"() {
+        given:
+        int unwrapped = 0
+        contentReader.readLazily(_, ContentType.JSON) >> ({ ->
+            unwrapped++
+            new UnwrappedMessageContent(new MessageMetadata(1L, "id", [key: "value"]), "content".bytes)
+        } as Supplier<UnwrappedMessageContent>)
+
+        when:
+        def message = converter.convertToMessage(record(), 1)
+
+        then:
+        message.offset == 10
+        message.partitionAssignmentTerm == 1
+        unwrapped == 0
+
+        when:
+        def data = message.data
+        def metadata = message.externalMetadata
+
+        then:
+        new String(data) == "content"
+        metadata == [key: "value"]
+        message.size == 7
+        unwrapped == 1
+    }
+
+    def "should unwrap content of lazily converted message once when read from concurrent threads"() {
+        given:
+        def unwrapped = new AtomicInteger()
+        contentReader.readLazily(_, ContentType.JSON) >> ({ ->
+            unwrapped.incrementAndGet()
+            Thread.sleep(10)
+            new UnwrappedMessageContent(new MessageMetadata(1L, "id", [key: "value"]), "content".bytes)
+        } as Supplier<UnwrappedMessageContent>)
+        def message = converter.convertToMessage(record(), 1)
+        def executor = Executors.newFixedThreadPool(8)
+        def start = new CountDownLatch(1)
+
+        when:
+        def reads = (1..8).collect {
+            executor.submit({
+                start.await()
+                [new String(message.data), message.externalMetadata]
+            } as Callable)
+        }
+        start.countDown()
+        def results = reads.collect { it.get() }
+
+        then:
+        results.every { it == ["content", [key: "value"]] }
+        unwrapped.get() == 1
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "should filter out lazily converted message which content cannot be unwrapped"() {
+        given:
+        contentReader.readLazily(_, ContentType.JSON) >> ({ ->
+            throw new UnwrappingException("Could not read json message", new IllegalArgumentException())
+        } as Supplier<UnwrappedMessageContent>)
+        def message = converter.convertToMessage(record(), 1)
+
+        MessageReceiver receiver = Mock(MessageReceiver)
+        receiver.next() >> Optional.of(message)
+        FilteredMessageHandler filteredMessageHandler = Mock(FilteredMessageHandler)
+        def filteringReceiver = new FilteringMessageReceiver(
+                receiver, filteredMessageHandler, new FilterChainFactory(new MessageFilters([], [])), subscription
+        )
+
+        when:
+        def received = filteringReceiver.next()
+
+        then:
+        !received.isPresent()
+        1 * filteredMessageHandler.handle({ it.filtered && it.filterType.get() == "content" }, message, subscription)
+    }
+
+    private static ConsumerRecord<byte[], byte[]> record() {
+        return new ConsumerRecord<byte[], byte[]>(KAFKA_TOPIC, 0, 10, "key".bytes, "wrapped content".bytes)
+    }
+}
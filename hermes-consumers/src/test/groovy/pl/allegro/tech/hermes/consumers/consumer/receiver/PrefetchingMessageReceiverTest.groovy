@@ -0,0 +1,147 @@
+package pl.allegro.tech.hermes.consumers.consumer.receiver
+
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.apache.kafka.clients.consumer.ConsumerRecords
+import org.apache.kafka.clients.consumer.KafkaConsumer
+import org.apache.kafka.common.TopicPartition
+import pl.allegro.tech.hermes.common.kafka.KafkaNamesMapper
+import pl.allegro.tech.hermes.common.kafka.NamespaceKafkaNamesMapper
+import pl.allegro.tech.hermes.common.metric.MetricsFacade
+import pl.allegro.tech.hermes.common.metric.OffsetCommitsMetrics
+import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder
+import pl.allegro.tech.hermes.consumers.consumer.offset.ConsumerPartitionAssignmentState
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.KafkaConsumerRecordToMessageConverter
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.KafkaConsumerRecordToMessageConverterFactory
+import pl.allegro.tech.hermes.consumers.consumer.receiver.kafka.PrefetchingMessageReceiver
+import pl.allegro.tech.hermes.consumers.test.MessageBuilder
+import pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder
+import pl.allegro.tech.hermes.test.helper.builder.TopicBuilder
+import spock.lang.Specification
+
+import java.time.Duration
+
+class PrefetchingMessageReceiverTest extends Specification {
+
+    static final Duration POLL_TIMEOUT = Duration.ofMillis(10)
+
+    KafkaConsumer<byte[], byte[]> consumer = Mock(KafkaConsumer)
+    KafkaConsumerRecordToMessageConverterFactory converterFactory = Mock(KafkaConsumerRecordToMessageConverterFactory)
+    KafkaConsumerRecordToMessageConverter messageConverter = Mock(KafkaConsumerRecordToMessageConverter)
+    KafkaNamesMapper kafkaNamesMapper = new NamespaceKafkaNamesMapper("namespace", "_ ")
+    SubscriptionLoadRecorder loadRecorder = Mock(SubscriptionLoadRecorder)
+
+    def topic = TopicBuilder.topic("pl.allegro.someTestTopic").build()
+    def subscription = SubscriptionBuilder.subscription(topic, "someSub").build()
+
+    MetricsFacade metricsFacade = Mock(MetricsFacade)
+    OffsetCommitsMetrics offsetCommitsMetrics = Mock(OffsetCommitsMetrics)
+
+    def setup() {
+        metricsFacade.offsetCommits() >> offsetCommitsMetrics
+        converterFactory.create(*_) >> messageConverter
+        messageConverter.convertToMessage(*_) >> { ConsumerRecord record, long term ->
+            MessageBuilder.withTestMessage().withPartitionOffset(record.topic(), record.partition(), record.offset()).build()
+        }
+    }
+
+    def "should deliver records of partitions in round robin"() {
+        given:
+        def receiver = receiver(10)
+        consumer.poll(POLL_TIMEOUT) >> records([0: [0, 1, 2], 1: [0, 1]])
+        consumer.poll(Duration.ZERO) >> ConsumerRecords.empty()
+
+        when:
+        def delivered = (1..5).collect { receiver.next().get() }
+
+        then:
+        delivered.collect { [it.partition, it.offset] } == [[0, 0], [1, 0], [0, 1], [1, 1], [0, 2]]
+    }
+
+    def "should poll without blocking once read queue falls to low watermark"() {
+        given:
+        def receiver = receiver(4)
+        1 * consumer.poll(POLL_TIMEOUT) >> records([0: [0, 1, 2]])
+
+        when:
+        receiver.next()
+
+        then:
+        0 * consumer.poll(Duration.ZERO)
+
+        when:
+        receiver.next()
+
+        then:
+        1 * consumer.poll(Duration.ZERO) >> records([0: [3, 4]])
+        0 * consumer.poll(POLL_TIMEOUT)
+    }
+
+    def "should pause partitions with queued records when read queue is full and resume them at low watermark"() {
+        given:
+        def receiver = receiver(4)
+        consumer.poll(POLL_TIMEOUT) >> records([0: [0, 1, 2], 1: [0, 1]])
+
+        when:
+        receiver.next()
+
+        then:
+        1 * consumer.pause({ it as Set == [partition(0), partition(1)] as Set })
+
+        when:
+        (1..3).each { receiver.next() }
+
+        then:
+        1 * consumer.resume({ it as Set == [partition(0), partition(1)] as Set })
+        1 * consumer.poll(Duration.ZERO) >> ConsumerRecords.empty()
+    }
+
+    def "should report read queue occupancy and time spent waiting for records"() {
+        given:
+        def receiver = receiver(10)
+        consumer.poll(POLL_TIMEOUT) >> records([0: [0, 1]])
+
+        when:
+        receiver.next()
+
+        then:
+        1 * loadRecorder.recordPollWait({ it >= 0 })
+        1 * loadRecorder.recordReadQueueOccupancy(2, 10)
+        2 * loadRecorder.recordSingleOperation()
+    }
+
+    def "should shut down its load recorder when stopped"() {
+        given:
+        def receiver = receiver(10)
+
+        when:
+        receiver.stop()
+
+        then:
+        1 * consumer.close()
+        1 * loadRecorder.shutdown()
+    }
+
+    private PrefetchingMessageReceiver receiver(int capacity) {
+        return new PrefetchingMessageReceiver(
+                consumer, converterFactory, metricsFacade,
+                kafkaNamesMapper, topic, subscription, POLL_TIMEOUT, capacity, 0.5,
+                loadRecorder,
+                Mock(ConsumerPartitionAssignmentState),
+                false
+        )
+    }
+
+    private TopicPartition partition(int partition) {
+        return new TopicPartition(topic.qualifiedName, partition)
+    }
+
+    private ConsumerRecords<byte[], byte[]> records(Map<Integer, List<Integer>> offsets) {
+        Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> records = new LinkedHashMap<>()
+        offsets.each { partitionNumber, partitionOffsets ->
+            records.put(partition(partitionNumber), partitionOffsets.collect {
+                new ConsumerRecord<byte[], byte[]>(topic.qualifiedName, partitionNumber, it, "data".getBytes(), "data".getBytes())
+            })
+        }
+        return new ConsumerRecords<byte[], byte[]>(records)
+    }
+}
@@ -0,0 +1,205 @@
+package pl.allegro.tech.hermes.consumers.consumer.receiver.kafka
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.apache.kafka.clients.consumer.ConsumerRecords
+import org.apache.kafka.clients.consumer.KafkaConsumer
+import org.apache.kafka.clients.consumer.MockConsumer
+import org.apache.kafka.clients.consumer.OffsetResetStrategy
+import org.apache.kafka.common.TopicPartition
+import pl.allegro.tech.hermes.common.kafka.KafkaNamesMapper
+import pl.allegro.tech.hermes.common.kafka.KafkaTopicName
+import pl.allegro.tech.hermes.common.kafka.NamespaceKafkaNamesMapper
+import pl.allegro.tech.hermes.common.kafka.offset.PartitionOffset
+import pl.allegro.tech.hermes.common.metric.MetricsFacade
+import pl.allegro.tech.hermes.common.metric.OffsetCommitsMetrics
+import pl.allegro.tech.hermes.consumers.consumer.Message
+import pl.allegro.tech.hermes.consumers.consumer.load.SubscriptionLoadRecorder
+import pl.allegro.tech.hermes.consumers.consumer.offset.ConsumerPartitionAssignmentState
+import pl.allegro.tech.hermes.consumers.consumer.receiver.MessageReceiver
+import pl.allegro.tech.hermes.consumers.test.MessageBuilder
+import pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder
+import pl.allegro.tech.hermes.test.helper.builder.TopicBuilder
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Clock
+import java.time.Duration
+
+class SharedFetchMessageReceiverTest extends Specification {
+
+    static final Duration POLL_TIMEOUT = Duration.ofMillis(10)
+
+    KafkaConsumer<byte[], byte[]> consumer = Mock(KafkaConsumer)
+    MockConsumer<byte[], byte[]> sharedConsumer = new MockConsumer<>(OffsetResetStrategy.NONE)
+    SharedTopicFetchers fetchers = new SharedTopicFetchers({ new Properties() }, { sharedConsumer }, POLL_TIMEOUT, 50)
+    KafkaConsumerRecordToMessageConverterFactory converterFactory = Mock(KafkaConsumerRecordToMessageConverterFactory)
+    KafkaConsumerRecordToMessageConverter messageConverter = Mock(KafkaConsumerRecordToMessageConverter)
+    KafkaNamesMapper kafkaNamesMapper = new NamespaceKafkaNamesMapper("namespace", "_ ")
+    ConsumerPartitionAssignmentState partitionAssignmentState = Mock(ConsumerPartitionAssignmentState)
+
+    def topic = TopicBuilder.topic("pl.allegro.someTestTopic").build()
+    def subscription = SubscriptionBuilder.subscription(topic, "someSub").build()
+    def kafkaTopicName = kafkaNamesMapper.toKafkaTopics(topic).primary.name().asString()
+
+    MetricsFacade metricsFacade = Mock(MetricsFacade)
+    OffsetCommitsMetrics offsetCommitsMetrics = Mock(OffsetCommitsMetrics)
+    def conditions = new PollingConditions(timeout: 5)
+
+    ConsumerRebalanceListener rebalanceListener
+    MessageReceiver receiver
+
+    def setup() {
+        metricsFacade.offsetCommits() >> offsetCommitsMetrics
+        converterFactory.create(*_) >> messageConverter
+        messageConverter.convertToMessage(*_) >> { ConsumerRecord record, long term ->
+            MessageBuilder.withTestMessage().withPartitionOffset(record.topic(), record.partition(), record.offset()).build()
+        }
+        consumer.subscribe(_, _) >> { Collection topics, ConsumerRebalanceListener listener -> rebalanceListener = listener }
+        consumer.position(_) >> 0L
+    }
+
+    def cleanup() {
+        receiver?.stop()
+    }
+
+    def "should pause assigned partitions and receive their records from shared fetcher"() {
+        given:
+        receiver = sharedFetchReceiver(10)
+
+        when:
+        rebalanceListener.onPartitionsAssigned([partition(0)])
+
+        then:
+        1 * consumer.pause([partition(0)])
+
+        when:
+        awaitSharedAssignment([partition(0)])
+        addSharedRecords(partition(0), 0..1)
+        def messages = (1..2).collect { nextMessage() }
+
+        then:
+        messages.collect { [it.partition, it.offset] } == [[0, 0], [0, 1]]
+    }
+
+    def "should unregister revoked partitions from shared fetcher"() {
+        given:
+        receiver = sharedFetchReceiver(10)
+        rebalanceListener.onPartitionsAssigned([partition(0), partition(1)])
+        awaitSharedAssignment([partition(0), partition(1)])
+
+        when:
+        rebalanceListener.onPartitionsRevoked([partition(1)])
+
+        then:
+        1 * partitionAssignmentState.revoke(subscription.qualifiedName, [1] as Set)
+        awaitSharedAssignment([partition(0)])
+
+        when:
+        addSharedRecords(partition(0), 0..0)
+        def message = nextMessage()
+
+        then:
+        [message.partition, message.offset] == [0, 0]
+    }
+
+    def "should fetch records on its own from last consumed offsets once detached from shared fetcher"() {
+        given:
+        receiver = sharedFetchReceiver(1)
+        rebalanceListener.onPartitionsAssigned([partition(0)])
+        awaitSharedAssignment([partition(0)])
+        addSharedRecords(partition(0), 0..2)
+        // feed holds a single record, so the subscription is detached and its partition released
+        awaitSharedAssignment([])
+
+        when:
+        def message = receiver.next()
+
+        then:
+        1 * consumer.assignment() >> ([partition(0)] as Set)
+        1 * consumer.seek(partition(0), 0L)
+        1 * consumer.resume([partition(0)] as Set)
+        1 * consumer.poll(POLL_TIMEOUT) >> records(partition(0), 0..0)
+        [message.get().partition, message.get().offset] == [0, 0]
+    }
+
+    def "should fetch records on its own after moving offsets"() {
+        given:
+        receiver = sharedFetchReceiver(10)
+        rebalanceListener.onPartitionsAssigned([partition(0)])
+        awaitSharedAssignment([partition(0)])
+
+        when:
+        def moved = receiver.moveOffset(new PartitionOffset(KafkaTopicName.valueOf(kafkaTopicName), 5, 0))
+
+        then:
+        moved
+        2 * consumer.assignment() >> ([partition(0)] as Set)
+        1 * consumer.resume([partition(0)] as Set)
+        1 * consumer.seek(partition(0), 5L)
+        awaitSharedAssignment([])
+
+        when:
+        def message = receiver.next()
+
+        then:
+        1 * consumer.poll(POLL_TIMEOUT) >> records(partition(0), 5..5)
+        [message.get().partition, message.get().offset] == [0, 5]
+    }
+
+    def "should release shared fetcher when stopped"() {
+        given:
+        receiver = sharedFetchReceiver(10)
+        rebalanceListener.onPartitionsAssigned([partition(0)])
+        awaitSharedAssignment([partition(0)])
+
+        when:
+        receiver.stop()
+
+        then:
+        sharedConsumer.closed()
+        1 * partitionAssignmentState.revokeAll(subscription.qualifiedName)
+    }
+
+    private SharedFetchMessageReceiver sharedFetchReceiver(int feedCapacity) {
+        return new SharedFetchMessageReceiver(
+                consumer, fetchers, converterFactory, metricsFacade, kafkaNamesMapper,
+                topic, subscription, POLL_TIMEOUT, feedCapacity,
+                Mock(SubscriptionLoadRecorder),
+                partitionAssignmentState,
+                Clock.systemUTC(),
+                false
+        )
+    }
+
+    private Message nextMessage() {
+        Optional<Message> message = Optional.empty()
+        conditions.eventually {
+            message = receiver.next()
+            assert message.isPresent()
+        }
+        return message.get()
+    }
+
+    private void awaitSharedAssignment(List<TopicPartition> partitions) {
+        conditions.eventually {
+            assert sharedConsumer.assignment() == partitions as Set
+        }
+    }
+
+    private void addSharedRecords(TopicPartition partition, IntRange offsets) {
+        offsets.each { sharedConsumer.addRecord(record(partition, it)) }
+    }
+
+    private TopicPartition partition(int partition) {
+        new TopicPartition(kafkaTopicName, partition)
+    }
+
+    private static ConsumerRecords<byte[], byte[]> records(TopicPartition partition, IntRange offsets) {
+        new ConsumerRecords<byte[], byte[]>([(partition): offsets.collect { record(partition, it) }])
+    }
+
+    private static ConsumerRecord<byte[], byte[]> record(TopicPartition partition, long offset) {
+        new ConsumerRecord<byte[], byte[]>(partition.topic(), partition.partition(), offset, new byte[0], new byte[0])
+    }
+}
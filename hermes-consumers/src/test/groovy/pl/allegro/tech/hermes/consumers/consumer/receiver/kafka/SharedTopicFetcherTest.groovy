@@ -0,0 +1,169 @@
+package pl.allegro.tech.hermes.consumers.consumer.receiver.kafka
+
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.apache.kafka.clients.consumer.MockConsumer
+import org.apache.kafka.clients.consumer.OffsetResetStrategy
+import org.apache.kafka.common.TopicPartition
+import pl.allegro.tech.hermes.api.SubscriptionName
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+
+class SharedTopicFetcherTest extends Specification {
+
+    static final TopicPartition PARTITION = new TopicPartition("topic", 0)
+    static final TopicPartition OTHER_PARTITION = new TopicPartition("topic", 1)
+
+    def consumer = new MockConsumer<byte[], byte[]>(OffsetResetStrategy.NONE)
+    def fetcher = new SharedTopicFetcher("group.topic", consumer, Duration.ofMillis(10), 50)
+    def conditions = new PollingConditions(timeout: 5)
+
+    def cleanup() {
+        fetcher.stop()
+    }
+
+    def "should fan records out to feeds of all registered subscriptions"() {
+        given:
+        def first = feed("first")
+        def second = feed("second")
+        fetcher.register(first, PARTITION, 0)
+        fetcher.register(second, PARTITION, 0)
+        fetcher.start()
+        awaitAssignment([PARTITION])
+
+        when:
+        addRecords(PARTITION, 0..2)
+
+        then:
+        conditions.eventually {
+            assert first.size() == 3
+            assert second.size() == 3
+        }
+    }
+
+    def "should stop delivering records of unregistered partitions and release them once not used"() {
+        given:
+        def first = feed("first")
+        def second = feed("second")
+        fetcher.register(first, PARTITION, 0)
+        fetcher.register(second, PARTITION, 0)
+        fetcher.register(second, OTHER_PARTITION, 0)
+        fetcher.start()
+        awaitAssignment([PARTITION, OTHER_PARTITION])
+
+        when:
+        fetcher.unregister(second, [PARTITION, OTHER_PARTITION])
+
+        then:
+        awaitAssignment([PARTITION])
+
+        when:
+        addRecords(PARTITION, 0..1)
+
+        then:
+        conditions.eventually {
+            assert first.size() == 2
+        }
+        second.size() == 0
+    }
+
+    def "should detach subscription which starts too far behind the fetcher"() {
+        given:
+        def first = feed("first")
+        fetcher.register(first, PARTITION, 0)
+        fetcher.start()
+        awaitAssignment([PARTITION])
+        addRecords(PARTITION, 0..99)
+        conditions.eventually {
+            assert first.size() == 100
+        }
+        def lagging = feed("lagging")
+        def close = feed("close")
+
+        when:
+        // commands run in order, so the close subscription is registered once the lagging one is detached
+        fetcher.register(close, PARTITION, 60)
+        fetcher.register(lagging, PARTITION, 0)
+
+        then:
+        conditions.eventually {
+            assert lagging.isDetached()
+        }
+
+        when:
+        addRecords(PARTITION, 100..101)
+
+        then:
+        conditions.eventually {
+            assert first.size() == 102
+            assert close.size() == 2
+        }
+        !close.isDetached()
+        lagging.size() == 0
+    }
+
+    def "should detach subscription when its feed is full"() {
+        given:
+        def slow = feed("slow", 2)
+        def fast = feed("fast")
+        fetcher.register(slow, PARTITION, 0)
+        fetcher.register(fast, PARTITION, 0)
+        fetcher.start()
+        awaitAssignment([PARTITION])
+
+        when:
+        addRecords(PARTITION, 0..2)
+
+        then:
+        conditions.eventually {
+            assert slow.isDetached()
+            assert fast.size() == 3
+        }
+
+        when:
+        addRecords(PARTITION, 3..4)
+
+        then:
+        conditions.eventually {
+            assert fast.size() == 5
+        }
+        slow.size() == 2
+    }
+
+    def "should not queue records in feed closed before it is unregistered"() {
+        given:
+        def closed = feed("closed")
+        def other = feed("other")
+        fetcher.register(closed, PARTITION, 0)
+        fetcher.register(other, PARTITION, 0)
+        fetcher.start()
+        awaitAssignment([PARTITION])
+
+        when:
+        closed.close()
+        addRecords(PARTITION, 0..1)
+
+        then:
+        conditions.eventually {
+            assert other.size() == 2
+        }
+        closed.size() == 0
+    }
+
+    private void awaitAssignment(List<TopicPartition> partitions) {
+        conditions.eventually {
+            assert consumer.assignment() == partitions as Set
+        }
+    }
+
+    private void addRecords(TopicPartition partition, IntRange offsets) {
+        offsets.each {
+            consumer.addRecord(new ConsumerRecord<byte[], byte[]>(partition.topic(), partition.partition(), it, new byte[0], new byte[0]))
+        }
+    }
+
+    private static SubscriptionFeed feed(String name, int capacity = 1000) {
+        new SubscriptionFeed(SubscriptionName.fromString("group.topic\$" + name), capacity)
+    }
+}
@@ -0,0 +1,71 @@
+package pl.allegro.tech.hermes.consumers.consumer.receiver.kafka
+
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.apache.kafka.common.TopicPartition
+import pl.allegro.tech.hermes.api.SubscriptionName
+import spock.lang.Specification
+
+import java.time.Duration
+
+class SubscriptionFeedTest extends Specification {
+
+    static final TopicPartition PARTITION = new TopicPartition("topic", 0)
+
+    def feed = new SubscriptionFeed(SubscriptionName.fromString("group.topic\$subscription"), 2)
+
+    def "should skip records of unregistered partitions and records before registered offset"() {
+        given:
+        feed.register(PARTITION, 5)
+
+        expect:
+        feed.offer(record(new TopicPartition("topic", 1), 10))
+        feed.offer(record(PARTITION, 4))
+        feed.size() == 0
+
+        when:
+        feed.offer(record(PARTITION, 5))
+
+        then:
+        feed.poll(Duration.ZERO).offset() == 5
+    }
+
+    def "should not queue the same record twice when fetcher goes back"() {
+        given:
+        feed.register(PARTITION, 0)
+
+        when:
+        feed.offer(record(PARTITION, 0))
+        feed.offer(record(PARTITION, 0))
+
+        then:
+        feed.size() == 1
+    }
+
+    def "should reject record when queue is full"() {
+        given:
+        feed.register(PARTITION, 0)
+
+        expect:
+        feed.offer(record(PARTITION, 0))
+        feed.offer(record(PARTITION, 1))
+        !feed.offer(record(PARTITION, 2))
+    }
+
+    def "should drop queued and pushed records once closed"() {
+        given:
+        feed.register(PARTITION, 0)
+        feed.offer(record(PARTITION, 0))
+
+        when:
+        feed.close()
+
+        then:
+        feed.size() == 0
+        feed.offer(record(PARTITION, 1))
+        feed.size() == 0
+    }
+
+    private static ConsumerRecord<byte[], byte[]> record(TopicPartition partition, long offset) {
+        new ConsumerRecord<byte[], byte[]>(partition.topic(), partition.partition(), offset, new byte[0], new byte[0])
+    }
+}
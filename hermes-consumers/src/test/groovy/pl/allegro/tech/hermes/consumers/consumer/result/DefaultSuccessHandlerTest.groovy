@@ -2,9 +2,11 @@ package pl.allegro.tech.hermes.consumers.consumer.result
 
 import pl.allegro.tech.hermes.api.Subscription
 import pl.allegro.tech.hermes.api.TrackingMode
+import pl.allegro.tech.hermes.common.kafka.KafkaTopicName
 import pl.allegro.tech.hermes.common.metric.MetricsFacade
 import pl.allegro.tech.hermes.consumers.consumer.Message
 import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetQueue
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartition
 import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSendingResult
 import pl.allegro.tech.hermes.consumers.test.MessageBuilder
 import pl.allegro.tech.hermes.test.helper.metrics.TestMetricsFacadeFactory
@@ -36,6 +38,24 @@ class DefaultSuccessHandlerTest extends Specification {
 
         then:
         sendingTracker.hasSuccessfulLog('kafka_topic', 0, 123L)
-        offsetQueue.drainCommittedOffsets({ o -> assert o.partition == 0 && o.offset == 123L })
+        offsetQueue.drainCommittedOffsets({ partition, offset -> assert partition.partition == 0 && offset == 123L })
+    }
+
+    def "should commit offset with the partition instance the message was reported inflight for"() {
+        given:
+        Message message = MessageBuilder.withTestMessage().withPartitionOffset('kafka_topic', 0, 123L).build()
+        def inflightPartition = new SubscriptionPartition(
+                KafkaTopicName.valueOf('kafka_topic'), subscription.qualifiedName, 0, message.partitionAssignmentTerm)
+        message.setSubscriptionPartition(inflightPartition)
+        def committed = []
+
+        when:
+        handler.handleSuccess(message, subscription, MessageSendingResult.succeededResult())
+
+        then:
+        offsetQueue.drainCommittedOffsets({ partition, offset -> committed << [partition, offset] })
+        committed.size() == 1
+        committed[0][0].is(inflightPartition)
+        committed[0][1] == 123L
     }
 }
@@ -0,0 +1,70 @@
+package pl.allegro.tech.hermes.consumers.consumer.sender.http
+
+import com.codahale.metrics.MetricRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import pl.allegro.tech.hermes.common.metric.HermesMetrics
+import pl.allegro.tech.hermes.common.metric.MetricsFacade
+import pl.allegro.tech.hermes.consumers.config.Http1ClientProperties
+import pl.allegro.tech.hermes.metrics.PathsCompiler
+import spock.lang.Specification
+
+import static pl.allegro.tech.hermes.common.metric.Timers.CONSUMER_SENDER_ENDPOINT_QUEUE_TIME
+
+class EndpointConnectionPoolsTest extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    MetricRegistry metricRegistry = new MetricRegistry()
+    EndpointConnectionPools connectionPools = EndpointConnectionPools.duplex(
+            "client",
+            new Http1ClientProperties(),
+            new MetricsFacade(meterRegistry, new HermesMetrics(metricRegistry, new PathsCompiler("localhost"))).consumerSender()
+    )
+
+    def "should keep endpoint metrics while any sender uses the endpoint"() {
+        given:
+        def first = connectionPools.senderEndpoints()
+        def second = connectionPools.senderEndpoints()
+        first.use(URI.create("http://localhost:8080/first"))
+        second.use(URI.create("http://localhost:8080/second"))
+
+        when:
+        first.release()
+
+        then:
+        queueTimers() == 1
+        metricRegistry.timers.size() == 1
+    }
+
+    def "should evict endpoint metrics when last sender of the endpoint is released"() {
+        given:
+        def first = connectionPools.senderEndpoints()
+        def second = connectionPools.senderEndpoints()
+        first.use(URI.create("http://localhost:8080/first"))
+        first.use(URI.create("http://localhost:8080/first"))
+        second.use(URI.create("http://localhost:8080/second"))
+
+        when:
+        first.release()
+        second.release()
+
+        then:
+        queueTimers() == 0
+        metricRegistry.timers.isEmpty()
+    }
+
+    def "should not register endpoints used after sender is released"() {
+        given:
+        def sender = connectionPools.senderEndpoints()
+        sender.release()
+
+        when:
+        sender.use(URI.create("https://localhost/endpoint"))
+
+        then:
+        queueTimers() == 0
+    }
+
+    private int queueTimers() {
+        meterRegistry.find(CONSUMER_SENDER_ENDPOINT_QUEUE_TIME).timers().size()
+    }
+}
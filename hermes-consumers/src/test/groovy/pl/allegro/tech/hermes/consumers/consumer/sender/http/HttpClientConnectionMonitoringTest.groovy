@@ -5,7 +5,9 @@ import com.github.tomakehurst.wiremock.WireMockServer
 import io.micrometer.core.instrument.MeterRegistry
 import io.micrometer.core.instrument.search.Search
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.eclipse.jetty.client.DuplexConnectionPool
 import org.eclipse.jetty.client.HttpClient
+import org.eclipse.jetty.client.HttpDestination
 import pl.allegro.tech.hermes.common.metric.HermesMetrics
 import pl.allegro.tech.hermes.common.metric.MetricsFacade
 import pl.allegro.tech.hermes.common.metric.executor.InstrumentedExecutorServiceFactory
@@ -46,7 +48,8 @@ class HttpClientConnectionMonitoringTest extends Specification {
         ConsumerSenderConfiguration consumerConfiguration = new ConsumerSenderConfiguration();
         client = consumerConfiguration.http1SerialClient(new HttpClientsFactory(
                 new InstrumentedExecutorServiceFactory(threadPoolMetrics),
-                sslContextFactoryProvider), new Http1ClientProperties()
+                sslContextFactoryProvider,
+                metrics), new Http1ClientProperties()
         )
         batchClient = Mock(HttpClient)
         client.start()
@@ -82,4 +85,27 @@ class HttpClientConnectionMonitoringTest extends Specification {
         metricRegistry.gauges.size() == 0
         Search.in(meterRegistry).gauges().size() == 0
     }
+
+    def "should report queue time of requests per endpoint"() {
+        when:
+        client.POST("http://localhost:${port}/hello").send()
+
+        then:
+        def queueTime = Search.in(meterRegistry)
+                .name("http-clients.endpoint-queue-time")
+                .tags("client", "jetty-http1-serial-client", "endpoint", "localhost:${port}".toString())
+                .timer()
+        queueTime.count() == 1
+        metricRegistry.timers["http-clients.endpoint-queue-time.jetty-http1-serial-client.localhost_${port}".toString()].count == 1
+    }
+
+    def "should keep connections of an endpoint in a pool created for it"() {
+        when:
+        client.POST("http://localhost:${port}/hello").send()
+
+        then:
+        def destination = client.getDestinations().find { it.port == port } as HttpDestination
+        destination.connectionPool instanceof DuplexConnectionPool
+        (destination.connectionPool as DuplexConnectionPool).maxConnectionCount == new Http1ClientProperties().maxConnectionsPerDestination
+    }
 }
@@ -0,0 +1,83 @@
+package pl.allegro.tech.hermes.consumers.consumer.spill
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.time.Duration
+
+import static java.nio.charset.StandardCharsets.UTF_8
+
+class RetrySpillQueueTest extends Specification {
+
+    def directory = Files.createTempDirectory("retry-spill").toFile()
+    def store = RetrySpillStore.create(directory, 16, 2, Duration.ofSeconds(1))
+    def restored = [:]
+    def restorer = { String element, byte[] payload -> restored[element] = new String(payload, UTF_8) }
+
+    def setup() {
+        store.start()
+    }
+
+    def cleanup() {
+        store.stop()
+        directory.deleteDir()
+    }
+
+    def "should spill only retries delayed at least by the threshold"() {
+        expect:
+        !store.accepts(999)
+        store.accepts(1000)
+        !RetrySpillStore.disabled().accepts(Long.MAX_VALUE)
+    }
+
+    def "should give back payloads of elements in order of their due time"() {
+        given:
+        RetrySpillQueue<String> queue = store.newQueue()
+        queue.offer("late", "late".getBytes(UTF_8), 200)
+        queue.offer("early", "early".getBytes(UTF_8), 100)
+
+        expect:
+        !queue.pollDue(99, restorer).isPresent()
+
+        and:
+        queue.pollDue(250, restorer).get() == "early"
+        queue.pollDue(250, restorer).get() == "late"
+        !queue.pollDue(250, restorer).isPresent()
+        restored == [early: "early", late: "late"]
+        queue.size() == 0
+    }
+
+    def "should refuse payloads when there is no space left and reuse released segments"() {
+        given:
+        RetrySpillQueue<String> queue = store.newQueue()
+
+        expect:
+        queue.offer("first", new byte[16], 0)
+        queue.offer("second", new byte[16], 0)
+        !queue.offer("third", new byte[1], 0)
+        !queue.offer("too-large", new byte[17], 0)
+
+        when:
+        queue.pollDue(0, restorer)
+
+        then:
+        queue.offer("third", new byte[8], 0)
+        queue.offer("fourth", new byte[8], 0)
+        !queue.offer("fifth", new byte[1], 0)
+    }
+
+    def "should release payloads of all elements on clear"() {
+        given:
+        RetrySpillQueue<String> queue = store.newQueue()
+        queue.offer("first", new byte[16], 0)
+        queue.offer("second", new byte[16], 0)
+
+        when:
+        queue.clear()
+
+        then:
+        queue.size() == 0
+        queue.offer("third", new byte[16], 0)
+        queue.offer("fourth", new byte[16], 0)
+    }
+}
@@ -0,0 +1,76 @@
+package pl.allegro.tech.hermes.consumers.consumer.timer
+
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class HashedWheelTimerTest extends Specification {
+
+    def timer = new HashedWheelTimer("test-timer", Duration.ofMillis(1), 8, 2, Executors.newCachedThreadPool())
+    def conditions = new PollingConditions(timeout: 5)
+
+    def setup() {
+        timer.start()
+    }
+
+    def cleanup() {
+        timer.stop()
+    }
+
+    def "should run tasks after their delays, including ones longer than a wheel rotation"() {
+        given:
+        def executed = new CopyOnWriteArrayList<String>()
+        def group = timer.newGroup()
+        long start = System.nanoTime()
+        long delayedRun = 0
+
+        when:
+        group.schedule({ delayedRun = System.nanoTime(); executed.add("delayed") }, 50, TimeUnit.MILLISECONDS)
+        group.schedule({ executed.add("immediate") }, 0, TimeUnit.MILLISECONDS)
+
+        then:
+        conditions.eventually {
+            assert executed == ["immediate", "delayed"]
+        }
+        TimeUnit.NANOSECONDS.toMillis(delayedRun - start) >= 50
+        group.backlog == 0
+    }
+
+    def "should not run tasks of cancelled group"() {
+        given:
+        def executed = new CopyOnWriteArrayList<String>()
+        def cancelled = timer.newGroup()
+        def active = timer.newGroup()
+
+        when:
+        cancelled.schedule({ executed.add("cancelled") }, 20, TimeUnit.MILLISECONDS)
+        active.schedule({ executed.add("active") }, 40, TimeUnit.MILLISECONDS)
+
+        then:
+        cancelled.backlog == 1
+
+        when:
+        cancelled.cancelAll()
+
+        then:
+        cancelled.backlog == 0
+        conditions.eventually {
+            assert executed == ["active"]
+        }
+    }
+
+    def "should report backlog of scheduled tasks"() {
+        given:
+        def group = timer.newGroup()
+
+        when:
+        3.times { group.schedule({}, 1, TimeUnit.MINUTES) }
+
+        then:
+        group.backlog == 3
+    }
+}
@@ -0,0 +1,41 @@
+package pl.allegro.tech.hermes.consumers.supervisor
+
+import spock.lang.Requires
+import spock.lang.Specification
+
+class ConsumerThreadsFactoryTest extends Specification {
+
+    def "should create named platform threads by default"() {
+        given:
+        def threadFactory = new ConsumerThreadsFactory(false).create("Consumer-")
+
+        when:
+        def thread = threadFactory.newThread({ })
+
+        then:
+        thread.name == "Consumer-0"
+        thread.class == Thread
+    }
+
+    @Requires({ Runtime.version().feature() >= 21 })
+    def "should create named virtual threads when enabled"() {
+        given:
+        def threadFactory = new ConsumerThreadsFactory(true).create("Consumer-")
+
+        when:
+        def thread = threadFactory.newThread({ })
+
+        then:
+        thread.name == "Consumer-0"
+        thread.isVirtual()
+    }
+
+    @Requires({ Runtime.version().feature() < 21 })
+    def "should fail on startup when virtual threads are not supported"() {
+        when:
+        new ConsumerThreadsFactory(true)
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
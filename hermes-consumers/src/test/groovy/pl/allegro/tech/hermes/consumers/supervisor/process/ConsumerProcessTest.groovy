@@ -2,6 +2,9 @@ package pl.allegro.tech.hermes.consumers.supervisor.process
 
 import pl.allegro.tech.hermes.api.Subscription
 import pl.allegro.tech.hermes.api.SubscriptionName
+import pl.allegro.tech.hermes.common.kafka.KafkaTopicName
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartition
+import pl.allegro.tech.hermes.consumers.consumer.offset.SubscriptionPartitionOffset
 import pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder
 import spock.lang.Specification
 
@@ -12,6 +15,7 @@ import java.time.ZoneId
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
 import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
 
 class ConsumerProcessTest extends Specification {
 
@@ -129,4 +133,28 @@ class ConsumerProcessTest extends Specification {
         process.accept(Signal.of(Signal.SignalType.STOP, subscription.qualifiedName))
         waiter.waitForSignalProcessing()
     }
+
+    def "should commit offsets of commit signals processed at once in a single commit"() {
+        given:
+        process.accept(commitSignal(offset(0, 10), offset(1, 20)))
+        process.accept(commitSignal(offset(0, 15)))
+        process.accept(commitSignal(offset(2, 5)))
+        process.accept(Signal.of(Signal.SignalType.STOP, subscription.qualifiedName))
+
+        when:
+        executor.submit(process).get(10, TimeUnit.SECONDS)
+
+        then:
+        consumer.commits == [[offset(0, 15), offset(1, 20), offset(2, 5)] as Set]
+    }
+
+    private Signal commitSignal(SubscriptionPartitionOffset... offsets) {
+        return Signal.of(Signal.SignalType.COMMIT, subscription.qualifiedName, offsets as Set)
+    }
+
+    private SubscriptionPartitionOffset offset(int partition, long offset) {
+        def subscriptionPartition = new SubscriptionPartition(
+                KafkaTopicName.valueOf("group_topic"), subscription.qualifiedName, partition, 1)
+        return new SubscriptionPartitionOffset(subscriptionPartition, offset)
+    }
 }
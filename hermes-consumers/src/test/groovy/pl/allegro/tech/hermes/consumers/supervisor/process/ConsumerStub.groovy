@@ -24,6 +24,8 @@ class ConsumerStub implements Consumer {
 
     boolean blockOnTeardown = false
 
+    List<Set<SubscriptionPartitionOffset>> commits = []
+
     ConsumerStub(Subscription subscription) {
         this.subscription = subscription
     }
@@ -70,6 +72,7 @@ class ConsumerStub implements Consumer {
 
     @Override
     void commit(Set<SubscriptionPartitionOffset> offsets) {
+        commits.add(offsets)
     }
 
     @Override
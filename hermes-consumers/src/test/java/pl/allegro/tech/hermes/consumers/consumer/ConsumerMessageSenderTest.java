@@ -8,6 +8,8 @@ import org.mockito.runners.MockitoJUnitRunner;
 import pl.allegro.tech.hermes.api.Subscription;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.common.metric.SubscriptionMetrics;
+import pl.allegro.tech.hermes.consumers.config.CommonConsumerProperties;
+import pl.allegro.tech.hermes.consumers.consumer.rate.AdaptiveInflightLimit;
 import pl.allegro.tech.hermes.consumers.consumer.rate.AdjustableSemaphore;
 import pl.allegro.tech.hermes.consumers.consumer.rate.SerialConsumerRateLimiter;
 import pl.allegro.tech.hermes.consumers.consumer.result.ErrorHandler;
@@ -16,6 +18,9 @@ import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSender;
 import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSenderFactory;
 import pl.allegro.tech.hermes.consumers.consumer.sender.MessageSendingResult;
 import pl.allegro.tech.hermes.consumers.consumer.sender.timeout.FutureAsyncTimeout;
+import pl.allegro.tech.hermes.consumers.consumer.spill.RetrySpillQueue;
+import pl.allegro.tech.hermes.consumers.consumer.spill.RetrySpillStore;
+import pl.allegro.tech.hermes.consumers.consumer.timer.HashedWheelTimer;
 import pl.allegro.tech.hermes.consumers.supervisor.workload.weighted.NoOpConsumerNodeLoadRegistry;
 import pl.allegro.tech.hermes.consumers.test.MessageBuilder;
 import pl.allegro.tech.hermes.metrics.HermesCounter;
@@ -23,16 +28,22 @@ import pl.allegro.tech.hermes.metrics.HermesTimer;
 import pl.allegro.tech.hermes.metrics.HermesTimerContext;
 import pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.Clock;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import static com.jayway.awaitility.Awaitility.await;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
@@ -47,6 +58,8 @@ import static pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder.sub
 public class ConsumerMessageSenderTest {
 
     public static final int ASYNC_TIMEOUT_MS = 2000;
+
+    private static final HashedWheelTimer TIMER = startedTimer();
     private Subscription subscription = subscriptionWithTtl(10);
 
     private Subscription subscriptionWith4xxRetry = subscriptionWithTtlAndClientErrorRetry(10);
@@ -137,6 +150,23 @@ public class ConsumerMessageSenderTest {
         verifyErrorHandlerHandleFailed(message, subscription, 2);
     }
 
+    @Test
+    public void shouldRetrySendingWhenErrorHandlerFails() {
+        // given
+        Message message = message();
+        doReturn(failure()).doReturn(success()).when(messageSender).send(message);
+        doThrow(new IllegalStateException("error handler failure"))
+                .when(errorHandler).handleFailed(eq(message), eq(subscription), any(MessageSendingResult.class));
+
+        // when
+        sender.sendAsync(message);
+        verify(successHandler, timeout(1000)).handleSuccess(eq(message), eq(subscription), any(MessageSendingResult.class));
+
+        // then
+        verifySemaphoreReleased();
+        verifyErrorHandlerHandleFailed(message, subscription, 1);
+    }
+
     @Test
     public void shouldDiscardMessageWhenTTLIsExceeded() {
         // given
@@ -385,7 +415,38 @@ public class ConsumerMessageSenderTest {
         verifyZeroInteractions(successHandler);
     }
 
+    @Test
+    public void shouldReleaseInflightOfSpilledRetryAndResendItWhenDue() throws IOException, InterruptedException {
+        // given
+        RetrySpillStore spillStore = RetrySpillStore.create(
+                Files.createTempDirectory("retry-spill").toFile(), 1024, 1, Duration.ZERO);
+        spillStore.start();
+        ConsumerMessageSender sender = consumerMessageSender(subscription, spillStore.newQueue());
+        Message message = message();
+        doReturn(failure()).doReturn(success()).when(messageSender).send(message);
+
+        // when
+        sender.sendAsync(message);
+
+        // then
+        await().atMost(1, TimeUnit.SECONDS).until(() -> inflightSemaphore.availablePermits() == 1);
+        verifyZeroInteractions(successHandler);
+
+        // when
+        assertThat(inflightSemaphore.tryAcquire(1, TimeUnit.MILLISECONDS)).isTrue();
+        await().atMost(1, TimeUnit.SECONDS).until(() -> sender.resendSpilledRetry() && message.getData() != null);
+
+        // then
+        verify(successHandler, timeout(1000)).handleSuccess(eq(message), eq(subscription), any(MessageSendingResult.class));
+        verifySemaphoreReleased();
+        spillStore.stop();
+    }
+
     private ConsumerMessageSender consumerMessageSender(Subscription subscription) {
+        return consumerMessageSender(subscription, RetrySpillStore.disabled().newQueue());
+    }
+
+    private ConsumerMessageSender consumerMessageSender(Subscription subscription, RetrySpillQueue<Message> spilledRetries) {
         when(messageSenderFactory.create(eq(subscription), any(ResilientMessageSender.class))).thenReturn(messageSender);
         ConsumerMessageSender sender = new ConsumerMessageSender(
                 subscription,
@@ -395,11 +456,14 @@ public class ConsumerMessageSenderTest {
                 rateLimiter,
                 Executors.newSingleThreadExecutor(),
                 () -> inflightSemaphore.release(),
+                new AdaptiveInflightLimit(inflightSemaphore, new CommonConsumerProperties.AdaptiveInflight(), 1, 1),
                 metricsFacade,
                 ASYNC_TIMEOUT_MS,
                 new FutureAsyncTimeout(Executors.newSingleThreadScheduledExecutor()),
                 Clock.systemUTC(),
-                new NoOpConsumerNodeLoadRegistry().register(subscription.getQualifiedName())
+                new NoOpConsumerNodeLoadRegistry().register(subscription.getQualifiedName()),
+                TIMER,
+                spilledRetries
         );
         sender.initialize();
 
@@ -521,4 +585,10 @@ public class ConsumerMessageSenderTest {
                 .withPublishingTimestamp(timestamp)
                 .build();
     }
+
+    private static HashedWheelTimer startedTimer() {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", Duration.ofMillis(1), 512, 1, Executors.newCachedThreadPool());
+        timer.start();
+        return timer;
+    }
 }
@@ -0,0 +1,251 @@
+package pl.allegro.tech.hermes.consumers.consumer.batch;
+
+import org.junit.Test;
+import pl.allegro.tech.hermes.api.SubscriptionName;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedDirectBufferPoolTest {
+
+    private static final SubscriptionName SUBSCRIPTION = SubscriptionName.fromString("group.topic$subscription");
+    private static final SubscriptionName OTHER_SUBSCRIPTION = SubscriptionName.fromString("group.topic$other");
+
+    @Test
+    public void shouldRoundAllocationUpToSizeClassAndLimitBufferToRequestedSize() throws InterruptedException {
+        // given
+        SegmentedDirectBufferPool pool = new SegmentedDirectBufferPool(16 * 1024, 1024, true);
+
+        // when
+        ByteBuffer buffer = pool.allocate(SUBSCRIPTION, 1500);
+
+        // then
+        assertEquals("Buffer should be limited to requested size.", 1500, buffer.remaining());
+        assertEquals("Buffer should have capacity of its size class.", 2048, buffer.capacity());
+        assertEquals(2048, pool.usedMemory());
+        assertEquals(2048 - 1500, pool.fragmentedMemory());
+        assertEquals(16 * 1024 - 2048, pool.availableMemory());
+    }
+
+    @Test
+    public void shouldReuseReleasedBufferOfTheSameSizeClass() throws InterruptedException {
+        // given
+        SegmentedDirectBufferPool pool = new SegmentedDirectBufferPool(16 * 1024, 1024, true);
+        ByteBuffer released = pool.allocate(SUBSCRIPTION, 2000);
+        released.putInt(1);
+        pool.deallocate(SUBSCRIPTION, released, 2000);
+
+        // when
+        ByteBuffer buffer = pool.allocate(SUBSCRIPTION, 1800);
+
+        // then
+        assertSame(released, buffer);
+        assertEquals("Recycled buffer should be cleared.", 0, buffer.position());
+        assertEquals(1800, buffer.limit());
+        assertEquals(16 * 1024 - 2048, pool.availableMemory());
+    }
+
+    @Test
+    public void shouldShareReleasedBuffersBetweenSubscriptionsWhileSomeoneWaits() throws Exception {
+        // given
+        SegmentedDirectBufferPool pool = new SegmentedDirectBufferPool(2 * 1024, 1024, false);
+        ByteBuffer first = pool.allocate(SUBSCRIPTION, 1024);
+        pool.allocate(SUBSCRIPTION, 1024);
+        CountDownLatch allocation = asyncAllocate(pool, OTHER_SUBSCRIPTION, 1024);
+        awaitQueued(pool, 1);
+
+        // when
+        pool.deallocate(SUBSCRIPTION, first, 1024);
+
+        // then
+        assertTrue(allocation.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldReturnAllMemoryAfterDeallocation() throws InterruptedException {
+        // given
+        SegmentedDirectBufferPool pool = new SegmentedDirectBufferPool(10 * 1024, 1024, true);
+        ByteBuffer pooled = pool.allocate(SUBSCRIPTION, 1000);
+        ByteBuffer oversized = pool.allocate(OTHER_SUBSCRIPTION, 9 * 1024);
+
+        // when
+        pool.deallocate(SUBSCRIPTION, pooled, 1000);
+        pool.deallocate(OTHER_SUBSCRIPTION, oversized, 9 * 1024);
+
+        // then
+        assertEquals(10 * 1024, pool.availableMemory());
+        assertEquals(0, pool.usedMemory());
+        assertEquals(0, pool.fragmentedMemory());
+    }
+
+    @Test
+    public void shouldAllocateRequestsBiggerThanTheBiggestSizeClassWithExactSize() throws InterruptedException {
+        // given
+        SegmentedDirectBufferPool pool = new SegmentedDirectBufferPool(10 * 1024, 1024, true);
+
+        // when
+        ByteBuffer buffer = pool.allocate(SUBSCRIPTION, 9 * 1024);
+
+        // then
+        assertEquals(9 * 1024, buffer.capacity());
+        assertEquals(1024, pool.availableMemory());
+    }
+
+    @Test
+    public void shouldReleaseCachedBuffersOfOtherSizeClassesWhenOutOfMemory() throws InterruptedException {
+        // given
+        SegmentedDirectBufferPool pool = new SegmentedDirectBufferPool(8 * 1024, 1024, false);
+        ByteBuffer first = pool.allocate(SUBSCRIPTION, 4096);
+        ByteBuffer second = pool.allocate(OTHER_SUBSCRIPTION, 4096);
+        pool.deallocate(SUBSCRIPTION, first, 4096);
+        pool.deallocate(OTHER_SUBSCRIPTION, second, 4096);
+
+        // when
+        ByteBuffer buffer = pool.allocate(SUBSCRIPTION, 8 * 1024);
+
+        // then
+        assertEquals(8 * 1024, buffer.capacity());
+        assertEquals(0, pool.availableMemory());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllocateMoreMemoryThanTotalMemoryWeHave() throws InterruptedException {
+        // given
+        SegmentedDirectBufferPool pool = new SegmentedDirectBufferPool(1024, 512, true);
+
+        // when
+        pool.allocate(SUBSCRIPTION, 1025);
+    }
+
+    @Test
+    public void shouldBlockOnAllocationUntilMemoryIsAvailable() throws Exception {
+        // given
+        SegmentedDirectBufferPool pool = new SegmentedDirectBufferPool(4 * 1024, 1024, false);
+        ByteBuffer buffer = pool.allocate(SUBSCRIPTION, 1024);
+
+        // when
+        CountDownLatch allocation = asyncAllocate(pool, OTHER_SUBSCRIPTION, 4 * 1024);
+
+        // then
+        assertFalse("Allocation shouldn't have happened yet, waiting on memory.", allocation.await(200, TimeUnit.MILLISECONDS));
+        pool.deallocate(SUBSCRIPTION, buffer, 1024);
+        assertTrue(allocation.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldGiveReleasedMemoryToSubscriptionBelowItsShare() throws Exception {
+        // given
+        SegmentedDirectBufferPool pool = new SegmentedDirectBufferPool(4 * 1024, 1024, true);
+        SubscriptionName starving = SubscriptionName.fromString("group.topic$starving");
+        ByteBuffer first = pool.allocate(SUBSCRIPTION, 1024);
+        pool.allocate(SUBSCRIPTION, 1024);
+        pool.allocate(SUBSCRIPTION, 1024);
+        pool.allocate(OTHER_SUBSCRIPTION, 1024);
+
+        CountDownLatch starvingAllocation = asyncAllocate(pool, starving, 1024);
+        awaitQueued(pool, 1);
+        CountDownLatch greedyAllocation = asyncAllocate(pool, SUBSCRIPTION, 1024);
+        awaitQueued(pool, 2);
+
+        // when
+        pool.deallocate(SUBSCRIPTION, first, 1024);
+
+        // then
+        assertTrue(starvingAllocation.await(5, TimeUnit.SECONDS));
+        assertFalse("Subscription over its share should still wait.", greedyAllocation.await(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldSurviveHammeringOfLotsOfThreadsOnBufferPool() throws Exception {
+        // given
+        int numThreads = 10;
+        int iterations = 50000;
+        int totalMemory = numThreads / 2 * 1024;
+        SegmentedDirectBufferPool pool = new SegmentedDirectBufferPool(totalMemory, 256, true);
+
+        List<StressTestThread> threads = IntStream.range(0, numThreads)
+                .mapToObj(i -> new StressTestThread(pool, SubscriptionName.fromString("group.topic$s" + i % 3), iterations))
+                .collect(Collectors.toList());
+
+        // when
+        threads.forEach(StressTestThread::start);
+        threads.forEach(StressTestThread::joinQuietly);
+
+        // then
+        threads.forEach(thread ->
+                assertTrue("Thread should have completed all iterations successfully.", thread.success.get()));
+        assertEquals(totalMemory, pool.availableMemory());
+        assertEquals(0, pool.usedMemory());
+        assertEquals(0, pool.fragmentedMemory());
+    }
+
+    private static CountDownLatch asyncAllocate(SegmentedDirectBufferPool pool, SubscriptionName subscription, int size) {
+        CountDownLatch completed = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try {
+                pool.allocate(subscription, size);
+                completed.countDown();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return completed;
+    }
+
+    private static void awaitQueued(SegmentedDirectBufferPool pool, int queued) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.queued() < queued && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(queued, pool.queued());
+    }
+
+    private static class StressTestThread extends Thread {
+        private final SegmentedDirectBufferPool pool;
+        private final SubscriptionName subscription;
+        private final int iterations;
+        private final AtomicBoolean success = new AtomicBoolean(false);
+        private final Random random = new Random();
+
+        StressTestThread(SegmentedDirectBufferPool pool, SubscriptionName subscription, int iterations) {
+            this.pool = pool;
+            this.subscription = subscription;
+            this.iterations = iterations;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < iterations; i++) {
+                    int size = random.nextBoolean() ? 1024 : 1 + random.nextInt((int) pool.totalMemory());
+                    ByteBuffer buffer = pool.allocate(subscription, size);
+                    pool.deallocate(subscription, buffer, size);
+                }
+                success.set(true);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        void joinQuietly() {
+            try {
+                join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
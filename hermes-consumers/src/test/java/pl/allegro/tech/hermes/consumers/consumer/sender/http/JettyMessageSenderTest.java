@@ -8,6 +8,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import pl.allegro.tech.hermes.api.EndpointAddress;
 import pl.allegro.tech.hermes.api.EndpointAddressResolverMetadata;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.common.metric.executor.InstrumentedExecutorServiceFactory;
 import pl.allegro.tech.hermes.common.metric.executor.ThreadPoolMetrics;
 import pl.allegro.tech.hermes.consumers.config.ConsumerSenderConfiguration;
@@ -62,12 +63,14 @@ public class JettyMessageSenderTest {
 
         SslContextFactoryProvider sslContextFactoryProvider = new SslContextFactoryProvider(null, new SslContextProperties());
         ConsumerSenderConfiguration consumerConfiguration = new ConsumerSenderConfiguration();
+        MetricsFacade metrics = TestMetricsFacadeFactory.create();
         client = consumerConfiguration.http1SerialClient(
                 new HttpClientsFactory(
                         new InstrumentedExecutorServiceFactory(
-                                new ThreadPoolMetrics(TestMetricsFacadeFactory.create())
+                                new ThreadPoolMetrics(metrics)
                         ),
-                        sslContextFactoryProvider),
+                        sslContextFactoryProvider,
+                        metrics),
                 new Http1ClientProperties()
         );
         client.start();
@@ -0,0 +1,98 @@
+package pl.allegro.tech.hermes.consumers.queue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ObjectLongMpscQueueTest {
+
+    @Test
+    public void shouldRoundCapacityUpToPowerOfTwo() {
+        // expect
+        assertThat(new ObjectLongMpscQueue<String>(100).capacity()).isEqualTo(128);
+        assertThat(new ObjectLongMpscQueue<String>(128).capacity()).isEqualTo(128);
+    }
+
+    @Test
+    public void shouldDrainPairsInOrderOfOffering() {
+        // given
+        ObjectLongMpscQueue<String> queue = new ObjectLongMpscQueue<>(16);
+
+        // when
+        queue.offer("a", 1);
+        queue.offer("b", 2);
+        queue.offer("a", 3);
+
+        // then
+        assertThat(queue.size()).isEqualTo(3);
+
+        // when
+        List<String> drained = new ArrayList<>();
+        queue.drain((reference, value) -> drained.add(reference + value));
+
+        // then
+        assertThat(drained).containsExactly("a1", "b2", "a3");
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    public void shouldRejectPairsWhenFull() {
+        // given
+        ObjectLongMpscQueue<String> queue = new ObjectLongMpscQueue<>(2);
+        queue.offer("a", 1);
+        queue.offer("b", 2);
+
+        // expect
+        assertThat(queue.offer("c", 3)).isFalse();
+
+        // when
+        queue.drain((reference, value) -> { });
+
+        // then
+        assertThat(queue.offer("c", 3)).isTrue();
+    }
+
+    @Test
+    public void shouldDrainAllPairsOfferedByConcurrentProducers() throws InterruptedException {
+        // given
+        int producers = 4;
+        int pairsPerProducer = 100_000;
+        ObjectLongMpscQueue<Integer> queue = new ObjectLongMpscQueue<>(1024);
+        long[] lastValues = new long[producers];
+        long[] sums = new long[producers];
+        CountDownLatch finished = new CountDownLatch(producers);
+
+        List<Thread> threads = IntStream.range(0, producers)
+                .mapToObj(producer -> new Thread(() -> {
+                    for (long value = 1; value <= pairsPerProducer; value++) {
+                        while (!queue.offer(producer, value)) {
+                            Thread.yield();
+                        }
+                    }
+                    finished.countDown();
+                }))
+                .collect(Collectors.toList());
+
+        // when
+        threads.forEach(Thread::start);
+        ObjectLongMpscQueue.Consumer<Integer> consumer = (producer, value) -> {
+            assertThat(value).isGreaterThan(lastValues[producer]);
+            lastValues[producer] = value;
+            sums[producer] += value;
+        };
+        while (finished.getCount() > 0) {
+            queue.drain(consumer);
+        }
+        queue.drain(consumer);
+
+        // then
+        long expectedSum = (long) pairsPerProducer * (pairsPerProducer + 1) / 2;
+        assertThat(sums).containsOnly(expectedSum);
+    }
+}
@@ -16,6 +16,7 @@ import pl.allegro.tech.hermes.consumers.config.SubscriptionConfiguration;
 import pl.allegro.tech.hermes.consumers.config.WorkloadProperties;
 import pl.allegro.tech.hermes.consumers.config.ZookeeperProperties;
 import pl.allegro.tech.hermes.consumers.consumer.offset.ConsumerPartitionAssignmentState;
+import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetCommitTriggers;
 import pl.allegro.tech.hermes.consumers.consumer.offset.OffsetQueue;
 import pl.allegro.tech.hermes.consumers.health.ConsumerMonitor;
 import pl.allegro.tech.hermes.consumers.message.undelivered.UndeliveredMessageLogPersister;
@@ -230,7 +231,7 @@ class ConsumerTestRuntimeEnvironment {
                 metrics,
                 mock(ConsumerMonitor.class),
                 Clock.systemDefaultZone(),
-                Duration.ofSeconds(60));
+                OffsetCommitTriggers.periodic(Duration.ofSeconds(60)));
     }
 
     ConsumersRuntimeMonitor monitor(String consumerId,
@@ -25,24 +25,32 @@ public class BackupFilesManager {
 
     private static final String FILE_NAME = "hermes-buffer-v3";
     private static final String TIMESTAMPED_BACKUP_FILE_PATTERN = FILE_NAME + "-\\d+\\.dat";
+    private static final String LOG_DIRECTORY_NAME = "hermes-buffer-wal";
+    private static final String TIMESTAMPED_LOG_DIRECTORY_PATTERN = LOG_DIRECTORY_NAME + "-\\d+";
     private static final String OLD_V2_BACKUP_PREFIX = "hermes-buffer";
     private static final String OLD_V2_BACKUP_SUFFIX = "-v2-old.tmp";
 
     private final String baseDir;
     private final Clock clock;
     private final File backupFile;
+    private final File backupLogDirectory;
 
     public BackupFilesManager(String baseDir, Clock clock) {
         this.baseDir = baseDir;
         this.clock = clock;
 
         backupFile = getBackupFile();
+        backupLogDirectory = new File(baseDir, LOG_DIRECTORY_NAME);
     }
 
     public File getCurrentBackupFile() {
         return backupFile;
     }
 
+    public File getCurrentBackupLogDirectory() {
+        return backupLogDirectory;
+    }
+
     public Optional<File> rolloverBackupFileIfExists() {
         if (!backupFile.exists()) {
             logger.info("Backup file doesn't exist.");
@@ -64,6 +72,27 @@ public class BackupFilesManager {
         return Optional.of(timestampedBackupFile);
     }
 
+    public Optional<File> rolloverBackupLogDirectoryIfExists() {
+        if (!backupLogDirectory.exists()) {
+            logger.info("Backup log directory doesn't exist.");
+            return Optional.empty();
+        }
+
+        File timestampedBackupLogDirectory = new File(format("%s/%s-%s", baseDir, LOG_DIRECTORY_NAME, clock.millis()));
+
+        try {
+            FileUtils.moveDirectory(backupLogDirectory, timestampedBackupLogDirectory);
+        } catch (IOException e) {
+            logger.error("Error while moving backup log directory from path {} to path {}.",
+                    backupLogDirectory.getAbsolutePath(),
+                    timestampedBackupLogDirectory.getAbsolutePath(),
+                    e);
+            return Optional.empty();
+        }
+
+        return Optional.of(timestampedBackupLogDirectory);
+    }
+
     public List<File> getTemporaryBackupV2Files(String temporaryDir) {
         try {
             Path dir = Paths.get(temporaryDir);
@@ -92,4 +121,10 @@ public class BackupFilesManager {
     public List<File> getRolledBackupFiles() {
         return newArrayList(new File(baseDir).listFiles(new PatternFilenameFilter(TIMESTAMPED_BACKUP_FILE_PATTERN)));
     }
+
+    public List<File> getRolledBackupLogDirectories() {
+        File[] directories = new File(baseDir).listFiles(
+                file -> file.isDirectory() && file.getName().matches(TIMESTAMPED_LOG_DIRECTORY_PATTERN));
+        return directories == null ? Collections.emptyList() : newArrayList(directories);
+    }
 }
@@ -7,6 +7,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.frontend.cache.topic.TopicsCache;
 import pl.allegro.tech.hermes.frontend.listeners.BrokerListeners;
 import pl.allegro.tech.hermes.frontend.metric.CachedTopic;
@@ -15,6 +16,7 @@ import pl.allegro.tech.hermes.frontend.publishing.PublishingCallback;
 import pl.allegro.tech.hermes.frontend.publishing.avro.AvroMessage;
 import pl.allegro.tech.hermes.frontend.publishing.message.JsonMessage;
 import pl.allegro.tech.hermes.frontend.publishing.message.Message;
+import pl.allegro.tech.hermes.metrics.HermesCounter;
 import pl.allegro.tech.hermes.metrics.HermesTimerContext;
 import pl.allegro.tech.hermes.schema.CompiledSchema;
 import pl.allegro.tech.hermes.schema.SchemaExistenceEnsurer;
@@ -32,12 +34,15 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class BackupMessagesLoader {
@@ -54,6 +59,11 @@ public class BackupMessagesLoader {
     private final int maxResendRetries;
     private final Duration resendSleep;
     private final Duration readTopicInfoSleep;
+    private final int maxInflightMessages;
+    private final Semaphore inflightWindow;
+    private final HermesCounter readMessages;
+    private final HermesCounter sentMessages;
+    private final HermesCounter discardedMessages;
 
     private final Set<Topic> topicsAvailabilityCache = new HashSet<>();
     private final AtomicReference<ConcurrentLinkedQueue<Pair<Message, CachedTopic>>> toResend = new AtomicReference<>();
@@ -64,7 +74,8 @@ public class BackupMessagesLoader {
                                 SchemaRepository schemaRepository,
                                 SchemaExistenceEnsurer schemaExistenceEnsurer,
                                 Trackers trackers,
-                                BackupMessagesLoaderParameters backupMessagesLoaderParameters) {
+                                BackupMessagesLoaderParameters backupMessagesLoaderParameters,
+                                MetricsFacade metricsFacade) {
         this.brokerMessageProducer = brokerMessageProducer;
         this.brokerListeners = brokerListeners;
         this.topicsCache = topicsCache;
@@ -75,22 +86,79 @@ public class BackupMessagesLoader {
         this.resendSleep = backupMessagesLoaderParameters.getLoadingPauseBetweenResend();
         this.readTopicInfoSleep = backupMessagesLoaderParameters.getLoadingWaitForBrokerTopicInfo();
         this.maxResendRetries = backupMessagesLoaderParameters.getMaxResendRetries();
+        this.maxInflightMessages = backupMessagesLoaderParameters.getLoadingMaxInflightMessages();
+        this.inflightWindow = new Semaphore(maxInflightMessages);
+        this.readMessages = metricsFacade.persistentBuffer().backupReplayReadMessages();
+        this.sentMessages = metricsFacade.persistentBuffer().backupReplaySentMessages();
+        this.discardedMessages = metricsFacade.persistentBuffer().backupReplayDiscardedMessages();
+        metricsFacade.persistentBuffer().registerBackupReplayInflightGauge(this, BackupMessagesLoader::getInflightMessages);
     }
 
+    /**
+     * Sends the messages to the broker and resends those which failed. Sends are pipelined, at most
+     * {@code loadingMaxInflightMessages} messages wait for the broker acknowledgement at once. Messages are sent in
+     * order of their timestamps, but failed messages are resent after the newer ones, so the order of messages of
+     * a topic is not guaranteed.
+     */
     public void loadMessages(List<BackupMessage> messages) {
-        logger.info("Loading {} messages from backup storage.", messages.size());
         toResend.set(new ConcurrentLinkedQueue<>());
+        LoadingProgress progress = new LoadingProgress();
+        sendInTimestampOrder(messages, progress);
+        progress.log();
+        resendFailedMessages();
+    }
+
+    /**
+     * Streams all messages of the repository to the broker and resends those which failed once all of them were sent.
+     * Repository replays its batches in timestamp order, so messages are sent in order of their timestamps, but failed
+     * messages are resent after the newer ones.
+     */
+    public void loadFromMessageRepository(MessageRepository messageRepository) {
+        toResend.set(new ConcurrentLinkedQueue<>());
+        LoadingProgress progress = new LoadingProgress();
+        messageRepository.replay(messages -> sendInTimestampOrder(messages, progress));
+        progress.log();
+        resendFailedMessages();
+    }
 
-        sendMessages(messages);
+    public void loadFromTemporaryBackupV2File(File file) {
+        try (FileInputStream fileInputStream = new FileInputStream(file);
+             ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream)) {
+            List<BackupMessage> messages = (List<BackupMessage>) objectInputStream.readObject();
+            logger.info("Loaded {} messages from temporary v2 backup file: {}", messages.size(), file);
+            loadMessages(messages);
 
-        if (toResend.get().size() == 0) {
+        } catch (IOException | ClassNotFoundException e) {
+            logger.error("Error reading temporary backup v2 files from path {}.", file.getAbsolutePath(), e);
+        }
+    }
+
+    public void clearTopicsAvailabilityCache() {
+        topicsAvailabilityCache.clear();
+    }
+
+    int getInflightMessages() {
+        return maxInflightMessages - inflightWindow.availablePermits();
+    }
+
+    private void sendInTimestampOrder(List<BackupMessage> messages, LoadingProgress progress) {
+        logger.debug("Loading {} messages from backup storage.", messages.size());
+        readMessages.increment(messages.size());
+
+        List<BackupMessage> orderedMessages = new ArrayList<>(messages);
+        orderedMessages.sort(Comparator.comparingLong(BackupMessage::getTimestamp));
+        sendMessages(orderedMessages, progress);
+    }
+
+    private void resendFailedMessages() {
+        if (toResend.get().size() == 0 && getInflightMessages() == 0) {
             logger.info("No messages to resend.");
             return;
         }
 
         int retry = 0;
         do {
-            if (retry > 0) {
+            if (retry > 0 && !toResend.get().isEmpty()) {
                 List<Pair<Message, CachedTopic>> retryMessages = Lists.newArrayList(toResend.getAndSet(new ConcurrentLinkedQueue<>()));
                 resendMessages(retryMessages, retry);
             }
@@ -100,30 +168,14 @@ public class BackupMessagesLoader {
                 logger.warn("Sleep interrupted", e);
             }
             retry++;
-        } while (toResend.get().size() > 0 && retry <= maxResendRetries);
+        } while ((toResend.get().size() > 0 || getInflightMessages() > 0) && retry <= maxResendRetries);
 
         logger.info("Finished resending messages from backup storage after retry #{} with {} unsent messages.", retry - 1,
                 toResend.get().size());
     }
 
-    public void loadFromTemporaryBackupV2File(File file) {
-        try (FileInputStream fileInputStream = new FileInputStream(file);
-             ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream)) {
-            List<BackupMessage> messages = (List<BackupMessage>) objectInputStream.readObject();
-            logger.info("Loaded {} messages from temporary v2 backup file: {}", messages.size(), file);
-            loadMessages(messages);
-
-        } catch (IOException | ClassNotFoundException e) {
-            logger.error("Error reading temporary backup v2 files from path {}.", file.getAbsolutePath(), e);
-        }
-    }
-
-    public void clearTopicsAvailabilityCache() {
-        topicsAvailabilityCache.clear();
-    }
-
-    private void sendMessages(List<BackupMessage> messages) {
-        logger.info("Sending {} messages from backup storage.", messages.size());
+    private void sendMessages(List<BackupMessage> messages, LoadingProgress progress) {
+        logger.debug("Sending {} messages from backup storage.", messages.size());
         int sentCounter = 0;
         int discardedCounter = 0;
         for (BackupMessage backupMessage : messages) {
@@ -131,11 +183,14 @@ public class BackupMessagesLoader {
             Optional<CachedTopic> optionalCachedTopic = topicsCache.getTopic(topicQualifiedName);
             if (sendBackupMessageIfNeeded(backupMessage, topicQualifiedName, optionalCachedTopic, "sending")) {
                 sentCounter++;
+                sentMessages.increment(1L);
             } else {
                 discardedCounter++;
+                discardedMessages.increment(1L);
             }
         }
-        logger.info("Loaded and sent {} messages and discarded {} messages from the backup storage.", sentCounter, discardedCounter);
+        logger.debug("Loaded and sent {} messages and discarded {} messages from the backup storage.", sentCounter, discardedCounter);
+        progress.batchSent(messages.size(), sentCounter, discardedCounter);
     }
 
     private void resendMessages(List<Pair<Message, CachedTopic>> messageAndTopicList, int retry) {
@@ -246,10 +301,12 @@ public class BackupMessagesLoader {
     }
 
     private void sendMessage(Message message, CachedTopic cachedTopic) {
+        inflightWindow.acquireUninterruptibly();
         HermesTimerContext brokerTimer = cachedTopic.startBrokerLatencyTimer();
         brokerMessageProducer.send(message, cachedTopic, new PublishingCallback() {
             @Override
             public void onUnpublished(Message message, Topic topic, Exception exception) {
+                inflightWindow.release();
                 brokerTimer.close();
                 brokerListeners.onError(message, topic, exception);
                 trackers.get(topic).logError(message.getId(), topic.getName(), exception.getMessage(), "", Collections.emptyMap());
@@ -258,6 +315,7 @@ public class BackupMessagesLoader {
 
             @Override
             public void onPublished(Message message, Topic topic) {
+                inflightWindow.release();
                 brokerTimer.close();
                 cachedTopic.incrementPublished();
                 brokerListeners.onAcknowledge(message, topic);
@@ -265,4 +323,23 @@ public class BackupMessagesLoader {
             }
         });
     }
+
+    private static final class LoadingProgress {
+        private int batches = 0;
+        private long loaded = 0;
+        private long sent = 0;
+        private long discarded = 0;
+
+        private void batchSent(int loadedInBatch, int sentInBatch, int discardedInBatch) {
+            batches++;
+            loaded += loadedInBatch;
+            sent += sentInBatch;
+            discarded += discardedInBatch;
+        }
+
+        private void log() {
+            logger.info("Loaded {} messages in {} batches from backup storage, sent {} and discarded {} messages.",
+                    loaded, batches, sent, discarded);
+        }
+    }
 }
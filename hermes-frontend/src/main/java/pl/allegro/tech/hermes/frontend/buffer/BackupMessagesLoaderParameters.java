@@ -11,4 +11,6 @@ public interface BackupMessagesLoaderParameters {
     Duration getLoadingPauseBetweenResend();
 
     Duration getLoadingWaitForBrokerTopicInfo();
+
+    int getLoadingMaxInflightMessages();
 }
@@ -4,6 +4,7 @@ import pl.allegro.tech.hermes.api.Topic;
 import pl.allegro.tech.hermes.frontend.publishing.message.Message;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MessageRepository {
 
@@ -13,5 +14,14 @@ public interface MessageRepository {
 
     List<BackupMessage> findAll();
 
+    /**
+     * Passes stored messages to the consumer in consecutive batches. Batches follow the order of message timestamps:
+     * no message of a batch is older than any message of the previous batches. Repositories able to read their
+     * storage incrementally should override it, by default all messages are passed in a single batch.
+     */
+    default void replay(Consumer<List<BackupMessage>> consumer) {
+        consumer.accept(findAll());
+    }
+
     void close();
 }
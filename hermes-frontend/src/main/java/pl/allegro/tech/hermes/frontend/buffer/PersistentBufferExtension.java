@@ -1,14 +1,19 @@
 package pl.allegro.tech.hermes.frontend.buffer;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.frontend.buffer.chronicle.ChronicleMapMessageRepository;
+import pl.allegro.tech.hermes.frontend.buffer.wal.WriteAheadLogMessageRepository;
 import pl.allegro.tech.hermes.frontend.listeners.BrokerListeners;
 
 import java.io.File;
 import java.time.Clock;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static java.util.stream.Collectors.joining;
 
@@ -16,6 +21,8 @@ public class PersistentBufferExtension {
 
     private static final Logger logger = LoggerFactory.getLogger(PersistentBufferExtension.class);
 
+    private enum MessageRepositoryType { CHRONICLE_MAP, WRITE_AHEAD_LOG }
+
     private final PersistentBufferExtensionParameters persistentBufferExtensionParameters;
 
     private final Clock clock;
@@ -50,16 +57,49 @@ public class PersistentBufferExtension {
 
         entries = (int) (backupStorageSizeInBytes / avgMessageSize);
 
+        backupFilesManager.rolloverBackupFileIfExists();
+        backupFilesManager.rolloverBackupLogDirectoryIfExists();
+
+        if (persistentBufferExtensionParameters.isLoadingInBackgroundEnabled()) {
+            enableLocalStorageIfNeeded(backupFilesManager);
+            loadBackupsInBackground(backupFilesManager);
+        } else {
+            loadBackups(backupFilesManager);
+            enableLocalStorageIfNeeded(backupFilesManager);
+        }
+    }
+
+    private void loadBackupsInBackground(BackupFilesManager backupFilesManager) {
+        ExecutorService executor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("backup-messages-loader-%d").setDaemon(true).build());
+        executor.execute(() -> {
+            try {
+                loadBackups(backupFilesManager);
+                logger.info("Finished loading messages from backup storage in background.");
+            } catch (Exception e) {
+                logger.error("An error occurred while loading messages from backup storage in background", e);
+            }
+        });
+        executor.shutdown();
+    }
+
+    private void loadBackups(BackupFilesManager backupFilesManager) {
         if (persistentBufferExtensionParameters.isV2MigrationEnabled()) {
             loadTemporaryBackupV2Files(backupFilesManager);
         }
 
-        backupFilesManager.rolloverBackupFileIfExists();
         List<File> rolledBackupFiles = backupFilesManager.getRolledBackupFiles();
         if (!rolledBackupFiles.isEmpty()) {
             rollBackupFiles(backupFilesManager, rolledBackupFiles);
         }
 
+        List<File> rolledBackupLogDirectories = backupFilesManager.getRolledBackupLogDirectories();
+        if (!rolledBackupLogDirectories.isEmpty()) {
+            rollBackupLogDirectories(backupFilesManager, rolledBackupLogDirectories);
+        }
+    }
+
+    private void enableLocalStorageIfNeeded(BackupFilesManager backupFilesManager) {
         if (persistentBufferExtensionParameters.isEnabled()) {
             enableLocalStorage(backupFilesManager);
         }
@@ -80,10 +120,16 @@ public class PersistentBufferExtension {
             backupMessagesLoader.clearTopicsAvailabilityCache();
     }
 
+    private void rollBackupLogDirectories(BackupFilesManager backupFilesManager, List<File> rolledBackupLogDirectories) {
+        logger.info("Backup log directories were found. Number of directories: {}. Directories: {}",
+                rolledBackupLogDirectories.size(),
+                rolledBackupLogDirectories.stream().map(File::getName).collect(joining(", ")));
+        rolledBackupLogDirectories.forEach(d -> loadOldLogMessages(backupFilesManager, d));
+        backupMessagesLoader.clearTopicsAvailabilityCache();
+    }
+
     private void enableLocalStorage(BackupFilesManager backupFilesManager) {
-        MessageRepository repository = persistentBufferExtensionParameters.isSizeReportingEnabled()
-                ? new ChronicleMapMessageRepository(backupFilesManager.getCurrentBackupFile(), entries, avgMessageSize, metricsFacade)
-                : new ChronicleMapMessageRepository(backupFilesManager.getCurrentBackupFile(), entries, avgMessageSize);
+        MessageRepository repository = createMessageRepository(backupFilesManager);
 
         BrokerListener brokerListener = new BrokerListener(repository);
 
@@ -92,6 +138,28 @@ public class PersistentBufferExtension {
         listeners.addTimeoutListener(brokerListener);
     }
 
+    private MessageRepository createMessageRepository(BackupFilesManager backupFilesManager) {
+        boolean sizeReportingEnabled = persistentBufferExtensionParameters.isSizeReportingEnabled();
+        switch (MessageRepositoryType.valueOf(persistentBufferExtensionParameters.getRepositoryType().toUpperCase())) {
+            case CHRONICLE_MAP:
+                File file = backupFilesManager.getCurrentBackupFile();
+                return sizeReportingEnabled
+                        ? new ChronicleMapMessageRepository(file, entries, avgMessageSize, metricsFacade)
+                        : new ChronicleMapMessageRepository(file, entries, avgMessageSize);
+            case WRITE_AHEAD_LOG:
+                File directory = backupFilesManager.getCurrentBackupLogDirectory();
+                int segmentSize = persistentBufferExtensionParameters.getWriteAheadLogSegmentSizeBytes();
+                Duration flushInterval = persistentBufferExtensionParameters.getWriteAheadLogFlushInterval();
+                double compactionLiveRatio = persistentBufferExtensionParameters.getWriteAheadLogCompactionLiveRatio();
+                return sizeReportingEnabled
+                        ? new WriteAheadLogMessageRepository(
+                                directory, segmentSize, flushInterval, compactionLiveRatio, metricsFacade)
+                        : new WriteAheadLogMessageRepository(directory, segmentSize, flushInterval, compactionLiveRatio);
+            default:
+                throw new IllegalArgumentException("Unknown message repository type.");
+        }
+    }
+
     private void loadTemporaryBackupV2Messages(BackupFilesManager backupFilesManager, File temporaryBackup) {
         logger.info("Loading messages from temporary backup v2 file: {}", temporaryBackup.getName());
         backupMessagesLoader.loadFromTemporaryBackupV2File(temporaryBackup);
@@ -101,8 +169,17 @@ public class PersistentBufferExtension {
     private void loadOldMessages(BackupFilesManager backupFilesManager, File oldBackup) {
         logger.info("Loading messages from backup file: {}", oldBackup.getName());
         MessageRepository oldMessageRepository = new ChronicleMapMessageRepository(oldBackup, entries, avgMessageSize);
-        backupMessagesLoader.loadMessages(oldMessageRepository.findAll());
+        backupMessagesLoader.loadFromMessageRepository(oldMessageRepository);
         oldMessageRepository.close();
         backupFilesManager.delete(oldBackup);
     }
+
+    private void loadOldLogMessages(BackupFilesManager backupFilesManager, File oldBackupLogDirectory) {
+        logger.info("Loading messages from backup log directory: {}", oldBackupLogDirectory.getName());
+        MessageRepository oldMessageRepository = WriteAheadLogMessageRepository.forReplay(oldBackupLogDirectory,
+                persistentBufferExtensionParameters.getWriteAheadLogSegmentSizeBytes());
+        backupMessagesLoader.loadFromMessageRepository(oldMessageRepository);
+        oldMessageRepository.close();
+        backupFilesManager.delete(oldBackupLogDirectory);
+    }
 }
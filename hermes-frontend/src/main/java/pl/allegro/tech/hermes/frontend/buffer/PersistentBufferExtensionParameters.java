@@ -1,5 +1,7 @@
 package pl.allegro.tech.hermes.frontend.buffer;
 
+import java.time.Duration;
+
 public interface PersistentBufferExtensionParameters {
 
     long getBufferedSizeBytes();
@@ -15,4 +17,14 @@ public interface PersistentBufferExtensionParameters {
     int getAverageMessageSize();
 
     boolean isSizeReportingEnabled();
+
+    boolean isLoadingInBackgroundEnabled();
+
+    String getRepositoryType();
+
+    int getWriteAheadLogSegmentSizeBytes();
+
+    Duration getWriteAheadLogFlushInterval();
+
+    double getWriteAheadLogCompactionLiveRatio();
 }
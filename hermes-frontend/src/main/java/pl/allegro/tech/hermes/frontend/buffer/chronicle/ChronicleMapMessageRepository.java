@@ -1,5 +1,6 @@
 package pl.allegro.tech.hermes.frontend.buffer.chronicle;
 
+import com.google.common.collect.Lists;
 import net.openhft.chronicle.map.ChronicleMap;
 import net.openhft.chronicle.map.ChronicleMapBuilder;
 import org.slf4j.Logger;
@@ -13,11 +14,14 @@ import pl.allegro.tech.hermes.frontend.publishing.message.MessageIdGenerator;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class ChronicleMapMessageRepository implements MessageRepository {
@@ -26,6 +30,8 @@ public class ChronicleMapMessageRepository implements MessageRepository {
 
     private static final boolean SAME_BUILDER_CONFIG = false;
 
+    private static final int REPLAY_BATCH_SIZE = 1000;
+
     private final ChronicleMap<String, ChronicleMapEntryValue> map;
 
     private boolean closed = false;
@@ -84,6 +90,28 @@ public class ChronicleMapMessageRepository implements MessageRepository {
         return map.entrySet().stream().map((e) -> toBackupMessage(e.getKey(), e.getValue())).collect(Collectors.toList());
     }
 
+    /**
+     * Entries of the map are iterated in hash order, so ids of all messages are sorted by timestamp first and then
+     * messages are read in batches, which keeps only ids and timestamps of the whole storage in memory at once.
+     */
+    @Override
+    public void replay(Consumer<List<BackupMessage>> consumer) {
+        List<Map.Entry<String, Long>> timestamps = new ArrayList<>(map.size());
+        map.forEach((id, entryValue) -> timestamps.add(new AbstractMap.SimpleImmutableEntry<>(id, entryValue.getTimestamp())));
+        timestamps.sort(Map.Entry.comparingByValue());
+
+        Lists.partition(timestamps, REPLAY_BATCH_SIZE).forEach(ids -> {
+            List<BackupMessage> messages = new ArrayList<>(ids.size());
+            for (Map.Entry<String, Long> id : ids) {
+                ChronicleMapEntryValue entryValue = map.get(id.getKey());
+                if (entryValue != null) {
+                    messages.add(toBackupMessage(id.getKey(), entryValue));
+                }
+            }
+            consumer.accept(messages);
+        });
+    }
+
     @Override
     public void close() {
         map.close();
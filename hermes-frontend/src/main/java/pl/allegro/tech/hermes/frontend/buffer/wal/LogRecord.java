@@ -0,0 +1,199 @@
+package pl.allegro.tech.hermes.frontend.buffer.wal;
+
+import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.frontend.buffer.BackupMessage;
+import pl.allegro.tech.hermes.frontend.publishing.message.Message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Single entry of the write-ahead log.
+ *
+ * <p>On disk every record is framed as {@code [payload length][crc32 of payload][payload]}. Payload starts with
+ * the record type and the message id, so the id can be read without decoding the rest of a saved message.</p>
+ */
+final class LogRecord {
+
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final int NULL_LENGTH = -1;
+
+    private final byte type;
+    private final String messageId;
+    private final ByteBuffer body;
+    private final ByteBuffer frame;
+    private final int position;
+
+    private LogRecord(byte type, String messageId, ByteBuffer body, ByteBuffer frame, int position) {
+        this.type = type;
+        this.messageId = messageId;
+        this.body = body;
+        this.frame = frame;
+        this.position = position;
+    }
+
+    static byte[] save(Message message, Topic topic) {
+        byte[] id = bytes(message.getId());
+        byte[] qualifiedTopicName = bytes(topic.getQualifiedName());
+        byte[] partitionKey = bytes(message.getPartitionKey());
+        Integer schemaVersion = message.getCompiledSchema().map(v -> v.getVersion().value()).orElse(null);
+        Integer schemaId = message.getCompiledSchema().map(v -> v.getId().value()).orElse(null);
+        byte[] data = message.getData();
+
+        int payloadSize = 1
+                + sizeOf(id)
+                + Long.BYTES
+                + sizeOf(qualifiedTopicName)
+                + sizeOf(partitionKey)
+                + 2 * (1 + Integer.BYTES)
+                + sizeOf(data);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payloadSize);
+        buffer.position(HEADER_SIZE);
+        buffer.put(SAVE);
+        putBytes(buffer, id);
+        buffer.putLong(message.getTimestamp());
+        putBytes(buffer, qualifiedTopicName);
+        putBytes(buffer, partitionKey);
+        putInteger(buffer, schemaVersion);
+        putInteger(buffer, schemaId);
+        putBytes(buffer, data);
+        return frame(buffer, payloadSize);
+    }
+
+    static byte[] delete(String messageId) {
+        byte[] id = bytes(messageId);
+        int payloadSize = 1 + sizeOf(id);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payloadSize);
+        buffer.position(HEADER_SIZE);
+        buffer.put(DELETE);
+        putBytes(buffer, id);
+        return frame(buffer, payloadSize);
+    }
+
+    /**
+     * Reads record framed at current position of the buffer and moves the position past it.
+     *
+     * @return record or {@code null} if there are no more complete records, which is the case at the end of written
+     *     part of a segment and after a torn write
+     */
+    static LogRecord read(ByteBuffer segment) {
+        if (segment.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int start = segment.position();
+        int payloadSize = segment.getInt(start);
+        if (payloadSize <= 0 || payloadSize > segment.remaining() - HEADER_SIZE) {
+            return null;
+        }
+        int crc = segment.getInt(start + Integer.BYTES);
+        ByteBuffer payload = segment.slice(start + HEADER_SIZE, payloadSize);
+        if (crc != crc(payload.duplicate())) {
+            return null;
+        }
+        ByteBuffer frame = segment.slice(start, HEADER_SIZE + payloadSize);
+        segment.position(start + HEADER_SIZE + payloadSize);
+
+        byte type = payload.get();
+        String messageId = getString(payload);
+        return new LogRecord(type, messageId, payload, frame, start);
+    }
+
+    boolean isDelete() {
+        return type == DELETE;
+    }
+
+    String getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * @return position of the record in the segment it was read from
+     */
+    int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return timestamp of a saved message, read without decoding the rest of the record
+     */
+    long getTimestamp() {
+        return body.getLong(body.position());
+    }
+
+    /**
+     * @return record framed the same way as it is stored in the segment, ready to be appended to another one
+     */
+    byte[] toBytes() {
+        byte[] bytes = new byte[frame.remaining()];
+        frame.duplicate().get(bytes);
+        return bytes;
+    }
+
+    BackupMessage toBackupMessage() {
+        ByteBuffer buffer = body.duplicate();
+        long timestamp = buffer.getLong();
+        String qualifiedTopicName = getString(buffer);
+        String partitionKey = getString(buffer);
+        Integer schemaVersion = getInteger(buffer);
+        Integer schemaId = getInteger(buffer);
+        byte[] data = new byte[buffer.getInt()];
+        buffer.get(data);
+        return new BackupMessage(messageId, data, timestamp, qualifiedTopicName, partitionKey, schemaVersion, schemaId);
+    }
+
+    private static byte[] frame(ByteBuffer buffer, int payloadSize) {
+        buffer.putInt(0, payloadSize);
+        buffer.putInt(Integer.BYTES, crc(buffer.slice(HEADER_SIZE, payloadSize)));
+        return buffer.array();
+    }
+
+    private static int crc(ByteBuffer payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+        return (int) crc32.getValue();
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static void putInteger(ByteBuffer buffer, Integer value) {
+        buffer.put((byte) (value == null ? 0 : 1));
+        buffer.putInt(value == null ? 0 : value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static Integer getInteger(ByteBuffer buffer) {
+        boolean present = buffer.get() == 1;
+        int value = buffer.getInt();
+        return present ? value : null;
+    }
+}
@@ -0,0 +1,164 @@
+package pl.allegro.tech.hermes.frontend.buffer.wal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+
+/**
+ * Memory mapped file holding a contiguous part of the write-ahead log. New records are appended only to the active
+ * (newest) segment; older segments are read only and are removed once none of their messages is live anymore, or once
+ * their few live messages are copied to the active segment.
+ *
+ * <p>The log holds a reference to each of its segments, and a replay holds references to the segments it reads.
+ * The segment is unmapped, and its file deleted if the segment was deleted, once the last reference is released,
+ * so a segment compacted during a replay stays readable until the replay finishes.</p>
+ */
+final class LogSegment {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogSegment.class);
+
+    private static final String SUFFIX = ".wal";
+
+    private final long index;
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private int messages;
+    private int liveMessages;
+    private volatile boolean dirty;
+    private volatile boolean deleted;
+
+    private LogSegment(long index, File file, MappedByteBuffer buffer) {
+        this.index = index;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    static LogSegment create(File directory, long index, int size) {
+        File file = new File(directory, format("%020d%s", index, SUFFIX));
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new LogSegment(index, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            throw new WriteAheadLogException(format("Failed to create log segment %s", file.getAbsolutePath()), e);
+        }
+    }
+
+    static LogSegment open(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new LogSegment(indexOf(file), file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new WriteAheadLogException(format("Failed to open log segment %s", file.getAbsolutePath()), e);
+        }
+    }
+
+    static boolean isSegmentFile(File file) {
+        return file.isFile() && file.getName().endsWith(SUFFIX);
+    }
+
+    static long indexOf(File file) {
+        String name = file.getName();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    boolean hasRemaining(int recordSize) {
+        return buffer.remaining() >= recordSize;
+    }
+
+    void append(byte[] record) {
+        buffer.put(record);
+        dirty = true;
+    }
+
+    void forEachRecord(Consumer<LogRecord> consumer) {
+        ByteBuffer records = buffer.duplicate();
+        records.position(0);
+        LogRecord record;
+        while ((record = LogRecord.read(records)) != null) {
+            consumer.accept(record);
+        }
+    }
+
+    LogRecord readRecord(int position) {
+        ByteBuffer records = buffer.duplicate();
+        records.position(position);
+        return LogRecord.read(records);
+    }
+
+    void flushIfDirty() {
+        if (dirty) {
+            dirty = false;
+            buffer.force();
+        }
+    }
+
+    void incrementLiveMessages() {
+        messages++;
+        liveMessages++;
+    }
+
+    void decrementLiveMessages() {
+        liveMessages--;
+    }
+
+    int getLiveMessages() {
+        return liveMessages;
+    }
+
+    /**
+     * @return number of saved messages appended to the segment, live or not
+     */
+    int getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return false if the segment is already released and must not be read
+     */
+    boolean retain() {
+        int current;
+        do {
+            current = references.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            MappedBufferUtils.release(buffer);
+            if (deleted && !file.delete()) {
+                logger.warn("Failed to delete compacted backup storage segment {}", file.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Releases the reference of the log and deletes the file once no replay reads the segment anymore.
+     */
+    void delete() {
+        deleted = true;
+        release();
+    }
+
+    long getIndex() {
+        return index;
+    }
+
+    File getFile() {
+        return file;
+    }
+}
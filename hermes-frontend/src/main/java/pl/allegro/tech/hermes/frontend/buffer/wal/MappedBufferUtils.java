@@ -0,0 +1,62 @@
+package pl.allegro.tech.hermes.frontend.buffer.wal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Unmaps memory mapped buffers right away, instead of when the garbage collector happens to collect them, so that
+ * deleted segment files release their disk space and segments release their address space.
+ */
+class MappedBufferUtils {
+    private static final Logger logger = LoggerFactory.getLogger(MappedBufferUtils.class);
+
+    private static final MappedBufferCleaner CLEANER;
+
+    static {
+        MappedBufferCleaner cleaner;
+        try {
+            cleaner = new MappedBufferCleaner();
+        } catch (ReflectiveOperationException e) {
+            cleaner = null;
+        }
+        CLEANER = cleaner;
+    }
+
+    static boolean supportsReleasing() {
+        return CLEANER != null;
+    }
+
+    /**
+     * The buffer must not be accessed anymore once released, accessing an unmapped buffer crashes the JVM.
+     */
+    static void release(ByteBuffer buffer) {
+        try {
+            if (supportsReleasing() && buffer.isDirect()) {
+                CLEANER.clean(buffer);
+            }
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Releasing MappedByteBuffer failed", e);
+        }
+    }
+
+    static class MappedBufferCleaner {
+        private final Object unsafe;
+        private final Method invokeCleaner;
+
+        MappedBufferCleaner() throws ReflectiveOperationException {
+            Class<?> clazz = Class.forName("sun.misc.Unsafe");
+            Field field = clazz.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = clazz.getMethod("invokeCleaner", ByteBuffer.class);
+        }
+
+        public void clean(ByteBuffer buffer) throws ReflectiveOperationException {
+            invokeCleaner.invoke(unsafe, buffer);
+        }
+    }
+}
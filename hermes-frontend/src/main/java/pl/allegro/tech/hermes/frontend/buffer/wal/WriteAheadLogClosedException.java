@@ -0,0 +1,8 @@
+package pl.allegro.tech.hermes.frontend.buffer.wal;
+
+public class WriteAheadLogClosedException extends RuntimeException {
+
+    public WriteAheadLogClosedException(String message) {
+        super(message);
+    }
+}
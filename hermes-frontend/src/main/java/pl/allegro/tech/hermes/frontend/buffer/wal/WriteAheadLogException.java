@@ -0,0 +1,12 @@
+package pl.allegro.tech.hermes.frontend.buffer.wal;
+
+public class WriteAheadLogException extends RuntimeException {
+
+    public WriteAheadLogException(String message) {
+        super(message);
+    }
+
+    public WriteAheadLogException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
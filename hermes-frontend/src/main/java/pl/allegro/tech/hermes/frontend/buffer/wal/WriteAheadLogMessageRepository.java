@@ -0,0 +1,353 @@
+package pl.allegro.tech.hermes.frontend.buffer.wal;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.frontend.buffer.BackupMessage;
+import pl.allegro.tech.hermes.frontend.buffer.MessageRepository;
+import pl.allegro.tech.hermes.frontend.publishing.message.Message;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Message repository backed by an append-only, segmented and memory mapped write-ahead log.
+ *
+ * <p>Saving a message appends a record to the active segment and deleting it appends a tombstone, so neither
+ * operation touches previously written data. Records of all writers are forced to disk together by a background
+ * flusher every flush interval (group commit). The same flusher compacts the log by removing the oldest segments
+ * once none of their messages is live. When the ratio of live messages of the oldest segment falls below
+ * the compaction live ratio, its live messages are copied to the active segment first, so a single message which is
+ * never deleted does not keep all the following segments on disk. Segments are removed strictly from the oldest one,
+ * which guarantees that a tombstone is never removed before the message it deletes.</p>
+ *
+ * <p>Unlike {@link pl.allegro.tech.hermes.frontend.buffer.chronicle.ChronicleMapMessageRepository} the log does not
+ * need to be sized upfront, a new segment is created whenever the active one is full.</p>
+ */
+public class WriteAheadLogMessageRepository implements MessageRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLogMessageRepository.class);
+
+    private static final int REPLAY_BATCH_SIZE = 1000;
+
+    private final File directory;
+    private final int segmentSize;
+    private final double compactionLiveRatio;
+    private final NavigableMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, LogSegment> liveMessages = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    private LogSegment activeSegment;
+    private long nextSegmentIndex;
+    private boolean closed = false;
+
+    public WriteAheadLogMessageRepository(File directory, int segmentSize, Duration flushInterval, double compactionLiveRatio) {
+        this(directory, segmentSize, compactionLiveRatio, true, flushInterval);
+    }
+
+    private WriteAheadLogMessageRepository(File directory,
+                                           int segmentSize,
+                                           double compactionLiveRatio,
+                                           boolean flushInBackground,
+                                           Duration flushInterval) {
+        logger.info("Creating backup storage in path: {}", directory.getAbsolutePath());
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new WriteAheadLogException("Failed to create backup storage directory " + directory.getAbsolutePath());
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compactionLiveRatio = compactionLiveRatio;
+        recover();
+        if (flushInBackground) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("wal-flusher-%d").setDaemon(true).build());
+            this.flusher.scheduleWithFixedDelay(this::flushAndCompact,
+                    flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    public WriteAheadLogMessageRepository(File directory,
+                                          int segmentSize,
+                                          Duration flushInterval,
+                                          double compactionLiveRatio,
+                                          MetricsFacade metricsFacade) {
+        this(directory, segmentSize, flushInterval, compactionLiveRatio);
+        metricsFacade.persistentBuffer().registerBackupStorageSizeGauge(liveMessages, Map::size);
+    }
+
+    /**
+     * Opens a log which is only replayed and then deleted, e.g. the one rolled over by a previous run, so it neither
+     * flushes nor compacts in the background.
+     */
+    public static WriteAheadLogMessageRepository forReplay(File directory, int segmentSize) {
+        return new WriteAheadLogMessageRepository(directory, segmentSize, 0.0, false, Duration.ZERO);
+    }
+
+    @Override
+    public void save(Message message, Topic topic) {
+        byte[] record = LogRecord.save(message, topic);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new WriteAheadLogClosedException("Backup storage is closed. Unable to add new messages.");
+            }
+            LogSegment segment = append(record);
+            segment.incrementLiveMessages();
+            LogSegment previous = liveMessages.put(message.getId(), segment);
+            if (previous != null) {
+                previous.decrementLiveMessages();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(String messageId) {
+        if (!liveMessages.containsKey(messageId)) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            LogSegment segment = liveMessages.remove(messageId);
+            if (segment != null) {
+                append(LogRecord.delete(messageId));
+                segment.decrementLiveMessages();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<BackupMessage> findAll() {
+        List<BackupMessage> messages = new ArrayList<>();
+        replay(messages::addAll);
+        return messages;
+    }
+
+    /**
+     * Live messages are not appended in timestamp order, e.g. relocated messages are appended after the newer ones,
+     * so positions of all live records are sorted by timestamp first and then records are read in batches. Only
+     * positions and timestamps of the whole log are held in memory at once.
+     *
+     * <p>Positions are collected under the lock, while records are read and passed to the consumer outside of it,
+     * so writers are not blocked by the consumer, e.g. by resending messages. Segments being read are retained,
+     * so compaction does not unmap them meanwhile. Messages deleted meanwhile are skipped.</p>
+     */
+    @Override
+    public void replay(Consumer<List<BackupMessage>> consumer) {
+        List<RecordPosition> positions;
+        List<LogSegment> retained = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            Map<String, RecordPosition> livePositions = new HashMap<>(liveMessages.size());
+            for (LogSegment segment : segments.values()) {
+                // segments of the log hold its reference until they are removed under the lock
+                segment.retain();
+                retained.add(segment);
+                segment.forEachRecord(record -> {
+                    if (!record.isDelete() && liveMessages.get(record.getMessageId()) == segment) {
+                        livePositions.put(record.getMessageId(),
+                                new RecordPosition(segment, record.getPosition(), record.getTimestamp()));
+                    }
+                });
+            }
+            positions = new ArrayList<>(livePositions.values());
+        } finally {
+            lock.unlock();
+        }
+        try {
+            positions.sort(Comparator.comparingLong(RecordPosition::getTimestamp));
+            for (List<RecordPosition> batch : Lists.partition(positions, REPLAY_BATCH_SIZE)) {
+                List<BackupMessage> messages = new ArrayList<>(batch.size());
+                for (RecordPosition position : batch) {
+                    LogRecord record = position.getSegment().readRecord(position.getPosition());
+                    if (liveMessages.containsKey(record.getMessageId())) {
+                        messages.add(record.toBackupMessage());
+                    }
+                }
+                if (!messages.isEmpty()) {
+                    consumer.accept(messages);
+                }
+            }
+        } finally {
+            retained.forEach(LogSegment::release);
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        segments.values().forEach(LogSegment::flushIfDirty);
+        // a replay still in progress keeps its segments mapped until it finishes
+        segments.values().forEach(LogSegment::release);
+        logger.info("Closing backup storage with {} messages.", liveMessages.size());
+    }
+
+    private LogSegment append(byte[] record) {
+        if (activeSegment == null || !activeSegment.hasRemaining(record.length)) {
+            activeSegment = LogSegment.create(directory, nextSegmentIndex++, Math.max(segmentSize, record.length));
+            segments.put(activeSegment.getIndex(), activeSegment);
+        }
+        activeSegment.append(record);
+        return activeSegment;
+    }
+
+    private void recover() {
+        File[] files = directory.listFiles(LogSegment::isSegmentFile);
+        if (files == null) {
+            return;
+        }
+        Arrays.stream(files)
+                .sorted(Comparator.comparingLong(LogSegment::indexOf))
+                .map(LogSegment::open)
+                .forEach(segment -> {
+                    segment.forEachRecord(record -> recover(segment, record));
+                    segments.put(segment.getIndex(), segment);
+                    nextSegmentIndex = segment.getIndex() + 1;
+                });
+        logger.info("Recovered {} messages from {} backup storage segments.", liveMessages.size(), segments.size());
+    }
+
+    private void recover(LogSegment segment, LogRecord record) {
+        LogSegment previous;
+        if (record.isDelete()) {
+            previous = liveMessages.remove(record.getMessageId());
+        } else {
+            segment.incrementLiveMessages();
+            previous = liveMessages.put(record.getMessageId(), segment);
+        }
+        if (previous != null) {
+            previous.decrementLiveMessages();
+        }
+    }
+
+    private void flushAndCompact() {
+        try {
+            segments.values().forEach(LogSegment::flushIfDirty);
+            compact();
+        } catch (Exception e) {
+            logger.error("An error occurred while flushing backup storage", e);
+        }
+    }
+
+    private void compact() {
+        List<LogSegment> removed = new ArrayList<>();
+        Set<LogSegment> relocatedTo = new HashSet<>();
+        lock.lock();
+        try {
+            Map.Entry<Long, LogSegment> oldest;
+            while ((oldest = segments.firstEntry()) != null && oldest.getValue() != activeSegment) {
+                LogSegment segment = oldest.getValue();
+                if (segment.getLiveMessages() > 0) {
+                    // relocating at most one segment per run bounds the time writers wait for the lock
+                    if (closed || !relocatedTo.isEmpty() || !isSparse(segment)) {
+                        break;
+                    }
+                    relocatedTo.addAll(relocateLiveMessages(segment));
+                }
+                removed.add(segments.remove(oldest.getKey()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        // relocated messages have to be on disk before the segment they were copied from is deleted
+        relocatedTo.forEach(LogSegment::flushIfDirty);
+        removed.forEach(LogSegment::delete);
+    }
+
+    private boolean isSparse(LogSegment segment) {
+        return segment.getLiveMessages() < compactionLiveRatio * segment.getMessages();
+    }
+
+    private Set<LogSegment> relocateLiveMessages(LogSegment segment) {
+        Map<String, LogRecord> records = new LinkedHashMap<>();
+        segment.forEachRecord(record -> {
+            if (!record.isDelete() && liveMessages.get(record.getMessageId()) == segment) {
+                records.put(record.getMessageId(), record);
+            }
+        });
+        Set<LogSegment> targets = new HashSet<>();
+        records.forEach((messageId, record) -> {
+            LogSegment target = append(record.toBytes());
+            target.incrementLiveMessages();
+            liveMessages.put(messageId, target);
+            segment.decrementLiveMessages();
+            targets.add(target);
+        });
+        logger.info("Relocated {} live messages from backup storage segment {}", records.size(), segment.getIndex());
+        return targets;
+    }
+
+    private static final class RecordPosition {
+
+        private final LogSegment segment;
+        private final int position;
+        private final long timestamp;
+
+        private RecordPosition(LogSegment segment, int position, long timestamp) {
+            this.segment = segment;
+            this.position = position;
+            this.timestamp = timestamp;
+        }
+
+        LogSegment getSegment() {
+            return segment;
+        }
+
+        int getPosition() {
+            return position;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package pl.allegro.tech.hermes.frontend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import pl.allegro.tech.hermes.frontend.producer.kafka.AdaptiveProducerTuningParameters;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "frontend.kafka.producer.adaptive")
+public class AdaptiveProducerTuningProperties implements AdaptiveProducerTuningParameters {
+
+    private boolean enabled = false;
+
+    private Duration throughputLinger = Duration.ofMillis(20);
+
+    private int throughputBatchSize = 256 * 1024;
+
+    private long promoteThresholdBytesPerSecond = 1024 * 1024;
+
+    private long demoteThresholdBytesPerSecond = 256 * 1024;
+
+    private Duration maxRecordQueueTime = Duration.ofMillis(50);
+
+    private double minThroughputBatchFill = 0.25;
+
+    private Duration checkInterval = Duration.ofSeconds(30);
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Duration getThroughputLinger() {
+        return throughputLinger;
+    }
+
+    public void setThroughputLinger(Duration throughputLinger) {
+        this.throughputLinger = throughputLinger;
+    }
+
+    @Override
+    public int getThroughputBatchSize() {
+        return throughputBatchSize;
+    }
+
+    public void setThroughputBatchSize(int throughputBatchSize) {
+        this.throughputBatchSize = throughputBatchSize;
+    }
+
+    @Override
+    public long getPromoteThresholdBytesPerSecond() {
+        return promoteThresholdBytesPerSecond;
+    }
+
+    public void setPromoteThresholdBytesPerSecond(long promoteThresholdBytesPerSecond) {
+        this.promoteThresholdBytesPerSecond = promoteThresholdBytesPerSecond;
+    }
+
+    @Override
+    public long getDemoteThresholdBytesPerSecond() {
+        return demoteThresholdBytesPerSecond;
+    }
+
+    public void setDemoteThresholdBytesPerSecond(long demoteThresholdBytesPerSecond) {
+        this.demoteThresholdBytesPerSecond = demoteThresholdBytesPerSecond;
+    }
+
+    @Override
+    public Duration getMaxRecordQueueTime() {
+        return maxRecordQueueTime;
+    }
+
+    public void setMaxRecordQueueTime(Duration maxRecordQueueTime) {
+        this.maxRecordQueueTime = maxRecordQueueTime;
+    }
+
+    @Override
+    public double getMinThroughputBatchFill() {
+        return minThroughputBatchFill;
+    }
+
+    public void setMinThroughputBatchFill(double minThroughputBatchFill) {
+        this.minThroughputBatchFill = minThroughputBatchFill;
+    }
+
+    @Override
+    public Duration getCheckInterval() {
+        return checkInterval;
+    }
+
+    public void setCheckInterval(Duration checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+}
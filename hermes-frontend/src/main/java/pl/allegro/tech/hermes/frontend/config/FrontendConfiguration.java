@@ -54,9 +54,10 @@ public class FrontendConfiguration {
                                                      TopicsCache topicsCache,
                                                      SchemaRepository schemaRepository,
                                                      Trackers trackers,
-                                                     LocalMessageStorageProperties localMessageStorageProperties) {
+                                                     LocalMessageStorageProperties localMessageStorageProperties,
+                                                     MetricsFacade metricsFacade) {
         return new BackupMessagesLoader(brokerMessageProducer, brokerListeners, topicsCache, schemaRepository,
-                new SchemaExistenceEnsurer(schemaRepository), trackers, localMessageStorageProperties);
+                new SchemaExistenceEnsurer(schemaRepository), trackers, localMessageStorageProperties, metricsFacade);
     }
 
     @Bean(initMethod = "extend")
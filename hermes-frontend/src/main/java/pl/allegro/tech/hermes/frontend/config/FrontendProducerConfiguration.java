@@ -4,7 +4,9 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.frontend.cache.topic.TopicsCache;
 import pl.allegro.tech.hermes.frontend.producer.BrokerMessageProducer;
+import pl.allegro.tech.hermes.frontend.producer.kafka.AdaptiveProducerTuningJob;
 import pl.allegro.tech.hermes.frontend.producer.kafka.KafkaBrokerMessageProducer;
 import pl.allegro.tech.hermes.frontend.producer.kafka.KafkaHeaderFactory;
 import pl.allegro.tech.hermes.frontend.producer.kafka.KafkaMessageProducerFactory;
@@ -20,7 +22,8 @@ import pl.allegro.tech.hermes.infrastructure.dc.DatacenterNameProvider;
         SchemaProperties.class,
         KafkaHeaderNameProperties.class,
         KafkaProducerProperties.class,
-        KafkaClustersProperties.class
+        KafkaClustersProperties.class,
+        AdaptiveProducerTuningProperties.class
 })
 public class FrontendProducerConfiguration {
 
@@ -33,20 +36,30 @@ public class FrontendProducerConfiguration {
     }
 
     @Bean
-    public KafkaHeaderFactory kafkaHeaderFactory(KafkaHeaderNameProperties kafkaHeaderNameProperties) {
-        return new KafkaHeaderFactory(kafkaHeaderNameProperties);
+    public KafkaHeaderFactory kafkaHeaderFactory(KafkaHeaderNameProperties kafkaHeaderNameProperties,
+                                                 KafkaProducerProperties kafkaProducerProperties) {
+        return new KafkaHeaderFactory(kafkaHeaderNameProperties, kafkaProducerProperties.isBinaryMessageIdHeaderEnabled());
     }
 
     @Bean(destroyMethod = "close")
     public Producers kafkaMessageProducer(KafkaClustersProperties kafkaClustersProperties,
                                           KafkaProducerProperties kafkaProducerProperties,
+                                          AdaptiveProducerTuningProperties adaptiveProducerTuningProperties,
                                           LocalMessageStorageProperties localMessageStorageProperties,
                                           DatacenterNameProvider datacenterNameProvider) {
         KafkaProperties kafkaProperties = kafkaClustersProperties.toKafkaProperties(datacenterNameProvider);
-        return new KafkaMessageProducerFactory(kafkaProperties, kafkaProducerProperties,
+        return new KafkaMessageProducerFactory(kafkaProperties, kafkaProducerProperties, adaptiveProducerTuningProperties,
                 localMessageStorageProperties.getBufferedSizeBytes()).provide();
     }
 
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public AdaptiveProducerTuningJob adaptiveProducerTuningJob(Producers producers,
+                                                               TopicsCache topicsCache,
+                                                               AdaptiveProducerTuningProperties adaptiveProducerTuningProperties,
+                                                               MetricsFacade metricsFacade) {
+        return new AdaptiveProducerTuningJob(producers, topicsCache, adaptiveProducerTuningProperties, metricsFacade);
+    }
+
     @Bean(destroyMethod = "close")
     public KafkaTopicMetadataFetcher kafkaTopicMetadataFetcher(KafkaProducerProperties kafkaProducerProperties,
                                                                KafkaClustersProperties kafkaClustersProperties,
@@ -45,14 +45,27 @@ import java.util.Optional;
 public class FrontendPublishingConfiguration {
 
     @Bean
-    public HttpHandler httpHandler(TopicsCache topicsCache, MessageErrorProcessor messageErrorProcessor,
-                                   MessageEndProcessor messageEndProcessor, MessageFactory messageFactory,
-                                   BrokerMessageProducer brokerMessageProducer, MessagePreviewLog messagePreviewLog,
-                                   ThroughputLimiter throughputLimiter, Optional<AuthenticationConfiguration> authConfig,
-                                   MessagePreviewProperties messagePreviewProperties, HandlersChainProperties handlersChainProperties) {
+    public HandlersChainFactory handlersChainFactory(TopicsCache topicsCache, MessageErrorProcessor messageErrorProcessor,
+                                                     MessageEndProcessor messageEndProcessor, MessageFactory messageFactory,
+                                                     BrokerMessageProducer brokerMessageProducer, MessagePreviewLog messagePreviewLog,
+                                                     ThroughputLimiter throughputLimiter,
+                                                     Optional<AuthenticationConfiguration> authConfig,
+                                                     MessagePreviewProperties messagePreviewProperties,
+                                                     HandlersChainProperties handlersChainProperties,
+                                                     ObjectMapper objectMapper) {
         return new HandlersChainFactory(topicsCache, messageErrorProcessor, messageEndProcessor, messageFactory,
                 brokerMessageProducer, messagePreviewLog, throughputLimiter, authConfig, messagePreviewProperties.isEnabled(),
-                handlersChainProperties).provide();
+                handlersChainProperties, objectMapper);
+    }
+
+    @Bean(name = "httpHandler")
+    public HttpHandler httpHandler(HandlersChainFactory handlersChainFactory) {
+        return handlersChainFactory.provide();
+    }
+
+    @Bean(name = "batchHttpHandler")
+    public HttpHandler batchHttpHandler(HandlersChainFactory handlersChainFactory) {
+        return handlersChainFactory.provideBatch();
     }
 
     @Bean
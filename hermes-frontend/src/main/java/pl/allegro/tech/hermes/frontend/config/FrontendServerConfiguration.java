@@ -3,6 +3,7 @@ package pl.allegro.tech.hermes.frontend.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.prometheus.PrometheusMeterRegistry;
 import io.undertow.server.HttpHandler;
+import jakarta.inject.Named;
 import org.apache.curator.framework.CuratorFramework;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -38,7 +39,8 @@ public class FrontendServerConfiguration {
     public HermesServer hermesServer(HermesServerProperties hermesServerProperties,
                                      SslProperties sslProperties,
                                      MetricsFacade metricsFacade,
-                                     HttpHandler publishingHandler,
+                                     @Named("httpHandler") HttpHandler publishingHandler,
+                                     @Named("batchHttpHandler") HttpHandler batchPublishingHandler,
                                      DefaultReadinessChecker defaultReadinessChecker,
                                      DefaultMessagePreviewPersister defaultMessagePreviewPersister,
                                      ThroughputLimiter throughputLimiter,
@@ -51,6 +53,7 @@ public class FrontendServerConfiguration {
                 hermesServerProperties,
                 metricsFacade,
                 publishingHandler,
+                batchPublishingHandler,
                 defaultReadinessChecker,
                 defaultMessagePreviewPersister,
                 throughputLimiter,
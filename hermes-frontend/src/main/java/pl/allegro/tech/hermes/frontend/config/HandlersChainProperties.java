@@ -57,6 +57,31 @@ public class HandlersChainProperties implements HandlersChainParameters {
         return authentication.mode;
     }
 
+    @Override
+    public int getBatchMaxMessages() {
+        return batch.maxMessages;
+    }
+
+    @Override
+    public int getBatchMaxSize() {
+        return batch.maxSize;
+    }
+
+    @Override
+    public Duration getBatchTimeout() {
+        return batch.timeout;
+    }
+
+    @Override
+    public boolean isStageLatencyEnabled() {
+        return stageLatency.enabled;
+    }
+
+    @Override
+    public double getStageLatencySamplingRate() {
+        return stageLatency.samplingRate;
+    }
+
     public void setForceTopicMaxMessageSize(boolean forceTopicMaxMessageSize) {
         this.forceTopicMaxMessageSize = forceTopicMaxMessageSize;
     }
@@ -65,6 +90,10 @@ public class HandlersChainProperties implements HandlersChainParameters {
 
     private KeepAliveHeaderProperties keepAliveHeader = new KeepAliveHeaderProperties();
 
+    private BatchProperties batch = new BatchProperties();
+
+    private StageLatencyProperties stageLatency = new StageLatencyProperties();
+
     public AuthenticationProperties getAuthentication() {
         return authentication;
     }
@@ -81,6 +110,22 @@ public class HandlersChainProperties implements HandlersChainParameters {
         this.keepAliveHeader = keepAliveHeader;
     }
 
+    public BatchProperties getBatch() {
+        return batch;
+    }
+
+    public void setBatch(BatchProperties batch) {
+        this.batch = batch;
+    }
+
+    public StageLatencyProperties getStageLatency() {
+        return stageLatency;
+    }
+
+    public void setStageLatency(StageLatencyProperties stageLatency) {
+        this.stageLatency = stageLatency;
+    }
+
     public static class AuthenticationProperties {
 
         private boolean enabled = false;
@@ -126,4 +171,60 @@ public class HandlersChainProperties implements HandlersChainParameters {
             this.timeout = timeout;
         }
     }
+
+    public static class BatchProperties {
+
+        private int maxMessages = 1000;
+
+        private int maxSize = 10 * 1024 * 1024;
+
+        private Duration timeout = Duration.ofMillis(400);
+
+        public int getMaxMessages() {
+            return maxMessages;
+        }
+
+        public void setMaxMessages(int maxMessages) {
+            this.maxMessages = maxMessages;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    public static class StageLatencyProperties {
+
+        private boolean enabled = false;
+
+        private double samplingRate = 0.01;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSamplingRate() {
+            return samplingRate;
+        }
+
+        public void setSamplingRate(double samplingRate) {
+            this.samplingRate = samplingRate;
+        }
+    }
 }
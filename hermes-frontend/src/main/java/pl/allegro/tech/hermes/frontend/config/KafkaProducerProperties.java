@@ -4,6 +4,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import pl.allegro.tech.hermes.frontend.producer.kafka.KafkaProducerParameters;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 @ConfigurationProperties(prefix = "frontend.kafka.producer")
 public class KafkaProducerProperties implements KafkaProducerParameters {
@@ -34,6 +36,10 @@ public class KafkaProducerProperties implements KafkaProducerParameters {
 
     private boolean reportNodeMetricsEnabled = false;
 
+    private boolean binaryMessageIdHeaderEnabled = false;
+
+    private PoolProperties pool = new PoolProperties();
+
     @Override
     public Duration getMaxBlock() {
         return maxBlock;
@@ -150,4 +156,53 @@ public class KafkaProducerProperties implements KafkaProducerParameters {
     public void setReportNodeMetricsEnabled(boolean reportNodeMetricsEnabled) {
         this.reportNodeMetricsEnabled = reportNodeMetricsEnabled;
     }
+
+    public boolean isBinaryMessageIdHeaderEnabled() {
+        return binaryMessageIdHeaderEnabled;
+    }
+
+    public void setBinaryMessageIdHeaderEnabled(boolean binaryMessageIdHeaderEnabled) {
+        this.binaryMessageIdHeaderEnabled = binaryMessageIdHeaderEnabled;
+    }
+
+    @Override
+    public int getPoolSize() {
+        return pool.size;
+    }
+
+    @Override
+    public Map<String, Integer> getPoolPinnedTopics() {
+        return pool.pinnedTopics;
+    }
+
+    public PoolProperties getPool() {
+        return pool;
+    }
+
+    public void setPool(PoolProperties pool) {
+        this.pool = pool;
+    }
+
+    public static class PoolProperties {
+
+        private int size = 1;
+
+        private Map<String, Integer> pinnedTopics = new HashMap<>();
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public Map<String, Integer> getPinnedTopics() {
+            return pinnedTopics;
+        }
+
+        public void setPinnedTopics(Map<String, Integer> pinnedTopics) {
+            this.pinnedTopics = pinnedTopics;
+        }
+    }
 }
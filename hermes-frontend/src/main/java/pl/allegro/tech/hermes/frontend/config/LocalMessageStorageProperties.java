@@ -30,8 +30,20 @@ public class LocalMessageStorageProperties implements BackupMessagesLoaderParame
 
     private Duration loadingWaitForBrokerTopicInfo = Duration.ofSeconds(5);
 
+    private int loadingMaxInflightMessages = 1000;
+
+    private boolean loadingInBackgroundEnabled = false;
+
     private boolean sizeReportingEnabled = true;
 
+    private String repositoryType = "chronicle_map";
+
+    private int writeAheadLogSegmentSizeBytes = 64 * 1024 * 1024;
+
+    private Duration writeAheadLogFlushInterval = Duration.ofMillis(10);
+
+    private double writeAheadLogCompactionLiveRatio = 0.5;
+
     @Override
     public long getBufferedSizeBytes() {
         return bufferedSizeBytes;
@@ -122,6 +134,24 @@ public class LocalMessageStorageProperties implements BackupMessagesLoaderParame
         this.loadingWaitForBrokerTopicInfo = loadingWaitForBrokerTopicInfo;
     }
 
+    @Override
+    public int getLoadingMaxInflightMessages() {
+        return loadingMaxInflightMessages;
+    }
+
+    public void setLoadingMaxInflightMessages(int loadingMaxInflightMessages) {
+        this.loadingMaxInflightMessages = loadingMaxInflightMessages;
+    }
+
+    @Override
+    public boolean isLoadingInBackgroundEnabled() {
+        return loadingInBackgroundEnabled;
+    }
+
+    public void setLoadingInBackgroundEnabled(boolean loadingInBackgroundEnabled) {
+        this.loadingInBackgroundEnabled = loadingInBackgroundEnabled;
+    }
+
     @Override
     public boolean isSizeReportingEnabled() {
         return sizeReportingEnabled;
@@ -130,4 +160,40 @@ public class LocalMessageStorageProperties implements BackupMessagesLoaderParame
     public void setSizeReportingEnabled(boolean sizeReportingEnabled) {
         this.sizeReportingEnabled = sizeReportingEnabled;
     }
+
+    @Override
+    public String getRepositoryType() {
+        return repositoryType;
+    }
+
+    public void setRepositoryType(String repositoryType) {
+        this.repositoryType = repositoryType;
+    }
+
+    @Override
+    public int getWriteAheadLogSegmentSizeBytes() {
+        return writeAheadLogSegmentSizeBytes;
+    }
+
+    public void setWriteAheadLogSegmentSizeBytes(int writeAheadLogSegmentSizeBytes) {
+        this.writeAheadLogSegmentSizeBytes = writeAheadLogSegmentSizeBytes;
+    }
+
+    @Override
+    public Duration getWriteAheadLogFlushInterval() {
+        return writeAheadLogFlushInterval;
+    }
+
+    public void setWriteAheadLogFlushInterval(Duration writeAheadLogFlushInterval) {
+        this.writeAheadLogFlushInterval = writeAheadLogFlushInterval;
+    }
+
+    @Override
+    public double getWriteAheadLogCompactionLiveRatio() {
+        return writeAheadLogCompactionLiveRatio;
+    }
+
+    public void setWriteAheadLogCompactionLiveRatio(double writeAheadLogCompactionLiveRatio) {
+        this.writeAheadLogCompactionLiveRatio = writeAheadLogCompactionLiveRatio;
+    }
 }
@@ -22,6 +22,16 @@ public class ThroughputProperties implements ThroughputParameters {
 
     private Duration dynamicCheckInterval = Duration.ofSeconds(30);
 
+    private long tokenBucketTopicMax = Long.MAX_VALUE;
+
+    private long tokenBucketTopicBurst = Long.MAX_VALUE;
+
+    private long tokenBucketGlobalMax = Long.MAX_VALUE;
+
+    private long tokenBucketGlobalBurst = Long.MAX_VALUE;
+
+    private Duration tokenBucketRefillInterval = Duration.ofMillis(100);
+
     @Override
     public String getType() {
         return type;
@@ -84,4 +94,49 @@ public class ThroughputProperties implements ThroughputParameters {
     public void setDynamicCheckInterval(Duration dynamicCheckInterval) {
         this.dynamicCheckInterval = dynamicCheckInterval;
     }
+
+    @Override
+    public long getTokenBucketTopicMax() {
+        return tokenBucketTopicMax;
+    }
+
+    public void setTokenBucketTopicMax(long tokenBucketTopicMax) {
+        this.tokenBucketTopicMax = tokenBucketTopicMax;
+    }
+
+    @Override
+    public long getTokenBucketTopicBurst() {
+        return tokenBucketTopicBurst;
+    }
+
+    public void setTokenBucketTopicBurst(long tokenBucketTopicBurst) {
+        this.tokenBucketTopicBurst = tokenBucketTopicBurst;
+    }
+
+    @Override
+    public long getTokenBucketGlobalMax() {
+        return tokenBucketGlobalMax;
+    }
+
+    public void setTokenBucketGlobalMax(long tokenBucketGlobalMax) {
+        this.tokenBucketGlobalMax = tokenBucketGlobalMax;
+    }
+
+    @Override
+    public long getTokenBucketGlobalBurst() {
+        return tokenBucketGlobalBurst;
+    }
+
+    public void setTokenBucketGlobalBurst(long tokenBucketGlobalBurst) {
+        this.tokenBucketGlobalBurst = tokenBucketGlobalBurst;
+    }
+
+    @Override
+    public Duration getTokenBucketRefillInterval() {
+        return tokenBucketRefillInterval;
+    }
+
+    public void setTokenBucketRefillInterval(Duration tokenBucketRefillInterval) {
+        this.tokenBucketRefillInterval = tokenBucketRefillInterval;
+    }
 }
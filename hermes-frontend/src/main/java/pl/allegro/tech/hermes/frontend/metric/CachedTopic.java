@@ -15,9 +15,14 @@ import pl.allegro.tech.hermes.metrics.counters.MeterBackedHermesCounter;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Topic together with state derived from it once, when the topic is loaded or changed, instead of on every
+ * request: qualified name, Kafka topics and meters.
+ */
 public class CachedTopic {
 
     private final Topic topic;
+    private final String qualifiedName;
     private final KafkaTopics kafkaTopics;
     private final MetricsFacade metricsFacade;
     private final boolean blacklisted;
@@ -43,6 +48,8 @@ public class CachedTopic {
 
     private final Map<Integer, MetersPair> httpStatusCodesMeters = new ConcurrentHashMap<>();
 
+    private final Map<PublishingStage, HermesTimer> stageLatencyTimers = new ConcurrentHashMap<>();
+
     public CachedTopic(Topic topic, MetricsFacade metricsFacade,
                        KafkaTopics kafkaTopics) {
         this(topic, metricsFacade, kafkaTopics, false);
@@ -51,6 +58,7 @@ public class CachedTopic {
     public CachedTopic(Topic topic, MetricsFacade metricsFacade,
                        KafkaTopics kafkaTopics, boolean blacklisted) {
         this.topic = topic;
+        this.qualifiedName = topic.getQualifiedName();
         this.kafkaTopics = kafkaTopics;
         this.metricsFacade = metricsFacade;
         this.blacklisted = blacklisted;
@@ -89,7 +97,7 @@ public class CachedTopic {
     }
 
     public String getQualifiedName() {
-        return topic.getName().qualifiedName();
+        return qualifiedName;
     }
 
     public KafkaTopics getKafkaTopics() {
@@ -122,6 +130,13 @@ public class CachedTopic {
         return topicBrokerLatencyTimer.time();
     }
 
+    public HermesTimer stageLatencyTimer(PublishingStage stage) {
+        return stageLatencyTimers.computeIfAbsent(
+                stage,
+                s -> metricsFacade.topics().topicStageLatency(topic.getName(), s.getMetricName())
+        );
+    }
+
     public void incrementPublished() {
         published.increment(1L);
     }
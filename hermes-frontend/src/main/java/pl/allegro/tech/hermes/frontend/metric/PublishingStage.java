@@ -0,0 +1,37 @@
+package pl.allegro.tech.hermes.frontend.metric;
+
+/**
+ * Stages of publishing a single message, measured by {@link PublishingStageTimers}.
+ */
+public enum PublishingStage {
+
+    /**
+     * From accepting a request until its body is fully read.
+     */
+    READ("read"),
+
+    /**
+     * Creating a message: schema lookup, conversion to Avro, validation and wrapping.
+     */
+    CREATE("create"),
+
+    /**
+     * Handing a message over to a Kafka producer, i.e. waiting for metadata and space in the record accumulator.
+     */
+    SEND("send"),
+
+    /**
+     * From handing a message over to a Kafka producer until it is acknowledged by brokers.
+     */
+    ACK("ack");
+
+    private final String metricName;
+
+    PublishingStage(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,62 @@
+package pl.allegro.tech.hermes.frontend.metric;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link PublishingStage}s of a single request. Only a sample of requests is measured, the rest
+ * share a {@link #NOOP} instance, so stage timers can stay enabled in production.
+ */
+public class PublishingStageTimers {
+
+    public static final PublishingStageTimers NOOP = new PublishingStageTimers(null, 0) {
+        @Override
+        public long now() {
+            return 0;
+        }
+
+        @Override
+        public void record(PublishingStage stage) {
+        }
+
+        @Override
+        public void record(PublishingStage stage, long startNanos) {
+        }
+    };
+
+    private final CachedTopic cachedTopic;
+    private volatile long stageStartNanos;
+
+    private PublishingStageTimers(CachedTopic cachedTopic, long stageStartNanos) {
+        this.cachedTopic = cachedTopic;
+        this.stageStartNanos = stageStartNanos;
+    }
+
+    public static PublishingStageTimers start(CachedTopic cachedTopic, double samplingRate) {
+        if (samplingRate > 0 && ThreadLocalRandom.current().nextDouble() < samplingRate) {
+            return new PublishingStageTimers(cachedTopic, System.nanoTime());
+        }
+        return NOOP;
+    }
+
+    public long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a stage which started when the previous one ended and starts the next one. Use only for stages
+     * executed one after another.
+     */
+    public void record(PublishingStage stage) {
+        long now = System.nanoTime();
+        cachedTopic.stageLatencyTimer(stage).record(now - stageStartNanos, TimeUnit.NANOSECONDS);
+        stageStartNanos = now;
+    }
+
+    /**
+     * Records a stage which started at the given {@link #now()}, e.g. one overlapping with other stages.
+     */
+    public void record(PublishingStage stage, long startNanos) {
+        cachedTopic.stageLatencyTimer(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,123 @@
+package pl.allegro.tech.hermes.frontend.producer.kafka;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.api.TopicName;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.frontend.cache.topic.TopicsCache;
+import pl.allegro.tech.hermes.frontend.metric.CachedTopic;
+import pl.allegro.tech.hermes.metrics.HermesCounter;
+
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically routes topics between producers tuned for latency (default producer settings) and producers tuned for
+ * throughput (higher linger and batch size), based on topic throughput. Low-rate topics do not pay the linger latency,
+ * while high-rate topics fill bigger batches.
+ *
+ * <p>Topics are promoted once their one-minute throughput reaches the promote threshold and demoted when it drops below
+ * the demote threshold. Promotions are held back while batches of throughput producers wait in the send buffer
+ * longer than the configured maximum record queue time.</p>
+ *
+ * <p>Throughput producers pay off only when they fill bigger batches. While their average batch fills less than
+ * the configured share of the throughput batch size, topics are demoted once they drop below the promote threshold,
+ * as they add linger latency without batching more records.</p>
+ *
+ * <p>Switching a topic blocks the job until the previous producer flushes, so records of the topic keep their order.</p>
+ */
+public class AdaptiveProducerTuningJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveProducerTuningJob.class);
+
+    private final Producers producers;
+    private final TopicsCache topicsCache;
+    private final AdaptiveProducerTuningParameters parameters;
+    private final HermesCounter promotions;
+    private final HermesCounter demotions;
+    private final ScheduledExecutorService executorService;
+
+    private ScheduledFuture<?> job;
+
+    public AdaptiveProducerTuningJob(Producers producers,
+                                     TopicsCache topicsCache,
+                                     AdaptiveProducerTuningParameters parameters,
+                                     MetricsFacade metricsFacade) {
+        this.producers = producers;
+        this.topicsCache = topicsCache;
+        this.parameters = parameters;
+        this.promotions = metricsFacade.producer().adaptiveTuningPromotions();
+        this.demotions = metricsFacade.producer().adaptiveTuningDemotions();
+        this.executorService = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("AdaptiveProducerTuningJob-%d").build());
+    }
+
+    @Override
+    public void run() {
+        try {
+            tune();
+        } catch (Exception e) {
+            logger.error("An error occurred while tuning producers", e);
+        }
+    }
+
+    void tune() {
+        boolean promotionsAllowed = producers.getThroughputProducersRecordQueueTimeMax()
+                <= parameters.getMaxRecordQueueTime().toMillis();
+        long demoteThreshold = demoteThreshold();
+        for (CachedTopic topic : topicsCache.getTopics()) {
+            double rate = topic.getThroughput().getOneMinuteRate();
+            TopicName topicName = topic.getTopicName();
+            if (producers.isRoutedToThroughputProducers(topicName)) {
+                if (rate < demoteThreshold) {
+                    producers.routeToLatencyProducers(topic);
+                    demotions.increment(1L);
+                    logger.info("Topic {} routed to latency tuned producers, throughput {} B/s", topicName.qualifiedName(), rate);
+                }
+            } else if (promotionsAllowed && rate >= parameters.getPromoteThresholdBytesPerSecond()) {
+                producers.routeToThroughputProducers(topic);
+                promotions.increment(1L);
+                logger.info("Topic {} routed to throughput tuned producers, throughput {} B/s", topicName.qualifiedName(), rate);
+            }
+        }
+        removeUnknownTopics();
+    }
+
+    private long demoteThreshold() {
+        double batchSizeAvg = producers.getThroughputProducersBatchSizeAvg();
+        if (batchSizeAvg > 0 && batchSizeAvg / parameters.getThroughputBatchSize() < parameters.getMinThroughputBatchFill()) {
+            return parameters.getPromoteThresholdBytesPerSecond();
+        }
+        return parameters.getDemoteThresholdBytesPerSecond();
+    }
+
+    private void removeUnknownTopics() {
+        Set<TopicName> knownTopics = topicsCache.getTopics().stream()
+                .map(CachedTopic::getTopicName)
+                .collect(Collectors.toSet());
+        producers.getThroughputRoutedTopics().stream()
+                .filter(topicName -> !knownTopics.contains(topicName))
+                .collect(Collectors.toList())
+                .forEach(producers::forgetThroughputRouting);
+    }
+
+    public void start() {
+        if (parameters.isEnabled() && producers.isThroughputRoutingAvailable()) {
+            long interval = parameters.getCheckInterval().toMillis();
+            job = executorService.scheduleAtFixedRate(this, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        if (job != null) {
+            job.cancel(false);
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,22 @@
+package pl.allegro.tech.hermes.frontend.producer.kafka;
+
+import java.time.Duration;
+
+public interface AdaptiveProducerTuningParameters {
+
+    boolean isEnabled();
+
+    Duration getThroughputLinger();
+
+    int getThroughputBatchSize();
+
+    long getPromoteThresholdBytesPerSecond();
+
+    long getDemoteThresholdBytesPerSecond();
+
+    Duration getMaxRecordQueueTime();
+
+    double getMinThroughputBatchFill();
+
+    Duration getCheckInterval();
+}
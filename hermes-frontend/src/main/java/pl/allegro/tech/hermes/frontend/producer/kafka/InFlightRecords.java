@@ -0,0 +1,35 @@
+package pl.allegro.tech.hermes.frontend.producer.kafka;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Counts records of topics sent but not acknowledged yet. Only topics with records in flight are kept, so the map
+ * does not grow with topics which are not published anymore.
+ */
+class InFlightRecords {
+
+    private static final long AWAIT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Map<String, Long> counts = new ConcurrentHashMap<>();
+
+    void started(String qualifiedTopicName) {
+        counts.merge(qualifiedTopicName, 1L, Long::sum);
+    }
+
+    void completed(String qualifiedTopicName) {
+        counts.computeIfPresent(qualifiedTopicName, (topic, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Waits until all records of the topic are acknowledged. Callers must make sure no new records of the topic
+     * are sent meanwhile, otherwise it may never return. Returns early when the thread is interrupted.
+     */
+    void awaitCompletion(String qualifiedTopicName) {
+        while (counts.containsKey(qualifiedTopicName) && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(AWAIT_INTERVAL_NANOS);
+        }
+    }
+}
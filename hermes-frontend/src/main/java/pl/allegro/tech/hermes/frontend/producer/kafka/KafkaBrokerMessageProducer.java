@@ -41,7 +41,7 @@ public class KafkaBrokerMessageProducer implements BrokerMessageProducer {
                 messageConverter.convertToProducerRecord(message, cachedTopic.getKafkaTopics().getPrimary().name());
 
         try {
-            producers.get(cachedTopic.getTopic()).send(producerRecord, new SendCallback(message, cachedTopic.getTopic(), callback));
+            producers.send(cachedTopic, producerRecord, new SendCallback(message, cachedTopic.getTopic(), callback));
         } catch (Exception e) {
             // message didn't get to internal producer buffer and it will not be send to a broker
             callback.onUnpublished(message, cachedTopic.getTopic(), e);
@@ -53,7 +53,7 @@ public class KafkaBrokerMessageProducer implements BrokerMessageProducer {
         String kafkaTopicName = cachedTopic.getKafkaTopics().getPrimary().name().asString();
 
         try {
-            List<PartitionInfo> partitionInfos = producers.get(cachedTopic.getTopic()).partitionsFor(kafkaTopicName);
+            List<PartitionInfo> partitionInfos = producers.get(cachedTopic).partitionsFor(kafkaTopicName);
             if (anyPartitionWithoutLeader(partitionInfos)) {
                 logger.warn("Topic {} has partitions without a leader.", kafkaTopicName);
                 return false;
@@ -5,17 +5,33 @@ import com.google.common.primitives.Longs;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.internals.RecordHeader;
 import pl.allegro.tech.hermes.common.kafka.KafkaHeaderNameParameters;
+import pl.allegro.tech.hermes.common.kafka.MessageIdHeaderCodec;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates headers of Kafka records. Schema headers depend only on a schema, so they are created once per
+ * schema version and id and reused by all records, as Kafka never modifies header values.
+ */
 public class KafkaHeaderFactory {
 
     private final KafkaHeaderNameParameters kafkaHeaderNameParameters;
+    private final boolean binaryMessageIdEnabled;
+    private final ConcurrentMap<Integer, Header> schemaVersionHeaders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Header> schemaIdHeaders = new ConcurrentHashMap<>();
 
     public KafkaHeaderFactory(KafkaHeaderNameParameters kafkaHeaderNameParameters) {
+        this(kafkaHeaderNameParameters, false);
+    }
+
+    public KafkaHeaderFactory(KafkaHeaderNameParameters kafkaHeaderNameParameters, boolean binaryMessageIdEnabled) {
         this.kafkaHeaderNameParameters = kafkaHeaderNameParameters;
+        this.binaryMessageIdEnabled = binaryMessageIdEnabled;
     }
 
     Header messageId(String messageId) {
-        return new RecordHeader(kafkaHeaderNameParameters.getMessageId(), messageId.getBytes());
+        return new RecordHeader(kafkaHeaderNameParameters.getMessageId(), MessageIdHeaderCodec.encode(messageId, binaryMessageIdEnabled));
     }
 
     Header timestamp(long timestamp) {
@@ -23,10 +39,12 @@ public class KafkaHeaderFactory {
     }
 
     Header schemaVersion(int schemaVersion) {
-        return new RecordHeader(kafkaHeaderNameParameters.getSchemaVersion(), Ints.toByteArray(schemaVersion));
+        return schemaVersionHeaders.computeIfAbsent(schemaVersion,
+                version -> new RecordHeader(kafkaHeaderNameParameters.getSchemaVersion(), Ints.toByteArray(version)));
     }
 
     Header schemaId(int schemaId) {
-        return new RecordHeader(kafkaHeaderNameParameters.getSchemaId(), Ints.toByteArray(schemaId));
+        return schemaIdHeaders.computeIfAbsent(schemaId,
+                id -> new RecordHeader(kafkaHeaderNameParameters.getSchemaId(), Ints.toByteArray(id)));
     }
 }
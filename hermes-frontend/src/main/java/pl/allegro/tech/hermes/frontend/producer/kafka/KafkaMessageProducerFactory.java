@@ -5,7 +5,9 @@ import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import pl.allegro.tech.hermes.common.kafka.KafkaParameters;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.apache.kafka.clients.CommonClientConfigs.SECURITY_PROTOCOL_CONFIG;
@@ -36,22 +38,29 @@ public class KafkaMessageProducerFactory {
 
     private final KafkaParameters kafkaParameters;
     private final KafkaProducerParameters kafkaProducerParameters;
+    private final AdaptiveProducerTuningParameters adaptiveTuningParameters;
     private final long bufferedSizeBytes;
 
     public KafkaMessageProducerFactory(KafkaParameters kafkaParameters,
                                        KafkaProducerParameters kafkaProducerParameters,
+                                       AdaptiveProducerTuningParameters adaptiveTuningParameters,
                                        long bufferedSizeBytes) {
         this.kafkaProducerParameters = kafkaProducerParameters;
+        this.adaptiveTuningParameters = adaptiveTuningParameters;
         this.bufferedSizeBytes = bufferedSizeBytes;
         this.kafkaParameters = kafkaParameters;
     }
 
     public Producers provide() {
+        if (kafkaProducerParameters.getPoolSize() < 1) {
+            throw new IllegalArgumentException("Kafka producer pool size must be positive");
+        }
         Map<String, Object> props = new HashMap<>();
         props.put(BOOTSTRAP_SERVERS_CONFIG, kafkaParameters.getBrokerList());
         props.put(MAX_BLOCK_MS_CONFIG, (int) kafkaProducerParameters.getMaxBlock().toMillis());
         props.put(COMPRESSION_TYPE_CONFIG, kafkaProducerParameters.getCompressionCodec());
-        props.put(BUFFER_MEMORY_CONFIG, bufferedSizeBytes);
+        int poolsPerAck = adaptiveTuningParameters.isEnabled() ? 2 : 1;
+        props.put(BUFFER_MEMORY_CONFIG, bufferedSizeBytes / ((long) kafkaProducerParameters.getPoolSize() * poolsPerAck));
         props.put(REQUEST_TIMEOUT_MS_CONFIG, (int) kafkaProducerParameters.getRequestTimeout().toMillis());
         props.put(BATCH_SIZE_CONFIG, kafkaProducerParameters.getBatchSize());
         props.put(SEND_BUFFER_CONFIG, kafkaProducerParameters.getTcpSendBuffer());
@@ -75,9 +84,27 @@ public class KafkaMessageProducerFactory {
             );
         }
 
-        Producer<byte[], byte[]> leaderConfirms = new KafkaProducer<>(copyWithEntryAdded(props, ACKS_CONFIG, ACK_LEADER));
-        Producer<byte[], byte[]> everyoneConfirms = new KafkaProducer<>(copyWithEntryAdded(props, ACKS_CONFIG, ACK_ALL));
-        return new Producers(leaderConfirms, everyoneConfirms, kafkaProducerParameters.isReportNodeMetricsEnabled());
+        List<Producer<byte[], byte[]>> leaderConfirms = createPool(copyWithEntryAdded(props, ACKS_CONFIG, ACK_LEADER));
+        List<Producer<byte[], byte[]>> everyoneConfirms = createPool(copyWithEntryAdded(props, ACKS_CONFIG, ACK_ALL));
+        List<Producer<byte[], byte[]>> throughputLeaderConfirms = new ArrayList<>();
+        List<Producer<byte[], byte[]>> throughputEveryoneConfirms = new ArrayList<>();
+        if (adaptiveTuningParameters.isEnabled()) {
+            Map<String, Object> throughputProps = new HashMap<>(props);
+            throughputProps.put(LINGER_MS_CONFIG, (int) adaptiveTuningParameters.getThroughputLinger().toMillis());
+            throughputProps.put(BATCH_SIZE_CONFIG, adaptiveTuningParameters.getThroughputBatchSize());
+            throughputLeaderConfirms = createPool(copyWithEntryAdded(throughputProps, ACKS_CONFIG, ACK_LEADER));
+            throughputEveryoneConfirms = createPool(copyWithEntryAdded(throughputProps, ACKS_CONFIG, ACK_ALL));
+        }
+        return new Producers(leaderConfirms, everyoneConfirms, throughputLeaderConfirms, throughputEveryoneConfirms,
+                kafkaProducerParameters.getPoolPinnedTopics(), kafkaProducerParameters.isReportNodeMetricsEnabled());
+    }
+
+    private List<Producer<byte[], byte[]>> createPool(Map<String, Object> props) {
+        List<Producer<byte[], byte[]>> pool = new ArrayList<>(kafkaProducerParameters.getPoolSize());
+        for (int i = 0; i < kafkaProducerParameters.getPoolSize(); i++) {
+            pool.add(new KafkaProducer<>(props));
+        }
+        return pool;
     }
 
     private ImmutableMap<String, Object> copyWithEntryAdded(Map<String, Object> common, String key, String value) {
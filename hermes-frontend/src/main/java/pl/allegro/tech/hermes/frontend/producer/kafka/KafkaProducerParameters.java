@@ -1,6 +1,7 @@
 package pl.allegro.tech.hermes.frontend.producer.kafka;
 
 import java.time.Duration;
+import java.util.Map;
 
 public interface KafkaProducerParameters {
 
@@ -29,4 +30,8 @@ public interface KafkaProducerParameters {
     int getMaxInflightRequestsPerConnection();
 
     boolean isReportNodeMetricsEnabled();
+
+    int getPoolSize();
+
+    Map<String, Integer> getPoolPinnedTopics();
 }
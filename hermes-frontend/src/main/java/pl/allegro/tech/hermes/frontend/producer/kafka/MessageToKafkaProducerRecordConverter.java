@@ -9,14 +9,16 @@ import pl.allegro.tech.hermes.schema.CompiledSchema;
 import pl.allegro.tech.hermes.schema.SchemaId;
 import pl.allegro.tech.hermes.schema.SchemaVersion;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static java.util.Optional.ofNullable;
 
 public class MessageToKafkaProducerRecordConverter {
 
+    private static final int MAX_HEADERS = 4;
+
     private final KafkaHeaderFactory kafkaHeaderFactory;
     private final boolean schemaIdHeaderEnabled;
 
@@ -48,17 +50,12 @@ public class MessageToKafkaProducerRecordConverter {
                                                  long timestamp,
                                                  Optional<SchemaId> schemaId,
                                                  Optional<SchemaVersion> schemaVersion) {
-        Stream<Optional<Header>> headers = Stream.of(
-                Optional.of(kafkaHeaderFactory.messageId(id)),
-                Optional.of(kafkaHeaderFactory.timestamp(timestamp)),
-                schemaVersion.map(sv -> kafkaHeaderFactory.schemaVersion(sv.value())),
-                schemaId.map(sid -> kafkaHeaderFactory.schemaId(sid.value()))
-        );
-
-        return headers
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+        List<Header> headers = new ArrayList<>(MAX_HEADERS);
+        headers.add(kafkaHeaderFactory.messageId(id));
+        headers.add(kafkaHeaderFactory.timestamp(timestamp));
+        schemaVersion.ifPresent(sv -> headers.add(kafkaHeaderFactory.schemaVersion(sv.value())));
+        schemaId.ifPresent(sid -> headers.add(kafkaHeaderFactory.schemaId(sid.value())));
+        return headers;
     }
 
 }
@@ -0,0 +1,57 @@
+package pl.allegro.tech.hermes.frontend.producer.kafka;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.api.TopicName;
+
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Chooses which member of a producer pool serves given topic. Topics are spread over the pool with consistent
+ * hashing, so resizing the pool moves only a fraction of topics between producers. The input of consistent hashing
+ * is built from hash codes which strings of the topic name cache, so selecting a member on the request path neither
+ * allocates nor hashes the name again. A topic can also be pinned to a given member explicitly, e.g. to isolate
+ * a noisy topic.
+ */
+class ProducerPoolMemberSelector {
+
+    private final int poolSize;
+    private final Map<TopicName, Integer> pinnedTopics;
+
+    ProducerPoolMemberSelector(int poolSize, Map<String, Integer> pinnedTopics) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException(format("Producer pool size must be positive, was %d", poolSize));
+        }
+        ImmutableMap.Builder<TopicName, Integer> pinned = ImmutableMap.builder();
+        pinnedTopics.forEach((topic, member) -> {
+            if (member < 0 || member >= poolSize) {
+                throw new IllegalArgumentException(
+                        format("Topic %s is pinned to producer %d which is out of the pool of size %d", topic, member, poolSize));
+            }
+            pinned.put(TopicName.fromQualifiedName(topic), member);
+        });
+        this.poolSize = poolSize;
+        this.pinnedTopics = pinned.build();
+    }
+
+    int select(Topic topic) {
+        if (poolSize == 1) {
+            return 0;
+        }
+        TopicName name = topic.getName();
+        if (!pinnedTopics.isEmpty()) {
+            Integer pinned = pinnedTopics.get(name);
+            if (pinned != null) {
+                return pinned;
+            }
+        }
+        return Hashing.consistentHash(31L * name.getGroupName().hashCode() + name.getName().hashCode(), poolSize);
+    }
+
+    int getPoolSize() {
+        return poolSize;
+    }
+}
@@ -1,24 +1,54 @@
 package pl.allegro.tech.hermes.frontend.producer.kafka;
 
+import com.google.common.collect.ImmutableList;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.Metric;
 import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.Node;
 import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.api.TopicName;
 import pl.allegro.tech.hermes.common.metric.MetricsFacade;
+import pl.allegro.tech.hermes.frontend.metric.CachedTopic;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 import java.util.function.ToDoubleFunction;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+
 // exposes kafka producer metrics, see: https://docs.confluent.io/platform/current/kafka/monitoring.html#producer-metrics
 public class Producers {
-    private final Producer<byte[], byte[]> ackLeader;
-    private final Producer<byte[], byte[]> ackAll;
+    private static final MetricName RECORD_QUEUE_TIME_MAX = producerMetric("record-queue-time-max", "producer-metrics",
+            "maximum time [ms] that batch spent in the send buffer");
+    private static final MetricName BATCH_SIZE_AVG = producerMetric("batch-size-avg", "producer-metrics", "average batch size in bytes");
+
+    // bounds records held back while a topic switches pools, further sends wait until the switch completes
+    private static final int MAX_DEFERRED_SENDS = 10_000;
+
+    private final List<Producer<byte[], byte[]>> ackLeader;
+    private final List<Producer<byte[], byte[]>> ackAll;
+    private final List<Producer<byte[], byte[]>> throughputAckLeader;
+    private final List<Producer<byte[], byte[]>> throughputAckAll;
+    private final List<Producer<byte[], byte[]>> allAckLeader;
+    private final List<Producer<byte[], byte[]>> allAckAll;
+    private final List<Producer<byte[], byte[]>> allThroughput;
+    private final ProducerPoolMemberSelector memberSelector;
+    private final Set<TopicName> throughputTopics = ConcurrentHashMap.newKeySet();
+    private final Map<String, PoolSwitch> poolSwitches = new ConcurrentHashMap<>();
+    private final InFlightRecords inFlightRecords = new InFlightRecords();
 
     private final boolean reportNodeMetrics;
     private final AtomicBoolean nodeMetricsRegistered = new AtomicBoolean(false);
@@ -26,40 +56,235 @@ public class Producers {
     public Producers(Producer<byte[], byte[]> ackLeader,
                      Producer<byte[], byte[]> ackAll,
                      boolean reportNodeMetrics) {
-        this.ackLeader = ackLeader;
-        this.ackAll = ackAll;
+        this(singletonList(ackLeader), singletonList(ackAll), emptyMap(), reportNodeMetrics);
+    }
+
+    public Producers(List<Producer<byte[], byte[]>> ackLeader,
+                     List<Producer<byte[], byte[]>> ackAll,
+                     Map<String, Integer> pinnedTopics,
+                     boolean reportNodeMetrics) {
+        this(ackLeader, ackAll, emptyList(), emptyList(), pinnedTopics, reportNodeMetrics);
+    }
+
+    /**
+     * Creates producers with additional pools tuned for throughput (higher linger and batch size), used for topics
+     * routed with {@link #routeToThroughputProducers(CachedTopic)}. Throughput pools are empty when adaptive tuning is disabled.
+     */
+    public Producers(List<Producer<byte[], byte[]>> ackLeader,
+                     List<Producer<byte[], byte[]>> ackAll,
+                     List<Producer<byte[], byte[]>> throughputAckLeader,
+                     List<Producer<byte[], byte[]>> throughputAckAll,
+                     Map<String, Integer> pinnedTopics,
+                     boolean reportNodeMetrics) {
+        if (ackLeader.size() != ackAll.size()) {
+            throw new IllegalArgumentException("Ack leader and ack all producer pools must be of the same size");
+        }
+        if (throughputAckLeader.size() != throughputAckAll.size()
+                || (!throughputAckLeader.isEmpty() && throughputAckLeader.size() != ackLeader.size())) {
+            throw new IllegalArgumentException("Throughput producer pools must be empty or of the same size as default pools");
+        }
+        this.ackLeader = List.copyOf(ackLeader);
+        this.ackAll = List.copyOf(ackAll);
+        this.throughputAckLeader = List.copyOf(throughputAckLeader);
+        this.throughputAckAll = List.copyOf(throughputAckAll);
+        this.allAckLeader = ImmutableList.<Producer<byte[], byte[]>>builder().addAll(ackLeader).addAll(throughputAckLeader).build();
+        this.allAckAll = ImmutableList.<Producer<byte[], byte[]>>builder().addAll(ackAll).addAll(throughputAckAll).build();
+        this.allThroughput = ImmutableList.<Producer<byte[], byte[]>>builder()
+                .addAll(throughputAckLeader).addAll(throughputAckAll).build();
+        this.memberSelector = new ProducerPoolMemberSelector(ackLeader.size(), pinnedTopics);
         this.reportNodeMetrics = reportNodeMetrics;
     }
 
     public Producer<byte[], byte[]> get(Topic topic) {
+        return pool(topic).get(memberSelector.select(topic));
+    }
+
+    public Producer<byte[], byte[]> get(CachedTopic cachedTopic) {
+        return get(cachedTopic.getTopic());
+    }
+
+    /**
+     * Sends a record of a topic with its producer. While the topic switches producer pools, records are held back
+     * until the previous producer acknowledges records of the topic it accepted before, so a switch does not reorder
+     * records published one after another. Records sent concurrently with the start of a switch may still take
+     * either producer. Records are counted only when throughput producers are available, as topics never switch otherwise.
+     */
+    public void send(CachedTopic cachedTopic, ProducerRecord<byte[], byte[]> record, Callback callback) {
+        if (!isThroughputRoutingAvailable()) {
+            get(cachedTopic).send(record, callback);
+            return;
+        }
+        String qualifiedName = cachedTopic.getQualifiedName();
+        // counting first makes a switch starting meanwhile wait for this record if it takes the previous producer
+        inFlightRecords.started(qualifiedName);
+        PoolSwitch poolSwitch = poolSwitches.isEmpty() ? null : poolSwitches.get(qualifiedName);
+        if (poolSwitch != null) {
+            // records held back are not counted, as the switch waits only for records sent before it
+            inFlightRecords.completed(qualifiedName);
+            if (poolSwitch.defer(() -> sendDeferred(cachedTopic, record, callback))) {
+                return;
+            }
+            inFlightRecords.started(qualifiedName);
+        }
+        sendCounted(cachedTopic, record, callback);
+    }
+
+    private void sendDeferred(CachedTopic cachedTopic, ProducerRecord<byte[], byte[]> record, Callback callback) {
+        inFlightRecords.started(cachedTopic.getQualifiedName());
+        try {
+            sendCounted(cachedTopic, record, callback);
+        } catch (Exception e) {
+            callback.onCompletion(null, e);
+        }
+    }
+
+    private void sendCounted(CachedTopic cachedTopic, ProducerRecord<byte[], byte[]> record, Callback callback) {
+        String qualifiedName = cachedTopic.getQualifiedName();
+        try {
+            get(cachedTopic).send(record, (metadata, exception) -> {
+                try {
+                    callback.onCompletion(metadata, exception);
+                } finally {
+                    inFlightRecords.completed(qualifiedName);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlightRecords.completed(qualifiedName);
+            throw e;
+        }
+    }
+
+    private List<Producer<byte[], byte[]>> pool(Topic topic) {
+        // checking emptiness first avoids computing the topic name hash when adaptive routing is idle
+        if (!throughputTopics.isEmpty() && throughputTopics.contains(topic.getName())) {
+            return topic.isReplicationConfirmRequired() ? throughputAckAll : throughputAckLeader;
+        }
         return topic.isReplicationConfirmRequired() ? ackAll : ackLeader;
     }
 
+    public boolean isThroughputRoutingAvailable() {
+        return !throughputAckLeader.isEmpty();
+    }
+
+    public boolean isRoutedToThroughputProducers(TopicName topicName) {
+        return throughputTopics.contains(topicName);
+    }
+
+    /**
+     * Routes the topic to producers tuned for throughput. Blocks until the previous producer acknowledges records
+     * of the topic, see {@link #send(CachedTopic, ProducerRecord, Callback)}.
+     */
+    public void routeToThroughputProducers(CachedTopic cachedTopic) {
+        if (!isThroughputRoutingAvailable()) {
+            throw new IllegalStateException("Throughput producers are not available, enable adaptive producer tuning");
+        }
+        switchPool(cachedTopic, () -> throughputTopics.add(cachedTopic.getTopicName()));
+    }
+
+    /**
+     * Routes the topic back to default producers. Blocks until the previous producer acknowledges records
+     * of the topic, see {@link #send(CachedTopic, ProducerRecord, Callback)}.
+     */
+    public void routeToLatencyProducers(CachedTopic cachedTopic) {
+        switchPool(cachedTopic, () -> throughputTopics.remove(cachedTopic.getTopicName()));
+    }
+
+    /**
+     * Forgets routing of a topic which is not published anymore, so there are no records to wait for.
+     */
+    public void forgetThroughputRouting(TopicName topicName) {
+        throughputTopics.remove(topicName);
+    }
+
+    private void switchPool(CachedTopic cachedTopic, Runnable route) {
+        String qualifiedName = cachedTopic.getQualifiedName();
+        PoolSwitch poolSwitch = new PoolSwitch();
+        poolSwitches.put(qualifiedName, poolSwitch);
+        try {
+            route.run();
+            // records of other topics sharing the previous producer are not waited for
+            inFlightRecords.awaitCompletion(qualifiedName);
+        } finally {
+            poolSwitch.complete();
+            poolSwitches.remove(qualifiedName);
+        }
+    }
+
+    public Set<TopicName> getThroughputRoutedTopics() {
+        return Collections.unmodifiableSet(throughputTopics);
+    }
+
+    public double getThroughputProducersRecordQueueTimeMax() {
+        return maxOf(RECORD_QUEUE_TIME_MAX).applyAsDouble(allThroughput);
+    }
+
+    /**
+     * Average batch size of throughput tuned producers which sent any batches, 0 when none did.
+     */
+    public double getThroughputProducersBatchSizeAvg() {
+        ToDoubleFunction<Producer<byte[], byte[]>> gauge = producerGauge(BATCH_SIZE_AVG);
+        return allThroughput.stream()
+                .mapToDouble(gauge)
+                .filter(batchSize -> batchSize > 0)
+                .average()
+                .orElse(0.0);
+    }
+
     public void registerGauges(MetricsFacade metricsFacade) {
         MetricName bufferTotalBytes = producerMetric("buffer-total-bytes", "producer-metrics", "buffer total bytes");
-        metricsFacade.producer().registerAckAllTotalBytesGauge(ackAll, producerGauge(bufferTotalBytes));
-        metricsFacade.producer().registerAckLeaderTotalBytesGauge(ackLeader, producerGauge(bufferTotalBytes));
+        metricsFacade.producer().registerAckAllTotalBytesGauge(allAckAll, sumOf(bufferTotalBytes));
+        metricsFacade.producer().registerAckLeaderTotalBytesGauge(allAckLeader, sumOf(bufferTotalBytes));
 
         MetricName bufferAvailableBytes = producerMetric("buffer-available-bytes", "producer-metrics", "buffer available bytes");
-        metricsFacade.producer().registerAckAllAvailableBytesGauge(ackAll, producerGauge(bufferAvailableBytes));
-        metricsFacade.producer().registerAckLeaderAvailableBytesGauge(ackLeader, producerGauge(bufferAvailableBytes));
+        metricsFacade.producer().registerAckAllAvailableBytesGauge(allAckAll, sumOf(bufferAvailableBytes));
+        metricsFacade.producer().registerAckLeaderAvailableBytesGauge(allAckLeader, sumOf(bufferAvailableBytes));
 
         MetricName compressionRate = producerMetric("compression-rate-avg", "producer-metrics", "average compression rate");
-        metricsFacade.producer().registerAckAllCompressionRateGauge(ackAll, producerGauge(compressionRate));
-        metricsFacade.producer().registerAckLeaderCompressionRateGauge(ackLeader, producerGauge(compressionRate));
+        metricsFacade.producer().registerAckAllCompressionRateGauge(allAckAll, averageOf(compressionRate));
+        metricsFacade.producer().registerAckLeaderCompressionRateGauge(allAckLeader, averageOf(compressionRate));
+
+        MetricName recordSize = producerMetric("record-size-avg", "producer-metrics", "average record size including headers");
+        metricsFacade.producer().registerAckAllRecordSizeAvgGauge(allAckAll, averageOf(recordSize));
+        metricsFacade.producer().registerAckLeaderRecordSizeAvgGauge(allAckLeader, averageOf(recordSize));
 
         MetricName failedBatches = producerMetric("record-error-total", "producer-metrics", "failed publishing batches");
-        metricsFacade.producer().registerAckAllFailedBatchesGauge(ackAll, producerGauge(failedBatches));
-        metricsFacade.producer().registerAckLeaderFailedBatchesGauge(ackLeader, producerGauge(failedBatches));
+        metricsFacade.producer().registerAckAllFailedBatchesGauge(allAckAll, sumOf(failedBatches));
+        metricsFacade.producer().registerAckLeaderFailedBatchesGauge(allAckLeader, sumOf(failedBatches));
 
         MetricName metadataAge = producerMetric("metadata-age", "producer-metrics", "age [s] of metadata");
-        metricsFacade.producer().registerAckAllMetadataAgeGauge(ackAll, producerGauge(metadataAge));
-        metricsFacade.producer().registerAckLeaderMetadataAgeGauge(ackLeader, producerGauge(metadataAge));
+        metricsFacade.producer().registerAckAllMetadataAgeGauge(allAckAll, maxOf(metadataAge));
+        metricsFacade.producer().registerAckLeaderMetadataAgeGauge(allAckLeader, maxOf(metadataAge));
+
+        metricsFacade.producer().registerAckAllRecordQueueTimeMaxGauge(allAckAll, maxOf(RECORD_QUEUE_TIME_MAX));
+        metricsFacade.producer().registerAckLeaderRecordQueueTimeMaxGauge(allAckLeader, maxOf(RECORD_QUEUE_TIME_MAX));
+
+        if (memberSelector.getPoolSize() > 1) {
+            registerPoolMemberGauges(metricsFacade, bufferTotalBytes, bufferAvailableBytes);
+        }
+        if (isThroughputRoutingAvailable()) {
+            registerThroughputProducersGauges(metricsFacade);
+        }
+    }
+
+    private void registerThroughputProducersGauges(MetricsFacade metricsFacade) {
+        metricsFacade.producer().registerThroughputProducersBatchSizeAvgGauge(allThroughput, averageOf(BATCH_SIZE_AVG));
+        metricsFacade.producer().registerThroughputProducersRecordQueueTimeMaxGauge(allThroughput, maxOf(RECORD_QUEUE_TIME_MAX));
+        metricsFacade.producer().registerThroughputRoutedTopicsGauge(throughputTopics, Set::size);
+    }
 
-        MetricName queueTimeMax = producerMetric("record-queue-time-max", "producer-metrics",
-                "maximum time [ms] that batch spent in the send buffer");
-        metricsFacade.producer().registerAckAllRecordQueueTimeMaxGauge(ackAll, producerGauge(queueTimeMax));
-        metricsFacade.producer().registerAckLeaderRecordQueueTimeMaxGauge(ackLeader, producerGauge(queueTimeMax));
+    private void registerPoolMemberGauges(MetricsFacade metricsFacade,
+                                          MetricName bufferTotalBytes,
+                                          MetricName bufferAvailableBytes) {
+        for (int member = 0; member < memberSelector.getPoolSize(); member++) {
+            metricsFacade.producer().registerAckAllPoolMemberTotalBytesGauge(
+                    ackAll.get(member), producerGauge(bufferTotalBytes), member);
+            metricsFacade.producer().registerAckLeaderPoolMemberTotalBytesGauge(
+                    ackLeader.get(member), producerGauge(bufferTotalBytes), member);
+            metricsFacade.producer().registerAckAllPoolMemberAvailableBytesGauge(
+                    ackAll.get(member), producerGauge(bufferAvailableBytes), member);
+            metricsFacade.producer().registerAckLeaderPoolMemberAvailableBytesGauge(
+                    ackLeader.get(member), producerGauge(bufferAvailableBytes), member);
+        }
     }
 
     public void maybeRegisterNodeMetricsGauges(MetricsFacade metricsFacade) {
@@ -69,16 +294,14 @@ public class Producers {
     }
 
     private void registerLatencyPerBrokerGauge(MetricsFacade metricsFacade) {
-        List<Node> brokers = ProducerBrokerNodeReader.read(ackLeader);
+        List<Node> brokers = ProducerBrokerNodeReader.read(ackLeader.get(0));
         for (Node broker : brokers) {
-            metricsFacade.producer().registerAckAllMaxLatencyBrokerGauge(ackAll,
-                    producerLatencyGauge("request-latency-max", broker), broker.host());
-            metricsFacade.producer().registerAckLeaderMaxLatencyPerBrokerGauge(ackLeader,
-                    producerLatencyGauge("request-latency-max", broker), broker.host());
-            metricsFacade.producer().registerAckAllAvgLatencyPerBrokerGauge(ackAll,
-                    producerLatencyGauge("request-latency-avg", broker), broker.host());
-            metricsFacade.producer().registerAckLeaderAvgLatencyPerBrokerGauge(ackLeader,
-                    producerLatencyGauge("request-latency-avg", broker), broker.host());
+            ToDoubleFunction<Producer<byte[], byte[]>> maxLatency = producerLatencyGauge("request-latency-max", broker);
+            ToDoubleFunction<Producer<byte[], byte[]>> avgLatency = producerLatencyGauge("request-latency-avg", broker);
+            metricsFacade.producer().registerAckAllMaxLatencyBrokerGauge(ackAll, maxOf(maxLatency), broker.host());
+            metricsFacade.producer().registerAckLeaderMaxLatencyPerBrokerGauge(ackLeader, maxOf(maxLatency), broker.host());
+            metricsFacade.producer().registerAckAllAvgLatencyPerBrokerGauge(ackAll, averageOf(avgLatency), broker.host());
+            metricsFacade.producer().registerAckLeaderAvgLatencyPerBrokerGauge(ackLeader, averageOf(avgLatency), broker.host());
         }
     }
 
@@ -103,12 +326,76 @@ public class Producers {
         return producer -> findProducerMetric(producer, predicate);
     }
 
+    private ToDoubleFunction<List<Producer<byte[], byte[]>>> sumOf(MetricName producerMetricName) {
+        ToDoubleFunction<Producer<byte[], byte[]>> gauge = producerGauge(producerMetricName);
+        return pool -> pool.stream().mapToDouble(gauge).sum();
+    }
+
+    private ToDoubleFunction<List<Producer<byte[], byte[]>>> maxOf(MetricName producerMetricName) {
+        return maxOf(producerGauge(producerMetricName));
+    }
+
+    private ToDoubleFunction<List<Producer<byte[], byte[]>>> maxOf(ToDoubleFunction<Producer<byte[], byte[]>> gauge) {
+        return pool -> pool.stream().mapToDouble(gauge).max().orElse(0.0);
+    }
+
+    private ToDoubleFunction<List<Producer<byte[], byte[]>>> averageOf(MetricName producerMetricName) {
+        return averageOf(producerGauge(producerMetricName));
+    }
+
+    private ToDoubleFunction<List<Producer<byte[], byte[]>>> averageOf(ToDoubleFunction<Producer<byte[], byte[]>> gauge) {
+        return pool -> pool.stream().mapToDouble(gauge).average().orElse(0.0);
+    }
+
     private static MetricName producerMetric(String name, String group, String description) {
         return new MetricName(name, group, description, Collections.emptyMap());
     }
 
     public void close() {
-        ackAll.close();
-        ackLeader.close();
+        allAckAll.forEach(Producer::close);
+        allAckLeader.forEach(Producer::close);
+    }
+
+    private static class PoolSwitch {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition completion = lock.newCondition();
+        private final List<Runnable> deferred = new ArrayList<>();
+        private boolean completed = false;
+
+        /**
+         * Defers the send until the switch completes. When too many records are held back, waits for the completion
+         * instead, so the record is sent after deferred ones. Returns false when the switch has already completed.
+         */
+        private boolean defer(Runnable send) {
+            lock.lock();
+            try {
+                while (!completed && deferred.size() >= MAX_DEFERRED_SENDS) {
+                    completion.awaitUninterruptibly();
+                }
+                if (completed) {
+                    return false;
+                }
+                deferred.add(send);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Sends deferred records in order. Records sent meanwhile wait for the lock, so they do not overtake them.
+         */
+        private void complete() {
+            lock.lock();
+            try {
+                completed = true;
+                deferred.forEach(Runnable::run);
+                deferred.clear();
+                completion.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 }
@@ -3,6 +3,7 @@ package pl.allegro.tech.hermes.frontend.publishing.handlers;
 import io.undertow.util.AttachmentKey;
 import pl.allegro.tech.hermes.api.Topic;
 import pl.allegro.tech.hermes.frontend.metric.CachedTopic;
+import pl.allegro.tech.hermes.frontend.metric.PublishingStageTimers;
 import pl.allegro.tech.hermes.frontend.publishing.message.Message;
 import pl.allegro.tech.hermes.frontend.publishing.message.MessageState;
 
@@ -13,6 +14,7 @@ public class AttachmentContent {
     private final CachedTopic cachedTopic;
     private final MessageState messageState;
     private final String messageId;
+    private final PublishingStageTimers stageTimers;
     private byte[] messageContent;
     private volatile TimeoutHolder timeoutHolder;
     private volatile Message message;
@@ -23,9 +25,14 @@ public class AttachmentContent {
     }
 
     AttachmentContent(CachedTopic cachedTopic, MessageState messageState, String messageId) {
+        this(cachedTopic, messageState, messageId, PublishingStageTimers.NOOP);
+    }
+
+    AttachmentContent(CachedTopic cachedTopic, MessageState messageState, String messageId, PublishingStageTimers stageTimers) {
         this.cachedTopic = cachedTopic;
         this.messageState = messageState;
         this.messageId = messageId;
+        this.stageTimers = stageTimers;
     }
 
     public MessageState getMessageState() {
@@ -60,6 +67,10 @@ public class AttachmentContent {
         return messageId;
     }
 
+    public PublishingStageTimers getStageTimers() {
+        return stageTimers;
+    }
+
     public byte[] getMessageContent() {
         return messageContent;
     }
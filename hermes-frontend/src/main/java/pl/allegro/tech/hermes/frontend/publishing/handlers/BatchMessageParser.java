@@ -0,0 +1,109 @@
+package pl.allegro.tech.hermes.frontend.publishing.handlers;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Splits a body of a batch publishing request into contents of single messages.
+ *
+ * <p>Two formats are supported:</p>
+ * <ul>
+ *     <li>{@value #NDJSON} - one JSON message per line, empty lines are skipped,</li>
+ *     <li>{@value #LENGTH_PREFIXED} - every message is preceded by its length as a 4 byte big-endian integer.</li>
+ * </ul>
+ */
+final class BatchMessageParser {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String LENGTH_PREFIXED = "application/x-hermes-length-prefixed";
+
+    private static final int LENGTH_PREFIX_SIZE = Integer.BYTES;
+
+    private BatchMessageParser() {
+    }
+
+    static boolean isSupported(String contentType) {
+        return isNdjson(contentType) || isLengthPrefixed(contentType);
+    }
+
+    static boolean isNdjson(String contentType) {
+        return isOfType(contentType, NDJSON);
+    }
+
+    static boolean isLengthPrefixed(String contentType) {
+        return isOfType(contentType, LENGTH_PREFIXED);
+    }
+
+    static List<byte[]> parse(String contentType, byte[] body) throws InvalidBatchException {
+        if (isNdjson(contentType)) {
+            return parseNdjson(body);
+        } else if (isLengthPrefixed(contentType)) {
+            return parseLengthPrefixed(body);
+        }
+        throw new InvalidBatchException(format("Unsupported batch content type %s, expected %s or %s.",
+                contentType, NDJSON, LENGTH_PREFIXED));
+    }
+
+    private static List<byte[]> parseNdjson(byte[] body) {
+        List<byte[]> messages = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i <= body.length; i++) {
+            if (i == body.length || body[i] == '\n') {
+                int lineEnd = i > lineStart && body[i - 1] == '\r' ? i - 1 : i;
+                if (!isBlank(body, lineStart, lineEnd)) {
+                    messages.add(Arrays.copyOfRange(body, lineStart, lineEnd));
+                }
+                lineStart = i + 1;
+            }
+        }
+        return messages;
+    }
+
+    private static List<byte[]> parseLengthPrefixed(byte[] body) throws InvalidBatchException {
+        List<byte[]> messages = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        try {
+            while (buffer.hasRemaining()) {
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new InvalidBatchException(format("Invalid length of message %d in batch [length:%d, remaining:%d].",
+                            messages.size(), length, buffer.remaining()));
+                }
+                byte[] message = new byte[length];
+                buffer.get(message);
+                messages.add(message);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new InvalidBatchException(format("Truncated length prefix of message %d in batch, expected %d bytes.",
+                    messages.size(), LENGTH_PREFIX_SIZE));
+        }
+        return messages;
+    }
+
+    private static boolean isBlank(byte[] body, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(body[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isOfType(String contentType, String expected) {
+        String lowerCase = StringUtils.lowerCase(contentType);
+        return lowerCase != null && (lowerCase.equals(expected) || lowerCase.startsWith(expected + ";"));
+    }
+
+    static final class InvalidBatchException extends Exception {
+        InvalidBatchException(String message) {
+            super(message);
+        }
+    }
+}
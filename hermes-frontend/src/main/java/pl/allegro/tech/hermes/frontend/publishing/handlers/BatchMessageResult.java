@@ -0,0 +1,38 @@
+package pl.allegro.tech.hermes.frontend.publishing.handlers;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import pl.allegro.tech.hermes.api.ErrorDescription;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class BatchMessageResult {
+
+    private final String messageId;
+    private final int status;
+    private final ErrorDescription error;
+
+    private BatchMessageResult(String messageId, int status, ErrorDescription error) {
+        this.messageId = messageId;
+        this.status = status;
+        this.error = error;
+    }
+
+    static BatchMessageResult published(String messageId, int status) {
+        return new BatchMessageResult(messageId, status, null);
+    }
+
+    static BatchMessageResult failed(String messageId, ErrorDescription error) {
+        return new BatchMessageResult(messageId, error.getCode().getHttpCode(), error);
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public ErrorDescription getError() {
+        return error;
+    }
+}
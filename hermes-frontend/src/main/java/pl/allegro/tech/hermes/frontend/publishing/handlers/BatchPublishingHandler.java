@@ -0,0 +1,389 @@
+package pl.allegro.tech.hermes.frontend.publishing.handlers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.undertow.io.Receiver;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.RequestTooBigException;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import jakarta.ws.rs.core.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.XnioExecutor;
+import pl.allegro.tech.hermes.api.ContentType;
+import pl.allegro.tech.hermes.api.ErrorDescription;
+import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.common.message.wrapper.AvroInvalidMetadataException;
+import pl.allegro.tech.hermes.common.message.wrapper.UnsupportedContentTypeException;
+import pl.allegro.tech.hermes.frontend.metric.CachedTopic;
+import pl.allegro.tech.hermes.frontend.producer.BrokerMessageProducer;
+import pl.allegro.tech.hermes.frontend.publishing.PublishingCallback;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.BatchMessageParser.InvalidBatchException;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.end.MessageEndProcessor;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.end.MessageErrorProcessor;
+import pl.allegro.tech.hermes.frontend.publishing.message.Message;
+import pl.allegro.tech.hermes.frontend.publishing.message.MessageFactory;
+import pl.allegro.tech.hermes.frontend.publishing.message.MessageIdGenerator;
+import pl.allegro.tech.hermes.frontend.publishing.message.MessageState;
+import pl.allegro.tech.hermes.frontend.validator.InvalidMessageException;
+import pl.allegro.tech.hermes.metrics.HermesTimerContext;
+import pl.allegro.tech.hermes.schema.CouldNotLoadSchemaException;
+import pl.allegro.tech.hermes.schema.SchemaNotFoundException;
+import pl.allegro.tech.hermes.schema.SchemaVersionDoesNotExistException;
+import tech.allegro.schema.json2avro.converter.AvroConversionException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCauseMessage;
+import static pl.allegro.tech.hermes.api.AvroMediaType.AVRO_BINARY;
+import static pl.allegro.tech.hermes.api.ErrorCode.AVRO_SCHEMA_INVALID_METADATA;
+import static pl.allegro.tech.hermes.api.ErrorCode.INTERNAL_ERROR;
+import static pl.allegro.tech.hermes.api.ErrorCode.SCHEMA_COULD_NOT_BE_LOADED;
+import static pl.allegro.tech.hermes.api.ErrorCode.SCHEMA_VERSION_DOES_NOT_EXIST;
+import static pl.allegro.tech.hermes.api.ErrorCode.THROUGHPUT_QUOTA_VIOLATION;
+import static pl.allegro.tech.hermes.api.ErrorCode.TIMEOUT;
+import static pl.allegro.tech.hermes.api.ErrorCode.VALIDATION_ERROR;
+import static pl.allegro.tech.hermes.api.ErrorDescription.error;
+
+/**
+ * Publishes all messages of a batch request in one pass. Messages are created one by one and handed over to the
+ * producer without waiting for acknowledgements, so they are sent to Kafka in as few produce requests as the
+ * producer batching allows. The response holds a result of every message, in the order of the batch.
+ *
+ * <p>The whole batch shares a single timeout. Messages not acknowledged before it elapses are handed over to
+ * broker listeners (e.g. persistent buffer) and reported as accepted, the same as in the single message flow.
+ * Messages which can not be handed over anymore are reported as timed out, so the response is always sent.
+ * Reading the body is limited by the same timeout, so a client which stops sending it does not hold the request.</p>
+ */
+class BatchPublishingHandler implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchPublishingHandler.class);
+
+    private final MessageFactory messageFactory;
+    private final BrokerMessageProducer brokerMessageProducer;
+    private final MessageErrorProcessor messageErrorProcessor;
+    private final MessageEndProcessor messageEndProcessor;
+    private final ThroughputLimiter throughputLimiter;
+    private final ObjectMapper objectMapper;
+    private final boolean forceMaxMessageSizePerTopic;
+    private final int maxMessages;
+    private final int maxSize;
+    private final Duration timeout;
+
+    BatchPublishingHandler(MessageFactory messageFactory, BrokerMessageProducer brokerMessageProducer,
+                           MessageErrorProcessor messageErrorProcessor, MessageEndProcessor messageEndProcessor,
+                           ThroughputLimiter throughputLimiter, ObjectMapper objectMapper, boolean forceMaxMessageSizePerTopic,
+                           int maxMessages, int maxSize, Duration timeout) {
+        this.messageFactory = messageFactory;
+        this.brokerMessageProducer = brokerMessageProducer;
+        this.messageErrorProcessor = messageErrorProcessor;
+        this.messageEndProcessor = messageEndProcessor;
+        this.throughputLimiter = throughputLimiter;
+        this.objectMapper = objectMapper;
+        this.forceMaxMessageSizePerTopic = forceMaxMessageSizePerTopic;
+        this.maxMessages = maxMessages;
+        this.maxSize = maxSize;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) {
+        AttachmentContent attachment = exchange.getAttachment(AttachmentContent.KEY);
+        String contentType = exchange.getRequestHeaders().getFirst(Headers.CONTENT_TYPE);
+
+        if (!BatchMessageParser.isSupported(contentType)) {
+            respondWithError(exchange, attachment, error(format("Unsupported batch content type %s, expected %s or %s.",
+                    contentType, BatchMessageParser.NDJSON, BatchMessageParser.LENGTH_PREFIXED), VALIDATION_ERROR));
+            return;
+        }
+        if (exchange.getRequestContentLength() > maxSize) {
+            respondWithError(exchange, attachment, error(format("Batch is larger than max [length:%s, max:%s].",
+                    exchange.getRequestContentLength(), maxSize), VALIDATION_ERROR));
+            return;
+        }
+        ThroughputLimiter.QuotaInsight quotaInsight = throughputLimiter.checkQuota(
+                attachment.getCachedTopic().getTopicName(),
+                attachment.getCachedTopic().getThroughput());
+        if (!quotaInsight.hasQuota()) {
+            respondWithError(exchange, attachment, error(quotaInsight.getReason(), THROUGHPUT_QUOTA_VIOLATION));
+            return;
+        }
+
+        exchange.setMaxEntitySize(maxSize);
+        exchange.addDefaultResponseListener(new MessageReadHandler.DefaultResponseSimulator());
+        readBatch(exchange, attachment, contentType, exchange.getRequestReceiver());
+    }
+
+    void readBatch(HttpServerExchange exchange, AttachmentContent attachment, String contentType, Receiver receiver) {
+        MessageState state = attachment.getMessageState();
+        state.setReading();
+        XnioExecutor.Key readingTimeoutKey = exchange.getIoThread().executeAfter(
+                () -> readingTimeout(exchange, attachment, receiver),
+                timeout.toMillis(),
+                MILLISECONDS);
+        receiver.receiveFullBytes(
+                (ex, body) -> {
+                    readingTimeoutKey.remove();
+                    if (state.setFullyRead()) {
+                        ex.getConnection().getWorker().execute(() -> batchRead(ex, attachment, contentType, body));
+                    }
+                },
+                (ex, exception) -> {
+                    readingTimeoutKey.remove();
+                    if (state.setReadingError()) {
+                        readingError(ex, attachment, exception);
+                    } else {
+                        messageErrorProcessor.log(ex,
+                                "Error while reading batch after timeout execution. " + getRootCauseMessage(exception), exception);
+                    }
+                });
+    }
+
+    private void readingTimeout(HttpServerExchange exchange, AttachmentContent attachment, Receiver receiver) {
+        if (attachment.getMessageState().setReadingTimeout()) {
+            exchange.getConnection().getWorker().execute(() -> {
+                receiver.pause();
+                respondWithError(exchange, attachment,
+                        error("Timeout while reading batch after " + timeout.toMillis() + " milliseconds", TIMEOUT));
+            });
+        }
+    }
+
+    private void readingError(HttpServerExchange exchange, AttachmentContent attachment, IOException exception) {
+        if (exception instanceof RequestTooBigException) {
+            respondWithError(exchange, attachment, error(exception.getMessage(), VALIDATION_ERROR));
+        } else {
+            messageErrorProcessor.sendAndLog(exchange, attachment.getTopic(), attachment.getMessageId(),
+                    error("Error while reading batch. " + getRootCauseMessage(exception), INTERNAL_ERROR), exception);
+        }
+    }
+
+    void batchRead(HttpServerExchange exchange, AttachmentContent attachment, String contentType, byte[] body) {
+        try {
+            List<byte[]> contents = BatchMessageParser.parse(contentType, body);
+            if (contents.isEmpty() || contents.size() > maxMessages) {
+                respondWithError(exchange, attachment, error(format("Batch should contain from 1 to %s messages, got %s.",
+                        maxMessages, contents.size()), VALIDATION_ERROR));
+                return;
+            }
+            ThroughputLimiter.QuotaInsight quotaCheck = throughputLimiter.checkQuota(
+                    attachment.getCachedTopic().getTopicName(),
+                    attachment.getCachedTopic().getThroughput(),
+                    body.length);
+            if (!quotaCheck.hasQuota()) {
+                respondWithError(exchange, attachment, error(quotaCheck.getReason(), THROUGHPUT_QUOTA_VIOLATION));
+                return;
+            }
+            publish(exchange, attachment, messageHeaders(exchange.getRequestHeaders(), contentType, attachment.getTopic()), contents);
+        } catch (InvalidBatchException e) {
+            respondWithError(exchange, attachment, error("Invalid batch: " + e.getMessage(), VALIDATION_ERROR));
+        } catch (RuntimeException e) {
+            messageErrorProcessor.sendAndLog(exchange, attachment.getTopic(), attachment.getMessageId(), e);
+        }
+    }
+
+    private void publish(HttpServerExchange exchange, AttachmentContent attachment, HeaderMap headers, List<byte[]> contents) {
+        CachedTopic cachedTopic = attachment.getCachedTopic();
+        Batch batch = new Batch(exchange, attachment, contents.size());
+
+        for (int i = 0; i < contents.size(); i++) {
+            byte[] content = contents.get(i);
+            String messageId = MessageIdGenerator.generate();
+            cachedTopic.reportMessageContentSize(content.length);
+            try {
+                checkMessageSize(content, cachedTopic);
+                Message message = messageFactory.create(headers, cachedTopic.getTopic(), messageId, content);
+                send(batch, i, message);
+            } catch (Exception exception) {
+                ErrorDescription error = toErrorDescription(exception);
+                logger.warn("Message from batch not published. {}; publishing on topic: {}; message id: {}; batch id: {}",
+                        error.getMessage(), cachedTopic.getQualifiedName(), messageId, attachment.getMessageId(), exception);
+                batch.complete(i, BatchMessageResult.failed(messageId, error));
+            }
+        }
+        batch.scheduleTimeout();
+    }
+
+    private void send(Batch batch, int index, Message message) {
+        CachedTopic cachedTopic = batch.attachment.getCachedTopic();
+        HttpServerExchange exchange = batch.exchange;
+        MessageState messageState = new MessageState();
+        batch.entries.set(index, new BatchEntry(message, messageState));
+
+        messageState.setSendingToKafkaProducerQueue();
+        HermesTimerContext brokerLatencyTimers = cachedTopic.startBrokerLatencyTimer();
+        brokerMessageProducer.send(message, cachedTopic, new PublishingCallback() {
+
+            // called from kafka producer thread
+            @Override
+            public void onPublished(Message message, Topic topic) {
+                exchange.getConnection().getWorker().execute(() -> {
+                    brokerLatencyTimers.close();
+                    if (messageState.setSentToKafka()) {
+                        messageEndProcessor.sentInBatch(exchange, cachedTopic, message);
+                        batch.complete(index, BatchMessageResult.published(message.getId(), StatusCodes.CREATED));
+                    } else if (messageState.setDelayedSentToKafka()) {
+                        messageEndProcessor.delayedSent(exchange, cachedTopic, message);
+                    }
+                });
+            }
+
+            @Override
+            public void onUnpublished(Message message, Topic topic, Exception exception) {
+                messageState.setErrorInSendingToKafka();
+                brokerLatencyTimers.close();
+                ErrorDescription error = error("Message not published. " + getRootCauseMessage(exception), INTERNAL_ERROR);
+                logger.error("{}; publishing on topic: {}; message id: {}; batch id: {}",
+                        error.getMessage(), topic.getQualifiedName(), message.getId(), batch.attachment.getMessageId(), exception);
+                batch.complete(index, BatchMessageResult.failed(message.getId(), error));
+            }
+        });
+        messageState.setSendingToKafka();
+    }
+
+    private void checkMessageSize(byte[] content, CachedTopic cachedTopic) throws ContentLengthChecker.ContentTooLargeException {
+        int max = cachedTopic.getTopic().getMaxMessageSize();
+        if (forceMaxMessageSizePerTopic && content.length > max) {
+            throw new ContentLengthChecker.ContentTooLargeException(content.length, max);
+        }
+    }
+
+    private void respond(Batch batch) {
+        List<BatchMessageResult> results = new ArrayList<>(batch.results.length());
+        boolean allCreated = true;
+        boolean allPublished = true;
+        for (int i = 0; i < batch.results.length(); i++) {
+            BatchMessageResult result = batch.results.get(i);
+            results.add(result);
+            allCreated &= result.getStatus() == StatusCodes.CREATED;
+            allPublished &= result.getStatus() == StatusCodes.CREATED || result.getStatus() == StatusCodes.ACCEPTED;
+        }
+        int statusCode = allCreated ? StatusCodes.CREATED : allPublished ? StatusCodes.ACCEPTED : StatusCodes.MULTI_STATUS;
+        try {
+            messageEndProcessor.batchProcessed(batch.exchange, batch.attachment, statusCode, objectMapper.writeValueAsString(results));
+        } catch (JsonProcessingException e) {
+            messageErrorProcessor.sendAndLog(batch.exchange, batch.attachment.getTopic(), batch.attachment.getMessageId(), e);
+        }
+    }
+
+    private void respondWithError(HttpServerExchange exchange, AttachmentContent attachment, ErrorDescription error) {
+        messageErrorProcessor.sendAndLog(exchange, attachment.getTopic(), attachment.getMessageId(), error);
+    }
+
+    private static HeaderMap messageHeaders(HeaderMap requestHeaders, String batchContentType, Topic topic) {
+        HeaderMap headers = new HeaderMap();
+        for (HeaderValues values : requestHeaders) {
+            headers.putAll(values.getHeaderName(), values);
+        }
+        headers.remove(Headers.CONTENT_LENGTH);
+        headers.put(Headers.CONTENT_TYPE, messageContentType(batchContentType, topic));
+        return headers;
+    }
+
+    private static String messageContentType(String batchContentType, Topic topic) {
+        boolean binary = BatchMessageParser.isLengthPrefixed(batchContentType) && topic.getContentType() == ContentType.AVRO;
+        return binary ? AVRO_BINARY : MediaType.APPLICATION_JSON;
+    }
+
+    private static ErrorDescription toErrorDescription(Exception exception) {
+        if (exception instanceof InvalidMessageException
+                || exception instanceof AvroConversionException
+                || exception instanceof UnsupportedContentTypeException) {
+            return error("Invalid message: " + exception.getMessage(), VALIDATION_ERROR);
+        } else if (exception instanceof ContentLengthChecker.ContentTooLargeException) {
+            return error(exception.getMessage(), VALIDATION_ERROR);
+        } else if (exception instanceof CouldNotLoadSchemaException || exception instanceof SchemaNotFoundException) {
+            return error("Missing schema", SCHEMA_COULD_NOT_BE_LOADED);
+        } else if (exception instanceof SchemaVersionDoesNotExistException) {
+            return error(format("Given schema version '%s' does not exist",
+                    ((SchemaVersionDoesNotExistException) exception).getSchemaVersion().value()), SCHEMA_VERSION_DOES_NOT_EXIST);
+        } else if (exception instanceof AvroInvalidMetadataException) {
+            return error("Schema does not contain mandatory __metadata field for Hermes internal metadata. Please fix topic schema.",
+                    AVRO_SCHEMA_INVALID_METADATA);
+        }
+        return error("Exception caught while creating message", INTERNAL_ERROR);
+    }
+
+    private static final class BatchEntry {
+        private final Message message;
+        private final MessageState messageState;
+
+        BatchEntry(Message message, MessageState messageState) {
+            this.message = message;
+            this.messageState = messageState;
+        }
+    }
+
+    private final class Batch {
+        private final HttpServerExchange exchange;
+        private final AttachmentContent attachment;
+        private final AtomicReferenceArray<BatchEntry> entries;
+        private final AtomicReferenceArray<BatchMessageResult> results;
+        private final AtomicInteger remaining;
+        private final AtomicBoolean responded = new AtomicBoolean();
+        private volatile XnioExecutor.Key timeoutKey;
+
+        Batch(HttpServerExchange exchange, AttachmentContent attachment, int size) {
+            this.exchange = exchange;
+            this.attachment = attachment;
+            this.entries = new AtomicReferenceArray<>(size);
+            this.results = new AtomicReferenceArray<>(size);
+            this.remaining = new AtomicInteger(size);
+        }
+
+        void complete(int index, BatchMessageResult result) {
+            if (results.compareAndSet(index, null, result) && remaining.decrementAndGet() == 0 && responded.compareAndSet(false, true)) {
+                XnioExecutor.Key key = timeoutKey;
+                if (key != null) {
+                    key.remove();
+                }
+                respond(this);
+            }
+        }
+
+        void scheduleTimeout() {
+            if (remaining.get() > 0) {
+                timeoutKey = exchange.getIoThread().executeAfter(
+                        () -> exchange.getConnection().getWorker().execute(this::onTimeout),
+                        timeout.toMillis(),
+                        MILLISECONDS);
+            }
+        }
+
+        private void onTimeout() {
+            for (int i = 0; i < entries.length(); i++) {
+                BatchEntry entry = entries.get(i);
+                if (entry == null || results.get(i) != null) {
+                    continue;
+                }
+                entry.messageState.setTimeoutHasPassed();
+                if (entry.messageState.setDelayedSending()) {
+                    try {
+                        messageEndProcessor.bufferedInBatch(exchange, attachment.getCachedTopic(), entry.message, entry.messageState);
+                        complete(i, BatchMessageResult.published(entry.message.getId(), StatusCodes.ACCEPTED));
+                    } catch (RuntimeException exception) {
+                        logger.error("Exception while handling delayed message sending; publishing on topic: {}; message id: {}",
+                                attachment.getCachedTopic().getQualifiedName(), entry.message.getId(), exception);
+                        complete(i, BatchMessageResult.failed(entry.message.getId(),
+                                error("Exception while handling delayed message sending.", INTERNAL_ERROR)));
+                    }
+                } else {
+                    complete(i, BatchMessageResult.failed(entry.message.getId(),
+                            error("Timeout while publishing message after " + timeout.toMillis() + " milliseconds", TIMEOUT)));
+                }
+            }
+        }
+    }
+}
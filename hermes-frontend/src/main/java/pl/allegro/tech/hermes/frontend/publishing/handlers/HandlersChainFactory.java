@@ -1,5 +1,6 @@
 package pl.allegro.tech.hermes.frontend.publishing.handlers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.undertow.security.api.AuthenticationMode;
 import io.undertow.security.handlers.AuthenticationCallHandler;
 import io.undertow.security.handlers.AuthenticationMechanismsHandler;
@@ -32,12 +33,14 @@ public class HandlersChainFactory {
     private final ThroughputLimiter throughputLimiter;
     private final Optional<AuthenticationConfiguration> authenticationConfiguration;
     private final HandlersChainParameters handlersChainParameters;
+    private final ObjectMapper objectMapper;
 
     public HandlersChainFactory(TopicsCache topicsCache, MessageErrorProcessor messageErrorProcessor,
                                 MessageEndProcessor messageEndProcessor, MessageFactory messageFactory,
                                 BrokerMessageProducer brokerMessageProducer, MessagePreviewLog messagePreviewLog,
                                 ThroughputLimiter throughputLimiter, Optional<AuthenticationConfiguration> authenticationConfiguration,
-                                boolean messagePreviewEnabled, HandlersChainParameters handlersChainParameters) {
+                                boolean messagePreviewEnabled, HandlersChainParameters handlersChainParameters,
+                                ObjectMapper objectMapper) {
         this.topicsCache = topicsCache;
         this.messageErrorProcessor = messageErrorProcessor;
         this.messageEndProcessor = messageEndProcessor;
@@ -48,6 +51,7 @@ public class HandlersChainFactory {
         this.throughputLimiter = throughputLimiter;
         this.authenticationConfiguration = authenticationConfiguration;
         this.handlersChainParameters = handlersChainParameters;
+        this.objectMapper = objectMapper;
     }
 
     public HttpHandler provide() {
@@ -63,7 +67,28 @@ public class HandlersChainFactory {
                 handlersChainParameters.isForceTopicMaxMessageSize(),
                 handlersChainParameters.getIdleTimeout(),
                 handlersChainParameters.getLongIdleTimeout());
-        TopicHandler topicHandler = new TopicHandler(readHandler, topicsCache, messageErrorProcessor);
+        return withTopicHandler(readHandler);
+    }
+
+    public HttpHandler provideBatch() {
+        HttpHandler batchPublishing = new BatchPublishingHandler(
+                messageFactory,
+                brokerMessageProducer,
+                messageErrorProcessor,
+                messageEndProcessor,
+                throughputLimiter,
+                objectMapper,
+                handlersChainParameters.isForceTopicMaxMessageSize(),
+                handlersChainParameters.getBatchMaxMessages(),
+                handlersChainParameters.getBatchMaxSize(),
+                handlersChainParameters.getBatchTimeout());
+        return withTopicHandler(batchPublishing);
+    }
+
+    private HttpHandler withTopicHandler(HttpHandler next) {
+        double stageLatencySamplingRate = handlersChainParameters.isStageLatencyEnabled()
+                ? handlersChainParameters.getStageLatencySamplingRate() : 0;
+        TopicHandler topicHandler = new TopicHandler(next, topicsCache, messageErrorProcessor, stageLatencySamplingRate);
         boolean keepAliveHeaderEnabled = handlersChainParameters.isKeepAliveHeaderEnabled();
         HttpHandler rootPublishingHandler = keepAliveHeaderEnabled ? withKeepAliveHeaderHandler(topicHandler) : topicHandler;
 
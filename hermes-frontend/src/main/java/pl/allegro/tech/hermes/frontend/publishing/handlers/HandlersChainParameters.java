@@ -17,4 +17,14 @@ public interface HandlersChainParameters {
     boolean isAuthenticationEnabled();
 
     String getAuthenticationMode();
+
+    int getBatchMaxMessages();
+
+    int getBatchMaxSize();
+
+    Duration getBatchTimeout();
+
+    boolean isStageLatencyEnabled();
+
+    double getStageLatencySamplingRate();
 }
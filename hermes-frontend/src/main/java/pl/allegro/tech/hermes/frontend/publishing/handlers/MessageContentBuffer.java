@@ -0,0 +1,57 @@
+package pl.allegro.tech.hermes.frontend.publishing.handlers;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates chunks of a request body read by {@link MessageReadHandler}.
+ *
+ * <p>When the request declares a Content-Length, the backing array is allocated once with the exact size, so chunks
+ * are copied straight into it and {@link #toByteArray()} hands it over without another copy. Chunked requests
+ * (or requests declaring a size above the allowed limit) fall back to a growing array.</p>
+ */
+public final class MessageContentBuffer {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    private byte[] content;
+    private int size;
+
+    private MessageContentBuffer(int initialCapacity) {
+        this.content = new byte[initialCapacity];
+    }
+
+    public static MessageContentBuffer forContentLength(long contentLength, int maxPreallocatedSize) {
+        if (contentLength >= 0 && contentLength <= maxPreallocatedSize) {
+            return new MessageContentBuffer((int) contentLength);
+        }
+        return new MessageContentBuffer(Math.min(DEFAULT_INITIAL_CAPACITY, Math.max(maxPreallocatedSize, 0)));
+    }
+
+    public void append(byte[] chunk) {
+        append(chunk, 0, chunk.length);
+    }
+
+    public void append(byte[] chunk, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(chunk, offset, content, size, length);
+        size += length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        if (size == content.length) {
+            return content;
+        }
+        return Arrays.copyOf(content, size);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > content.length) {
+            int newCapacity = Math.max(required, content.length << 1);
+            content = Arrays.copyOf(content, newCapacity);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import pl.allegro.tech.hermes.common.message.wrapper.AvroInvalidMetadataException;
 import pl.allegro.tech.hermes.common.message.wrapper.UnsupportedContentTypeException;
+import pl.allegro.tech.hermes.frontend.metric.PublishingStage;
 import pl.allegro.tech.hermes.frontend.publishing.handlers.end.MessageErrorProcessor;
 import pl.allegro.tech.hermes.frontend.publishing.message.MessageFactory;
 import pl.allegro.tech.hermes.frontend.validator.InvalidMessageException;
@@ -38,6 +39,7 @@ class MessageCreateHandler implements HttpHandler {
 
         try {
             attachment.setMessage(messageFactory.create(exchange.getRequestHeaders(), attachment));
+            attachment.getStageTimers().record(PublishingStage.CREATE);
             next.handleRequest(exchange);
         } catch (InvalidMessageException | AvroConversionException | UnsupportedContentTypeException exception) {
             attachment.removeTimeout();
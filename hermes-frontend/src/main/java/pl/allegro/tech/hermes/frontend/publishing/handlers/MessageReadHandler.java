@@ -6,10 +6,10 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pl.allegro.tech.hermes.frontend.metric.PublishingStage;
 import pl.allegro.tech.hermes.frontend.publishing.handlers.end.MessageErrorProcessor;
 import pl.allegro.tech.hermes.frontend.publishing.message.MessageState;
 
-import java.io.ByteArrayOutputStream;
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -76,7 +76,9 @@ class MessageReadHandler implements HttpHandler {
     }
 
     private void readMessage(HttpServerExchange exchange, AttachmentContent attachment) {
-        ByteArrayOutputStream messageContent = new ByteArrayOutputStream();
+        MessageContentBuffer messageContent = MessageContentBuffer.forContentLength(
+                exchange.getRequestContentLength(),
+                attachment.getTopic().getMaxMessageSize());
         MessageState state = attachment.getMessageState();
 
         Receiver receiver = exchange.getRequestReceiver();
@@ -97,14 +99,14 @@ class MessageReadHandler implements HttpHandler {
     }
 
     private Receiver.PartialBytesCallback partialMessageRead(MessageState state,
-                                                             ByteArrayOutputStream messageContent,
+                                                             MessageContentBuffer messageContent,
                                                              AttachmentContent attachment) {
         return (exchange, message, last) -> {
             if (state.isReadingTimeout()) {
                 endWithoutDefaultResponse(exchange);
                 return;
             }
-            messageContent.write(message, 0, message.length);
+            messageContent.append(message);
 
             if (last) {
                 if (state.setFullyRead()) {
@@ -137,7 +139,8 @@ class MessageReadHandler implements HttpHandler {
             attachment.getCachedTopic().reportMessageContentSize(messageContent.length);
             ThroughputLimiter.QuotaInsight quotaCheck = throughputLimiter.checkQuota(
                     attachment.getCachedTopic().getTopicName(),
-                    attachment.getCachedTopic().getThroughput());
+                    attachment.getCachedTopic().getThroughput(),
+                    messageContent.length);
             if (quotaCheck.hasQuota()) {
                 finalizeMessageRead(exchange, messageContent, attachment);
             } else {
@@ -157,6 +160,7 @@ class MessageReadHandler implements HttpHandler {
                                      byte[] messageContent,
                                      AttachmentContent attachment) throws Exception {
         attachment.setMessageContent(messageContent);
+        attachment.getStageTimers().record(PublishingStage.READ);
         endWithoutDefaultResponse(exchange);
         if (exchange.isInIoThread()) {
             dispatchToWorker(exchange, attachment);
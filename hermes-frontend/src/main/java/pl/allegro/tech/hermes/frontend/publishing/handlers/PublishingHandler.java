@@ -3,6 +3,8 @@ package pl.allegro.tech.hermes.frontend.publishing.handlers;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.frontend.metric.PublishingStage;
+import pl.allegro.tech.hermes.frontend.metric.PublishingStageTimers;
 import pl.allegro.tech.hermes.frontend.producer.BrokerMessageProducer;
 import pl.allegro.tech.hermes.frontend.publishing.PublishingCallback;
 import pl.allegro.tech.hermes.frontend.publishing.handlers.end.MessageEndProcessor;
@@ -47,6 +49,8 @@ class PublishingHandler implements HttpHandler {
 
         messageState.setSendingToKafkaProducerQueue();
         HermesTimerContext brokerLatencyTimers = attachment.getCachedTopic().startBrokerLatencyTimer();
+        PublishingStageTimers stageTimers = attachment.getStageTimers();
+        long sendStart = stageTimers.now();
         brokerMessageProducer.send(attachment.getMessage(), attachment.getCachedTopic(), new PublishingCallback() {
 
             // called from kafka producer thread
@@ -54,6 +58,7 @@ class PublishingHandler implements HttpHandler {
             public void onPublished(Message message, Topic topic) {
                 exchange.getConnection().getWorker().execute(() -> {
                     brokerLatencyTimers.close();
+                    stageTimers.record(PublishingStage.ACK, sendStart);
                     if (messageState.setSentToKafka()) {
                         attachment.removeTimeout();
                         messageEndProcessor.sent(exchange, attachment);
@@ -73,6 +78,7 @@ class PublishingHandler implements HttpHandler {
                 handleNotPublishedMessage(exchange, topic, attachment.getMessageId(), exception);
             }
         });
+        stageTimers.record(PublishingStage.SEND, sendStart);
 
         if (messageState.setSendingToKafka() && messageState.setDelayedProcessing()) {
             messageEndProcessor.bufferedButDelayedProcessing(exchange, attachment);
@@ -8,6 +8,14 @@ import static java.lang.String.format;
 public interface ThroughputLimiter {
     QuotaInsight checkQuota(TopicName topic, HermesRateMeter throughput);
 
+    /**
+     * Checks quota for a message of known size. Limiters which account for every published byte consume it from
+     * the quota, others ignore the size.
+     */
+    default QuotaInsight checkQuota(TopicName topic, HermesRateMeter throughput, long messageSize) {
+        return checkQuota(topic, throughput);
+    }
+
     default void start() {
     }
 
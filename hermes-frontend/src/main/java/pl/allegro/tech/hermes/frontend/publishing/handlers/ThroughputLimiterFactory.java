@@ -17,7 +17,7 @@ public class ThroughputLimiterFactory {
 
     private final MetricsFacade metricsFacade;
 
-    private enum ThroughputLimiterType { UNLIMITED, FIXED, DYNAMIC }
+    private enum ThroughputLimiterType { UNLIMITED, FIXED, DYNAMIC, TOKEN_BUCKET }
 
     public ThroughputLimiterFactory(ThroughputParameters throughputParameters, MetricsFacade metricsFacade) {
         this.throughputParameters = throughputParameters;
@@ -39,6 +39,14 @@ public class ThroughputLimiterFactory {
                         throughputParameters.getDynamicCheckInterval(),
                         metricsFacade.topics().topicGlobalThroughputBytes(),
                         getExecutor());
+            case TOKEN_BUCKET:
+                return new TokenBucketThroughputLimiter(
+                        throughputParameters.getTokenBucketTopicMax(),
+                        throughputParameters.getTokenBucketTopicBurst(),
+                        throughputParameters.getTokenBucketGlobalMax(),
+                        throughputParameters.getTokenBucketGlobalBurst(),
+                        throughputParameters.getTokenBucketRefillInterval(),
+                        getExecutor());
             default:
                 throw new IllegalArgumentException("Unknown throughput limiter type.");
         }
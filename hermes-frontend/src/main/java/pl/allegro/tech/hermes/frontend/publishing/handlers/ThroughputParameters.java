@@ -17,4 +17,14 @@ public interface ThroughputParameters {
     double getDynamicIdle();
 
     Duration getDynamicCheckInterval();
+
+    long getTokenBucketTopicMax();
+
+    long getTokenBucketTopicBurst();
+
+    long getTokenBucketGlobalMax();
+
+    long getTokenBucketGlobalBurst();
+
+    Duration getTokenBucketRefillInterval();
 }
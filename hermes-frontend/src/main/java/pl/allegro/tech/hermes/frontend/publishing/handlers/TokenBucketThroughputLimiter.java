@@ -0,0 +1,141 @@
+package pl.allegro.tech.hermes.frontend.publishing.handlers;
+
+import pl.allegro.tech.hermes.api.TopicName;
+import pl.allegro.tech.hermes.metrics.HermesRateMeter;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static pl.allegro.tech.hermes.frontend.publishing.handlers.ThroughputLimiter.QuotaInsight.globalQuotaViolation;
+import static pl.allegro.tech.hermes.frontend.publishing.handlers.ThroughputLimiter.QuotaInsight.quotaConfirmed;
+import static pl.allegro.tech.hermes.frontend.publishing.handlers.ThroughputLimiter.QuotaInsight.quotaViolation;
+
+/**
+ * Throughput limiter based on token buckets, one per topic and one global, with rates and bursts in bytes.
+ *
+ * <p>Consumed bytes are counted in {@link LongAdder}s, which are striped across cores, so the request path never
+ * takes a lock nor contends on a single CAS. Instead of refilling tokens on every request, each bucket holds
+ * a watermark of consumed bytes, up to which requests are admitted, and a background task moves the watermarks
+ * every refill interval. Concurrent requests may overshoot the limit by at most one message each.</p>
+ */
+public class TokenBucketThroughputLimiter implements ThroughputLimiter, Runnable {
+
+    private final long topicMax;
+    private final long topicBurst;
+    private final TokenBucket globalBucket;
+    private final Duration refillInterval;
+    private final ScheduledExecutorService executor;
+
+    private final ConcurrentHashMap<TopicName, TokenBucket> topicBuckets = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> refillJob;
+
+    public TokenBucketThroughputLimiter(long topicMax,
+                                        long topicBurst,
+                                        long globalMax,
+                                        long globalBurst,
+                                        Duration refillInterval,
+                                        ScheduledExecutorService executor) {
+        this.topicMax = topicMax;
+        this.topicBurst = topicBurst;
+        this.globalBucket = new TokenBucket(globalMax, globalBurst);
+        this.refillInterval = refillInterval;
+        this.executor = executor;
+    }
+
+    @Override
+    public QuotaInsight checkQuota(TopicName topic, HermesRateMeter throughput) {
+        return checkQuota(topic, throughput, 0);
+    }
+
+    @Override
+    public QuotaInsight checkQuota(TopicName topic, HermesRateMeter throughput, long messageSize) {
+        TokenBucket topicBucket = topicBucket(topic);
+        if (!topicBucket.hasTokens()) {
+            return quotaViolation((long) Math.floor(throughput.getOneMinuteRate()), topicBucket.rate);
+        }
+        if (!globalBucket.hasTokens()) {
+            return globalQuotaViolation();
+        }
+        if (messageSize > 0) {
+            topicBucket.consume(messageSize);
+            globalBucket.consume(messageSize);
+        }
+        return quotaConfirmed();
+    }
+
+    @Override
+    public void start() {
+        long interval = refillInterval.toMillis();
+        refillJob = executor.scheduleAtFixedRate(this, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (refillJob != null) {
+            refillJob.cancel(false);
+        }
+    }
+
+    @Override
+    public void run() {
+        double intervalSeconds = refillInterval.toNanos() / 1_000_000_000.0;
+        globalBucket.refill(intervalSeconds);
+        topicBuckets.values().removeIf(bucket -> bucket.refill(intervalSeconds));
+    }
+
+    private TokenBucket topicBucket(TopicName topic) {
+        TokenBucket bucket = topicBuckets.get(topic);
+        if (bucket == null) {
+            bucket = topicBuckets.computeIfAbsent(topic, name -> new TokenBucket(topicMax, topicBurst));
+        }
+        return bucket;
+    }
+
+    private static class TokenBucket {
+        private final long rate;
+        private final long burst;
+        private final LongAdder consumed = new LongAdder();
+
+        private volatile long watermark;
+        private long consumedAtLastRefill;
+
+        TokenBucket(long rate, long burst) {
+            this.rate = rate;
+            this.burst = burst;
+            this.watermark = burst;
+        }
+
+        boolean hasTokens() {
+            return consumed.sum() < watermark;
+        }
+
+        void consume(long bytes) {
+            consumed.add(bytes);
+        }
+
+        /**
+         * Adds tokens for the elapsed interval, capped at the burst size. Called only from the refill task.
+         *
+         * @return true if the bucket was idle since the previous refill and is full
+         */
+        boolean refill(double intervalSeconds) {
+            long consumedNow = consumed.sum();
+            long tokens = Math.max(watermark - consumedNow, 0);
+            long refilled = (long) Math.min((double) tokens + rate * intervalSeconds, burst);
+            watermark = saturatedAdd(consumedNow, refilled);
+            boolean idle = consumedNow == consumedAtLastRefill && refilled == burst;
+            consumedAtLastRefill = consumedNow;
+            return idle;
+        }
+
+        private static long saturatedAdd(long a, long b) {
+            long sum = a + b;
+            return sum < a ? Long.MAX_VALUE : sum;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import io.undertow.server.HttpServerExchange;
 import pl.allegro.tech.hermes.api.Topic;
 import pl.allegro.tech.hermes.frontend.cache.topic.TopicsCache;
 import pl.allegro.tech.hermes.frontend.metric.CachedTopic;
+import pl.allegro.tech.hermes.frontend.metric.PublishingStageTimers;
 import pl.allegro.tech.hermes.frontend.publishing.handlers.end.MessageErrorProcessor;
 import pl.allegro.tech.hermes.frontend.publishing.message.MessageIdGenerator;
 import pl.allegro.tech.hermes.frontend.publishing.message.MessageState;
@@ -28,11 +29,14 @@ class TopicHandler implements HttpHandler {
     private final HttpHandler next;
     private final TopicsCache topicsCache;
     private final MessageErrorProcessor messageErrorProcessor;
+    private final double stageLatencySamplingRate;
 
-    TopicHandler(HttpHandler next, TopicsCache topicsCache, MessageErrorProcessor messageErrorProcessor) {
+    TopicHandler(HttpHandler next, TopicsCache topicsCache, MessageErrorProcessor messageErrorProcessor,
+                 double stageLatencySamplingRate) {
         this.next = next;
         this.topicsCache = topicsCache;
         this.messageErrorProcessor = messageErrorProcessor;
+        this.stageLatencySamplingRate = stageLatencySamplingRate;
     }
 
     @Override
@@ -47,7 +51,8 @@ class TopicHandler implements HttpHandler {
 
         onRequestValid(exchange, messageId, cachedTopic -> {
             exchange.addExchangeCompleteListener(new ExchangeMetrics(cachedTopic));
-            exchange.putAttachment(AttachmentContent.KEY, new AttachmentContent(cachedTopic, new MessageState(), messageId));
+            PublishingStageTimers stageTimers = PublishingStageTimers.start(cachedTopic, stageLatencySamplingRate);
+            exchange.putAttachment(AttachmentContent.KEY, new AttachmentContent(cachedTopic, new MessageState(), messageId, stageTimers));
             setDefaultResponseCode(exchange);
             try {
                 next.handleRequest(exchange);
@@ -1,8 +1,10 @@
 package pl.allegro.tech.hermes.frontend.publishing.handlers.end;
 
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
 import io.undertow.util.StatusCodes;
+import jakarta.ws.rs.core.MediaType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.allegro.tech.hermes.api.Topic;
@@ -10,8 +12,11 @@ import pl.allegro.tech.hermes.frontend.listeners.BrokerListeners;
 import pl.allegro.tech.hermes.frontend.metric.CachedTopic;
 import pl.allegro.tech.hermes.frontend.publishing.handlers.AttachmentContent;
 import pl.allegro.tech.hermes.frontend.publishing.message.Message;
+import pl.allegro.tech.hermes.frontend.publishing.message.MessageState;
 import pl.allegro.tech.hermes.tracker.frontend.Trackers;
 
+import java.nio.charset.StandardCharsets;
+
 import static pl.allegro.tech.hermes.common.http.MessageMetadataHeaders.MESSAGE_ID;
 import static pl.allegro.tech.hermes.frontend.publishing.handlers.end.RemoteHostReader.readHostAndPort;
 
@@ -65,6 +70,40 @@ public class MessageEndProcessor {
         }
     }
 
+    public void sentInBatch(HttpServerExchange exchange, CachedTopic cachedTopic, Message message) {
+        trackers.get(cachedTopic.getTopic()).logPublished(message.getId(), cachedTopic.getTopic().getName(),
+                readHostAndPort(exchange), trackingHeadersExtractor.extractHeadersToLog(exchange.getRequestHeaders()));
+        cachedTopic.incrementPublished();
+    }
+
+    public void bufferedInBatch(HttpServerExchange exchange, CachedTopic cachedTopic, Message message, MessageState messageState) {
+        Topic topic = cachedTopic.getTopic();
+        brokerListeners.onTimeout(message, topic);
+        trackers.get(topic).logInflight(message.getId(), topic.getName(),
+                readHostAndPort(exchange), trackingHeadersExtractor.extractHeadersToLog(exchange.getRequestHeaders()));
+        if (messageState.isDelayedSentToKafka()) {
+            brokerListeners.onAcknowledge(message, topic);
+        }
+    }
+
+    public void batchProcessed(HttpServerExchange exchange, AttachmentContent attachment, int statusCode, String results) {
+        if (!exchange.isResponseStarted()) {
+            exchange.setStatusCode(statusCode);
+            exchange.getResponseHeaders().add(Headers.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+            exchange.getResponseSender().send(results, StandardCharsets.UTF_8, ResponseReadyIoCallback.INSTANCE);
+        } else {
+            logger.warn("The response has already been started. Status code set on exchange: {}; Expected status code: {};"
+                            + "Topic: {}; Batch id: {}; Remote host {}",
+                    exchange.getStatusCode(),
+                    statusCode,
+                    attachment.getCachedTopic().getQualifiedName(),
+                    attachment.getMessageId(),
+                    readHostAndPort(exchange));
+            attachment.markResponseAsReady();
+            exchange.endExchange();
+        }
+    }
+
     private void sendResponse(HttpServerExchange exchange, AttachmentContent attachment, int statusCode) {
         if (!exchange.isResponseStarted()) {
             exchange.setStatusCode(statusCode);
@@ -67,7 +67,7 @@ public class MessageFactory {
                 attachment.getMessageContent());
     }
 
-    private Message create(HeaderMap headerMap, Topic topic, String messageId, byte[] messageContent) {
+    public Message create(HeaderMap headerMap, Topic topic, String messageId, byte[] messageContent) {
         long timestamp = clock.millis();
         switch (topic.getContentType()) {
             case JSON: {
@@ -28,6 +28,7 @@ public class HermesServer {
     private final HermesServerParameters hermesServerParameters;
     private final SslParameters sslParameters;
     private final HttpHandler publishingHandler;
+    private final HttpHandler batchPublishingHandler;
     private final HealthCheckService healthCheckService;
     private final ReadinessChecker readinessChecker;
     private final MessagePreviewPersister messagePreviewPersister;
@@ -44,6 +45,7 @@ public class HermesServer {
             HermesServerParameters hermesServerParameters,
             MetricsFacade metricsFacade,
             HttpHandler publishingHandler,
+            HttpHandler batchPublishingHandler,
             ReadinessChecker readinessChecker,
             MessagePreviewPersister messagePreviewPersister,
             ThroughputLimiter throughputLimiter,
@@ -56,6 +58,7 @@ public class HermesServer {
         this.hermesServerParameters = hermesServerParameters;
         this.metricsFacade = metricsFacade;
         this.publishingHandler = publishingHandler;
+        this.batchPublishingHandler = batchPublishingHandler;
         this.prometheusMeterRegistry = prometheusMeterRegistry;
         this.healthCheckService = new HealthCheckService();
         this.readinessChecker = readinessChecker;
@@ -119,14 +122,14 @@ public class HermesServer {
                 .setIoThreads(hermesServerParameters.getIoThreadsCount())
                 .setWorkerThreads(hermesServerParameters.getWorkerThreadCount())
                 .setBufferSize(hermesServerParameters.getBufferSize())
+                .setServerOption(ENABLE_HTTP2, hermesServerParameters.isHttp2Enabled())
                 .setHandler(gracefulShutdown);
 
         if (sslParameters.isEnabled()) {
             builder.addHttpsListener(sslParameters.getPort(), hermesServerParameters.getHost(),
                             sslContextFactoryProvider.getSslContextFactory().create().getSslContext())
                     .setSocketOption(SSL_CLIENT_AUTH_MODE,
-                            SslClientAuthMode.valueOf(sslParameters.getClientAuthMode().toUpperCase()))
-                    .setServerOption(ENABLE_HTTP2, hermesServerParameters.isHttp2Enabled());
+                            SslClientAuthMode.valueOf(sslParameters.getClientAuthMode().toUpperCase()));
         }
         this.undertow = builder.build();
         return undertow;
@@ -139,6 +142,7 @@ public class HermesServer {
 
         RoutingHandler routingHandler = new RoutingHandler()
                 .post("/topics/{qualifiedTopicName}", publishingHandler)
+                .post("/topics/{qualifiedTopicName}/batch", batchPublishingHandler)
                 .get("/status/ping", healthCheckHandler)
                 .get("/status/health", healthCheckHandler)
                 .get("/status/ready", readinessHandler)
@@ -0,0 +1,56 @@
+package pl.allegro.tech.hermes.frontend.metric
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import pl.allegro.tech.hermes.common.kafka.KafkaTopic
+import pl.allegro.tech.hermes.common.kafka.KafkaTopicName
+import pl.allegro.tech.hermes.common.kafka.KafkaTopics
+import pl.allegro.tech.hermes.common.metric.MetricsFacade
+import spock.lang.Specification
+
+import static pl.allegro.tech.hermes.api.ContentType.JSON
+import static pl.allegro.tech.hermes.common.metric.TopicMetrics.TopicMetricsNames.TOPIC_STAGE_LATENCY
+import static pl.allegro.tech.hermes.frontend.server.CachedTopicsTestHelper.hermesMetrics
+import static pl.allegro.tech.hermes.test.helper.builder.TopicBuilder.topic
+
+class PublishingStageTimersTest extends Specification {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    CachedTopic cachedTopic = new CachedTopic(
+            topic("group.topic").build(),
+            new MetricsFacade(meterRegistry, hermesMetrics),
+            new KafkaTopics(new KafkaTopic(KafkaTopicName.valueOf("group.topic"), JSON)))
+
+    def "should record stages of sampled request"() {
+        given:
+        def stageTimers = PublishingStageTimers.start(cachedTopic, 1.0)
+
+        when:
+        stageTimers.record(PublishingStage.READ)
+        stageTimers.record(PublishingStage.CREATE)
+        def sendStart = stageTimers.now()
+        stageTimers.record(PublishingStage.SEND, sendStart)
+        stageTimers.record(PublishingStage.ACK, sendStart)
+
+        then:
+        PublishingStage.values().every { stage -> stageLatencyCount(stage) == 1 }
+    }
+
+    def "should not measure requests which are not sampled"() {
+        when:
+        def stageTimers = PublishingStageTimers.start(cachedTopic, 0.0)
+        stageTimers.record(PublishingStage.READ)
+
+        then:
+        stageTimers.is(PublishingStageTimers.NOOP)
+        meterRegistry.find(TOPIC_STAGE_LATENCY).timer() == null
+    }
+
+    private long stageLatencyCount(PublishingStage stage) {
+        meterRegistry.get(TOPIC_STAGE_LATENCY)
+                .tags("group", "group", "topic", "topic", "stage", stage.metricName)
+                .timer()
+                .count()
+    }
+}
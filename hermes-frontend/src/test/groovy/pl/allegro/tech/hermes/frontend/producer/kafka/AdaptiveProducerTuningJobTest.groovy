@@ -0,0 +1,150 @@
+package pl.allegro.tech.hermes.frontend.producer.kafka
+
+import org.apache.kafka.clients.producer.MockProducer
+import org.apache.kafka.common.Metric
+import org.apache.kafka.common.MetricName
+import org.apache.kafka.common.serialization.ByteArraySerializer
+import pl.allegro.tech.hermes.api.ContentType
+import pl.allegro.tech.hermes.common.kafka.KafkaTopic
+import pl.allegro.tech.hermes.common.kafka.KafkaTopicName
+import pl.allegro.tech.hermes.common.kafka.KafkaTopics
+import pl.allegro.tech.hermes.frontend.cache.topic.TopicsCache
+import pl.allegro.tech.hermes.frontend.config.AdaptiveProducerTuningProperties
+import pl.allegro.tech.hermes.frontend.metric.CachedTopic
+import pl.allegro.tech.hermes.metrics.HermesRateMeter
+import spock.lang.Specification
+
+import static pl.allegro.tech.hermes.frontend.server.CachedTopicsTestHelper.micrometerHermesMetrics
+import static pl.allegro.tech.hermes.test.helper.builder.TopicBuilder.topic
+
+class AdaptiveProducerTuningJobTest extends Specification {
+
+    def serializer = new ByteArraySerializer()
+    def leader = new MockProducer<byte[], byte[]>(true, serializer, serializer)
+    def all = new MockProducer<byte[], byte[]>(true, serializer, serializer)
+    Map<MetricName, Metric> throughputMetrics = [:]
+    def throughputLeader = new MockProducer<byte[], byte[]>(true, serializer, serializer) {
+        @Override
+        synchronized Map<MetricName, Metric> metrics() {
+            return throughputMetrics
+        }
+    }
+    def throughputAll = new MockProducer<byte[], byte[]>(true, serializer, serializer)
+    def producers = new Producers([leader], [all], [throughputLeader], [throughputAll], [:], false)
+
+    def parameters = new AdaptiveProducerTuningProperties(
+            enabled: true,
+            promoteThresholdBytesPerSecond: 1000,
+            demoteThresholdBytesPerSecond: 500
+    )
+
+    Map<String, Double> rates = [:]
+    List<CachedTopic> topics = []
+    TopicsCache topicsCache = Mock() {
+        getTopics() >> { topics }
+    }
+
+    def job = new AdaptiveProducerTuningJob(producers, topicsCache, parameters, micrometerHermesMetrics)
+
+    def "should route high throughput topic to throughput producers"() {
+        given:
+        def cachedTopic = registerTopic("group.busy", 2000)
+
+        when:
+        job.tune()
+
+        then:
+        producers.get(cachedTopic.topic).is(throughputLeader)
+    }
+
+    def "should keep low throughput topic on latency producers"() {
+        given:
+        def cachedTopic = registerTopic("group.quiet", 10)
+
+        when:
+        job.tune()
+
+        then:
+        producers.get(cachedTopic.topic).is(leader)
+    }
+
+    def "should demote topic only when throughput drops below demote threshold"() {
+        given:
+        def cachedTopic = registerTopic("group.busy", 2000)
+        job.tune()
+
+        when:
+        rates["group.busy"] = 700
+        job.tune()
+
+        then:
+        producers.get(cachedTopic.topic).is(throughputLeader)
+
+        when:
+        rates["group.busy"] = 100
+        job.tune()
+
+        then:
+        producers.get(cachedTopic.topic).is(leader)
+    }
+
+    def "should demote topic below promote threshold when throughput producers fill small batches"() {
+        given:
+        def cachedTopic = registerTopic("group.busy", 2000)
+        job.tune()
+
+        when:
+        rates["group.busy"] = 700
+        reportThroughputBatchSizeAvg(parameters.throughputBatchSize * 0.1)
+        job.tune()
+
+        then:
+        producers.get(cachedTopic.topic).is(leader)
+    }
+
+    def "should keep topic above demote threshold when throughput producers fill batches"() {
+        given:
+        def cachedTopic = registerTopic("group.busy", 2000)
+        job.tune()
+
+        when:
+        rates["group.busy"] = 700
+        reportThroughputBatchSizeAvg(parameters.throughputBatchSize * 0.5)
+        job.tune()
+
+        then:
+        producers.get(cachedTopic.topic).is(throughputLeader)
+    }
+
+    def "should forget removed topics"() {
+        given:
+        def cachedTopic = registerTopic("group.busy", 2000)
+        job.tune()
+
+        when:
+        topics.clear()
+        job.tune()
+
+        then:
+        !producers.isRoutedToThroughputProducers(cachedTopic.topicName)
+    }
+
+    private void reportThroughputBatchSizeAvg(double batchSize) {
+        def name = new MetricName("batch-size-avg", "producer-metrics", "", [:])
+        throughputMetrics[name] = [metricName: { name }, value: { batchSize }, metricValue: { batchSize }] as Metric
+    }
+
+    private CachedTopic registerTopic(String name, double rate) {
+        rates[name] = rate
+        def meter = [getOneMinuteRate: { rates[name] }] as HermesRateMeter
+        def kafkaTopics = new KafkaTopics(new KafkaTopic(KafkaTopicName.valueOf(name), ContentType.JSON))
+        def cachedTopic = new CachedTopic(topic(name).build(), micrometerHermesMetrics, kafkaTopics) {
+            @Override
+            HermesRateMeter getThroughput() {
+                return meter
+            }
+        }
+        topics.add(cachedTopic)
+        cachedTopic
+    }
+}
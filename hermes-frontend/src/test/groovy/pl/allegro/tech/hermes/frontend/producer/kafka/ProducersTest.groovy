@@ -0,0 +1,151 @@
+package pl.allegro.tech.hermes.frontend.producer.kafka
+
+import org.apache.kafka.clients.producer.Callback
+import org.apache.kafka.clients.producer.MockProducer
+import org.apache.kafka.clients.producer.ProducerRecord
+import org.apache.kafka.common.serialization.ByteArraySerializer
+import pl.allegro.tech.hermes.api.Topic
+import pl.allegro.tech.hermes.api.TopicName
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+import static com.jayway.awaitility.Awaitility.await
+import static pl.allegro.tech.hermes.frontend.server.CachedTopicsTestHelper.cachedTopic
+import static pl.allegro.tech.hermes.test.helper.builder.TopicBuilder.topic
+
+class ProducersTest extends Specification {
+
+    def serializer = new ByteArraySerializer()
+    def ackLeader = (0..3).collect { new MockProducer<byte[], byte[]>(true, serializer, serializer) }
+    def ackAll = (0..3).collect { new MockProducer<byte[], byte[]>(true, serializer, serializer) }
+
+    def "should choose producer pool by topic ack"() {
+        given:
+        def producers = new Producers(ackLeader, ackAll, [:], false)
+
+        expect:
+        ackLeader.contains(producers.get(topic("group.leader").withAck(Topic.Ack.LEADER).build()))
+        ackAll.contains(producers.get(topic("group.all").withAck(Topic.Ack.ALL).build()))
+    }
+
+    def "should always choose the same producer for a topic"() {
+        given:
+        def producers = new Producers(ackLeader, ackAll, [:], false)
+        def topic = topic("group.topic").build()
+
+        expect:
+        (1..10).collect { producers.get(topic) }.unique().size() == 1
+    }
+
+    def "should spread topics over the pool"() {
+        given:
+        def producers = new Producers(ackLeader, ackAll, [:], false)
+
+        when:
+        def used = (1..100).collect { producers.get(topic("group.topic-$it").build()) }.toSet()
+
+        then:
+        used.size() == ackLeader.size()
+    }
+
+    def "should use pinned producer for a topic"() {
+        given:
+        def producers = new Producers(ackLeader, ackAll, ["group.noisy": 2], false)
+
+        expect:
+        producers.get(topic("group.noisy").build()).is(ackLeader[2])
+        producers.get(topic("group.noisy").withAck(Topic.Ack.ALL).build()).is(ackAll[2])
+    }
+
+    def "should choose the same producer for cached topic as for topic"() {
+        given:
+        def producers = new Producers(ackLeader, ackAll, ["group.topic-7": 3], false)
+        def topics = (1..20).collect { topic("group.topic-$it").withAck(it % 2 ? Topic.Ack.ALL : Topic.Ack.LEADER).build() }
+
+        expect:
+        topics.every { producers.get(cachedTopic(it)).is(producers.get(it)) }
+    }
+
+    def "should select producer pool member without building qualified name of topic"() {
+        given:
+        def selector = new ProducerPoolMemberSelector(4, ["group.noisy": 2])
+        def topic = Mock(Topic)
+        topic.getName() >> TopicName.fromQualifiedName("group.topic")
+
+        when:
+        def members = (1..3).collect { selector.select(topic) }
+
+        then:
+        members.unique().size() == 1
+        0 * topic.getQualifiedName()
+    }
+
+    def "should reject topic pinned outside of the pool"() {
+        when:
+        new Producers(ackLeader, ackAll, ["group.noisy": 4], false)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "should hold back records of topic switching pools until previous producer acknowledges its records"() {
+        given:
+        def latencyProducer = new MockProducer<byte[], byte[]>(false, serializer, serializer)
+        def throughputProducer = new MockProducer<byte[], byte[]>(true, serializer, serializer)
+        def producers = new Producers([latencyProducer], [ackAll[0]], [throughputProducer], [ackAll[1]], [:], false)
+        def cachedTopic = cachedTopic("group.topic")
+        def completed = []
+        producers.send(cachedTopic, record("first"), { metadata, e -> completed << "first" } as Callback)
+
+        when:
+        def switching = Thread.start { producers.routeToThroughputProducers(cachedTopic) }
+        await().atMost(5, TimeUnit.SECONDS).until { producers.isRoutedToThroughputProducers(cachedTopic.topicName) }
+        producers.send(cachedTopic, record("second"), { metadata, e -> completed << "second" } as Callback)
+
+        then:
+        throughputProducer.history().isEmpty()
+        switching.alive
+
+        when:
+        latencyProducer.completeNext()
+        switching.join()
+
+        then:
+        latencyProducer.history()*.value().collect { new String(it) } == ["first"]
+        throughputProducer.history()*.value().collect { new String(it) } == ["second"]
+        completed == ["first", "second"]
+    }
+
+    def "should not wait for records of other topics when topic switches pools"() {
+        given:
+        def latencyProducer = new MockProducer<byte[], byte[]>(false, serializer, serializer)
+        def producers = new Producers([latencyProducer], [ackAll[0]], [ackLeader[0]], [ackAll[1]], [:], false)
+        def completed = []
+        producers.send(cachedTopic("group.other"), record("other"), { metadata, e -> completed << "other" } as Callback)
+
+        when:
+        producers.routeToThroughputProducers(cachedTopic("group.topic"))
+
+        then:
+        producers.isRoutedToThroughputProducers(TopicName.fromQualifiedName("group.topic"))
+        completed.isEmpty()
+    }
+
+    def "should keep most topics on the same producer when pool grows"() {
+        given:
+        def selector = new ProducerPoolMemberSelector(4, [:])
+        def grownSelector = new ProducerPoolMemberSelector(5, [:])
+        def topics = (1..1000).collect { topic("group.topic-$it").build() }
+
+        when:
+        def moved = topics.count { selector.select(it) != grownSelector.select(it) }
+
+        then:
+        moved < 350
+    }
+
+    private static ProducerRecord<byte[], byte[]> record(String value) {
+        new ProducerRecord<byte[], byte[]>("group.topic", value.bytes)
+    }
+}
@@ -0,0 +1,89 @@
+package pl.allegro.tech.hermes.frontend.publishing
+
+import pl.allegro.tech.hermes.api.TopicName
+import pl.allegro.tech.hermes.frontend.publishing.handlers.TokenBucketThroughputLimiter
+import pl.allegro.tech.hermes.metrics.HermesRateMeter
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.ScheduledExecutorService
+
+class TokenBucketThroughputLimiterTest extends Specification {
+
+    def topicMax = 1000
+    def topicBurst = 2000
+    def globalMax = 3000
+    def globalBurst = 3000
+    def refillInterval = Duration.ofSeconds(1)
+
+    def topicName = new TopicName("group", "name")
+    def meter = [getOneMinuteRate: { 0.0d }] as HermesRateMeter
+    def executor = Mock(ScheduledExecutorService)
+
+    def limiter = new TokenBucketThroughputLimiter(topicMax, topicBurst, globalMax, globalBurst, refillInterval, executor)
+
+    def "should grant quota up to burst size"() {
+        when:
+        def first = limiter.checkQuota(topicName, meter, 1500)
+        def second = limiter.checkQuota(topicName, meter, 500)
+        def third = limiter.checkQuota(topicName, meter, 1)
+
+        then:
+        first.hasQuota()
+        second.hasQuota()
+        !third.hasQuota()
+        third.getReason().contains("limit:1000")
+    }
+
+    def "should not consume tokens when message size is unknown"() {
+        expect:
+        (1..10).every { limiter.checkQuota(topicName, meter).hasQuota() }
+    }
+
+    def "should refill tokens with topic rate on each interval"() {
+        given:
+        limiter.checkQuota(topicName, meter, topicBurst)
+
+        when:
+        limiter.run()
+
+        then:
+        limiter.checkQuota(topicName, meter, topicMax).hasQuota()
+        !limiter.checkQuota(topicName, meter, 1).hasQuota()
+    }
+
+    def "should not refill tokens above burst size"() {
+        given:
+        limiter.checkQuota(topicName, meter, 1)
+
+        when:
+        3.times { limiter.run() }
+
+        then:
+        limiter.checkQuota(topicName, meter, topicBurst).hasQuota()
+        !limiter.checkQuota(topicName, meter, 1).hasQuota()
+    }
+
+    def "should not grant quota when global quota is exhausted"() {
+        given:
+        limiter.checkQuota(new TopicName("group", "first"), meter, 2000)
+        limiter.checkQuota(new TopicName("group", "second"), meter, 1000)
+
+        when:
+        def quota = limiter.checkQuota(topicName, meter, 1)
+
+        then:
+        !quota.hasQuota()
+        quota.getReason().contains("Global")
+    }
+
+    def "should limit topics independently"() {
+        given:
+        def otherTopic = new TopicName("group", "other")
+        limiter.checkQuota(topicName, meter, topicBurst)
+
+        expect:
+        !limiter.checkQuota(topicName, meter).hasQuota()
+        limiter.checkQuota(otherTopic, meter).hasQuota()
+    }
+}
@@ -0,0 +1,83 @@
+package pl.allegro.tech.hermes.frontend.publishing.handlers
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+
+import static pl.allegro.tech.hermes.frontend.publishing.handlers.BatchMessageParser.LENGTH_PREFIXED
+import static pl.allegro.tech.hermes.frontend.publishing.handlers.BatchMessageParser.NDJSON
+
+class BatchMessageParserTest extends Specification {
+
+    @Unroll
+    def "should split ndjson batch #body into lines"() {
+        when:
+        def messages = BatchMessageParser.parse(NDJSON, body.bytes)
+
+        then:
+        messages.collect { new String(it) } == expected
+
+        where:
+        body                          | expected
+        '{"a":1}'                     | ['{"a":1}']
+        '{"a":1}\n{"b":2}\n'          | ['{"a":1}', '{"b":2}']
+        '{"a":1}\r\n\r\n  \n{"b":2}'  | ['{"a":1}', '{"b":2}']
+        '\n\n'                        | []
+    }
+
+    def "should split length prefixed batch"() {
+        given:
+        def body = lengthPrefixed("first".bytes, new byte[0], "third".bytes)
+
+        when:
+        def messages = BatchMessageParser.parse(LENGTH_PREFIXED, body)
+
+        then:
+        messages.collect { new String(it) } == ["first", "", "third"]
+    }
+
+    @Unroll
+    def "should reject malformed length prefixed batch"() {
+        when:
+        BatchMessageParser.parse(LENGTH_PREFIXED, body as byte[])
+
+        then:
+        thrown(BatchMessageParser.InvalidBatchException)
+
+        where:
+        body << [
+                [0, 0, 0, 10, 1, 2, 3],
+                [0, 0, 0, 1, 1, 0, 0],
+                [-1, -1, -1, -1]
+        ]
+    }
+
+    @Unroll
+    def "should recognize content type #contentType"() {
+        expect:
+        BatchMessageParser.isSupported(contentType) == supported
+
+        where:
+        contentType                                    | supported
+        "application/x-ndjson"                         | true
+        "Application/X-NDJSON; charset=utf-8"          | true
+        "application/x-hermes-length-prefixed"         | true
+        "application/json"                             | false
+        null                                           | false
+    }
+
+    def "should reject unsupported content type"() {
+        when:
+        BatchMessageParser.parse("application/json", "{}".bytes)
+
+        then:
+        thrown(BatchMessageParser.InvalidBatchException)
+    }
+
+    private static byte[] lengthPrefixed(byte[]... messages) {
+        def buffer = ByteBuffer.allocate(messages.sum { it.length + Integer.BYTES } as int)
+        messages.each { buffer.putInt(it.length).put(it) }
+        return buffer.array()
+    }
+}
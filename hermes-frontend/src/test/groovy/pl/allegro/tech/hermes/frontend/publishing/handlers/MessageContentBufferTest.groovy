@@ -0,0 +1,41 @@
+package pl.allegro.tech.hermes.frontend.publishing.handlers
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class MessageContentBufferTest extends Specification {
+
+    def "should hand over preallocated array without copying when content length is known"() {
+        given:
+        def buffer = MessageContentBuffer.forContentLength(6, 1024)
+
+        when:
+        buffer.append("abc".bytes)
+        buffer.append("def".bytes)
+        def first = buffer.toByteArray()
+
+        then:
+        new String(first) == "abcdef"
+        first.is(buffer.toByteArray())
+    }
+
+    @Unroll
+    def "should accumulate all chunks for content length #contentLength"() {
+        given:
+        def buffer = MessageContentBuffer.forContentLength(contentLength, 4)
+
+        when:
+        chunks.each { buffer.append(it.bytes) }
+
+        then:
+        buffer.size() == chunks.join().length()
+        new String(buffer.toByteArray()) == chunks.join()
+
+        where:
+        contentLength | chunks
+        -1            | ["ab", "cd", "ef", "gh"]
+        2             | ["abc", "def"]
+        10            | ["abc"]
+        100           | ["abcdef", "ghi"]
+    }
+}
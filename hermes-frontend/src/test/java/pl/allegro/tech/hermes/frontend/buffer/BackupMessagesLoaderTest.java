@@ -1,5 +1,6 @@
 package pl.allegro.tech.hermes.frontend.buffer;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.io.Files;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
@@ -9,6 +10,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.common.metric.HermesMetrics;
+import pl.allegro.tech.hermes.common.metric.MetricsFacade;
 import pl.allegro.tech.hermes.frontend.buffer.chronicle.ChronicleMapMessageRepository;
 import pl.allegro.tech.hermes.frontend.cache.topic.TopicsCache;
 import pl.allegro.tech.hermes.frontend.config.LocalMessageStorageProperties;
@@ -20,16 +23,25 @@ import pl.allegro.tech.hermes.frontend.publishing.message.JsonMessage;
 import pl.allegro.tech.hermes.frontend.publishing.message.Message;
 import pl.allegro.tech.hermes.frontend.publishing.message.MessageIdGenerator;
 import pl.allegro.tech.hermes.metrics.HermesTimerContext;
+import pl.allegro.tech.hermes.metrics.PathsCompiler;
 import pl.allegro.tech.hermes.schema.SchemaExistenceEnsurer;
 import pl.allegro.tech.hermes.schema.SchemaRepository;
 import pl.allegro.tech.hermes.test.helper.builder.TopicBuilder;
+import pl.allegro.tech.hermes.test.helper.metrics.TestMetricsFacadeFactory;
 import pl.allegro.tech.hermes.tracker.frontend.NoOperationPublishingTracker;
 import pl.allegro.tech.hermes.tracker.frontend.Trackers;
 
 import java.io.File;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static java.time.LocalDateTime.now;
 import static java.time.ZoneOffset.UTC;
@@ -103,7 +115,8 @@ public class BackupMessagesLoaderTest {
                 schemaRepository,
                 schemaExistenceEnsurer,
                 trackers,
-                localMessageStorageProperties
+                localMessageStorageProperties,
+                TestMetricsFacadeFactory.create()
             );
 
         messageRepository.save(messageOfAge(1), topic);
@@ -146,7 +159,8 @@ public class BackupMessagesLoaderTest {
                 schemaRepository,
                 schemaExistenceEnsurer,
                 trackers,
-                localMessageStorageProperties
+                localMessageStorageProperties,
+                TestMetricsFacadeFactory.create()
             );
 
         messageRepository.save(messageOfAge(1), topic);
@@ -175,7 +189,8 @@ public class BackupMessagesLoaderTest {
                 schemaRepository,
                 schemaExistenceEnsurer,
                 trackers,
-                localMessageStorageProperties
+                localMessageStorageProperties,
+                TestMetricsFacadeFactory.create()
             );
         MessageRepository messageRepository = new ChronicleMapMessageRepository(
                 new File(tempDir.getAbsoluteFile(), "messages.dat"),
@@ -213,7 +228,8 @@ public class BackupMessagesLoaderTest {
                 schemaRepository,
                 schemaExistenceEnsurer,
                 trackers,
-                localMessageStorageProperties
+                localMessageStorageProperties,
+                TestMetricsFacadeFactory.create()
             );
 
         messageRepository.save(messageOfAge(1), topic);
@@ -233,6 +249,166 @@ public class BackupMessagesLoaderTest {
         assertThat(sendMessage.getTimestamp()).isEqualTo(backupMessages.get(0).getTimestamp());
     }
 
+    @Test
+    public void shouldLimitInflightMessagesAndSendThemInTimestampOrder() throws Exception {
+        //given
+        LocalMessageStorageProperties localMessageStorageProperties = new LocalMessageStorageProperties();
+        localMessageStorageProperties.setMaxAge(Duration.ofHours(8));
+        localMessageStorageProperties.setLoadingMaxInflightMessages(2);
+        when(trackers.get(eq(topic))).thenReturn(new NoOperationPublishingTracker());
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MetricsFacade metricsFacade = new MetricsFacade(
+                meterRegistry, new HermesMetrics(new MetricRegistry(), new PathsCompiler("localhost")));
+        BackupMessagesLoader backupMessagesLoader =
+            new BackupMessagesLoader(
+                producer,
+                listeners,
+                topicsCache,
+                schemaRepository,
+                schemaExistenceEnsurer,
+                trackers,
+                localMessageStorageProperties,
+                metricsFacade
+            );
+
+        List<Integer> inflightOnSend = new CopyOnWriteArrayList<>();
+        List<Long> sentTimestamps = new CopyOnWriteArrayList<>();
+        ScheduledExecutorService brokerExecutor = Executors.newSingleThreadScheduledExecutor();
+        doAnswer(invocation -> {
+            Message message = (Message) invocation.getArguments()[0];
+            PublishingCallback callback = (PublishingCallback) invocation.getArguments()[2];
+            inflightOnSend.add(backupMessagesLoader.getInflightMessages());
+            sentTimestamps.add(message.getTimestamp());
+            brokerExecutor.schedule(() -> callback.onPublished(message, topic), 5, TimeUnit.MILLISECONDS);
+            return "";
+        }).when(producer).send(any(JsonMessage.class), eq(cachedTopic), any(PublishingCallback.class));
+
+        List<BackupMessage> backupMessages = new ArrayList<>();
+        for (int ageHours = 5; ageHours > 0; ageHours--) {
+            Message message = messageOfAge(ageHours);
+            backupMessages.add(0, new BackupMessage(message.getId(), message.getData(), message.getTimestamp(),
+                    topic.getQualifiedName(), message.getPartitionKey(), null, null));
+        }
+
+        //when
+        backupMessagesLoader.loadMessages(backupMessages);
+        brokerExecutor.shutdown();
+        brokerExecutor.awaitTermination(1, TimeUnit.SECONDS);
+
+        //then
+        assertThat(inflightOnSend).hasSize(5).allMatch(inflight -> inflight <= 2);
+        assertThat(sentTimestamps).isSorted();
+        assertThat(meterRegistry.counter("backup-storage.replay.read-messages").count()).isEqualTo(5);
+        assertThat(meterRegistry.counter("backup-storage.replay.sent-messages").count()).isEqualTo(5);
+        assertThat(backupMessagesLoader.getInflightMessages()).isZero();
+    }
+
+    @Test
+    public void shouldResendFailedMessagesOnceAllReplayedBatchesAreSent() {
+        //given
+        LocalMessageStorageProperties localMessageStorageProperties = new LocalMessageStorageProperties();
+        localMessageStorageProperties.setMaxAge(Duration.ofHours(8));
+        when(trackers.get(eq(topic))).thenReturn(new NoOperationPublishingTracker());
+
+        List<BackupMessage> backupMessages = new ArrayList<>();
+        for (int ageHours = 3; ageHours > 0; ageHours--) {
+            Message message = messageOfAge(ageHours);
+            backupMessages.add(new BackupMessage(message.getId(), message.getData(), message.getTimestamp(),
+                    topic.getQualifiedName(), message.getPartitionKey(), null, null));
+        }
+        MessageRepository messageRepository = mock(MessageRepository.class);
+        doAnswer(invocation -> {
+            Consumer<List<BackupMessage>> consumer = (Consumer<List<BackupMessage>>) invocation.getArguments()[0];
+            backupMessages.forEach(backupMessage -> consumer.accept(List.of(backupMessage)));
+            return null;
+        }).when(messageRepository).replay(any());
+
+        String failingMessageId = backupMessages.get(0).getMessageId();
+        List<String> sentMessageIds = new ArrayList<>();
+        doAnswer(invocation -> {
+            Message message = (Message) invocation.getArguments()[0];
+            PublishingCallback callback = (PublishingCallback) invocation.getArguments()[2];
+            boolean firstAttempt = !sentMessageIds.contains(message.getId());
+            sentMessageIds.add(message.getId());
+            if (firstAttempt && message.getId().equals(failingMessageId)) {
+                callback.onUnpublished(message, topic, new Exception("test"));
+            } else {
+                callback.onPublished(message, topic);
+            }
+            return "";
+        }).when(producer).send(any(JsonMessage.class), eq(cachedTopic), any(PublishingCallback.class));
+
+        BackupMessagesLoader backupMessagesLoader =
+            new BackupMessagesLoader(
+                producer,
+                listeners,
+                topicsCache,
+                schemaRepository,
+                schemaExistenceEnsurer,
+                trackers,
+                localMessageStorageProperties,
+                TestMetricsFacadeFactory.create()
+            );
+
+        //when
+        backupMessagesLoader.loadFromMessageRepository(messageRepository);
+
+        //then
+        assertThat(sentMessageIds).containsExactly(
+                failingMessageId,
+                backupMessages.get(1).getMessageId(),
+                backupMessages.get(2).getMessageId(),
+                failingMessageId
+        );
+    }
+
+    @Test
+    public void shouldReplayMessagesOfManyBatchesInTimestampOrder() {
+        //given
+        LocalMessageStorageProperties localMessageStorageProperties = new LocalMessageStorageProperties();
+        localMessageStorageProperties.setMaxAge(Duration.ofHours(8));
+        when(trackers.get(eq(topic))).thenReturn(new NoOperationPublishingTracker());
+
+        MessageRepository messageRepository = new ChronicleMapMessageRepository(
+                new File(tempDir.getAbsoluteFile(), "messages.dat"),
+                3000,
+                AVERAGE_MESSAGE_SIZE
+        );
+        long now = now().toInstant(UTC).toEpochMilli();
+        Random random = new Random(42);
+        for (int i = 0; i < 2500; i++) {
+            messageRepository.save(new JsonMessage(MessageIdGenerator.generate(), "{'a':'b'}".getBytes(),
+                    now - random.nextInt(3_600_000), "partition-key"), topic);
+        }
+
+        List<Long> sentTimestamps = new ArrayList<>();
+        doAnswer(invocation -> {
+            Message message = (Message) invocation.getArguments()[0];
+            sentTimestamps.add(message.getTimestamp());
+            ((PublishingCallback) invocation.getArguments()[2]).onPublished(message, topic);
+            return "";
+        }).when(producer).send(any(JsonMessage.class), eq(cachedTopic), any(PublishingCallback.class));
+
+        BackupMessagesLoader backupMessagesLoader =
+            new BackupMessagesLoader(
+                producer,
+                listeners,
+                topicsCache,
+                schemaRepository,
+                schemaExistenceEnsurer,
+                trackers,
+                localMessageStorageProperties,
+                TestMetricsFacadeFactory.create()
+            );
+
+        //when
+        backupMessagesLoader.loadFromMessageRepository(messageRepository);
+
+        //then
+        assertThat(sentTimestamps).hasSize(2500).isSorted();
+    }
+
     private Message messageOfAge(int ageHours) {
         return new JsonMessage(
                 MessageIdGenerator.generate(),
@@ -0,0 +1,254 @@
+package pl.allegro.tech.hermes.frontend.buffer;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.frontend.buffer.wal.WriteAheadLogClosedException;
+import pl.allegro.tech.hermes.frontend.buffer.wal.WriteAheadLogMessageRepository;
+import pl.allegro.tech.hermes.frontend.publishing.avro.AvroMessage;
+import pl.allegro.tech.hermes.frontend.publishing.message.JsonMessage;
+import pl.allegro.tech.hermes.frontend.publishing.message.Message;
+import pl.allegro.tech.hermes.frontend.publishing.message.MessageIdGenerator;
+import pl.allegro.tech.hermes.schema.CompiledSchema;
+import pl.allegro.tech.hermes.test.helper.avro.AvroUser;
+import pl.allegro.tech.hermes.test.helper.avro.AvroUserSchemaLoader;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pl.allegro.tech.hermes.test.helper.builder.TopicBuilder.topic;
+
+public class WriteAheadLogMessageRepositoryTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(10);
+    private static final double COMPACTION_LIVE_RATIO = 0.5;
+
+    private final Topic topic = topic("groupName.topic").build();
+
+    private File directory;
+    private MessageRepository messageRepository;
+
+    @Before
+    public void setUp() {
+        directory = Files.createTempDir();
+        messageRepository = new WriteAheadLogMessageRepository(directory, SEGMENT_SIZE, FLUSH_INTERVAL, COMPACTION_LIVE_RATIO);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        messageRepository.close();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void shouldSaveFindAndDeleteMessage() {
+        //given
+        Message message = generateJsonMessage();
+
+        //when
+        messageRepository.save(message, topic);
+
+        //then
+        assertThat(messageRepository.findAll()).containsExactly(backupMessage(message, null, null));
+
+        //when
+        messageRepository.delete(message.getId());
+
+        //then
+        assertThat(messageRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void shouldSaveMultipleTimesFindAndDeleteMessage() {
+        //given
+        Message message1 = generateJsonMessage();
+        Message message2 = generateJsonMessage();
+
+        //when
+        messageRepository.save(message1, topic);
+        messageRepository.save(message2, topic);
+        messageRepository.save(message1, topic);
+        messageRepository.save(message2, topic);
+
+        //then
+        assertThat(messageRepository.findAll()).containsExactlyInAnyOrder(
+                backupMessage(message1, null, null), backupMessage(message2, null, null));
+
+        //when
+        messageRepository.delete(message1.getId());
+
+        //then
+        assertThat(messageRepository.findAll()).containsExactly(backupMessage(message2, null, null));
+    }
+
+    @Test
+    public void shouldSaveFindAndDeleteAvroMessage() {
+        //given
+        AvroUser avroUser = new AvroUser("Bob", 18, "blue");
+        Message message = new AvroMessage(MessageIdGenerator.generate(), avroUser.asBytes(), System.currentTimeMillis(),
+                CompiledSchema.of(AvroUserSchemaLoader.load(), 1, 1), null);
+
+        //when
+        messageRepository.save(message, topic);
+
+        //then
+        assertThat(messageRepository.findAll()).containsExactly(backupMessage(message, 1, 1));
+    }
+
+    @Test
+    public void shouldRestoreMessagesAndTombstonesAfterReopening() {
+        //given
+        Message deleted = generateJsonMessage();
+        Message kept = generateJsonMessage();
+        messageRepository.save(deleted, topic);
+        messageRepository.save(kept, topic);
+        messageRepository.delete(deleted.getId());
+        messageRepository.close();
+
+        //when
+        messageRepository = new WriteAheadLogMessageRepository(directory, SEGMENT_SIZE, FLUSH_INTERVAL, COMPACTION_LIVE_RATIO);
+
+        //then
+        assertThat(messageRepository.findAll()).containsExactly(backupMessage(kept, null, null));
+    }
+
+    @Test
+    public void shouldReplayMessagesInBatchesInTimestampOrder() {
+        //given
+        long now = System.currentTimeMillis();
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            Message message = new JsonMessage(MessageIdGenerator.generate(), "{}".getBytes(), now - i, "partition-key");
+            messages.add(0, message);
+            messageRepository.save(message, topic);
+        }
+        List<List<BackupMessage>> batches = new ArrayList<>();
+
+        //when
+        messageRepository.replay(batches::add);
+
+        //then
+        assertThat(batches).hasSize(3);
+        assertThat(batches.stream().flatMap(List::stream).map(BackupMessage::getMessageId))
+                .containsExactlyElementsOf(messages.stream().map(Message::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldAcceptWritesFromOtherThreadsWhileReplaying() {
+        //given
+        Message replayed = generateJsonMessage();
+        Message savedDuringReplay = generateJsonMessage();
+        messageRepository.save(replayed, topic);
+        List<BackupMessage> messages = new ArrayList<>();
+
+        //when
+        messageRepository.replay(batch -> {
+            messages.addAll(batch);
+            CompletableFuture.runAsync(() -> messageRepository.save(savedDuringReplay, topic))
+                    .orTimeout(5, TimeUnit.SECONDS)
+                    .join();
+        });
+
+        //then
+        assertThat(messages).containsExactly(backupMessage(replayed, null, null));
+        assertThat(messageRepository.findAll()).containsExactlyInAnyOrder(
+                backupMessage(replayed, null, null), backupMessage(savedDuringReplay, null, null));
+    }
+
+    @Test
+    public void shouldRemoveSegmentsWithoutLiveMessages() {
+        //given
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Message message = generateJsonMessage();
+            messages.add(message);
+            messageRepository.save(message, topic);
+        }
+        int segmentsBeforeCompaction = directory.listFiles().length;
+
+        //when
+        messages.forEach(message -> messageRepository.delete(message.getId()));
+
+        //then
+        assertThat(segmentsBeforeCompaction).isGreaterThan(1);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> directory.listFiles().length < segmentsBeforeCompaction);
+        assertThat(messageRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void shouldRelocateOldLiveMessageAndRemoveFollowingSegments() {
+        //given
+        Message oldMessage = generateJsonMessage();
+        messageRepository.save(oldMessage, topic);
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Message message = generateJsonMessage();
+            messages.add(message);
+            messageRepository.save(message, topic);
+        }
+        int segmentsBeforeCompaction = directory.listFiles().length;
+
+        //when
+        messages.forEach(message -> messageRepository.delete(message.getId()));
+
+        //then
+        assertThat(segmentsBeforeCompaction).isGreaterThan(5);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> directory.listFiles().length <= 2);
+        assertThat(messageRepository.findAll()).containsExactly(backupMessage(oldMessage, null, null));
+
+        //when
+        messageRepository.close();
+        messageRepository = new WriteAheadLogMessageRepository(directory, SEGMENT_SIZE, FLUSH_INTERVAL, COMPACTION_LIVE_RATIO);
+
+        //then
+        assertThat(messageRepository.findAll()).containsExactly(backupMessage(oldMessage, null, null));
+    }
+
+    @Test
+    public void shouldStoreMessageLargerThanSegment() {
+        //given
+        Message message = generateJsonMessage(new String(new char[4 * SEGMENT_SIZE]).replace('\0', 'a'));
+
+        //when
+        messageRepository.save(message, topic);
+
+        //then
+        assertThat(messageRepository.findAll()).containsExactly(backupMessage(message, null, null));
+    }
+
+    @Test
+    public void shouldRejectMessagesAfterClose() {
+        //given
+        messageRepository.close();
+
+        //when & then
+        assertThatThrownBy(() -> messageRepository.save(generateJsonMessage(), topic))
+                .isInstanceOf(WriteAheadLogClosedException.class);
+    }
+
+    private BackupMessage backupMessage(Message message, Integer schemaVersion, Integer schemaId) {
+        return new BackupMessage(message.getId(), message.getData(), message.getTimestamp(), topic.getQualifiedName(),
+                message.getPartitionKey(), schemaVersion, schemaId);
+    }
+
+    private Message generateJsonMessage() {
+        return generateJsonMessage(UUID.randomUUID().toString());
+    }
+
+    private Message generateJsonMessage(String content) {
+        return new JsonMessage(MessageIdGenerator.generate(), content.getBytes(), System.currentTimeMillis(), "partition-key");
+    }
+}
@@ -0,0 +1,250 @@
+package pl.allegro.tech.hermes.frontend.publishing.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.undertow.io.Receiver;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.ServerConnection;
+import io.undertow.util.HeaderMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.xnio.XnioExecutor;
+import org.xnio.XnioIoThread;
+import org.xnio.XnioWorker;
+import pl.allegro.tech.hermes.api.ErrorCode;
+import pl.allegro.tech.hermes.api.ErrorDescription;
+import pl.allegro.tech.hermes.api.Topic;
+import pl.allegro.tech.hermes.api.TopicName;
+import pl.allegro.tech.hermes.frontend.metric.CachedTopic;
+import pl.allegro.tech.hermes.frontend.producer.BrokerMessageProducer;
+import pl.allegro.tech.hermes.frontend.publishing.PublishingCallback;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.end.MessageEndProcessor;
+import pl.allegro.tech.hermes.frontend.publishing.handlers.end.MessageErrorProcessor;
+import pl.allegro.tech.hermes.frontend.publishing.message.JsonMessage;
+import pl.allegro.tech.hermes.frontend.publishing.message.Message;
+import pl.allegro.tech.hermes.frontend.publishing.message.MessageFactory;
+import pl.allegro.tech.hermes.frontend.publishing.message.MessageState;
+import pl.allegro.tech.hermes.metrics.HermesRateMeter;
+import pl.allegro.tech.hermes.metrics.HermesTimerContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static pl.allegro.tech.hermes.frontend.publishing.handlers.BatchMessageParser.NDJSON;
+import static pl.allegro.tech.hermes.test.helper.builder.TopicBuilder.topic;
+
+public class BatchPublishingHandlerTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(100);
+
+    private final Topic topic = topic("group.topic").withMaxMessageSize(100).build();
+    private final CachedTopic cachedTopic = mock(CachedTopic.class);
+    private final MessageFactory messageFactory = mock(MessageFactory.class);
+    private final BrokerMessageProducer producer = mock(BrokerMessageProducer.class);
+    private final MessageErrorProcessor messageErrorProcessor = mock(MessageErrorProcessor.class);
+    private final MessageEndProcessor messageEndProcessor = mock(MessageEndProcessor.class);
+    private final ThroughputLimiter throughputLimiter = mock(ThroughputLimiter.class);
+    private final XnioIoThread ioThread = mock(XnioIoThread.class);
+    private final XnioWorker worker = mock(XnioWorker.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<PublishingCallback> callbacks = new ArrayList<>();
+    private final List<Runnable> timeouts = new ArrayList<>();
+
+    private HttpServerExchange exchange;
+    private AttachmentContent attachment;
+    private BatchPublishingHandler handler;
+
+    @Before
+    public void setUp() {
+        ServerConnection connection = mock(ServerConnection.class);
+        when(connection.getIoThread()).thenReturn(ioThread);
+        when(connection.getWorker()).thenReturn(worker);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(worker).execute(any(Runnable.class));
+        doAnswer(invocation -> {
+            timeouts.add((Runnable) invocation.getArguments()[0]);
+            return mock(XnioExecutor.Key.class);
+        }).when(ioThread).executeAfter(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+        exchange = new HttpServerExchange(connection);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        when(cachedTopic.getTopic()).thenReturn(topic);
+        when(cachedTopic.getQualifiedName()).thenReturn(topic.getQualifiedName());
+        when(cachedTopic.startBrokerLatencyTimer()).thenAnswer(invocation -> HermesTimerContext.from(
+                meterRegistry.timer("broker-latency"), new com.codahale.metrics.Timer()));
+        when(throughputLimiter.checkQuota(any(TopicName.class), any(HermesRateMeter.class), anyLong()))
+                .thenReturn(ThroughputLimiter.QuotaInsight.quotaConfirmed());
+        when(messageFactory.create(any(HeaderMap.class), eq(topic), anyString(), any(byte[].class))).thenAnswer(invocation ->
+                new JsonMessage((String) invocation.getArguments()[2], (byte[]) invocation.getArguments()[3],
+                        System.currentTimeMillis(), null));
+        doAnswer(invocation -> {
+            callbacks.add((PublishingCallback) invocation.getArguments()[2]);
+            return null;
+        }).when(producer).send(any(Message.class), eq(cachedTopic), any(PublishingCallback.class));
+
+        attachment = new AttachmentContent(cachedTopic, null, "batch-id");
+        handler = new BatchPublishingHandler(messageFactory, producer, messageErrorProcessor, messageEndProcessor,
+                throughputLimiter, objectMapper, false, 10, 1024, TIMEOUT);
+    }
+
+    @Test
+    public void shouldRespondWithCreatedWhenAllMessagesArePublished() throws Exception {
+        //given
+        handler.batchRead(exchange, attachment, NDJSON, "{\"a\":1}\n{\"a\":2}".getBytes());
+
+        //when
+        publish(0);
+        publish(1);
+
+        //then
+        JsonNode results = verifyResponse(201);
+        assertThat(statuses(results)).containsExactly(201, 201);
+        verify(messageEndProcessor, times(2)).sentInBatch(eq(exchange), eq(cachedTopic), any(Message.class));
+    }
+
+    @Test
+    public void shouldRespondWithAcceptedWhenMessagesAreBufferedOnTimeout() throws Exception {
+        //given
+        handler.batchRead(exchange, attachment, NDJSON, "{\"a\":1}\n{\"a\":2}".getBytes());
+        publish(0);
+
+        //when
+        timeouts.forEach(Runnable::run);
+
+        //then
+        JsonNode results = verifyResponse(202);
+        assertThat(statuses(results)).containsExactly(201, 202);
+        verify(messageEndProcessor).bufferedInBatch(eq(exchange), eq(cachedTopic), any(Message.class), any());
+    }
+
+    @Test
+    public void shouldRespondWithMultiStatusWhenSomeMessagesAreNotPublished() throws Exception {
+        //given
+        handler.batchRead(exchange, attachment, NDJSON, "{\"a\":1}\n{\"a\":2}\n{\"a\":3}".getBytes());
+
+        //when
+        publish(0);
+        callbacks.get(1).onUnpublished(message(1), topic, new RuntimeException("broker unavailable"));
+        publish(2);
+
+        //then
+        JsonNode results = verifyResponse(207);
+        assertThat(statuses(results)).containsExactly(201, 500, 201);
+        assertThat(results.get(1).get("error").get("message").asText()).contains("broker unavailable");
+    }
+
+    @Test
+    public void shouldReportMessageAsTimedOutWhenItCanNotBeBufferedAnymore() throws Exception {
+        //given
+        handler.batchRead(exchange, attachment, NDJSON, "{\"a\":1}\n{\"a\":2}".getBytes());
+        // timeout elapses while acknowledgement of the first message is being handled
+        doAnswer(invocation -> {
+            timeouts.forEach(Runnable::run);
+            return null;
+        }).when(messageEndProcessor).sentInBatch(eq(exchange), eq(cachedTopic), any(Message.class));
+
+        //when
+        publish(0);
+
+        //then
+        JsonNode results = verifyResponse(207);
+        assertThat(statuses(results)).containsExactly(408, 202);
+    }
+
+    @Test
+    public void shouldRespondWithMultiStatusWhenMessageIsTooLarge() throws Exception {
+        //given
+        handler = new BatchPublishingHandler(messageFactory, producer, messageErrorProcessor, messageEndProcessor,
+                throughputLimiter, objectMapper, true, 10, 1024, TIMEOUT);
+        String tooLarge = "{\"a\":\"" + "x".repeat(topic.getMaxMessageSize()) + "\"}";
+
+        //when
+        handler.batchRead(exchange, attachment, NDJSON, ("{\"a\":1}\n" + tooLarge).getBytes());
+        publish(0);
+
+        //then
+        JsonNode results = verifyResponse(207);
+        assertThat(statuses(results)).containsExactly(201, 400);
+        assertThat(timeouts).isEmpty();
+    }
+
+    @Test
+    public void shouldRespondWithTimeoutWhenBatchIsNotReadInTime() {
+        //given
+        attachment = new AttachmentContent(cachedTopic, new MessageState(), "batch-id");
+        Receiver receiver = mock(Receiver.class);
+        handler.readBatch(exchange, attachment, NDJSON, receiver);
+        ArgumentCaptor<Receiver.FullBytesCallback> bodyRead = ArgumentCaptor.forClass(Receiver.FullBytesCallback.class);
+        verify(receiver).receiveFullBytes(bodyRead.capture(), any(Receiver.ErrorCallback.class));
+
+        //when
+        timeouts.forEach(Runnable::run);
+        bodyRead.getValue().handle(exchange, "{\"a\":1}".getBytes());
+
+        //then
+        ArgumentCaptor<ErrorDescription> error = ArgumentCaptor.forClass(ErrorDescription.class);
+        verify(receiver).pause();
+        verify(messageErrorProcessor).sendAndLog(eq(exchange), eq(topic), eq("batch-id"), error.capture());
+        assertThat(error.getValue().getCode()).isEqualTo(ErrorCode.TIMEOUT);
+        assertThat(callbacks).isEmpty();
+    }
+
+    @Test
+    public void shouldPublishBatchReadInTime() {
+        //given
+        attachment = new AttachmentContent(cachedTopic, new MessageState(), "batch-id");
+        Receiver receiver = mock(Receiver.class);
+        handler.readBatch(exchange, attachment, NDJSON, receiver);
+        ArgumentCaptor<Receiver.FullBytesCallback> bodyRead = ArgumentCaptor.forClass(Receiver.FullBytesCallback.class);
+        verify(receiver).receiveFullBytes(bodyRead.capture(), any(Receiver.ErrorCallback.class));
+
+        //when
+        bodyRead.getValue().handle(exchange, "{\"a\":1}".getBytes());
+        timeouts.get(0).run();
+
+        //then
+        assertThat(callbacks).hasSize(1);
+        verify(receiver, never()).pause();
+        verify(messageErrorProcessor, never()).sendAndLog(eq(exchange), eq(topic), eq("batch-id"), any(ErrorDescription.class));
+    }
+
+    private void publish(int index) {
+        callbacks.get(index).onPublished(message(index), topic);
+    }
+
+    private Message message(int index) {
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(producer, times(callbacks.size())).send(messages.capture(), eq(cachedTopic), any(PublishingCallback.class));
+        return messages.getAllValues().get(index);
+    }
+
+    private JsonNode verifyResponse(int statusCode) throws Exception {
+        ArgumentCaptor<String> results = ArgumentCaptor.forClass(String.class);
+        verify(messageEndProcessor).batchProcessed(eq(exchange), eq(attachment), eq(statusCode), results.capture());
+        return objectMapper.readTree(results.getValue());
+    }
+
+    private static List<Integer> statuses(JsonNode results) {
+        List<Integer> statuses = new ArrayList<>();
+        results.forEach(result -> statuses.add(result.get("status").asInt()));
+        return statuses;
+    }
+}
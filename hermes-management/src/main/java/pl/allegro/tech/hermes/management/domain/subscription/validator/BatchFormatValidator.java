@@ -0,0 +1,19 @@
+package pl.allegro.tech.hermes.management.domain.subscription.validator;
+
+import pl.allegro.tech.hermes.api.BatchFormat;
+import pl.allegro.tech.hermes.api.Subscription;
+
+class BatchFormatValidator {
+
+    private static final String ERROR_MESSAGE = "Batch format %s doesn't match subscription content type %s";
+
+    void check(Subscription subscription) {
+        if (!subscription.isBatchSubscription()) {
+            return;
+        }
+        BatchFormat format = subscription.getBatchSubscriptionPolicy().getBatchFormat();
+        if (!format.supports(subscription.getContentType())) {
+            throw new SubscriptionValidationException(String.format(ERROR_MESSAGE, format, subscription.getContentType()));
+        }
+    }
+}
@@ -17,6 +17,7 @@ public class SubscriptionValidator {
     private final OwnerIdValidator ownerIdValidator;
     private final ApiPreconditions apiPreconditions;
     private final MessageFilterTypeValidator messageFilterTypeValidator;
+    private final BatchFormatValidator batchFormatValidator;
     private final TopicService topicService;
     private final SubscriptionRepository subscriptionRepository;
     private final List<EndpointAddressValidator> endpointAddressValidators;
@@ -33,6 +34,7 @@ public class SubscriptionValidator {
         this.ownerIdValidator = ownerIdValidator;
         this.apiPreconditions = apiPreconditions;
         this.messageFilterTypeValidator = new MessageFilterTypeValidator();
+        this.batchFormatValidator = new BatchFormatValidator();
         this.topicService = topicService;
         this.subscriptionRepository = subscriptionRepository;
         this.endpointAddressValidators = endpointAddressValidators;
@@ -44,6 +46,7 @@ public class SubscriptionValidator {
         apiPreconditions.checkConstraints(toCheck, createdBy.isAdmin());
         checkOwner(toCheck);
         checkEndpoint(toCheck);
+        checkBatchFormat(toCheck);
         checkPermissionsToManageSubscription(toCheck, createdBy);
         Topic topic = topicService.getTopicDetails(toCheck.getTopicName());
         checkFilters(toCheck, topic);
@@ -57,6 +60,7 @@ public class SubscriptionValidator {
         apiPreconditions.checkConstraints(toCheck, modifiedBy.isAdmin());
         checkOwner(toCheck);
         checkEndpoint(toCheck);
+        checkBatchFormat(toCheck);
         checkPermissionsToManageSubscription(toCheck, modifiedBy);
         Topic topic = topicService.getTopicDetails(toCheck.getTopicName());
         checkFilters(toCheck, topic);
@@ -75,6 +79,10 @@ public class SubscriptionValidator {
         endpointOwnershipValidator.check(toCheck.getOwner(), toCheck.getEndpoint());
     }
 
+    private void checkBatchFormat(Subscription toCheck) {
+        batchFormatValidator.check(toCheck);
+    }
+
     private void checkFilters(Subscription toCheck, Topic topic) {
         messageFilterTypeValidator.check(toCheck, topic);
     }
@@ -0,0 +1,71 @@
+package pl.allegro.tech.hermes.management.domain.subscription.validator
+
+import pl.allegro.tech.hermes.api.BatchFormat
+import pl.allegro.tech.hermes.api.ContentType
+import pl.allegro.tech.hermes.api.Subscription
+import pl.allegro.tech.hermes.test.helper.builder.SubscriptionBuilder
+import spock.lang.Specification
+
+import static pl.allegro.tech.hermes.api.BatchSubscriptionPolicy.Builder.batchSubscriptionPolicy
+
+class BatchFormatValidatorTest extends Specification {
+
+    private BatchFormatValidator validator = new BatchFormatValidator()
+
+    def "should not return violations for serial subscription"() {
+
+        given:
+            Subscription subscription = SubscriptionBuilder.subscription("com.example", "testName")
+                    .withContentType(ContentType.AVRO)
+                    .build()
+
+        when:
+            validator.check(subscription)
+
+        then:
+            noExceptionThrown()
+    }
+
+    def "should not return violations for valid content type batch format combinations"() {
+
+        given:
+            Subscription subscription = createBatchSubscription(contentType, batchFormat)
+
+        when:
+            validator.check(subscription)
+
+        then:
+            noExceptionThrown()
+
+        where:
+            contentType      | batchFormat
+            ContentType.JSON | BatchFormat.JSON_ARRAY
+            ContentType.JSON | BatchFormat.LENGTH_PREFIXED
+            ContentType.AVRO | BatchFormat.AVRO_OBJECT_CONTAINER
+            ContentType.AVRO | BatchFormat.LENGTH_PREFIXED
+    }
+
+    def "should return violations for invalid content type batch format combinations"() {
+
+        given:
+            Subscription subscription = createBatchSubscription(contentType, batchFormat)
+
+        when:
+            validator.check(subscription)
+
+        then:
+            thrown SubscriptionValidationException
+
+        where:
+            contentType      | batchFormat
+            ContentType.AVRO | BatchFormat.JSON_ARRAY
+            ContentType.JSON | BatchFormat.AVRO_OBJECT_CONTAINER
+    }
+
+    private Subscription createBatchSubscription(ContentType contentType, BatchFormat batchFormat) {
+        return SubscriptionBuilder.subscription("com.example", "testName")
+                .withContentType(contentType)
+                .withSubscriptionPolicy(batchSubscriptionPolicy().withBatchFormat(batchFormat).build())
+                .build()
+    }
+}
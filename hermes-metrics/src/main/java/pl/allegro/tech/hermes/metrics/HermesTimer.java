@@ -1,5 +1,7 @@
 package pl.allegro.tech.hermes.metrics;
 
+import java.util.concurrent.TimeUnit;
+
 public class HermesTimer {
     private final io.micrometer.core.instrument.Timer micrometerTimer;
     private final com.codahale.metrics.Timer graphiteTimer;
@@ -18,4 +20,9 @@ public class HermesTimer {
     public HermesTimerContext time() {
         return HermesTimerContext.from(micrometerTimer, graphiteTimer);
     }
+
+    public void record(long amount, TimeUnit unit) {
+        graphiteTimer.update(amount, unit);
+        micrometerTimer.record(amount, unit);
+    }
 }
\ No newline at end of file